@@ -0,0 +1,75 @@
+package cafe.data.parser.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cafe.data.parser.Customer;
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.PopulationCube;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.ViewsCustomerJoin;
+import cafe.data.parser.ViewsData;
+
+/**
+ * Benchmarks rebuilding the customers from a synthetic point of sale file of {@link #rows} rows, counting them into a {@link PopulationCube},
+ * and joining them with the views of a synthetic views file of as many rows in a {@link ViewsCustomerJoin}.
+ * @author Ryan Zembrodt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerBenchmark {
+	
+	@Param({ "10000", "100000", "1000000" })
+	public int rows;
+	
+	private PosColumns posData;
+	private List<Customer> customers;
+	private List<ViewsData> viewsData;
+	
+	@Setup(Level.Trial)
+	public void loadPosData() throws IOException {
+		SyntheticFiles files = SyntheticFiles.inTempDirectory(rows);
+		try {
+			posData = DataLoader.loadPointOfSaleData(files.writePosFile().getPath(), LoadOptions.DEFAULT);
+			customers = CustomerAssembler.assemble(posData);
+			viewsData = DataLoader.loadViewsData(files.writeViewsFile().getPath(), LoadOptions.DEFAULT);
+		} finally {
+			files.delete();
+		}
+	}
+	
+	@Benchmark
+	public List<Customer> assembleCustomers() {
+		return CustomerAssembler.assemble(posData);
+	}
+	
+	@Benchmark
+	public PopulationCube countPopulation() {
+		return PopulationCube.count(customers);
+	}
+	
+	@Benchmark
+	public ViewsCustomerJoin joinViews() {
+		return ViewsCustomerJoin.join(viewsData, customers);
+	}
+}
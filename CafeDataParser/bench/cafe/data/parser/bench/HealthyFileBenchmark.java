@@ -0,0 +1,61 @@
+package cafe.data.parser.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cafe.data.parser.CafeDataParser;
+import cafe.data.parser.Customer;
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.io.CsvSink;
+
+/**
+ * Benchmarks writing the rows of {@link CafeDataParser#buildHealthyFile(List)} to a sink discarding them,
+ * for the customers of a synthetic point of sale file of {@link #rows} rows.
+ * @author Ryan Zembrodt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HealthyFileBenchmark {
+	
+	@Param({ "10000", "100000", "1000000" })
+	public int rows;
+	
+	private List<Customer> customers;
+	
+	@Setup(Level.Trial)
+	public void loadCustomers() throws IOException {
+		SyntheticFiles files = SyntheticFiles.inTempDirectory(rows);
+		try {
+			customers = CustomerAssembler.assemble(DataLoader.loadPointOfSaleData(files.writePosFile().getPath(), LoadOptions.DEFAULT));
+		} finally {
+			files.delete();
+		}
+	}
+	
+	@Benchmark
+	public void buildHealthyFile() throws IOException {
+		try (CsvSink sink = NullOutput.sink()) {
+			CafeDataParser.buildHealthyFile(customers, sink);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package cafe.data.parser.bench;
+
+import java.io.OutputStream;
+
+import cafe.data.parser.io.CsvSink;
+
+/**
+ * Output stream discarding everything written to it, so the writing benchmarks measure formatting rather than the disk.
+ * @author Ryan Zembrodt
+ */
+public class NullOutput extends OutputStream {
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	/**
+	 * @return a sink discarding its rows, buffered like a sink writing to a file
+	 */
+	public static CsvSink sink() {
+		return new CsvSink(new NullOutput(), BUFFER_SIZE);
+	}
+	
+	@Override
+	public void write(int b) {
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) {
+	}
+}
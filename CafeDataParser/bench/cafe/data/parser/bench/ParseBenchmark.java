@@ -0,0 +1,104 @@
+package cafe.data.parser.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.GatesData;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.ParallelPosLoader;
+import cafe.data.parser.PointOfSaleData;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.RowSource;
+import cafe.data.parser.ViewsData;
+import cafe.data.parser.WeatherData;
+
+/**
+ * Benchmarks parsing each data file, from synthetic files of {@link #rows} rows written by {@link SyntheticFiles}.
+ * The point of sale file is parsed into its columns, sequentially and on all cores, and streamed as {@link PointOfSaleData} rows.
+ * @author Ryan Zembrodt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+	
+	@Param({ "10000", "100000", "1000000" })
+	public int rows;
+	
+	private SyntheticFiles files;
+	
+	@Setup(Level.Trial)
+	public void writeFiles() throws IOException {
+		files = SyntheticFiles.inTempDirectory(rows);
+		files.writeAll();
+	}
+	
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		files.delete();
+	}
+	
+	@Benchmark
+	public List<WeatherData> parseWeather() throws IOException {
+		return DataLoader.loadWeatherData(files.getWeatherFile().getPath(), LoadOptions.DEFAULT);
+	}
+	
+	@Benchmark
+	public List<GatesData> parseGates() throws IOException {
+		return DataLoader.loadGatesData(files.getGatesFile().getPath(), LoadOptions.DEFAULT);
+	}
+	
+	@Benchmark
+	public List<ViewsData> parseViews() throws IOException {
+		return DataLoader.loadViewsData(files.getViewsFile().getPath(), LoadOptions.DEFAULT);
+	}
+	
+	@Benchmark
+	public PosColumns parsePos() throws IOException {
+		return DataLoader.loadPointOfSaleData(files.getPosFile().getPath(), LoadOptions.DEFAULT);
+	}
+	
+	/**
+	 * Parses only the columns read by the customers, as a build of the healthy file does.
+	 */
+	@Benchmark
+	public PosColumns parsePosCustomerColumns() throws IOException {
+		return DataLoader.loadPointOfSaleData(files.getPosFile().getPath(), LoadOptions.DEFAULT.withProjection(CustomerAssembler.COLUMNS));
+	}
+	
+	@Benchmark
+	public PosColumns parsePosParallel() throws IOException {
+		return ParallelPosLoader.load(files.getPosFile().getPath(), LoadOptions.DEFAULT);
+	}
+	
+	@Benchmark
+	public void streamPosRows(Blackhole blackhole) throws IOException {
+		try (RowSource<PointOfSaleData> source = RowSource.pointOfSaleData(files.getPosFile().getPath(), LoadOptions.DEFAULT)) {
+			PointOfSaleData row;
+			while ((row = source.read()) != null) {
+				blackhole.consume(row);
+			}
+		}
+	}
+}
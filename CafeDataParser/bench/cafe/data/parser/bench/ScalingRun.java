@@ -0,0 +1,219 @@
+package cafe.data.parser.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.List;
+
+import cafe.data.parser.CafeDataParser;
+import cafe.data.parser.Customer;
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.GatesData;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.ParallelPosLoader;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.ViewsData;
+import cafe.data.parser.WeatherData;
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.synthetic.SyntheticDataGenerator;
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Scaling test running every stage on the files of {@link SyntheticDataGenerator} at increasing scales, recording the time
+ * and peak heap of each stage. The peak heap is the highest total heap use sampled every millisecond during the stage,
+ * after a collection before the stage, so it includes the data kept from the earlier stages as a real run would.
+ * The memory pools' own peaks are not added up as they are reached at different times, which would overstate the peak.
+ * Give the JVM a large enough heap for the largest scale (-Xmx).
+ * <p>
+ * Arguments: the scales to run, 1, 10, and 100 by default. The results are printed and appended to scaling.csv.
+ * @author Ryan Zembrodt
+ */
+public class ScalingRun {
+	private static final String RESULTS_FILE = "scaling.csv";
+	
+	/**
+	 * A step of a run, returning the number of rows it produced.
+	 */
+	private interface Step {
+		long run() throws IOException;
+	}
+	
+	/**
+	 * Thread sampling the heap used by the JVM until it is stopped, keeping the highest sample.
+	 */
+	private static class HeapSampler extends Thread {
+		private static final long INTERVAL_MILLIS = 1;
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		private volatile boolean stopped;
+		private long peak;
+		
+		private HeapSampler() {
+			setDaemon(true);
+			sample();
+		}
+		
+		@Override
+		public void run() {
+			while (!stopped) {
+				sample();
+				try {
+					Thread.sleep(INTERVAL_MILLIS);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+		
+		private void sample() {
+			peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+		}
+		
+		/**
+		 * Stops sampling, taking a last sample.
+		 * @return the highest heap use sampled, in bytes
+		 */
+		private long finish() throws InterruptedException {
+			stopped = true;
+			join();
+			sample();
+			return peak;
+		}
+	}
+	
+	private final double scale;
+	private final CsvSink results;
+	
+	private ScalingRun(double scale, CsvSink results) {
+		this.scale = scale;
+		this.results = results;
+	}
+	
+	public static void main(String[] args) throws IOException {
+		String[] scales = args.length > 0 ? args : new String[] { "1", "10", "100" };
+		boolean header = !new File(RESULTS_FILE).exists();
+		try (CsvSink results = new CsvSink(new FileOutputStream(RESULTS_FILE, true), 1 << 16)) {
+			if (header) {
+				results.writeLine("Scale,Stage,Rows,Millis,PeakHeapMB");
+			}
+			System.out.println(String.format("%8s %-22s %12s %10s %12s", "Scale", "Stage", "Rows", "Millis", "PeakHeapMB"));
+			for (String scale : scales) {
+				new ScalingRun(Double.parseDouble(scale), results).run();
+				results.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Runs every stage at this scale, in a temporary directory deleted afterwards.
+	 */
+	private void run() throws IOException {
+		final File directory = Files.createTempDirectory("cafe-scaling").toFile();
+		try {
+			final SyntheticDataGenerator generator = new SyntheticDataGenerator(scale, SyntheticDataGenerator.DEFAULT_SEED);
+			final ParseErrors errors = new ParseErrors();
+			final LoadOptions options = LoadOptions.DEFAULT.withErrors(errors);
+			final Object[] data = new Object[5];
+			
+			stage("generate", new Step() {
+				public long run() throws IOException {
+					generator.writeAll(directory);
+					return (long)generator.getWeatherRows() + generator.getGatesRows() + generator.getViewsRows() + generator.getPosRows();
+				}
+			});
+			stage("parse weather", new Step() {
+				public long run() throws IOException {
+					List<WeatherData> weatherData = DataLoader.loadWeatherData(path(directory, Globals.WEATHER_FILE), options);
+					data[0] = weatherData;
+					return weatherData.size();
+				}
+			});
+			stage("parse gates", new Step() {
+				public long run() throws IOException {
+					List<GatesData> gatesData = DataLoader.loadGatesData(path(directory, Globals.GATES_FILE), options);
+					data[1] = gatesData;
+					return gatesData.size();
+				}
+			});
+			stage("parse views", new Step() {
+				public long run() throws IOException {
+					List<ViewsData> viewsData = DataLoader.loadViewsData(path(directory, Globals.VIEWS_FILE), options);
+					return viewsData.size();
+				}
+			});
+			stage("parse pos", new Step() {
+				public long run() throws IOException {
+					PosColumns posData = ParallelPosLoader.load(path(directory, Globals.POS_FILE), options);
+					data[2] = posData;
+					return posData.size();
+				}
+			});
+			stage("assemble customers", new Step() {
+				public long run() {
+					List<Customer> customers = CustomerAssembler.assemble((PosColumns)data[2]);
+					data[3] = customers;
+					return customers.size();
+				}
+			});
+			stage("build weather gates", new Step() {
+				@SuppressWarnings("unchecked")
+				public long run() throws IOException {
+					try (CsvSink sink = NullOutput.sink()) {
+						CafeDataParser.buildWeatherGatesFile((List<WeatherData>)data[0], (List<GatesData>)data[1], sink);
+					}
+					return ((List<WeatherData>)data[0]).size();
+				}
+			});
+			stage("build healthy", new Step() {
+				@SuppressWarnings("unchecked")
+				public long run() throws IOException {
+					try (CsvSink sink = NullOutput.sink()) {
+						CafeDataParser.buildHealthyFile((List<Customer>)data[3], sink);
+					}
+					return ((List<Customer>)data[3]).size();
+				}
+			});
+			if (!errors.isEmpty()) {
+				System.out.println("Invalid data at scale " + scale + ": " + errors);
+			}
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+	
+	/**
+	 * Runs a stage after a collection, printing and recording its time and peak heap.
+	 */
+	private void stage(String name, Step step) throws IOException {
+		System.gc();
+		HeapSampler sampler = new HeapSampler();
+		sampler.start();
+		
+		long start = System.nanoTime();
+		long rows = step.run();
+		long millis = (System.nanoTime() - start) / 1000000L;
+		
+		long peak;
+		try {
+			peak = sampler.finish();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while sampling the heap.", e);
+		}
+		long peakMegabytes = peak / (1024 * 1024);
+		
+		System.out.println(String.format("%8s %-22s %12d %10d %12d", scale, name, rows, millis, peakMegabytes));
+		results.append(scale).append(name).append(rows).append(millis).append(peakMegabytes).endRow();
+	}
+	
+	private static String path(File directory, String fileName) {
+		return new File(directory, fileName).getPath();
+	}
+}
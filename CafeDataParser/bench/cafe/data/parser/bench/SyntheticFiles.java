@@ -0,0 +1,98 @@
+package cafe.data.parser.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import cafe.data.parser.synthetic.SyntheticDataGenerator;
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Data files written by {@link SyntheticDataGenerator} into a temporary directory for the benchmarks, every file holding
+ * the same number of rows. The default seed is used so every run parses the same bytes.
+ * @author Ryan Zembrodt
+ */
+public class SyntheticFiles {
+	
+	private final File directory;
+	private final SyntheticDataGenerator generator;
+	
+	/**
+	 * @param directory the directory the files are written to
+	 * @param rows the number of rows of each file
+	 */
+	public SyntheticFiles(File directory, int rows) {
+		this.directory = directory;
+		this.generator = SyntheticDataGenerator.withRows(rows, SyntheticDataGenerator.DEFAULT_SEED);
+	}
+	
+	/**
+	 * Creates a temporary directory to write the files to.
+	 * @param rows the number of rows of each file
+	 * @return the files, not written yet
+	 * @throws IOException
+	 */
+	public static SyntheticFiles inTempDirectory(int rows) throws IOException {
+		File directory = File.createTempFile("cafe-bench", "");
+		if (!directory.delete() || !directory.mkdir()) {
+			throw new IOException("Cannot create directory " + directory + ".");
+		}
+		return new SyntheticFiles(directory, rows);
+	}
+	
+	public File getWeatherFile() {
+		return new File(directory, Globals.WEATHER_FILE);
+	}
+	
+	public File getGatesFile() {
+		return new File(directory, Globals.GATES_FILE);
+	}
+	
+	public File getViewsFile() {
+		return new File(directory, Globals.VIEWS_FILE);
+	}
+	
+	public File getPosFile() {
+		return new File(directory, Globals.POS_FILE);
+	}
+	
+	public File writeWeatherFile() throws IOException {
+		generator.writeWeatherData(getWeatherFile());
+		return getWeatherFile();
+	}
+	
+	public File writeGatesFile() throws IOException {
+		generator.writeGatesData(getGatesFile());
+		return getGatesFile();
+	}
+	
+	public File writeViewsFile() throws IOException {
+		generator.writeViewsData(getViewsFile());
+		return getViewsFile();
+	}
+	
+	public File writePosFile() throws IOException {
+		generator.writePointOfSaleData(getPosFile());
+		return getPosFile();
+	}
+	
+	/**
+	 * Writes the four data files.
+	 * @throws IOException
+	 */
+	public void writeAll() throws IOException {
+		generator.writeAll(directory);
+	}
+	
+	/**
+	 * Deletes the files and their directory.
+	 */
+	public void delete() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+}
@@ -0,0 +1,81 @@
+package cafe.data.parser.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cafe.data.parser.CafeDataParser;
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.GatesData;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.WeatherData;
+import cafe.data.parser.WeatherGatesJoin;
+import cafe.data.parser.WeatherIndex;
+import cafe.data.parser.io.CsvSink;
+
+/**
+ * Benchmarks joining the weather and gates data of {@link CafeDataParser#buildWeatherGatesFile(List, List)},
+ * alone and with its rows written to a sink discarding them, from synthetic files of {@link #rows} rows each,
+ * and enriching every gates entry with the weather at its datetime through a {@link WeatherIndex}.
+ * @author Ryan Zembrodt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherGatesBenchmark {
+	
+	@Param({ "10000", "100000", "1000000" })
+	public int rows;
+	
+	private List<WeatherData> weatherData;
+	private List<GatesData> gatesData;
+	
+	@Setup(Level.Trial)
+	public void loadData() throws IOException {
+		SyntheticFiles files = SyntheticFiles.inTempDirectory(rows);
+		try {
+			weatherData = DataLoader.loadWeatherData(files.writeWeatherFile().getPath(), LoadOptions.DEFAULT);
+			gatesData = DataLoader.loadGatesData(files.writeGatesFile().getPath(), LoadOptions.DEFAULT);
+		} finally {
+			files.delete();
+		}
+	}
+	
+	@Benchmark
+	public WeatherGatesJoin join() {
+		return WeatherGatesJoin.join(weatherData, gatesData);
+	}
+	
+	@Benchmark
+	public void buildWeatherGatesFile() throws IOException {
+		try (CsvSink sink = NullOutput.sink()) {
+			CafeDataParser.buildWeatherGatesFile(weatherData, gatesData, sink);
+		}
+	}
+	
+	@Benchmark
+	public double enrichGates() {
+		WeatherIndex.Cursor cursor = WeatherIndex.of(weatherData).cursor();
+		double sum = 0.0;
+		for (GatesData gate : gatesData) {
+			sum += cursor.getTemperatureAt(gate.getEpochSecond());
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,267 @@
+package cafe.data.parser;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cafe.data.parser.stats.Stage;
+
+/**
+ * Runs the builders of the output files. Each builder is added as a job naming the file it produces and the datasets it needs.
+ * A job adding a file that is already scheduled is dropped, so a file is only built once however many times it is requested.
+ * Jobs are run in parallel on a bounded pool. Each job first asks for the datasets it needs, so with datasets loaded on demand
+ * (see {@link DatasetLoader#loadOnDemand()}) only the files used by the scheduled jobs are read. Jobs missing a dataset are skipped.
+ * The datasets needed by the jobs start loading concurrently before the jobs are run, so a job needing several of them does not load them one after the other.
+ * Once every job has finished, the time taken by each job and any failure are reported to the user, in the order the jobs were added.
+ * Each job is run as a "build" {@link Stage} of the run, named after its output file.
+ * A job needing the point of sale data can name the columns it reads, so the loader only decodes the columns some job reads (see {@link #getPosColumns()}).
+ * @author Ryan Zembrodt
+ */
+public class BuildScheduler {
+	
+	/**
+	 * The datasets of {@link Datasets} a builder can depend on.
+	 */
+	public enum Dataset {
+		WEATHER, GATES, VIEWS, POS;
+		
+		/**
+		 * Asks for this dataset, loading it if it is loaded on demand and was not used yet.
+		 * @param datasets
+		 * @return true if this dataset is available, false if it was not or could not be loaded
+		 */
+		public boolean isAvailable(Datasets datasets) {
+			switch (this) {
+			case WEATHER:
+				return datasets.getWeatherData() != null;
+			case GATES:
+				return datasets.getGatesData() != null;
+			case VIEWS:
+				return datasets.getViewsData() != null;
+			default:
+				return datasets.getPosData() != null;
+			}
+		}
+	}
+	
+	/**
+	 * Interface matching the {@link CafeDataParser} builder methods so each of them can be run as a job.
+	 */
+	public interface Builder {
+		void build(Datasets datasets) throws Exception;
+	}
+	
+	/**
+	 * The outcome of a single job.
+	 */
+	private static class JobResult {
+		private final String outputFile;
+		private final Set<Dataset> missing = EnumSet.noneOf(Dataset.class);
+		private Exception error;
+		private long elapsedNanos;
+		
+		private JobResult(String outputFile) {
+			this.outputFile = outputFile;
+		}
+	}
+	
+	private static class Job {
+		private final String outputFile;
+		private final Set<Dataset> needs;
+		private final PosProjection posColumns;
+		private final Builder builder;
+		
+		private Job(String outputFile, Set<Dataset> needs, PosProjection posColumns, Builder builder) {
+			this.outputFile = outputFile;
+			this.needs = needs;
+			this.posColumns = posColumns;
+			this.builder = builder;
+		}
+	}
+	
+	// Scheduled jobs by their output file, in the order they were added.
+	private final Map<String, Job> jobs = new LinkedHashMap<String, Job>();
+	
+	/**
+	 * Adds a job, unless a job building the same file was already added.
+	 * @param outputFile the file the builder produces
+	 * @param builder
+	 * @param needs the datasets the builder uses. A builder using the point of sale data reads all of its columns.
+	 * @return false if the file was already scheduled and the job was dropped
+	 */
+	public boolean add(String outputFile, Builder builder, Dataset... needs) {
+		return add(outputFile, builder, PosProjection.ALL, needs);
+	}
+	
+	/**
+	 * Adds a job, unless a job building the same file was already added.
+	 * @param outputFile the file the builder produces
+	 * @param builder
+	 * @param posColumns the point of sale data columns the builder reads, if it uses the point of sale data
+	 * @param needs the datasets the builder uses
+	 * @return false if the file was already scheduled and the job was dropped
+	 */
+	public boolean add(String outputFile, Builder builder, PosProjection posColumns, Dataset... needs) {
+		if (jobs.containsKey(outputFile)) {
+			return false;
+		}
+		Set<Dataset> needSet = EnumSet.noneOf(Dataset.class);
+		Collections.addAll(needSet, needs);
+		jobs.put(outputFile, new Job(outputFile, needSet, posColumns, builder));
+		return true;
+	}
+	
+	/**
+	 * @return the number of jobs scheduled
+	 */
+	public int size() {
+		return jobs.size();
+	}
+	
+	/**
+	 * @return the datasets needed by at least one job
+	 */
+	public Set<Dataset> getNeeds() {
+		Set<Dataset> needs = EnumSet.noneOf(Dataset.class);
+		for (Job job : jobs.values()) {
+			needs.addAll(job.needs);
+		}
+		return needs;
+	}
+	
+	/**
+	 * @return the point of sale data columns read by the jobs using the point of sale data, or null if no job uses it
+	 */
+	public PosProjection getPosColumns() {
+		PosProjection columns = null;
+		for (Job job : jobs.values()) {
+			if (job.needs.contains(Dataset.POS)) {
+				columns = columns == null ? job.posColumns : columns.union(job.posColumns);
+			}
+		}
+		return columns;
+	}
+	
+	/**
+	 * Runs every job whose datasets are available, in parallel, then prints how long each job took.
+	 * @param datasets the datasets, loaded or loaded on demand
+	 * @return true if every job was run and succeeded
+	 */
+	public boolean run(Datasets datasets) {
+		int threads = Math.max(1, Math.min(jobs.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ExecutorService loader = load(getNeeds(), datasets);
+		
+		try {
+			List<Future<JobResult>> tasks = new ArrayList<Future<JobResult>>();
+			for (Job job : jobs.values()) {
+				tasks.add(submit(executor, job, datasets));
+			}
+			
+			// Wait for every job before reporting so the summary is printed in a fixed order.
+			boolean succeeded = true;
+			for (Future<JobResult> task : tasks) {
+				JobResult result = collect(task);
+				report(result);
+				succeeded &= result.missing.isEmpty() && result.error == null;
+			}
+			return succeeded;
+		} finally {
+			executor.shutdown();
+			loader.shutdown();
+		}
+	}
+	
+	/**
+	 * Starts loading the datasets needed by the jobs, each on its own thread, so the files are read concurrently
+	 * rather than one after the other by a job needing several of them. The jobs then wait for the datasets they need.
+	 * @param needs the datasets needed by at least one job
+	 * @param datasets
+	 * @return the pool loading the datasets, to shut down once the jobs are done
+	 */
+	private static ExecutorService load(Set<Dataset> needs, final Datasets datasets) {
+		// A thread per dataset, as loading a file mostly waits on reading it.
+		ExecutorService loader = Executors.newFixedThreadPool(Math.max(1, needs.size()));
+		for (final Dataset dataset : needs) {
+			loader.execute(new Runnable() {
+				public void run() {
+					dataset.isAvailable(datasets);
+				}
+			});
+		}
+		return loader;
+	}
+	
+	/**
+	 * Submits a job to the executor, timing it and catching any failure into its result.
+	 * The job is skipped if one of its datasets is not available.
+	 */
+	private static Future<JobResult> submit(ExecutorService executor, final Job job, final Datasets datasets) {
+		return executor.submit(new Callable<JobResult>() {
+			public JobResult call() {
+				JobResult result = new JobResult(job.outputFile);
+				for (Dataset dataset : job.needs) {
+					if (!dataset.isAvailable(datasets)) {
+						result.missing.add(dataset);
+					}
+				}
+				if (!result.missing.isEmpty()) {
+					return result;
+				}
+				
+				Stage stage = Stage.start("build", job.outputFile);
+				long start = System.nanoTime();
+				try {
+					job.builder.build(datasets);
+				} catch (Exception e) {
+					result.error = e;
+				} finally {
+					stage.end();
+				}
+				result.elapsedNanos = System.nanoTime() - start;
+				return result;
+			}
+		});
+	}
+	
+	/**
+	 * Waits for a submitted job to finish.
+	 */
+	private static JobResult collect(Future<JobResult> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building output files.", e);
+		} catch (ExecutionException e) {
+			// The job catches its own exceptions so only errors can reach this point.
+			throw new IllegalStateException("Unexpected failure while building output files.", e.getCause());
+		}
+	}
+	
+	/**
+	 * Prints how long a job took, or why it failed or was skipped.
+	 */
+	private static void report(JobResult result) {
+		long millis = result.elapsedNanos / 1000000L;
+		if (!result.missing.isEmpty()) {
+			System.out.println("Skipped " + result.outputFile + ", missing data " + result.missing + ".");
+		} else if (result.error == null) {
+			System.out.println("Built " + result.outputFile + " in " + millis + " ms.");
+		} else if (result.error instanceof FileNotFoundException) {
+			System.out.println("Failed to build " + result.outputFile + ", file not found: " + result.error.getMessage());
+		} else {
+			System.out.println("Failed to build " + result.outputFile + " after " + millis + " ms: " + result.error);
+		}
+	}
+}
@@ -1,18 +1,24 @@
 package cafe.data.parser;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDate;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
+import cafe.data.parser.BuildScheduler.Dataset;
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.io.NumberParser;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.stats.RunSummary;
+import cafe.data.parser.stats.Stage;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Dictionary;
+import cafe.data.parser.wrapper.Gender;
 import cafe.data.parser.wrapper.Globals;
 import cafe.data.parser.wrapper.Precipitation;
 
@@ -23,349 +29,355 @@ import cafe.data.parser.wrapper.Precipitation;
  */
 public class CafeDataParser {
 	
-	// Flag which lists you would like to build or are using.
-	public static final boolean BUILD_WEATHER = true;
-	public static final boolean BUILD_GATES = true;
-	public static final boolean BUILD_VIEWS = true;
-	public static final boolean BUILD_POS = true;
+	// Output files that can be built, in the order they are built when none are selected.
+	public static final List<String> OUTPUTS = Collections.unmodifiableList(Arrays.asList(
+			Globals.WEATHER_GATES_OUTPUT,
+			Globals.WEATHER_GATES_PREC_OUTPUT,
+			Globals.HEALTHY_OUTPUT,
+			Globals.VIEWS_OUTPUT,
+			Globals.HEALTHY_SCRIPT_OUTPUT,
+			Globals.WEATHER_SCRIPT_OUTPUT,
+			Globals.POPULATION_OUTPUT,
+			Globals.POPULATION_AVG_OUTPUT,
+			Globals.VIEWS_PERCENTILES_OUTPUT,
+			Globals.EXPOSURE_OUTPUT,
+			Globals.VIEWS_WEATHER_OUTPUT));
+	
+	// Flag to parse the point of sale data file on all cores using a memory-mapped file.
+	public static final boolean PARALLEL_POS = true;
+	
+	// Flag to read each data file from its binary snapshot when the file is unchanged since the snapshot was written.
+	public static final boolean USE_SNAPSHOTS = true;
+	
+	// Codes used while combining the values of a customer's advertised items, see combineCodes.
+	private static final int NO_CODE = Integer.MIN_VALUE;
+	private static final int BOTH_CODES = Integer.MIN_VALUE + 1;
+	// Count columns of the population files, filled by addPopulation.
+	private static final String POPULATION_COLUMNS = "Total,Male,Female,Child,YoungAdult,Adult,Senior";
+	private static final int POPULATION_COUNT = 7;
 	
 	/**
-	 * Main method. This method's job is to populate each of the data lists (specified by the build flags) from the four data files.
-	 * @param args
+	 * Main method. Builds the output files named as arguments, or every file of {@link #OUTPUTS} if there are none,
+	 * for example 'viewsFile.csv healthyData.csv'. See {@link #build(List, DateFilter)}.
+	 * The rows of the data files can be filtered with the options '--from yyyy-MM-dd', '--to yyyy-MM-dd', '--days mon,tue,...',
+	 * and '--time HH:mm-HH:mm', see {@link DateFilter#parse(String, String, String, String)}.
+	 * The option '--lookback minutes' sets the window before each customer's purchase the views impressions are matched within
+	 * for the exposure file, see {@link #buildExposureFile(List, List, int)}.
+	 * @param args the options and the output files to build
 	 */
 	public static void main(String[] args) {
-	
-		List<WeatherData> weatherData = null;
-		List<GatesData> gatesData = null;
-		List<ViewsData> viewsData = null;
-		List<PointOfSaleData> posData = null;
-		
-		List<Customer> customers = null;
-		
-		DateTimeFormatter dateFormatter = null;
-		
-		if (BUILD_WEATHER) {
-			// Parse weather data csv file
-			weatherData = new ArrayList<WeatherData>(Globals.W_ROW_COUNT);
-			dateFormatter = DateTimeFormatter.ofPattern(Globals.WEATHER_DATE_FORMAT);
-			try (BufferedReader br = new BufferedReader(new FileReader(Globals.WEATHER_FILE))) {
-				
-				int count = 0;
-				String line = null;
-				
-				// Loop through each entry on the data file.
-				while ((line = br.readLine()) != null) {
-					count++;
-					// Check that this row entry contains data.
-					if (!line.isEmpty()) {
-						// Split an entry based on commas.
-						String[] dataEntry = line.split(",");
-						// Check the amount of data in this row entry based on how many there should be
-						if (dataEntry.length != Globals.W_COL_COUNT) {
-							// Log the error to notify user, but do not throw an exception
-							System.out.println("Invalid entry on line " + count);
-							continue;
-						}
-						
-						// Build a WeatherData object from this raw data using helper methods.
-						weatherData.add(new WeatherData(
-								LocalDateTime.parse(dataEntry[Globals.W_DATE], dateFormatter),
-								toFahrenheit(parseDouble(dataEntry[Globals.W_TEMP])),
-								parseInt(dataEntry[Globals.W_HUM]),
-								dataEntry[Globals.W_PERC],
-								parseBoolean(dataEntry[Globals.W_SEV])));
-					}
-				}
-			} catch (FileNotFoundException e) {
-				System.out.println("File " + Globals.WEATHER_FILE + " does not exist.");
-				weatherData = null;
-			} catch (IOException e) {
-				System.out.println("IO exception");
-				weatherData = null;
-			}
-			if (weatherData != null) {
-				System.out.println("Loaded weather data.");
-			}
+		if (args.length > 0 && (args[0].equals("-h") || args[0].equals("--help"))) {
+			System.out.println("Usage: CafeDataParser [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--days mon,tue,...] [--time HH:mm-HH:mm] [--lookback minutes] [output file]...");
+			System.out.println("Builds the output files, or all of them if none are given: " + String.join(" ", OUTPUTS));
+			System.out.println("Only the rows of the data files within the dates, on the days of the week, and within the times of the day given are used.");
+			System.out.println("Customers are matched with the views within the lookback before their purchase, " + ViewsCustomerJoin.DEFAULT_LOOKBACK / 60 + " minutes by default.");
+			return;
 		}
 		
-		if (BUILD_GATES) {
-			// Parse Gates data csv file
-			gatesData = new ArrayList<GatesData>(Globals.G_ROW_COUNT);
-			dateFormatter = DateTimeFormatter.ofPattern(Globals.GATES_DATE_FORMAT);
-			try (BufferedReader br = new BufferedReader(new FileReader(Globals.GATES_FILE))) {
-				
-				int count = 0;
-				String line = null;
-				
-				while ((line = br.readLine()) != null) {
-					count++;
-					if (!line.isEmpty()) {
-						
-						String[] dataEntry = line.split(",");
-						if (dataEntry.length != Globals.G_COL_COUNT) {
-							System.out.println("Invalid entry on line " + count);
-							continue;
-						}
-						
-						gatesData.add(new GatesData(
-								parseInt(dataEntry[Globals.G_LOC]),
-								parseInt(dataEntry[Globals.G_GATE]),
-								LocalDateTime.parse(dataEntry[Globals.G_DATE], dateFormatter),
-								parseInt(dataEntry[Globals.G_DUR]),
-								parseInt(dataEntry[Globals.G_IN]),
-								parseInt(dataEntry[Globals.G_OUT])));
-					}
+		List<String> outputs = new ArrayList<String>();
+		String from = null, to = null, days = null, times = null;
+		int lookback = ViewsCustomerJoin.DEFAULT_LOOKBACK;
+		DateFilter filter;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (!args[i].startsWith("--")) {
+					outputs.add(args[i]);
+					continue;
+				}
+				if (i + 1 == args.length) {
+					throw new IllegalArgumentException("Missing value of option " + args[i] + ".");
+				}
+				switch (args[i]) {
+				case "--from":
+					from = args[++i];
+					break;
+				case "--to":
+					to = args[++i];
+					break;
+				case "--days":
+					days = args[++i];
+					break;
+				case "--time":
+					times = args[++i];
+					break;
+				case "--lookback":
+					lookback = parseLookback(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i] + ", see --help.");
 				}
-			} catch (FileNotFoundException e) {
-				System.out.println("File " + Globals.GATES_FILE + " does not exist.");
-				gatesData = null;
-			} catch (IOException e) {
-				System.out.println("IO exception");
-				gatesData = null;
-			}
-			if (gatesData != null) {
-				System.out.println("Loaded gates data.");
 			}
+			filter = DateFilter.parse(from, to, days, times);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			System.exit(1);
+			return;
 		}
 		
-		if (BUILD_VIEWS) {
-			// Parse Views data csv file
-			viewsData = new ArrayList<ViewsData>(Globals.V_ROW_COUNT);
-			dateFormatter = DateTimeFormatter.ofPattern(Globals.VIEWS_DATE_FORMAT);
-			try (BufferedReader br = new BufferedReader(new FileReader(Globals.VIEWS_FILE))) {
-				
-				int count = 0;
-				String line = null;
-				
-				while ((line = br.readLine()) != null) {
-					count++;
-					if (!line.isEmpty()) {
-						
-						String[] dataEntry = line.split(",");
-						if (dataEntry.length != Globals.V_COL_COUNT) {
-							System.out.println("Invalid entry on line " + count);
-							continue;
-						}
-						
-						viewsData.add(new ViewsData(
-								parseInt(dataEntry[Globals.V_LOC]),
-								parseInt(dataEntry[Globals.V_GENDER]),
-								parseInt(dataEntry[Globals.V_AGE]),
-								LocalDateTime.parse(dataEntry[Globals.V_DATE], dateFormatter),
-								parseInt(dataEntry[Globals.V_DWELL]),
-								parseInt(dataEntry[Globals.V_ATTENTION]),
-								parseInt(dataEntry[Globals.V_WATCHER])));
-					}
-				}
-			} catch (FileNotFoundException e) {
-				System.out.println("File " + Globals.VIEWS_FILE + " does not exist.");
-				viewsData = null;
-			} catch (IOException e) {
-				System.out.println("IO exception");
-				viewsData = null;
+		if (!build(outputs.isEmpty() ? OUTPUTS : outputs, filter, lookback)) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * @param minutes the value of the '--lookback' option
+	 * @return the lookback window in seconds
+	 * @throws IllegalArgumentException if the value is not a whole number of minutes from 0 to a day
+	 */
+	private static int parseLookback(String minutes) {
+		try {
+			int lookback = Integer.parseInt(minutes);
+			if (lookback >= 0 && lookback <= 24 * 60) {
+				return lookback * 60;
 			}
-			if (viewsData != null) {
-				System.out.println("Loaded views data.");
+		} catch (NumberFormatException e) {
+			// Reported below.
+		}
+		throw new IllegalArgumentException("Invalid lookback " + minutes + ", expected a number of minutes from 0 to " + 24 * 60 + ".");
+	}
+	
+	/**
+	 * Builds the selected output files. Each builder is scheduled with the datasets it needs and run in parallel by a {@link BuildScheduler}.
+	 * A data file is only loaded when the first builder needing it asks for it, so files no selected builder needs are never read,
+	 * and only the point of sale data columns read by the selected builders are decoded.
+	 * The views, views percentiles, and views weather files only need a single pass over the views data, so it is streamed from its file for them,
+	 * and only loaded for the exposure file.
+	 * Once every file is built, the {@link RunSummary} of the loading, sorting, and building stages is printed.
+	 * @param outputs names of the output files, from {@link #OUTPUTS}. A file selected twice is only built once.
+	 * @return false if an output file is unknown, or if a file could not be built
+	 */
+	public static boolean build(List<String> outputs) {
+		return build(outputs, DateFilter.ALL);
+	}
+	
+	/**
+	 * Builds the selected output files from the rows of the data files accepted by a filter, as {@link #build(List)}.
+	 * The filter is pushed down to every loader, so the rejected rows are skipped as the files are scanned.
+	 * @param outputs names of the output files, from {@link #OUTPUTS}. A file selected twice is only built once.
+	 * @param filter the filter the rows of every data file must pass
+	 * @return false if an output file is unknown, or if a file could not be built
+	 */
+	public static boolean build(List<String> outputs, DateFilter filter) {
+		return build(outputs, filter, ViewsCustomerJoin.DEFAULT_LOOKBACK);
+	}
+	
+	/**
+	 * Builds the selected output files from the rows of the data files accepted by a filter, as {@link #build(List, DateFilter)},
+	 * matching the customers with the views impressions within a lookback window.
+	 * @param outputs names of the output files, from {@link #OUTPUTS}. A file selected twice is only built once.
+	 * @param filter the filter the rows of every data file must pass
+	 * @param lookback the number of seconds before a customer's purchase the views impressions are matched within
+	 * @return false if an output file is unknown, or if a file could not be built
+	 */
+	public static boolean build(List<String> outputs, DateFilter filter, int lookback) {
+		BuildScheduler scheduler = new BuildScheduler();
+		for (String output : outputs) {
+			if (!OUTPUTS.contains(output)) {
+				System.out.println("Unknown output file " + output + ", expected one of: " + String.join(" ", OUTPUTS));
+				return false;
 			}
+			schedule(scheduler, output, lookback);
 		}
-		
-		if (BUILD_POS) {
-			// Parse Point of sale data csv file
-			posData = new ArrayList<PointOfSaleData>(Globals.P_ROW_COUNT);
-			customers = new ArrayList<Customer>();
-			dateFormatter = DateTimeFormatter.ofPattern(Globals.POS_DATE_FORMAT);
-			try (BufferedReader br = new BufferedReader(new FileReader(Globals.POS_FILE))) {
-				
-				int count = 0;
-				String line = null;
-				
-				// Loop through each entry in the point of sale data file.
-				while ((line = br.readLine()) != null) {
-					count++;
-					if (!line.isEmpty()) {
-						// Split the row by commas and check the correct amount of values are in it.
-						String[] dataEntry = line.split(",");
-						if (dataEntry.length != Globals.P_COL_COUNT) {
-							// If the correct amount of values is not found alert user and continue to the next entry
-							System.out.println("Invalid entry on line " + count);
-							continue;
-						}
-						
-						// Builds a PointOfSaleData object based on the raw values defined above.
-						posData.add(new PointOfSaleData(
-								parseInt(dataEntry[Globals.P_AGE_ID]),
-								parseInt(dataEntry[Globals.P_GENDER_ID]),
-								parseDouble(dataEntry[Globals.P_DWELL]),
-								parseDouble(dataEntry[Globals.P_ATTENTION]),
-								toFahrenheit(parseDouble(dataEntry[Globals.P_TEMP])),
-								parseDouble(dataEntry[Globals.P_HUMIDITY]),
-								dataEntry[Globals.P_PERCIPITATION],
-								parseInt(dataEntry[Globals.P_SALE_ITEM]),
-								dataEntry[Globals.P_SALE_TYPE],
-								dataEntry[Globals.P_SALE_TEMP],
-								dataEntry[Globals.P_SALE_HEALTH],
-								parseInt(dataEntry[Globals.P_TOTAL_CUST]),
-								LocalDateTime.parse(dataEntry[Globals.P_DATE], dateFormatter),
-								dataEntry[Globals.P_DOW],
-								parseInt(dataEntry[Globals.P_ITEM_ID]),
-								dataEntry[Globals.P_ITEM_TYPE],
-								dataEntry[Globals.P_ITEM_TEMP],
-								dataEntry[Globals.P_ITEM_HEALTH],
-								parseBoolean(dataEntry[Globals.P_PURCHASE_SALE])));
-					}
+		if (!filter.acceptsAll()) {
+			System.out.println("Using the rows " + filter + ".");
+		}
+		PosProjection posColumns = scheduler.getPosColumns();
+		LoadOptions options = LoadOptions.DEFAULT.withProjection(posColumns != null ? posColumns : PosProjection.ALL).withFilter(filter);
+		boolean built = scheduler.run(DatasetLoader.loadOnDemand(options));
+		RunSummary.print(System.out);
+		return built;
+	}
+	
+	/**
+	 * Adds the builder of an output file to a scheduler, with the datasets it needs.
+	 * @param scheduler
+	 * @param output name of the output file, from {@link #OUTPUTS}
+	 * @throws IllegalArgumentException if the output file is unknown
+	 */
+	public static void schedule(BuildScheduler scheduler, String output) {
+		schedule(scheduler, output, ViewsCustomerJoin.DEFAULT_LOOKBACK);
+	}
+	
+	/**
+	 * Adds the builder of an output file to a scheduler, with the datasets it needs, as {@link #schedule(BuildScheduler, String)}.
+	 * @param scheduler
+	 * @param output name of the output file, from {@link #OUTPUTS}
+	 * @param lookback the number of seconds before a customer's purchase the views impressions are matched within
+	 * @throws IllegalArgumentException if the output file is unknown
+	 */
+	public static void schedule(BuildScheduler scheduler, String output, final int lookback) {
+		// Various static build methods defined below used to create different files (both csv and R scripts) for input into R.
+		switch (output) {
+		case Globals.WEATHER_GATES_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildWeatherGatesFile(datasets.getWeatherData(), datasets.getGatesData());
 				}
-				
-				// Sort the POS Data (by date)
-				Collections.sort(posData, new Comparator<PointOfSaleData>() {
-					public int compare(PointOfSaleData pos1, PointOfSaleData pos2) {
-						return pos1.getDate().compareTo(pos2.getDate());
-					}
-				});
-				
-				// Build the list of customers from the POS data.
-				customers = new ArrayList<Customer>();
-				Customer prevCustomer = null;
-				int startIndex = 0;
-				
-				for (int i = 0; i <= posData.size(); i++) {
-					// This date is different to the previously used one, therefore we have a new customer.
-					if (prevCustomer == null || i == posData.size() || !prevCustomer.getDate().equals(posData.get(i).getDate())) {
-						if (i > startIndex) {
-							int endIndex = i-1;
-							
-							// Used to build a list of all unique customers of the current datetime.
-							List<Customer> currentCustomers = new ArrayList<Customer>();
-							
-							// Loops through the section of POS data with the current datetime to find unique customers
-							for (int j = startIndex; j <= endIndex; j++) {
-								// Create a customer out of the current POS data row
-								Customer c = new Customer(posData.get(j).getDate(), posData.get(j).getDayOfWeek(), posData.get(j).getGender(), posData.get(j).getAge(), posData.get(j).getBoughtAdvertised(), posData.get(j).getTemperature(), posData.get(j).getPrecipitation());
-								// Checks if an identical customer exists already exists in the list (equal date, gender, and age).
-								if (!currentCustomers.contains(c)) {
-									// Adds the current customer if it does not exist.
-									currentCustomers.add(c);
-								}
-							}
-							
-							// Loops through the previously created unique customers to add their items
-							for (Customer currCustomer : currentCustomers) {
-								// Loop through the POS data for each unique customer in order to get the item information
-								for (int j = startIndex; j <= endIndex; j++) {
-									Customer c = new Customer(posData.get(j).getDate(), posData.get(j).getDayOfWeek(), posData.get(j).getGender(), posData.get(j).getAge(), posData.get(j).getBoughtAdvertised(), posData.get(j).getTemperature(), posData.get(j).getPrecipitation());
-									// Checks that the current POS data customer information is equal to the current unique customer (equal date, gender, and age)
-									if (currCustomer.equals(c)) {
-										// Adds the purchased item and advertised item from this POS data row to the customer.
-										currCustomer.addItem(new Item(posData.get(j).getItemId(), posData.get(j).getItemType(), posData.get(j).getItemTemp(), posData.get(j).getItemHealth()));
-										currCustomer.addAdvertisedItem(new Item(posData.get(j).getAdvertisedItemId(), posData.get(j).getAdvertisedItemType(), posData.get(j).getAdvertisedItemTemp(), posData.get(j).getAdvertisedItemHealth()));
-										// Used to set that the customer bought the advertised item. Only sets if true (as this is defaulted to false)
-										if (posData.get(j).getBoughtAdvertised()) {
-											currCustomer.setBoughtAdvertised(posData.get(j).getBoughtAdvertised());
-										}
-									}
-								}
-								// Add the current unique customer to the overall customers list after its items have been added
-								customers.add(currCustomer);
-							}
-						}
-						
-						// Only set the start index and previous customer when i is a valid index within posData (as the for loop loops from 0 to posData.size)
-						// This is needed to use the above if statement to catch the last datetime in the POS data list.
-						if (i < posData.size()) {
-							startIndex = i;						
-							prevCustomer = new Customer(posData.get(i).getDate(), posData.get(i).getDayOfWeek(), posData.get(i).getGender(), posData.get(i).getAge(), posData.get(i).getBoughtAdvertised(), posData.get(i).getTemperature(), posData.get(i).getPrecipitation());
-						}
-					}
+			}, Dataset.WEATHER, Dataset.GATES);
+			break;
+		case Globals.WEATHER_GATES_PREC_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildWeatherGatesFile2(datasets.getWeatherData(), datasets.getGatesData());
 				}
-				
-			} catch (FileNotFoundException e) {
-				System.out.println("File " + Globals.POS_FILE + " does not exist.");
-				posData = null;
-			} catch (IOException e) {
-				System.out.println("IO exception");
-				posData = null;
-			}
-			if (posData != null) {
-				System.out.println("Loaded point of sale data.");
-			}
+			}, Dataset.WEATHER, Dataset.GATES);
+			break;
+		case Globals.HEALTHY_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildHealthyFile(datasets.getCustomers());
+				}
+			}, CustomerAssembler.COLUMNS, Dataset.POS);
+			break;
+		case Globals.POPULATION_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildPopulationFile(datasets.getPopulation());
+				}
+			}, CustomerAssembler.COLUMNS, Dataset.POS);
+			break;
+		case Globals.POPULATION_AVG_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildPopulationAvgFile(datasets.getPopulation());
+				}
+			}, CustomerAssembler.COLUMNS, Dataset.POS);
+			break;
+		case Globals.VIEWS_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildViewsFile(Globals.VIEWS_FILE, datasets.getFilter());
+				}
+			});
+			break;
+		case Globals.VIEWS_PERCENTILES_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildViewsPercentilesFile(Globals.VIEWS_FILE, datasets.getFilter());
+				}
+			});
+			break;
+		case Globals.EXPOSURE_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildExposureFile(datasets.getViewsData(), datasets.getCustomers(), lookback);
+				}
+			}, CustomerAssembler.COLUMNS, Dataset.POS, Dataset.VIEWS);
+			break;
+		case Globals.VIEWS_WEATHER_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildViewsWeatherFile(Globals.VIEWS_FILE, datasets.getFilter(), datasets.getWeatherIndex());
+				}
+			}, Dataset.WEATHER);
+			break;
+		case Globals.HEALTHY_SCRIPT_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildHealthyScript();
+				}
+			});
+			break;
+		case Globals.WEATHER_SCRIPT_OUTPUT:
+			scheduler.add(output, new BuildScheduler.Builder() {
+				public void build(Datasets datasets) throws IOException {
+					buildWeatherScript();
+				}
+			});
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown output file " + output + ".");
 		}
-		
-		System.out.println("Data load complete.");
-		
-		// Various static build methods defined below used to create different files (both csv and R scripts) for input into R.
-		buildWeatherGatesFile(weatherData, gatesData);
-
-		buildWeatherGatesFile2(weatherData, gatesData);
-		
-		buildHealthyFile(customers);
-		
-		buildViewsFile(viewsData);
-		
-		buildHealthyFile(customers);
-		
-		buildHealthyScript();
-		
-		buildWeatherScript();
+	}
+	
+	/**
+	 * Streams the rows of the views data file accepted by a filter into {@link #buildViewsFile(Iterable)}.
+	 * @param fileName the views data file
+	 * @param filter the filter the rows must pass
+	 * @throws java.io.FileNotFoundException if the views data file does not exist
+	 * @throws IOException if the views data file cannot be read or the output file cannot be written
+	 */
+	private static void buildViewsFile(String fileName, DateFilter filter) throws IOException {
+		try (RowSource<ViewsData> viewsData = RowSource.viewsData(fileName, LoadOptions.DEFAULT.withFilter(filter))) {
+			buildViewsFile(viewsData);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Streams the rows of the views data file accepted by a filter into {@link #buildViewsPercentilesFile(Iterable)}.
+	 * @param fileName the views data file
+	 * @param filter the filter the rows must pass
+	 * @throws java.io.FileNotFoundException if the views data file does not exist
+	 * @throws IOException if the views data file cannot be read or the output file cannot be written
+	 */
+	private static void buildViewsPercentilesFile(String fileName, DateFilter filter) throws IOException {
+		try (RowSource<ViewsData> viewsData = RowSource.viewsData(fileName, LoadOptions.DEFAULT.withFilter(filter))) {
+			buildViewsPercentilesFile(viewsData);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Creates (or replaces) an output file. Once closed, the file adds the rows and bytes it wrote to the current {@link Stage}.
+	 * @param fileName
+	 * @return the sink writing the file
+	 * @throws java.io.FileNotFoundException if the file cannot be created
+	 */
+	private static CsvSink createOutput(String fileName) throws IOException {
+		return new CsvSink(fileName) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				Stage.written(this);
+			}
+		};
 	}
 	
 	// Static helper methods
 	
 	/**
-	 * Wrapper for {@link Integer#parseInt} to default the return null instead of throwing an exception or return 0 if it is an empty string.
+	 * Wrapper for {@link NumberParser#parseInt(CharSequence, int, int)} to return null for an invalid value or 0 if it is an empty string.
+	 * The data files are parsed with the primitive parsers of {@link cafe.data.parser.io.FieldCursor}, which report invalid values instead.
 	 * @param s the string to be parsed
 	 * @return the integer value of the string, null if string cannot be parsed, or 0 if the string is empty.
 	 */
 	public static Integer parseInt(String s) {
-		// Checks that the passed string is not null and is not empty after all whitespace is trimmed.
-		if (s != null && !s.trim().isEmpty()) {
-			try{
-				return Integer.parseInt(s);
-			}
-			catch (Exception e) {
-				System.out.println("Unexpected exception caught trying to parse '" + s + "' to an Integer.");
-				return null;
-			}
-		} else {
+		if (s == null) {
 			return 0;
 		}
+		NumberParser parser = new NumberParser();
+		int value = parser.parseInt(s, 0, s.length());
+		return parser.isValid() ? value : null;
 	}
 	
 	/**
-	 * Wrapper for {@link Double#parseDouble} to default the return null instead of throwing an exception or return 0 if it is an empty string.
+	 * Wrapper for {@link NumberParser#parseDouble(CharSequence, int, int)} to return null for an invalid value or 0 if it is an empty string.
 	 * @param s the string to be parsed
 	 * @return the double value of the string, null if string cannot be parsed, or 0 if the string is empty.
 	 */
 	public static Double parseDouble(String s) {
-		if (s != null && !s.trim().isEmpty()) {
-			try{
-				return Double.parseDouble(s);
-			}
-			catch (Exception e) {
-				System.out.println("Unexpected exception caught trying to parse '" + s + "' to a Double.");
-				return null;
-			}
-		} else {
+		if (s == null) {
 			return 0.0;
 		}
+		NumberParser parser = new NumberParser();
+		double value = parser.parseDouble(s, 0, s.length());
+		return parser.isValid() ? value : null;
 	}
 	
 	/**
-	 * Wrapper for {@link Boolean#parseBoolean} to default the return null instead of throwing an exception or return false if it is an empty string.
+	 * Wrapper for {@link NumberParser#parseBoolean(CharSequence, int, int)} to return false if it is an empty string.
 	 * Will return false for all string values not equal (ignoring case) to 'true'.
 	 * @param s the string to be parsed
-	 * @return the boolean value of the string, null if string cannot be parsed, or false if the string is empty.
+	 * @return the boolean value of the string, or false if the string is empty or not a boolean.
 	 */
 	public static Boolean parseBoolean(String s) {
-		if (s != null && !s.trim().isEmpty()) {
-			try{
-				return Boolean.parseBoolean(s);
-			}
-			catch (Exception e) {
-				System.out.println("Unexpected exception caught trying to parse '" + s + "' to a Boolean.");
-				return null;
-			}
-		} else {
+		if (s == null) {
 			return false;
 		}
+		return new NumberParser().parseBoolean(s, 0, s.length());
 	}
 	
 	/**
@@ -396,68 +408,20 @@ public class CafeDataParser {
 	 * Converts a LocalDateTime to a LocalDateTime with the time converted to the nearest quarter hour (:00, :15, :30 :45, :60)
 	 * @param date the LocalDateTime to convert
 	 * @return a LocalDateTime with its LocalTime value converted to the nearest quarter hour.
+	 * @see TimeBucketer#QUARTER_HOUR
 	 */
 	public static LocalDateTime toQuarterHour(LocalDateTime date) {
-		// Normalize seconds to 0-1 range: (seconds - min) / (max - min) where min = 0 and max = 60
-		double secondsNormalized = (double)date.getSecond() / 60.0;
-		// Append the seconds to minutes value as a decimal
-		double minuteMod = (double)date.getMinute() + secondsNormalized;
-		// The remainder of the current minute (0-60) divided by 15.
-		minuteMod %= 15.0;
-		
-		// Create a copy of the passed LocalDateTime object.
-		LocalDateTime retDate = LocalDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
-				date.getHour(), date.getMinute(), 0);
-		
-		// The minute value is closer to the lower bound so should be rounded down.
-		if (minuteMod < 7.5) {
-			// Subtract the remainder from the current minutes (LocalDateTime.minusMinutes will change the hour/day/month/year value if enough is subtracted)
-			retDate = retDate.minusMinutes((long)minuteMod);
-		// The minute value is closer to the upper bound so should be rounded up.
-		} else {
-			retDate = retDate.plusMinutes(15L - (long)minuteMod);
-		}
-		return retDate;
+		return TimeBucketer.QUARTER_HOUR.round(date);
 	}
 	
 	/**
 	 * Converts a LocalDateTime to a LocalDateTime with the time converted to the nearest eighth hour (:00, :07:30, :15, :22:30, :30, :37:30, :45, :52:30, :60)
 	 * @param date the LocalDateTime to convert
 	 * @return a LocalDateTime with its LocalTime value converted to the nearest eighth hour.
+	 * @see TimeBucketer#EIGHTH_HOUR
 	 */
 	public static LocalDateTime toEighthHour(LocalDateTime date) {
-		// Normalize seconds to 0-1 range: (seconds - min) / (max - min) where min = 0 and max = 60
-		double secondsNormalized = (double)date.getSecond() / 60.0;
-		// Append the seconds to minutes value as a decimal
-		double minuteMod = (double)date.getMinute() + secondsNormalized;
-		// The remainder of the current minute (0-60) divided by 7.5
-		minuteMod %= 7.5;
-		
-		// Create a copy of the passed LocalDateTime object.
-		LocalDateTime retDate = LocalDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
-				date.getHour(), date.getMinute());
-		
-		// The minute value is closer to the lower bound so should be rounded down.
-		if (minuteMod < 3.75) {
-			retDate = retDate.minusMinutes((long)minuteMod);
-			// If the time was rounded to a boundary on :07:30, :22:30, :37:30, or :52:30 subtract 1 more minute.
-			if (retDate.getMinute() % 15 != 0) {
-				retDate = retDate.minusMinutes(1L);
-			}
-		// The minute value is closer to the upper bound so should be rounded up.
-		} else {
-			retDate = retDate.plusMinutes((long)(7.5 - (long)minuteMod));
-		}
-		
-		// If the new rounded minute is not on a quarter hour (:00, :15, :30, or :45) add 30 seconds.
-		// This is for the boundaries :07:30, :22:30, :37:30, and :52:30.
-		if (retDate.getMinute() % 15 != 0) {
-			retDate = retDate.withSecond(30);
-		} else {
-			retDate = retDate.withSecond(0);
-		}
-		
-		return retDate;
+		return TimeBucketer.EIGHTH_HOUR.round(date);
 	}
 	
 	/**
@@ -469,6 +433,34 @@ public class CafeDataParser {
 		return date.getHour() >= 11 && date.getHour() < 13;
 	}
 	
+	/**
+	 * Adds the dictionary code of one more value to a combination of codes.
+	 * @param combined the codes combined so far, starting from {@link #NO_CODE}
+	 * @param code
+	 * @return the code if it is the first, the same code if all values are equal so far, otherwise {@link #BOTH_CODES}
+	 */
+	private static int combineCodes(int combined, int code) {
+		if (combined == NO_CODE) {
+			return code;
+		}
+		return combined == code ? combined : BOTH_CODES;
+	}
+	
+	/**
+	 * @param combined codes combined by {@link #combineCodes(int, int)}
+	 * @param dictionary the dictionary of the codes
+	 * @return the shared value of the codes, 'Both' if the values differed, or null if there were no values
+	 */
+	private static String decodeCombined(int combined, Dictionary dictionary) {
+		if (combined == NO_CODE) {
+			return null;
+		}
+		if (combined == BOTH_CODES) {
+			return "Both";
+		}
+		return dictionary.decode(combined);
+	}
+	
 	// Builders
 	
 	/**
@@ -477,62 +469,42 @@ public class CafeDataParser {
 	 * Creates a file with entries for Datetime, Date, DayOfMonth, DayOfWeek, Minute, Temperature, Humidity, Precipitation, InCount, and OutCount.
 	 * @param weatherData
 	 * @param gatesData
+	 * @throws IOException if the file cannot be written
 	 */
-	public static void buildWeatherGatesFile(List<WeatherData> weatherData, List<GatesData> gatesData) {
+	public static void buildWeatherGatesFile(List<WeatherData> weatherData, List<GatesData> gatesData) throws IOException {
 		
-		PrintWriter weatherGatesFile = null;
-		try {
-			weatherGatesFile = new PrintWriter("weatherGatesData.csv");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+		try (CsvSink weatherGatesFile = createOutput(Globals.WEATHER_GATES_OUTPUT)) {
+			buildWeatherGatesFile(weatherData, gatesData, weatherGatesFile);
 		}
-		
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildWeatherGatesFile(List, List)} to a sink.
+	 * @param weatherData
+	 * @param gatesData
+	 * @param weatherGatesFile
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildWeatherGatesFile(List<WeatherData> weatherData, List<GatesData> gatesData, CsvSink weatherGatesFile) throws IOException {
 		// Header for the csv file
-		weatherGatesFile.println("Datetime,Date,DayOfMonth,DayOfWeek,Minute,Temp,Humidity,Precipitation,InCount,OutCount");
+		weatherGatesFile.writeLine("Datetime,Date,DayOfMonth,DayOfWeek,Minute,Temp,Humidity,Precipitation,InCount,OutCount");
 		
-		for (WeatherData weather : weatherData) {
-			boolean foundDate = false;
+		// Join each weather entry with the sum of the gates data in the same quarter hour.
+		WeatherGatesJoin join = WeatherGatesJoin.join(weatherData, gatesData);
+		
+		for (int i = 0; i < join.size(); i++) {
+			WeatherData weather = join.getWeather(i);
+			long quarterHour = join.getBucketStart(i);
 			
-			int inCount = 0;
-			int outCount = 0;
-			for (GatesData gate : gatesData) {
-				// If a matching quarter hour in weather data and gates data files has not been found
-				if (!foundDate && isMinuteEqual(toQuarterHour(weather.getDate()), toQuarterHour(gate.getDate()))) {
-					foundDate = true; // we've found a matching date
-					
-					// Convert the current weather entry to its closest quarter hour
-					LocalDateTime quarterHour = toQuarterHour(weather.getDate());
-					
-					// Output the weather for this quarter hour to the file we are created.
-					weatherGatesFile.print(quarterHour + ","
-							+ LocalDate.of(quarterHour.getYear(), quarterHour.getMonthValue(), quarterHour.getDayOfMonth()) + ","
-							+ quarterHour.getDayOfMonth() + ","
-							+ quarterHour.getDayOfWeek().toString() + ","
-							+ (quarterHour.getHour() * 60 + quarterHour.getMinute()) + ","
-							+ weather.getTemperature() + ","
-							+ weather.getHumidity() + ","
-							+ weather.getPercipitation() + ",");
-				}
-				// If a matching quarter hour in weather data and gates data files has been found
-				// and the current gates data entry is still equal
-				if (foundDate && isMinuteEqual(toQuarterHour(weather.getDate()), toQuarterHour(gate.getDate()))) {
-					// Increment the in and out counts based on the current gates data entry's values
-					inCount += gate.getInCount();
-					outCount += gate.getOutCount();
-					continue;
-				}
-				// If a matching quarter hour in weather data and gates data files has been found
-				// but the current gates data entry is not equal (we have passed that quarter hour in the gates data file)
-				if (foundDate) {
-					// Add the in and out count sums from the gates file to the file to be outputted.
-					weatherGatesFile.println(inCount + "," + outCount);
-					break; // Stop looping through the gates data file
-				}
-			}
+			// Output the weather for this quarter hour and the in and out count sums from the gates file.
+			appendDateColumns(weatherGatesFile, quarterHour)
+					.append(weather.getTemperature())
+					.append(weather.getHumidity())
+					.append(weather.getPercipitation())
+					.append(join.getInCount(i))
+					.append(join.getOutCount(i))
+					.endRow();
 		}
-		
-		weatherGatesFile.close();
-		System.out.println("weatherGatesData.csv created.");
 	}
 	
 	/**
@@ -541,100 +513,259 @@ public class CafeDataParser {
 	 * Same as {@link CafeDataParser#buildWeatherGatesFile(List, List)} but with the 'Is severe weather' value outputted.
 	 * @param weatherData
 	 * @param gatesData
+	 * @throws IOException if the file cannot be written
 	 */
-	public static void buildWeatherGatesFile2(List<WeatherData> weatherData, List<GatesData> gatesData) {
-		
-		PrintWriter weatherGatesFile = null;
-		try {
-			weatherGatesFile = new PrintWriter("weatherGatesPrecData.csv");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
+	public static void buildWeatherGatesFile2(List<WeatherData> weatherData, List<GatesData> gatesData) throws IOException {
 		
-		weatherGatesFile.println("Datetime,Date,Day of month,Day of week,Minute of day,Temperature (F),Humidity (%),Percipitation,Is severe weather,In count,Out count");
-		
-		for (WeatherData weather : weatherData) {
-			boolean foundDate = false;
+		try (CsvSink weatherGatesFile = createOutput(Globals.WEATHER_GATES_PREC_OUTPUT)) {
+			weatherGatesFile.writeLine("Datetime,Date,Day of month,Day of week,Minute of day,Temperature (F),Humidity (%),Percipitation,Is severe weather,In count,Out count");
 			
-			int inCount = 0;
-			int outCount = 0;
-			for (GatesData gate : gatesData) {
-				if (!foundDate && isMinuteEqual(toQuarterHour(weather.getDate()), toQuarterHour(gate.getDate()))) {
-					foundDate = true;
-					
-					LocalDateTime quarterHour = toQuarterHour(weather.getDate());
-					weatherGatesFile.print(quarterHour + ","
-							+ LocalDate.of(quarterHour.getYear(), quarterHour.getMonthValue(), quarterHour.getDayOfMonth()) + ","
-							+ quarterHour.getDayOfMonth() + ","
-							+ quarterHour.getDayOfWeek().toString() + ","
-							+ (quarterHour.getHour() * 60 + quarterHour.getMinute()) + ","
-							+ weather.getTemperature() + ","
-							+ weather.getHumidity() + ","
-							+ (new Precipitation(weather.getPercipitation())).getValue() + ","
-							+ weather.isSevereWeather() + ",");
-				}
-				if (foundDate && isMinuteEqual(toQuarterHour(weather.getDate()), toQuarterHour(gate.getDate()))) {
-					inCount += gate.getInCount();
-					outCount += gate.getOutCount();
-					continue;
-				}
-				if (foundDate) {
-					weatherGatesFile.println(inCount + "," + outCount);
-					break;
-				}
+			WeatherGatesJoin join = WeatherGatesJoin.join(weatherData, gatesData);
+			
+			for (int i = 0; i < join.size(); i++) {
+				WeatherData weather = join.getWeather(i);
+				long quarterHour = join.getBucketStart(i);
+				appendDateColumns(weatherGatesFile, quarterHour)
+						.append(weather.getTemperature())
+						.append(weather.getHumidity())
+						.append(Precipitation.of(weather.getPercipitation()).getValue())
+						.append(weather.isSevereWeather())
+						.append(join.getInCount(i))
+						.append(join.getOutCount(i))
+						.endRow();
 			}
 		}
-		
-		weatherGatesFile.close();
-		System.out.println("weatherGatesPrecData.csv created.");
+	}
+	
+	/**
+	 * Appends the Datetime, Date, DayOfMonth, DayOfWeek, and Minute columns of the weather and gates files.
+	 * @param file
+	 * @param epochSecond
+	 * @return the file
+	 * @throws IOException
+	 */
+	private static CsvSink appendDateColumns(CsvSink file, long epochSecond) throws IOException {
+		return file.appendDateTime(epochSecond)
+				.appendDate(epochSecond)
+				.append(dayOfMonth(epochSecond))
+				.appendDayOfWeek(epochSecond)
+				.append(minuteOfDay(epochSecond));
 	}
 
 	/**
 	 * Builds a csv file with data from the views data file while converting the datetime value to both minute and day of week
 	 * and the age and gender integer values to strings.
 	 * Creates a file with entries for Datetime, Minute, DayOfWeek, Age, Gender, AttentionTime, and DwellTime.
-	 * @param viewsData
+	 * @param viewsData the views in file order, read once so a {@link RowSource} can be passed
+	 * @throws IOException if the file cannot be written
 	 */
-	public static void buildViewsFile(List<ViewsData> viewsData) {
-		PrintWriter viewsFile = null;
-		try {
-			viewsFile = new PrintWriter("viewsFile.csv");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+	public static void buildViewsFile(Iterable<ViewsData> viewsData) throws IOException {
+		try (CsvSink viewsFile = createOutput(Globals.VIEWS_OUTPUT)) {
+			viewsFile.writeLine("Datetime,Minute,DayOfWeek,Age,Gender,AttentionTime,DwellTime");
+			
+			for (ViewsData view : viewsData) {
+				long date = view.getEpochSecond();
+				viewsFile.appendDateTime(date)
+						.append(minuteOfDay(date))
+						.appendDayOfWeek(date)
+						.append(view.getAge())
+						.append(view.getGender())
+						.append(view.getAttentionTime())
+						.append(view.getDwellTime())
+						.endRow();
+			}
 		}
+	}
+
+	/**
+	 * Builds a csv file with the percentiles of the dwell and attention times of the views for each age, gender, and half hour of the day,
+	 * so they do not have to be computed in R from the whole views file. The views are added to a {@link ViewsQuantiles} as they are read,
+	 * so the file is built in bounded memory whatever the number of views.
+	 * Creates entries for Age, Gender, Time, Views (the number of views), and the 50th, 90th, and 99th percentiles of DwellTime and AttentionTime
+	 * for each half hour with views, followed by a row with a Time of 'All' for the whole day.
+	 * @param viewsData the views in file order, read once so a {@link RowSource} can be passed
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void buildViewsPercentilesFile(Iterable<ViewsData> viewsData) throws IOException {
+		ViewsQuantiles quantiles = ViewsQuantiles.of(viewsData);
+		try (CsvSink file = createOutput(Globals.VIEWS_PERCENTILES_OUTPUT)) {
+			buildViewsPercentilesFile(quantiles, file);
+		}
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildViewsPercentilesFile(Iterable)} to a sink.
+	 * @param quantiles
+	 * @param file
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildViewsPercentilesFile(ViewsQuantiles quantiles, CsvSink file) throws IOException {
+		// The columns of ViewsQuantiles.PERCENTILES.
+		file.writeLine("Age,Gender,Time,Views,DwellP50,DwellP90,DwellP99,AttentionP50,AttentionP90,AttentionP99");
 		
-		viewsFile.println("Datetime,Minute,DayOfWeek,Age,Gender,AttentionTime,DwellTime");
+		for (int age = Age.UNKNOWN; age <= Age.SENIOR; age++) {
+			for (int gender = Gender.UNKNOWN; gender <= Gender.FEMALE; gender++) {
+				for (int slot = 0; slot < quantiles.getSlotCount(); slot++) {
+					QuantileSketch dwellTimes = quantiles.getDwellTimes(age, gender, slot);
+					if (dwellTimes != null) {
+						String time = LocalTime.ofSecondOfDay(quantiles.getSlotSecondOfDay(slot)).toString();
+						appendPercentiles(file, age, gender, time, dwellTimes, quantiles.getAttentionTimes(age, gender, slot));
+					}
+				}
+				QuantileSketch dwellTimes = quantiles.getDwellTimes(age, gender);
+				if (dwellTimes.getCount() > 0) {
+					appendPercentiles(file, age, gender, "All", dwellTimes, quantiles.getAttentionTimes(age, gender));
+				}
+			}
+		}
+	}
+	
+	private static void appendPercentiles(CsvSink file, int age, int gender, String time, QuantileSketch dwellTimes, QuantileSketch attentionTimes)
+			throws IOException {
+		file.append(Age.of(age))
+				.append(Gender.of(gender))
+				.append(time)
+				.append(dwellTimes.getCount());
+		for (double percentile : dwellTimes.getQuantiles(ViewsQuantiles.PERCENTILES)) {
+			file.append(percentile);
+		}
+		for (double percentile : attentionTimes.getQuantiles(ViewsQuantiles.PERCENTILES)) {
+			file.append(percentile);
+		}
+		file.endRow();
+	}
+	
+	/**
+	 * Streams the rows of the views data file accepted by a filter into {@link #buildViewsWeatherFile(Iterable, WeatherIndex)}.
+	 * @param fileName the views data file
+	 * @param filter the filter the rows must pass
+	 * @param weather
+	 * @throws java.io.FileNotFoundException if the views data file does not exist
+	 * @throws IOException if the views data file cannot be read or the output file cannot be written
+	 */
+	private static void buildViewsWeatherFile(String fileName, DateFilter filter, WeatherIndex weather) throws IOException {
+		try (RowSource<ViewsData> viewsData = RowSource.viewsData(fileName, LoadOptions.DEFAULT.withFilter(filter))) {
+			buildViewsWeatherFile(viewsData, weather);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Builds a csv file of the views enriched with the weather at their datetime, found in a single pass by a {@link WeatherIndex.Cursor}.
+	 * The temperature and humidity are interpolated between the weather readings around each view, and the precipitation and severe weather
+	 * are those of the latest reading at or before it. Views before the first reading have their weather written as 'NA'.
+	 * Creates entries for Datetime, Gender, Age, DwellTime, AttentionTime, Temperature, Humidity, Precipitation, SevereWeather,
+	 * and WeatherAge (the seconds since the latest reading), for each view in file order.
+	 * @param viewsData the views in file order, read once so a {@link RowSource} can be passed
+	 * @param weather
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void buildViewsWeatherFile(Iterable<ViewsData> viewsData, WeatherIndex weather) throws IOException {
+		try (CsvSink file = createOutput(Globals.VIEWS_WEATHER_OUTPUT)) {
+			buildViewsWeatherFile(viewsData, weather, file);
+		}
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildViewsWeatherFile(Iterable, WeatherIndex)} to a sink.
+	 * @param viewsData
+	 * @param weather
+	 * @param file
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildViewsWeatherFile(Iterable<ViewsData> viewsData, WeatherIndex weather, CsvSink file) throws IOException {
+		file.writeLine("Datetime,Gender,Age,DwellTime,AttentionTime,Temperature,Humidity,Precipitation,SevereWeather,WeatherAge");
 		
+		WeatherIndex.Cursor cursor = weather.cursor();
 		for (ViewsData view : viewsData) {
-			viewsFile.println(view.getDate() + ","
-					+ (view.getDate().getHour() * 60 + view.getDate().getMinute()) + ","
-					+ view.getDate().getDayOfWeek() + ","
-					+ view.getAge() + ","
-					+ view.getGender() + ","
-					+ view.getAttentionTime() + ","
-					+ view.getDwellTime());
+			long date = view.getEpochSecond();
+			int reading = cursor.seek(date);
+			file.appendDateTime(date)
+					.append(view.getGender())
+					.append(view.getAge())
+					.append(view.getDwellTime())
+					.append(view.getAttentionTime());
+			if (reading < 0) {
+				file.append("NA").append("NA").append("NA").append("NA").append("NA");
+			} else {
+				file.append(cursor.getTemperatureAt(date))
+						.append(cursor.getHumidityAt(date))
+						.appendCode(Dictionary.PRECIPITATION, weather.getPrecipitationCode(reading))
+						.append(weather.isSevereWeather(reading))
+						.append(date - weather.getEpochSecond(reading));
+			}
+			file.endRow();
 		}
+	}
+	
+	/**
+	 * Builds a csv file with the exposure of each customer to the ad screen before their purchase, for the ad effect models.
+	 * Each customer is matched with the views impressions of the same age and gender within the lookback window before their datetime
+	 * by a {@link ViewsCustomerJoin}.
+	 * Creates entries for Datetime, Date, DayOfWeek, Gender, Age, ItemCount, BoughtAdv, Impressions (the number of impressions matched),
+	 * DwellTime, AttentionTime (the sums of the times of the impressions), and SinceImpression (the seconds from the latest impression, -1 if none),
+	 * for each customer in date order.
+	 * @param viewsData
+	 * @param customers
+	 * @param lookback the number of seconds before a customer's datetime an impression is matched within
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void buildExposureFile(List<ViewsData> viewsData, List<Customer> customers, int lookback) throws IOException {
+		ViewsCustomerJoin join = ViewsCustomerJoin.join(viewsData, customers, lookback);
+		try (CsvSink file = createOutput(Globals.EXPOSURE_OUTPUT)) {
+			buildExposureFile(join, file);
+		}
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildExposureFile(List, List, int)} to a sink.
+	 * @param join
+	 * @param file
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildExposureFile(ViewsCustomerJoin join, CsvSink file) throws IOException {
+		file.writeLine("Datetime,Date,DayOfWeek,Gender,Age,ItemCount,BoughtAdv,Impressions,DwellTime,AttentionTime,SinceImpression");
 		
-		viewsFile.close();
-		
-		System.out.println("ViewsFile built.");
+		for (int i = 0; i < join.size(); i++) {
+			Customer customer = join.getCustomer(i);
+			long date = customer.getEpochSecond();
+			file.appendDateTime(date)
+					.appendDate(date)
+					.appendCode(Dictionary.DAY_OF_WEEK, customer.getDayOfWeekCode())
+					.append(customer.getGender())
+					.append(customer.getAge())
+					.append(customer.getPurchasedItems().size())
+					.append(customer.getBoughtAdvertised())
+					.append(join.getImpressions(i))
+					.append(join.getDwellTime(i))
+					.append(join.getAttentionTime(i))
+					.append(join.getSecondsSinceImpression(i))
+					.endRow();
+		}
 	}
-
+	
 	/**
 	 * Builds a csv file from the customer list using values for how much healthy and unhealthy items they purchased and the percentage of their meal that is healthy.
 	 * Creates entries for Date, DayOfMonth, Minute, DayOfWeek, HealthyCount, UnhealhtyCount, Percentage (of healthy food), Gender, Age, Healthiness of Advertised item,
 	 * 	Is Advertised item purchased, Advertised item's temperature, Advertised item's type, Weather Temperature, and Weather Precipitaiton.
 	 * @param customers
+	 * @throws IOException if the file cannot be written
 	 */
-	public static void buildHealthyFile(List<Customer> customers) {
-		PrintWriter file = null;
-		try {
-			file = new PrintWriter("healthyData.csv");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+	public static void buildHealthyFile(List<Customer> customers) throws IOException {
+		try (CsvSink file = createOutput(Globals.HEALTHY_OUTPUT)) {
+			buildHealthyFile(customers, file);
 		}
-		
-		file.println("Datetime,Date,DayOfMonth,Hour,Minute,DayOfWeek,HealthyCount,UnhealthyCount,Percentage,Gender,Age,AdvHealth,BoughtAdv,AdvTemp,AdvType,Temperature,Precipitation");
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildHealthyFile(List)} to a sink.
+	 * @param customers
+	 * @param file
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildHealthyFile(List<Customer> customers, CsvSink file) throws IOException {
+		file.writeLine("Datetime,Date,DayOfMonth,Hour,Minute,DayOfWeek,HealthyCount,UnhealthyCount,Percentage,Gender,Age,AdvHealth,BoughtAdv,AdvTemp,AdvType,Temperature,Precipitation");
 		
 		for (Customer customer : customers) {
 			int healthyCount = 0;
@@ -647,11 +778,11 @@ public class CafeDataParser {
 			}
 			
 			String advHealth = null;
-			String advTemp = null;
-			String advType = null;
+			int advTemp = NO_CODE;
+			int advType = NO_CODE;
 			
 			// Loops through all advertised items the customer had and sets value to 'Both' if any of the values were both
-			// healthy and unhealthy, hot and cold, or food and drink.
+			// healthy and unhealthy, hot and cold, or food and drink. The temperatures and types are compared as their dictionary codes.
 			for (Item i : customer.getAdvertisedItems()) {
 				String itemHealth = i.isHealthy() ? "Healthy" : "Unhealthy";
 				
@@ -661,50 +792,168 @@ public class CafeDataParser {
 				else if (!advHealth.equals(itemHealth)) {
 					advHealth = "Both";
 				}
-					
-				if (advTemp == null) {
-					advTemp = i.getTemp();
-				}
-				else if (!advTemp.equals(i.getTemp())) {
-					advTemp = "Both";
-				}
 				
-				if (advType == null) {
-					advType = i.getType();
+				advTemp = combineCodes(advTemp, i.getTempCode());
+				advType = combineCodes(advType, i.getTypeCode());
+			}
+			
+			long date = customer.getEpochSecond();
+			int itemCount = customer.getPurchasedItems().size();
+			file.appendDateTime(date)
+					.appendDate(date)
+					.append(dayOfMonth(date))
+					.append(minuteOfDay(date) / 60)
+					.append(minuteOfDay(date))
+					.appendCode(Dictionary.DAY_OF_WEEK, customer.getDayOfWeekCode())
+					.append(healthyCount)
+					.append(itemCount - healthyCount)
+					.append((double)healthyCount / (double)itemCount * 100.0)
+					.append(customer.getGender())
+					.append(customer.getAge())
+					.append(advHealth)
+					.append(customer.getBoughtAdvertised())
+					.append(decodeCombined(advTemp, Dictionary.ITEM_TEMP))
+					.append(decodeCombined(advType, Dictionary.ITEM_TYPE))
+					.append(customer.getTemperature())
+					.appendCode(Dictionary.PRECIPITATION, customer.getPrecipitationCode())
+					.endRow();
+		}
+	}
+	
+	/**
+	 * Builds a csv file with the number of customers in the cafe in each half hour, in total and by gender and age.
+	 * Creates entries for Datetime, Date, DayOfWeek, Slot (the half hour of the day, 0 to 47), Total, Male, Female, Child, YoungAdult, Adult, and Senior,
+	 * for each half hour with at least one customer, in date order.
+	 * @param population the customers counted by {@link PopulationCube#count(List)}
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void buildPopulationFile(PopulationCube population) throws IOException {
+		try (CsvSink file = createOutput(Globals.POPULATION_OUTPUT)) {
+			buildPopulationFile(population, file);
+		}
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildPopulationFile(PopulationCube)} to a sink.
+	 * @param population
+	 * @param file
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildPopulationFile(PopulationCube population, CsvSink file) throws IOException {
+		file.writeLine("Datetime,Date,DayOfWeek,Slot," + POPULATION_COLUMNS);
+		
+		int[] counts = new int[POPULATION_COUNT];
+		for (int day = 0; day < population.getDayCount(); day++) {
+			for (int slot = 0; slot < population.getSlotCount(); slot++) {
+				Arrays.fill(counts, 0);
+				addPopulation(population, day, slot, counts);
+				if (counts[0] == 0) {
+					continue;
 				}
-				else if (!advType.equals(i.getType())) {
-					advType = "Both";
+				long date = population.getSlotStart(day, slot);
+				file.appendDateTime(date)
+						.appendDate(date)
+						.appendDayOfWeek(date)
+						.append(slot);
+				for (int count : counts) {
+					file.append(count);
 				}
+				file.endRow();
 			}
-			
-			file.println(customer.getDate() + ","
-					+ LocalDate.of(customer.getDate().getYear(), customer.getDate().getMonthValue(), customer.getDate().getDayOfMonth()) + ","
-					+ customer.getDate().getDayOfMonth() + ","
-					+ customer.getDate().getHour() + ","
-					+ (customer.getDate().getHour() * 60 + customer.getDate().getMinute()) + ","
-					+ customer.getDayOfWeek() + ","
-					+ healthyCount + ","
-					+ (customer.getPurchasedItems().size() - healthyCount) + ","
-					+ ((double)healthyCount / (double)customer.getPurchasedItems().size() * 100.0) + ","
-					+ customer.getGender() + ","
-					+ customer.getAge() + ","
-					+ advHealth + ","
-					+ customer.getBoughtAdvertised() + ","
-					+ advTemp + ","
-					+ advType + ","
-					+ customer.getTemperature() + ","
-					+ customer.getPrecipitation()
-			);
 		}
+	}
+	
+	/**
+	 * Builds a csv file with the average number of customers in the cafe, in total and by gender and age, for each half hour of each day of the week.
+	 * The averages are taken over the dates with at least one customer. Rows with a DayOfWeek of 'All' average each half hour over every date,
+	 * and rows with a Time of 'All' average the whole day.
+	 * Creates entries for DayOfWeek, Time, Days (the number of dates averaged), Total, Male, Female, Child, YoungAdult, Adult, and Senior.
+	 * @param population the customers counted by {@link PopulationCube#count(List)}
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void buildPopulationAvgFile(PopulationCube population) throws IOException {
+		try (CsvSink file = createOutput(Globals.POPULATION_AVG_OUTPUT)) {
+			buildPopulationAvgFile(population, file);
+		}
+	}
+	
+	/**
+	 * Writes the rows of {@link CafeDataParser#buildPopulationAvgFile(PopulationCube)} to a sink.
+	 * @param population
+	 * @param file
+	 * @throws IOException if the sink cannot be written
+	 */
+	public static void buildPopulationAvgFile(PopulationCube population, CsvSink file) throws IOException {
+		file.writeLine("DayOfWeek,Time,Days," + POPULATION_COLUMNS);
 		
-		file.close();
-		System.out.println("healthyData.csv created.");
+		// Sums per day of week (7 for every day), per slot (slot count for the whole day), and per column.
+		int slotCount = population.getSlotCount();
+		int[][][] sums = new int[8][slotCount + 1][POPULATION_COUNT];
+		int[] days = new int[8];
+		for (int day = 0; day < population.getDayCount(); day++) {
+			if (!population.hasCustomers(day)) {
+				continue;
+			}
+			int dayOfWeek = population.getDayOfWeek(day);
+			days[dayOfWeek]++;
+			days[7]++;
+			for (int slot = 0; slot < slotCount; slot++) {
+				addPopulation(population, day, slot, sums[dayOfWeek][slot]);
+				addPopulation(population, day, slot, sums[dayOfWeek][slotCount]);
+				addPopulation(population, day, slot, sums[7][slot]);
+				addPopulation(population, day, slot, sums[7][slotCount]);
+			}
+		}
+		
+		for (int dayOfWeek = 0; dayOfWeek < 8; dayOfWeek++) {
+			if (days[dayOfWeek] == 0) {
+				continue;
+			}
+			for (int slot = 0; slot <= slotCount; slot++) {
+				file.append(dayOfWeek < 7 ? DayOfWeek.of(dayOfWeek + 1).toString() : "All")
+						.append(slot < slotCount ? LocalTime.ofSecondOfDay(population.getSlotSecondOfDay(slot)).toString() : "All")
+						.append(days[dayOfWeek]);
+				for (int sum : sums[dayOfWeek][slot]) {
+					file.append((double)sum / (double)days[dayOfWeek]);
+				}
+				file.endRow();
+			}
+		}
+	}
+	
+	/**
+	 * Adds the customers of a time slot to the columns of {@link #POPULATION_COLUMNS}.
+	 */
+	private static void addPopulation(PopulationCube population, int day, int slot, int[] counts) {
+		counts[0] += population.getTotal(day, slot);
+		counts[1] += population.getGenderCount(day, slot, Gender.MALE);
+		counts[2] += population.getGenderCount(day, slot, Gender.FEMALE);
+		counts[3] += population.getAgeCount(day, slot, Age.CHILD);
+		counts[4] += population.getAgeCount(day, slot, Age.YOUNG_ADULT);
+		counts[5] += population.getAgeCount(day, slot, Age.ADULT);
+		counts[6] += population.getAgeCount(day, slot, Age.SENIOR);
+	}
+	
+	/**
+	 * @param epochSecond a datetime in seconds since the epoch
+	 * @return the minute of the datetime's day
+	 */
+	private static int minuteOfDay(long epochSecond) {
+		return TimeBucketer.MINUTE.slotOfDay(epochSecond);
+	}
+	
+	/**
+	 * @param epochSecond a datetime in seconds since the epoch
+	 * @return the day of month of the datetime
+	 */
+	private static int dayOfMonth(long epochSecond) {
+		return TimestampDecoder.toLocalDateTime(epochSecond).getDayOfMonth();
 	}
 	
 	/**
 	 * Static method used to build an R script whose purpose is for testing data outputted from {@link CafeDataParser#buildHealthyFile(List)} in R.
 	 */
-	public static void buildHealthyScript() {
+	public static void buildHealthyScript() throws IOException {
 		// Different combinations of all independent variables from the healthy data file.
 		String[][] independentVars = { 
 				{ "DayOfMonth", "DayOfWeek", "Minute", "Gender", "Age", "AdvHealth", "AdvTemp", "Temperature", "Precipitation" },
@@ -720,77 +969,70 @@ public class CafeDataParser {
 		// The dependent variable from the healthy data file.
 		String dependentVar = "boughtHealthy";
 		
-		PrintWriter file = null;
-		try {
-			file = new PrintWriter("healthyScript.R");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Function name
-		file.println("healthyTester <- function(dataset) {");
-		
-		// '\t' is used to tab the code so the final script is readable
-		// Used to randomize the inputted dataset and create train and test data from this.
-		file.println("\trandData <- dataset[sample(1:nrow(dataset)),]");
-		file.println("\ttrainData <- randData[1:(floor(nrow(randData)*0.8)),]");
-		file.println("\ttestData <- randData[(floor(nrow(randData)*0.8)+1):nrow(randData),]");
-		file.println();
-		
-		// Loop through each combination of independent variables
-		for (int arr = 0; arr < independentVars.length; arr++) {
-			// Loop through the current combination of independent variables
-			for (int i = 0; i < independentVars[arr].length; i++) {
-				// Loop through the current combination of independent variables that decreases in size.
-				for (int j = i+1; j < independentVars[arr].length + 1; j++) {
-					// Create the list of independent variables used
-					StringBuilder variables = new StringBuilder();
-					variables.append(independentVars[arr][i]);
-					
-					// Outputs the line to create the model using naiveBayes and the combination of independent variables.
-					file.print("\tm <- naiveBayes(" + dependentVar + " ~ " + independentVars[arr][i]);
-					
-					// Only output the '+' following the first independent variable and the next variable and '+' if they
-					// exist in the independentVars list being looped through.
-					if (j < independentVars[arr].length) {
-						variables.append(","+independentVars[arr][j]);
-						file.print("+" + independentVars[arr][j]);
-						if (j < independentVars[arr].length - 1) {
-							file.print("+");
+		try (CsvSink file = createOutput(Globals.HEALTHY_SCRIPT_OUTPUT)) {
+			// Function name
+			file.writeLine("healthyTester <- function(dataset) {");
+			
+			// '\t' is used to tab the code so the final script is readable
+			// Used to randomize the inputted dataset and create train and test data from this.
+			file.writeLine("\trandData <- dataset[sample(1:nrow(dataset)),]");
+			file.writeLine("\ttrainData <- randData[1:(floor(nrow(randData)*0.8)),]");
+			file.writeLine("\ttestData <- randData[(floor(nrow(randData)*0.8)+1):nrow(randData),]");
+			file.writeLine("");
+			
+			// Loop through each combination of independent variables
+			for (int arr = 0; arr < independentVars.length; arr++) {
+				// Loop through the current combination of independent variables
+				for (int i = 0; i < independentVars[arr].length; i++) {
+					// Loop through the current combination of independent variables that decreases in size.
+					for (int j = i+1; j < independentVars[arr].length + 1; j++) {
+						// Create the list of independent variables used
+						StringBuilder variables = new StringBuilder();
+						variables.append(independentVars[arr][i]);
+						
+						// Outputs the line to create the model using naiveBayes and the combination of independent variables.
+						file.write("\tm <- naiveBayes(" + dependentVar + " ~ " + independentVars[arr][i]);
+						
+						// Only output the '+' following the first independent variable and the next variable and '+' if they
+						// exist in the independentVars list being looped through.
+						if (j < independentVars[arr].length) {
+							variables.append(","+independentVars[arr][j]);
+							file.write("+" + independentVars[arr][j]);
+							if (j < independentVars[arr].length - 1) {
+								file.write("+");
+							}
 						}
-					}
-					
-					// Loop through the rest of the independent variables
-					for (int k = j+1; k < independentVars[arr].length; k++) {
-						variables.append(","+independentVars[arr][k]);
-						file.print(independentVars[arr][k]);
-						// Output a '+' if not at the end of the week.
-						if (k < independentVars[arr].length - 1) {
-							file.print("+");
+						
+						// Loop through the rest of the independent variables
+						for (int k = j+1; k < independentVars[arr].length; k++) {
+							variables.append(","+independentVars[arr][k]);
+							file.write(independentVars[arr][k]);
+							// Output a '+' if not at the end of the week.
+							if (k < independentVars[arr].length - 1) {
+								file.write("+");
+							}
 						}
+						// Finish the naiveBayes R statement.
+						file.write(", data = trainData)\n");
+						// Output the predictor value using the predict method
+						file.writeLine("\tp <- predict(m, testData)");
+						// Output the variables used to create the above predictor and its accuracy.
+						file.writeLine("\tprint(sprintf(\"(" + variables.toString() + "): %s\", prop.table(table(p == testData$" + dependentVar + "))[2]))");
+						file.writeLine("");
 					}
-					// Finish the naiveBayes R statement.
-					file.print(", data = trainData)\n");
-					// Output the predictor value using the predict method
-					file.println("\tp <- predict(m, testData)");
-					// Output the variables used to create the above predictor and its accuracy.
-					file.println("\tprint(sprintf(\"(" + variables.toString() + "): %s\", prop.table(table(p == testData$" + dependentVar + "))[2]))");
-					file.println();
 				}
 			}
+			
+			// Close the function
+			file.writeLine("}");
 		}
-		
-		// Close the function
-		file.println("}");
-		file.close();
-		System.out.println("healthyScript.R created.");
 	}
 	
 	/**
 	 * Static method used to build an R script whose purpose is for testing data outputted from {@link CafeDataParser#buildWeatherGatesFile(List, List)} in R.
 	 * Method is identical to {@link CafeDataParser#buildHealthyScript()} but converted for the weather and gates file.
 	 */
-	public static void buildWeatherScript() {
+	public static void buildWeatherScript() throws IOException {
 		String[][] independentVars = { 
 				{ "DayOfMonth", "DayOfWeek", "Minute", "Temperature", "Precipitation", "Humidity" },
 				{ "DayOfWeek", "Minute", "Temperature", "Precipitation", "Humidity", "DayOfMonth" },
@@ -801,52 +1043,45 @@ public class CafeDataParser {
 		};
 		String dependentVar = "InCount";
 		
-		PrintWriter file = null;
-		try {
-			file = new PrintWriter("weatherScript.R");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		file.println("weatherTester <- function(dataset) {");
-		
-		file.println("\trandData <- dataset[sample(1:nrow(dataset)),]");
-		file.println("\ttrainData <- randData[1:(floor(nrow(randData)*0.8)),]");
-		file.println("\ttestData <- randData[(floor(nrow(randData)*0.8)+1):nrow(randData),]");
-		file.println();
-		
-		for (int arr = 0; arr < independentVars.length; arr++) {
-			for (int i = 0; i < independentVars[arr].length; i++) {
-				for (int j = i+1; j < independentVars[arr].length + 1; j++) {
-					StringBuilder variables = new StringBuilder();
-					variables.append(independentVars[arr][i]);
-					file.print("\tm <- M5P(" + dependentVar + " ~ " + independentVars[arr][i]);
-					if (j < independentVars[arr].length) {
-						variables.append(","+independentVars[arr][j]);
-						file.print("+" + independentVars[arr][j]);
-						if (j < independentVars[arr].length - 1) {
-							file.print("+");
+		try (CsvSink file = createOutput(Globals.WEATHER_SCRIPT_OUTPUT)) {
+			file.writeLine("weatherTester <- function(dataset) {");
+			
+			file.writeLine("\trandData <- dataset[sample(1:nrow(dataset)),]");
+			file.writeLine("\ttrainData <- randData[1:(floor(nrow(randData)*0.8)),]");
+			file.writeLine("\ttestData <- randData[(floor(nrow(randData)*0.8)+1):nrow(randData),]");
+			file.writeLine("");
+			
+			for (int arr = 0; arr < independentVars.length; arr++) {
+				for (int i = 0; i < independentVars[arr].length; i++) {
+					for (int j = i+1; j < independentVars[arr].length + 1; j++) {
+						StringBuilder variables = new StringBuilder();
+						variables.append(independentVars[arr][i]);
+						file.write("\tm <- M5P(" + dependentVar + " ~ " + independentVars[arr][i]);
+						if (j < independentVars[arr].length) {
+							variables.append(","+independentVars[arr][j]);
+							file.write("+" + independentVars[arr][j]);
+							if (j < independentVars[arr].length - 1) {
+								file.write("+");
+							}
 						}
-					}
-					for (int k = j+1; k < independentVars[arr].length; k++) {
-						variables.append(","+independentVars[arr][k]);
-						file.print(independentVars[arr][k]);
-						if (k < independentVars[arr].length - 1) {
-							file.print("+");
+						for (int k = j+1; k < independentVars[arr].length; k++) {
+							variables.append(","+independentVars[arr][k]);
+							file.write(independentVars[arr][k]);
+							if (k < independentVars[arr].length - 1) {
+								file.write("+");
+							}
 						}
+						file.write(", data = trainData)\n");
+						file.writeLine("\tp <- predict(m, testData)");
+						file.writeLine("\tprint(sprintf(\"(" + variables.toString()
+								+ "): %f\", rSquared(actualValues = testData$" + dependentVar
+								+ ", predictedValues = p)))");
+						file.writeLine("");
 					}
-					file.print(", data = trainData)\n");
-					file.println("\tp <- predict(m, testData)");
-					file.println("\tprint(sprintf(\"(" + variables.toString()
-							+ "): %f\", rSquared(actualValues = testData$" + dependentVar
-							+ ", predictedValues = p)))");
-					file.println();
 				}
 			}
+			
+			file.writeLine("}");
 		}
-		
-		file.println("}");
-		file.close();
-		System.out.println("weatherScript.R created.");
 	}
 }
@@ -4,7 +4,9 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import cafe.data.parser.io.TimestampDecoder;
 import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Dictionary;
 import cafe.data.parser.wrapper.Gender;
 
 /**
@@ -12,29 +14,36 @@ import cafe.data.parser.wrapper.Gender;
  * @author Ryan Zembrodt
  */
 public class Customer {
-	private LocalDateTime datetime;
-	private String dayOfWeek;
+	private long datetime; // seconds since the epoch
+	private int dayOfWeek; // Dictionary.DAY_OF_WEEK code
 	private Gender gender;
 	private Age age;
 	private List<Item> purchasedItems;
 	private List<Item> advertisedItems;
 	private boolean boughtAdvertised;
 	private double temperature;
-	private String precipitation;
+	private int precipitation; // Dictionary.PRECIPITATION code
 	
 	public Customer(LocalDateTime datetime, String dayOfWeek, int gender, int age, boolean boughtAdvertised, double temperature, String precipitation) {
-		this.datetime = datetime;
-		this.dayOfWeek = dayOfWeek;
-		this.gender = new Gender(gender);
-		this.age = new Age(age);
-		this.purchasedItems = new ArrayList<Item>();
-		this.advertisedItems = new ArrayList<Item>();
-		this.boughtAdvertised = boughtAdvertised;
-		this.temperature = temperature;
-		this.precipitation = precipitation;
+		this(TimestampDecoder.toEpochSecond(datetime), dayOfWeek, Gender.of(gender), Age.of(age), boughtAdvertised, temperature, precipitation);
 	}
 	
 	public Customer(LocalDateTime datetime, String dayOfWeek, Gender gender, Age age, boolean boughtAdvertised, double temperature, String precipitation) {
+		this(TimestampDecoder.toEpochSecond(datetime), dayOfWeek, gender, age, boughtAdvertised, temperature, precipitation);
+	}
+	
+	/**
+	 * Builds a customer with its datetime in seconds since the epoch (see {@link TimestampDecoder}).
+	 */
+	public Customer(long datetime, String dayOfWeek, Gender gender, Age age, boolean boughtAdvertised, double temperature, String precipitation) {
+		this(datetime, Dictionary.DAY_OF_WEEK.encode(dayOfWeek), gender, age, boughtAdvertised, temperature, Dictionary.PRECIPITATION.encode(precipitation));
+	}
+	
+	/**
+	 * Builds a customer with its datetime in seconds since the epoch and its day of week and precipitation as their codes
+	 * in {@link Dictionary#DAY_OF_WEEK} and {@link Dictionary#PRECIPITATION}.
+	 */
+	public Customer(long datetime, int dayOfWeek, Gender gender, Age age, boolean boughtAdvertised, double temperature, int precipitation) {
 		this.datetime = datetime;
 		this.dayOfWeek = dayOfWeek;
 		this.gender = gender;
@@ -71,11 +80,28 @@ public class Customer {
 		}
 	}
 	
+	/**
+	 * @return the datetime as a LocalDateTime, built on each call.
+	 */
 	public LocalDateTime getDate() {
+		return TimestampDecoder.toLocalDateTime(datetime);
+	}
+	
+	/**
+	 * @return the datetime in seconds since the epoch.
+	 */
+	public long getEpochSecond() {
 		return datetime;
 	}
 	
 	public String getDayOfWeek() {
+		return Dictionary.DAY_OF_WEEK.decode(dayOfWeek);
+	}
+	
+	/**
+	 * @return the day of week as its {@link Dictionary#DAY_OF_WEEK} code.
+	 */
+	public int getDayOfWeekCode() {
 		return dayOfWeek;
 	}
 	
@@ -111,6 +137,13 @@ public class Customer {
 	}
 	
 	public String getPrecipitation() {
+		return Dictionary.PRECIPITATION.decode(precipitation);
+	}
+	
+	/**
+	 * @return the precipitation as its {@link Dictionary#PRECIPITATION} code.
+	 */
+	public int getPrecipitationCode() {
 		return precipitation;
 	}
 	
@@ -118,7 +151,7 @@ public class Customer {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((datetime == null) ? 0 : datetime.hashCode());
+		result = prime * result + (int)(datetime ^ (datetime >>> 32));
 		result = prime * result + ((gender == null) ? 0 : gender.hashCode());
 		result = prime * result + ((age == null) ? 0 : age.hashCode());
 		return result;
@@ -134,6 +167,6 @@ public class Customer {
 		}
 		final Customer c = (Customer)obj;
 		
-		return this.datetime.equals(c.getDate()) && this.gender.equals(c.getGender()) && this.age.equals(c.getAge()); 
+		return this.datetime == c.datetime && this.gender.equals(c.getGender()) && this.age.equals(c.getAge()); 
 	}
 }
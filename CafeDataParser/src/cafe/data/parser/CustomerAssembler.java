@@ -0,0 +1,84 @@
+package cafe.data.parser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Stage that rebuilds the list of {@link Customer} objects from the rows of the POS data, read from its {@link PosColumns}.
+ * A customer is every unique (datetime, gender, age) combination; each POS row adds one purchased item and one advertised item to its customer.
+ * Rows are grouped in a single pass using a hash map, so the cost is linear in the number of POS rows.
+ * @author Ryan Zembrodt
+ */
+public class CustomerAssembler {
+	// Columns of the point of sale data read to build the customers.
+	public static final PosProjection COLUMNS = PosProjection.of(
+			Globals.P_AGE_ID, Globals.P_GENDER_ID, Globals.P_TEMP, Globals.P_PERCIPITATION,
+			Globals.P_SALE_ITEM, Globals.P_SALE_TYPE, Globals.P_SALE_TEMP, Globals.P_SALE_HEALTH,
+			Globals.P_DATE, Globals.P_DOW, Globals.P_ITEM_ID, Globals.P_ITEM_TYPE, Globals.P_ITEM_TEMP, Globals.P_ITEM_HEALTH,
+			Globals.P_PURCHASE_SALE);
+
+	/**
+	 * Builds the list of customers from POS data that is sorted by date.
+	 * Customers are returned in date order and, for customers sharing a datetime, in the order they first appear in the POS data.
+	 * @param posData the POS data sorted by date, holding at least the {@link #COLUMNS}
+	 * @return the list of customers built from the POS data
+	 * @throws IllegalArgumentException if the POS data was loaded without one of the {@link #COLUMNS}
+	 */
+	public static List<Customer> assemble(PosColumns posData) {
+		if (!posData.getProjection().containsAll(COLUMNS)) {
+			throw new IllegalArgumentException("The point of sale data holds the columns " + posData.getProjection()
+					+ " but customers need the columns " + COLUMNS + ".");
+		}
+		List<Customer> customers = new ArrayList<Customer>();
+
+		// Customers of the current datetime keyed by their gender and age. Insertion order is kept for the output order.
+		Map<Long, Customer> currentCustomers = new LinkedHashMap<Long, Customer>();
+		long currentDate = Long.MIN_VALUE;
+		// Shared Item objects, as every row names two items from a small menu.
+		ItemCatalog catalog = new ItemCatalog();
+
+		for (int row = 0; row < posData.size(); row++) {
+			// A new datetime means all customers of the previous datetime are complete.
+			if (currentDate != posData.getEpochSecond(row)) {
+				customers.addAll(currentCustomers.values());
+				currentCustomers.clear();
+				currentDate = posData.getEpochSecond(row);
+			}
+
+			Long key = toKey(posData.getGenderValue(row), posData.getAgeValue(row));
+			Customer customer = currentCustomers.get(key);
+			if (customer == null) {
+				// First row seen for this customer, the customer's values are taken from it.
+				customer = new Customer(posData.getEpochSecond(row), posData.getDayOfWeekCode(row), posData.getGender(row), posData.getAge(row),
+						posData.getBoughtAdvertised(row), posData.getTemperature(row), posData.getPrecipitationCode(row));
+				currentCustomers.put(key, customer);
+			}
+
+			// Adds the purchased item and advertised item from this POS data row to the customer.
+			customer.addItem(catalog.get(posData.getItemId(row), posData.getItemTypeCode(row), posData.getItemTempCode(row), posData.getItemHealthCode(row)));
+			customer.addAdvertisedItem(catalog.get(posData.getAdvertisedItemId(row), posData.getAdvertisedItemTypeCode(row),
+					posData.getAdvertisedItemTempCode(row), posData.getAdvertisedItemHealthCode(row)));
+			// Only sets when true as the customer may already have bought the advertised item in an earlier row.
+			if (posData.getBoughtAdvertised(row)) {
+				customer.setBoughtAdvertised(true);
+			}
+		}
+		customers.addAll(currentCustomers.values());
+
+		return customers;
+	}
+
+	/**
+	 * Packs a gender and age value into a single key. The datetime is not part of the key as customers are grouped one datetime at a time.
+	 * @param gender
+	 * @param age
+	 * @return the key representing the gender and age pair
+	 */
+	private static Long toKey(int gender, int age) {
+		return ((long)gender << 32) | (age & 0xFFFFFFFFL);
+	}
+}
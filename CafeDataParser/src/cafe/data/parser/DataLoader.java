@@ -0,0 +1,203 @@
+package cafe.data.parser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import cafe.data.parser.io.FieldCursor;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.stats.Stage;
+import cafe.data.parser.wrapper.Dictionary;
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Static methods used to parse each of the four data files into their list of data objects.
+ * The weather, gates, and views rows are read with a {@link RowSource}, the point of sale rows straight into a {@link PosColumns}.
+ * Rows with the wrong number of values are skipped and values that cannot be parsed are read as 0 (see {@link FieldCursor}).
+ * Both are counted in the {@link ParseErrors} of the {@link LoadOptions}, or summarized once the file is parsed, I/O errors are thrown to the caller.
+ * @author Ryan Zembrodt
+ */
+public class DataLoader {
+	
+	/**
+	 * Parses the rows of the weather data csv file accepted by the filter of the options.
+	 * @param fileName
+	 * @param options the filter and the sink of invalid rows and values
+	 * @return the list of WeatherData in file order
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static List<WeatherData> loadWeatherData(String fileName, LoadOptions options) throws IOException {
+		List<WeatherData> weatherData = new ArrayList<WeatherData>(Globals.W_ROW_COUNT);
+		try (RowSource<WeatherData> source = RowSource.weatherData(fileName, options)) {
+			WeatherData row;
+			while ((row = source.read()) != null) {
+				weatherData.add(row);
+			}
+		}
+		return weatherData;
+	}
+	
+	/**
+	 * Parses the rows of the gates data csv file accepted by the filter of the options.
+	 * @param fileName
+	 * @param options the filter and the sink of invalid rows and values
+	 * @return the list of GatesData in file order
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static List<GatesData> loadGatesData(String fileName, LoadOptions options) throws IOException {
+		List<GatesData> gatesData = new ArrayList<GatesData>(Globals.G_ROW_COUNT);
+		try (RowSource<GatesData> source = RowSource.gatesData(fileName, options)) {
+			GatesData row;
+			while ((row = source.read()) != null) {
+				gatesData.add(row);
+			}
+		}
+		return gatesData;
+	}
+	
+	/**
+	 * Parses the rows of the views data csv file accepted by the filter of the options.
+	 * @param fileName
+	 * @param options the filter and the sink of invalid rows and values
+	 * @return the list of ViewsData in file order
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static List<ViewsData> loadViewsData(String fileName, LoadOptions options) throws IOException {
+		List<ViewsData> viewsData = new ArrayList<ViewsData>(Globals.V_ROW_COUNT);
+		try (RowSource<ViewsData> source = RowSource.viewsData(fileName, options)) {
+			ViewsData row;
+			while ((row = source.read()) != null) {
+				viewsData.add(row);
+			}
+		}
+		return viewsData;
+	}
+	
+	/**
+	 * Parses the columns of the projection of the options of the rows of the point of sale data csv file accepted by their filter into a column store.
+	 * The returned rows are sorted by date. The datetime of each row is decoded first, and the other values of a rejected row are never decoded.
+	 * @param fileName
+	 * @param options the projection, the filter, and the sink of invalid rows and values of the decoded columns
+	 * @return the PosColumns holding every accepted row sorted by date
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static PosColumns loadPointOfSaleData(String fileName, LoadOptions options) throws IOException {
+		ParseErrors errors = options.getErrors() != null ? options.getErrors() : new ParseErrors();
+		PosProjection projection = options.getProjection();
+		DateFilter filter = options.getFilter();
+		PosColumns posData = new PosColumns(Globals.P_ROW_COUNT);
+		posData.setProjection(projection);
+		TimestampDecoder dateDecoder = new TimestampDecoder(Globals.POS_DATE_FORMAT);
+		try (FieldCursor cursor = new FieldCursor(new FileInputStream(fileName))) {
+			cursor.setErrors(errors);
+			// Loop through each entry in the point of sale data file.
+			while (cursor.nextLine()) {
+				if (!cursor.isEmpty()) {
+					// Check the correct amount of values are in the row.
+					if (cursor.getFieldCount() != Globals.P_COL_COUNT) {
+						// If the correct amount of values is not found count it for the user and continue to the next entry
+						cursor.reportInvalidLine();
+						continue;
+					}
+					
+					// Skips the row before decoding anything else if its datetime is filtered out.
+					long epochSecond = cursor.epochSecondAt(Globals.P_DATE, dateDecoder);
+					if (epochSecond == TimestampDecoder.INVALID) {
+						// A row without a valid datetime cannot be placed, count it for the user and continue to the next entry
+						cursor.reportInvalidLine();
+						continue;
+					}
+					if (!filter.accepts(epochSecond)) {
+						continue;
+					}
+					
+					// Adds the raw values of the row to the columns.
+					addPointOfSaleRow(cursor, epochSecond, projection, posData);
+				}
+			}
+		}
+		
+		sortByDate(fileName, posData);
+		posData.trimToSize();
+		if (options.getErrors() == null) {
+			report(fileName, errors);
+		}
+		
+		return posData;
+	}
+	
+	/**
+	 * Prints a summary of the invalid rows and values of a file, if it had any.
+	 * @param fileName
+	 * @param errors
+	 */
+	static void report(String fileName, ParseErrors errors) {
+		Stage.parsed(fileName, errors);
+		if (!errors.isEmpty()) {
+			System.out.println("Invalid data in " + fileName + ": " + errors);
+		}
+	}
+	
+	/**
+	 * Sorts the point of sale rows by date as a stage of its own.
+	 * @param fileName the file the rows were parsed from
+	 * @param posData
+	 */
+	static void sortByDate(String fileName, PosColumns posData) {
+		Stage stage = Stage.start("sort", fileName);
+		try {
+			posData.sortByDate();
+			stage.addRows(posData.size());
+		} finally {
+			stage.end();
+		}
+	}
+	
+	/**
+	 * Adds the current line of the cursor as a row of the columns. The line must have {@link Globals#P_COL_COUNT} fields.
+	 * The repeated string values are encoded with the shared dictionaries as they are read.
+	 * Only the fields of the projection's columns are decoded, the other values of the row are left empty.
+	 * @param cursor
+	 * @param epochSecond the datetime of the row, already decoded with {@link Globals#POS_DATE_FORMAT}
+	 * @param projection the columns decoded
+	 * @param posData the columns the row is added to
+	 */
+	static void addPointOfSaleRow(FieldCursor cursor, long epochSecond, PosProjection projection, PosColumns posData) {
+		posData.add(
+				intAt(cursor, projection, Globals.P_AGE_ID),
+				intAt(cursor, projection, Globals.P_GENDER_ID),
+				doubleAt(cursor, projection, Globals.P_DWELL),
+				doubleAt(cursor, projection, Globals.P_ATTENTION),
+				projection.contains(Globals.P_TEMP) ? CafeDataParser.toFahrenheit(cursor.doubleAt(Globals.P_TEMP)) : 0.0,
+				doubleAt(cursor, projection, Globals.P_HUMIDITY),
+				codeAt(cursor, projection, Globals.P_PERCIPITATION, Dictionary.PRECIPITATION),
+				intAt(cursor, projection, Globals.P_SALE_ITEM),
+				codeAt(cursor, projection, Globals.P_SALE_TYPE, Dictionary.ITEM_TYPE),
+				codeAt(cursor, projection, Globals.P_SALE_TEMP, Dictionary.ITEM_TEMP),
+				codeAt(cursor, projection, Globals.P_SALE_HEALTH, Dictionary.ITEM_HEALTH),
+				intAt(cursor, projection, Globals.P_TOTAL_CUST),
+				epochSecond,
+				codeAt(cursor, projection, Globals.P_DOW, Dictionary.DAY_OF_WEEK),
+				intAt(cursor, projection, Globals.P_ITEM_ID),
+				codeAt(cursor, projection, Globals.P_ITEM_TYPE, Dictionary.ITEM_TYPE),
+				codeAt(cursor, projection, Globals.P_ITEM_TEMP, Dictionary.ITEM_TEMP),
+				codeAt(cursor, projection, Globals.P_ITEM_HEALTH, Dictionary.ITEM_HEALTH),
+				projection.contains(Globals.P_PURCHASE_SALE) && cursor.booleanAt(Globals.P_PURCHASE_SALE));
+	}
+	
+	// Readers of a field of the cursor's line returning an empty value for a column outside of the projection.
+	
+	private static int intAt(FieldCursor cursor, PosProjection projection, int column) {
+		return projection.contains(column) ? cursor.intAt(column) : 0;
+	}
+	
+	private static double doubleAt(FieldCursor cursor, PosProjection projection, int column) {
+		return projection.contains(column) ? cursor.doubleAt(column) : 0.0;
+	}
+	
+	private static int codeAt(FieldCursor cursor, PosProjection projection, int column, Dictionary dictionary) {
+		return projection.contains(column) ? cursor.codeAt(column, dictionary) : Dictionary.NULL_CODE;
+	}
+}
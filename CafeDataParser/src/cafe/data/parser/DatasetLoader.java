@@ -0,0 +1,140 @@
+package cafe.data.parser;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import cafe.data.parser.stats.Stage;
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Loads the four data files on demand, each on the first thread that asks for it (see {@link #loadOnDemand()}).
+ * Each file is parsed by {@link DataLoader}, or read from its {@link SnapshotCache} snapshot, and files asked for by different threads
+ * are loaded concurrently, as the {@link BuildScheduler} does for the files needed by its jobs.
+ * The time taken by each file and any failure are reported to the user, and each file is loaded as a {@link Stage} of the run.
+ * @author Ryan Zembrodt
+ */
+public class DatasetLoader {
+	
+	/**
+	 * Interface matching the {@link DataLoader} and {@link SnapshotCache} methods so each of them can be run as a task.
+	 */
+	private interface FileLoader<T> {
+		T load(String fileName, LoadOptions options) throws IOException;
+	}
+	
+	/**
+	 * The outcome of loading a single file.
+	 */
+	private static class LoadResult<T> {
+		private final String fileName;
+		private T data;
+		private Exception error;
+		private long elapsedNanos;
+		
+		private LoadResult(String fileName) {
+			this.fileName = fileName;
+		}
+	}
+	
+	/**
+	 * Builds datasets that load each file the first time it is asked for, reporting how long it took, so only the files
+	 * actually used are read. Files asked for by different threads are loaded concurrently.
+	 * Only the point of sale data columns of the projection of the options are decoded, and only the rows accepted by their filter are kept.
+	 * The filter is checked while the files are scanned, so the rejected rows are never decoded past their datetime.
+	 * @param options the options every file is loaded with
+	 * @return the datasets, none of them loaded yet
+	 */
+	public static Datasets loadOnDemand(LoadOptions options) {
+		return Datasets.onFirstUse(
+				onDemand(Globals.WEATHER_FILE, weatherLoader(), options),
+				onDemand(Globals.GATES_FILE, gatesLoader(), options),
+				onDemand(Globals.VIEWS_FILE, viewsLoader(), options),
+				onDemand(Globals.POS_FILE, posLoader(), options),
+				options.getFilter());
+	}
+	
+	// Loaders reading each file from its snapshot or parsing it, depending on the flags of CafeDataParser.
+	
+	private static FileLoader<List<WeatherData>> weatherLoader() {
+		return CafeDataParser.USE_SNAPSHOTS ? SnapshotCache::loadWeatherData : DataLoader::loadWeatherData;
+	}
+	
+	private static FileLoader<List<GatesData>> gatesLoader() {
+		return CafeDataParser.USE_SNAPSHOTS ? SnapshotCache::loadGatesData : DataLoader::loadGatesData;
+	}
+	
+	private static FileLoader<List<ViewsData>> viewsLoader() {
+		return CafeDataParser.USE_SNAPSHOTS ? SnapshotCache::loadViewsData : DataLoader::loadViewsData;
+	}
+	
+	private static FileLoader<PosColumns> posLoader() {
+		if (CafeDataParser.USE_SNAPSHOTS) {
+			return SnapshotCache::loadPointOfSaleData;
+		}
+		return CafeDataParser.PARALLEL_POS ? ParallelPosLoader::load : DataLoader::loadPointOfSaleData;
+	}
+	
+	/**
+	 * Wraps a file loader into a task loading the file when called, reporting how long it took or why it failed.
+	 * @return the loaded data, or null if the file failed to load
+	 */
+	private static <T> Callable<T> onDemand(String fileName, FileLoader<T> loader, LoadOptions options) {
+		final Callable<LoadResult<T>> task = loadTask(fileName, loader, options);
+		return new Callable<T>() {
+			public T call() throws Exception {
+				LoadResult<T> result = task.call();
+				report(result);
+				return result.data;
+			}
+		};
+	}
+	
+	/**
+	 * Wraps a file loader into a task timing it as a "load" stage and catching any failure into its result.
+	 */
+	private static <T> Callable<LoadResult<T>> loadTask(final String fileName, final FileLoader<T> loader, final LoadOptions options) {
+		return new Callable<LoadResult<T>>() {
+			public LoadResult<T> call() {
+				LoadResult<T> result = new LoadResult<T>(fileName);
+				Stage stage = Stage.start("load", fileName);
+				long start = System.nanoTime();
+				try {
+					result.data = loader.load(fileName, options);
+					stage.addRows(rowCount(result.data));
+				} catch (Exception e) {
+					result.error = e;
+				} finally {
+					stage.end();
+				}
+				result.elapsedNanos = System.nanoTime() - start;
+				return result;
+			}
+		};
+	}
+	
+	/**
+	 * @return the number of rows of a loaded dataset
+	 */
+	private static int rowCount(Object data) {
+		if (data instanceof PosColumns) {
+			return ((PosColumns)data).size();
+		}
+		return data instanceof List ? ((List<?>)data).size() : 0;
+	}
+	
+	/**
+	 * Prints how long a file took to load, or why it failed.
+	 */
+	private static void report(LoadResult<?> result) {
+		long millis = result.elapsedNanos / 1000000L;
+		if (result.error == null) {
+			System.out.println("Loaded " + result.fileName + " in " + millis + " ms.");
+		} else if (result.error instanceof FileNotFoundException) {
+			System.out.println("File " + result.fileName + " does not exist.");
+		} else {
+			System.out.println("Failed to load " + result.fileName + " after " + millis + " ms: " + result.error);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package cafe.data.parser;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import cafe.data.parser.stats.Stage;
+
+/**
+ * Object holding the data parsed from the four data files. A dataset is null if its file was not loaded.
+ * The datasets are either passed in already loaded, or built with {@link #onFirstUse(Callable, Callable, Callable, Callable)}
+ * and loaded by the first call to their getter, so a file no caller asks for is never read.
+ * A dataset is only loaded once: a thread asking for a dataset another thread is loading waits for it.
+ * The customers are assembled from the point of sale data the same way, on first use, as a {@link Stage} of the run,
+ * and so is the {@link PopulationCube} counted from the customers, and the {@link WeatherIndex} of the weather data.
+ * The datasets hold the rows accepted by their {@link DateFilter}, which builders reading a data file directly apply as well.
+ * Safe to use from several threads.
+ * @author Ryan Zembrodt
+ */
+public class Datasets {
+	private final FutureTask<List<WeatherData>> weatherData;
+	private final FutureTask<List<GatesData>> gatesData;
+	private final FutureTask<List<ViewsData>> viewsData;
+	private final FutureTask<PosColumns> posData;
+	private final FutureTask<List<Customer>> customers;
+	private final FutureTask<PopulationCube> population;
+	private final FutureTask<WeatherIndex> weatherIndex;
+	private final DateFilter filter;
+	
+	/**
+	 * @param weatherData
+	 * @param gatesData
+	 * @param viewsData
+	 * @param posData the point of sale data, sorted by date
+	 */
+	public Datasets(List<WeatherData> weatherData, List<GatesData> gatesData, List<ViewsData> viewsData, PosColumns posData) {
+		this(loaded(weatherData), loaded(gatesData), loaded(viewsData), loaded(posData), DateFilter.ALL);
+	}
+	
+	private Datasets(Callable<List<WeatherData>> weatherLoader, Callable<List<GatesData>> gatesLoader,
+			Callable<List<ViewsData>> viewsLoader, Callable<PosColumns> posLoader, DateFilter filter) {
+		this.weatherData = new FutureTask<List<WeatherData>>(weatherLoader);
+		this.gatesData = new FutureTask<List<GatesData>>(gatesLoader);
+		this.viewsData = new FutureTask<List<ViewsData>>(viewsLoader);
+		this.posData = new FutureTask<PosColumns>(posLoader);
+		this.customers = new FutureTask<List<Customer>>(new Callable<List<Customer>>() {
+			public List<Customer> call() {
+				PosColumns pos = getPosData();
+				if (pos == null) {
+					return null;
+				}
+				Stage stage = Stage.start("assemble customers", null);
+				try {
+					List<Customer> customers = CustomerAssembler.assemble(pos);
+					stage.addRows(customers.size());
+					return customers;
+				} finally {
+					stage.end();
+				}
+			}
+		});
+		this.population = new FutureTask<PopulationCube>(new Callable<PopulationCube>() {
+			public PopulationCube call() {
+				List<Customer> customers = getCustomers();
+				if (customers == null) {
+					return null;
+				}
+				Stage stage = Stage.start("count population", null);
+				try {
+					PopulationCube population = PopulationCube.count(customers);
+					stage.addRows(customers.size());
+					return population;
+				} finally {
+					stage.end();
+				}
+			}
+		});
+		this.weatherIndex = new FutureTask<WeatherIndex>(new Callable<WeatherIndex>() {
+			public WeatherIndex call() {
+				List<WeatherData> weather = getWeatherData();
+				if (weather == null) {
+					return null;
+				}
+				Stage stage = Stage.start("index weather", null);
+				try {
+					WeatherIndex index = WeatherIndex.of(weather);
+					stage.addRows(index.size());
+					return index;
+				} finally {
+					stage.end();
+				}
+			}
+		});
+		this.filter = filter;
+	}
+	
+	/**
+	 * Builds datasets that are loaded by the first call to their getter. A loader returns null if its file could not be loaded,
+	 * and a null loader leaves its dataset null.
+	 * @param weatherLoader
+	 * @param gatesLoader
+	 * @param viewsLoader
+	 * @param posLoader loads the point of sale data sorted by date
+	 * @return the datasets, none of them loaded yet
+	 */
+	public static Datasets onFirstUse(Callable<List<WeatherData>> weatherLoader, Callable<List<GatesData>> gatesLoader,
+			Callable<List<ViewsData>> viewsLoader, Callable<PosColumns> posLoader) {
+		return onFirstUse(weatherLoader, gatesLoader, viewsLoader, posLoader, DateFilter.ALL);
+	}
+	
+	/**
+	 * Builds datasets that are loaded by the first call to their getter, as {@link #onFirstUse(Callable, Callable, Callable, Callable)},
+	 * whose loaders only keep the rows accepted by a filter.
+	 * @param weatherLoader
+	 * @param gatesLoader
+	 * @param viewsLoader
+	 * @param posLoader loads the point of sale data sorted by date
+	 * @param filter the filter the loaders apply
+	 * @return the datasets, none of them loaded yet
+	 */
+	public static Datasets onFirstUse(Callable<List<WeatherData>> weatherLoader, Callable<List<GatesData>> gatesLoader,
+			Callable<List<ViewsData>> viewsLoader, Callable<PosColumns> posLoader, DateFilter filter) {
+		return new Datasets(
+				weatherLoader != null ? weatherLoader : loaded((List<WeatherData>)null),
+				gatesLoader != null ? gatesLoader : loaded((List<GatesData>)null),
+				viewsLoader != null ? viewsLoader : loaded((List<ViewsData>)null),
+				posLoader != null ? posLoader : loaded((PosColumns)null),
+				filter);
+	}
+	
+	public List<WeatherData> getWeatherData() {
+		return get(weatherData);
+	}
+	
+	public List<GatesData> getGatesData() {
+		return get(gatesData);
+	}
+	
+	public List<ViewsData> getViewsData() {
+		return get(viewsData);
+	}
+	
+	public PosColumns getPosData() {
+		return get(posData);
+	}
+	
+	/**
+	 * @return the filter the rows of the datasets passed, {@link DateFilter#ALL} unless the datasets were built with one
+	 */
+	public DateFilter getFilter() {
+		return filter;
+	}
+	
+	/**
+	 * @return the customers assembled from the point of sale data, or null if it was not loaded
+	 */
+	public List<Customer> getCustomers() {
+		return get(customers);
+	}
+	
+	/**
+	 * @return the customers counted per date, half hour, age, and gender, or null if the point of sale data was not loaded
+	 */
+	public PopulationCube getPopulation() {
+		return get(population);
+	}
+	
+	/**
+	 * @return the weather data indexed by date, or null if it was not loaded
+	 */
+	public WeatherIndex getWeatherIndex() {
+		return get(weatherIndex);
+	}
+	
+	/**
+	 * @return a loader returning an already loaded dataset
+	 */
+	private static <T> Callable<T> loaded(final T data) {
+		return new Callable<T>() {
+			public T call() {
+				return data;
+			}
+		};
+	}
+	
+	/**
+	 * Runs the loader of a dataset if no thread has yet, or waits for the thread running it.
+	 */
+	private static <T> T get(FutureTask<T> task) {
+		task.run();
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading data files.", e);
+		} catch (ExecutionException e) {
+			// The loaders report their own failures, so only unexpected exceptions can reach this point.
+			throw new IllegalStateException("Unexpected failure while loading data files.", e.getCause());
+		}
+	}
+}
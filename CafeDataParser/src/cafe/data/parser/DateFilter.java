@@ -0,0 +1,174 @@
+package cafe.data.parser;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import cafe.data.parser.io.TimestampDecoder;
+
+/**
+ * Filter on the datetime of the rows of the data files: a range of dates, days of the week, and a range of times of the day.
+ * The loaders check it against the datetime of each row, decoded by a {@link TimestampDecoder} straight from the bytes of the line,
+ * before any other value of the row is decoded, so a rejected row costs no more than its datetime and no object is built for it.
+ * Datetimes are compared as seconds since the epoch, as the data files hold local datetimes treated as UTC.
+ * Immutable.
+ * @author Ryan Zembrodt
+ */
+public final class DateFilter {
+	private static final int ALL_DAYS = (1 << 7) - 1;
+	
+	// Filter accepting every row.
+	public static final DateFilter ALL = new DateFilter(null, null, null, null, null);
+	
+	private final LocalDate fromDate;
+	private final LocalDate toDate;
+	private final LocalTime fromTime;
+	private final LocalTime toTime;
+	
+	private final long fromSecond; // Inclusive
+	private final long toSecond; // Exclusive
+	private final int days; // Bit i is set if the day of week of ordinal i (Monday is 0) is accepted
+	private final int fromSecondOfDay; // Inclusive
+	private final int toSecondOfDay; // Exclusive
+	
+	/**
+	 * @param fromDate the first date accepted, or null for no lower bound
+	 * @param toDate the last date accepted, or null for no upper bound
+	 * @param days the days of the week accepted, or null for every day
+	 * @param fromTime the first time of the day accepted, or null for midnight
+	 * @param toTime the time of the day from which rows are rejected again, or null for the end of the day
+	 * @throws IllegalArgumentException if a range ends before it starts
+	 */
+	public DateFilter(LocalDate fromDate, LocalDate toDate, Set<DayOfWeek> days, LocalTime fromTime, LocalTime toTime) {
+		if (fromDate != null && toDate != null && toDate.isBefore(fromDate)) {
+			throw new IllegalArgumentException("The date range ends on " + toDate + " before it starts on " + fromDate + ".");
+		}
+		if (fromTime != null && toTime != null && !toTime.isAfter(fromTime)) {
+			throw new IllegalArgumentException("The time range ends at " + toTime + " before it starts at " + fromTime + ".");
+		}
+		this.fromDate = fromDate;
+		this.toDate = toDate;
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+		
+		this.fromSecond = fromDate != null ? fromDate.toEpochDay() * TimestampDecoder.SECONDS_PER_DAY : Long.MIN_VALUE;
+		this.toSecond = toDate != null ? (toDate.toEpochDay() + 1) * TimestampDecoder.SECONDS_PER_DAY : Long.MAX_VALUE;
+		int mask = days != null ? 0 : ALL_DAYS;
+		if (days != null) {
+			for (DayOfWeek day : days) {
+				mask |= 1 << day.ordinal();
+			}
+		}
+		this.days = mask;
+		this.fromSecondOfDay = fromTime != null ? fromTime.toSecondOfDay() : 0;
+		this.toSecondOfDay = toTime != null ? toTime.toSecondOfDay() : TimestampDecoder.SECONDS_PER_DAY;
+	}
+	
+	/**
+	 * Builds a filter from the values of the command line options, any of which can be null.
+	 * @param from the first date accepted, as yyyy-MM-dd
+	 * @param to the last date accepted, as yyyy-MM-dd
+	 * @param days the days of the week accepted, as a comma separated list of day names or their first three letters, such as "mon,tue,fri"
+	 * @param times the range of times of the day accepted, as HH:mm-HH:mm with the end excluded, such as "11:00-14:00"
+	 * @return the filter
+	 * @throws IllegalArgumentException if a value cannot be parsed
+	 */
+	public static DateFilter parse(String from, String to, String days, String times) {
+		try {
+			LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+			LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+			LocalTime fromTime = null;
+			LocalTime toTime = null;
+			if (times != null) {
+				int separator = times.indexOf('-');
+				if (separator < 0) {
+					throw new IllegalArgumentException("Invalid time range " + times + ", expected HH:mm-HH:mm.");
+				}
+				fromTime = LocalTime.parse(times.substring(0, separator).trim());
+				String end = times.substring(separator + 1).trim();
+				// 24:00 ends the range at midnight.
+				toTime = end.equals("24:00") ? null : LocalTime.parse(end);
+			}
+			return new DateFilter(fromDate, toDate, days != null ? parseDays(days) : null, fromTime, toTime);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid date or time " + e.getParsedString() + ".", e);
+		}
+	}
+	
+	private static Set<DayOfWeek> parseDays(String days) {
+		Set<DayOfWeek> parsed = EnumSet.noneOf(DayOfWeek.class);
+		for (String name : days.split(",")) {
+			String day = name.trim().toUpperCase();
+			DayOfWeek match = null;
+			for (DayOfWeek value : DayOfWeek.values()) {
+				if (day.length() >= 3 && value.name().startsWith(day)) {
+					match = value;
+				}
+			}
+			if (match == null) {
+				throw new IllegalArgumentException("Unknown day of the week " + name + ".");
+			}
+			parsed.add(match);
+		}
+		return parsed;
+	}
+	
+	/**
+	 * @return true if this filter accepts every row
+	 */
+	public boolean acceptsAll() {
+		return fromSecond == Long.MIN_VALUE && toSecond == Long.MAX_VALUE && days == ALL_DAYS
+				&& fromSecondOfDay == 0 && toSecondOfDay == TimestampDecoder.SECONDS_PER_DAY;
+	}
+	
+	/**
+	 * @param epochSecond the datetime of a row in seconds since the epoch
+	 * @return true if the row is accepted
+	 */
+	public boolean accepts(long epochSecond) {
+		if (epochSecond < fromSecond || epochSecond >= toSecond) {
+			return false;
+		}
+		long epochDay = Math.floorDiv(epochSecond, TimestampDecoder.SECONDS_PER_DAY);
+		// 1970-01-01 was a Thursday, of ordinal 3.
+		int day = (int)Math.floorMod(epochDay + 3, 7L);
+		if ((days & (1 << day)) == 0) {
+			return false;
+		}
+		int secondOfDay = (int)(epochSecond - epochDay * TimestampDecoder.SECONDS_PER_DAY);
+		return secondOfDay >= fromSecondOfDay && secondOfDay < toSecondOfDay;
+	}
+	
+	/**
+	 * @return the filter, for example "from 2016-08-22 to 2016-09-04 on [MONDAY, FRIDAY] from 11:00 to 14:00", or "all rows"
+	 */
+	@Override
+	public String toString() {
+		if (acceptsAll()) {
+			return "all rows";
+		}
+		StringBuilder sb = new StringBuilder();
+		if (fromDate != null) {
+			sb.append(" from ").append(fromDate);
+		}
+		if (toDate != null) {
+			sb.append(" to ").append(toDate);
+		}
+		if (days != ALL_DAYS) {
+			Set<DayOfWeek> accepted = EnumSet.noneOf(DayOfWeek.class);
+			for (DayOfWeek day : DayOfWeek.values()) {
+				if ((days & (1 << day.ordinal())) != 0) {
+					accepted.add(day);
+				}
+			}
+			sb.append(" on ").append(accepted);
+		}
+		if (fromTime != null || toTime != null) {
+			sb.append(" from ").append(fromTime != null ? fromTime : LocalTime.MIDNIGHT).append(" to ").append(toTime != null ? toTime : "24:00");
+		}
+		return sb.substring(1);
+	}
+}
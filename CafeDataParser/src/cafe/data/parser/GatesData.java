@@ -2,6 +2,8 @@ package cafe.data.parser;
 
 import java.time.LocalDateTime;
 
+import cafe.data.parser.io.TimestampDecoder;
+
 /**
  * Object used to represent entries from the gates data file.
  * @author Ryan Zembrodt
@@ -9,12 +11,24 @@ import java.time.LocalDateTime;
 public class GatesData {
 	private int locationId;
 	private int gateId;
-	private LocalDateTime datetime;
+	private long datetime; // seconds since the epoch
 	private int gateDuration;
 	private int inCount;
 	private int outCount;
 	
 	public GatesData(int locationId, int gateId, LocalDateTime datetime, int gateDuration, int inCount, int outCount) {
+		this(locationId, gateId, TimestampDecoder.toEpochSecond(datetime), gateDuration, inCount, outCount);
+	}
+	
+	/**
+	 * @param locationId
+	 * @param gateId
+	 * @param datetime seconds since the epoch, see {@link TimestampDecoder}
+	 * @param gateDuration
+	 * @param inCount
+	 * @param outCount
+	 */
+	public GatesData(int locationId, int gateId, long datetime, int gateDuration, int inCount, int outCount) {
 		this.locationId = locationId;
 		this.gateId = gateId;
 		this.datetime = datetime;
@@ -23,10 +37,24 @@ public class GatesData {
 		this.outCount = outCount;
 	}
 	
+	/**
+	 * @return the datetime as a LocalDateTime, built on each call.
+	 */
 	public LocalDateTime getDate() {
+		return TimestampDecoder.toLocalDateTime(datetime);
+	}
+	
+	/**
+	 * @return the datetime in seconds since the epoch.
+	 */
+	public long getEpochSecond() {
 		return datetime;
 	}
 	
+	public int getLocationId() {
+		return locationId;
+	}
+	
 	public int getGate() {
 		return gateId;
 	}
@@ -1,7 +1,10 @@
 package cafe.data.parser;
 
+import cafe.data.parser.wrapper.Dictionary;
+
 /**
  * Object used to represent all the data about an item a customer purchased or the advertised item from the POS data.
+ * The type and temperature are kept as their codes in {@link Dictionary#ITEM_TYPE} and {@link Dictionary#ITEM_TEMP}.
  * @author Ryan Zembrodt
  */
 public class Item {
@@ -14,8 +17,8 @@ public class Item {
 	private static final String FOOD = "Food";
 	
 	private final int id;
-	private final String type;
-	private final String temp;
+	private final int type; // Dictionary.ITEM_TYPE code
+	private final int temp; // Dictionary.ITEM_TEMP code
 	private final boolean healthy;
 	
 	/**
@@ -26,21 +29,44 @@ public class Item {
 	 * @param healthy string representing healthy or unhealthy (see {@link Item#HEALTHY} and {@link Item#UNHEALTHY})
 	 */
 	public Item(int id, String type, String temp, String healthy) {
+		this(id, Dictionary.ITEM_TYPE.encode(type), Dictionary.ITEM_TEMP.encode(temp), healthy.equals(HEALTHY));
+	}
+	
+	/**
+	 * Constructs an Item from the dictionary codes of its values.
+	 * @param id
+	 * @param type code in {@link Dictionary#ITEM_TYPE}
+	 * @param temp code in {@link Dictionary#ITEM_TEMP}
+	 * @param healthy
+	 */
+	public Item(int id, int type, int temp, boolean healthy) {
 		this.id = id;
 		this.type = type;
 		this.temp = temp;
-		if (healthy.equals(HEALTHY)) {
-			this.healthy = true;
-		} else {
-			this.healthy = false;
-		}
+		this.healthy = healthy;
+	}
+	
+	/**
+	 * @param healthCode code in {@link Dictionary#ITEM_HEALTH}
+	 * @return true if the code is of the string representing healthy
+	 */
+	public static boolean isHealthy(int healthCode) {
+		return HEALTHY.equals(Dictionary.ITEM_HEALTH.decode(healthCode));
 	}
 	
 	public String getType() {
-		return type;
+		return Dictionary.ITEM_TYPE.decode(type);
 	}
 	
 	public String getTemp() {
+		return Dictionary.ITEM_TEMP.decode(temp);
+	}
+	
+	public int getTypeCode() {
+		return type;
+	}
+	
+	public int getTempCode() {
 		return temp;
 	}
 	
@@ -48,9 +74,16 @@ public class Item {
 		return healthy;
 	}
 	
+	/**
+	 * Checks if this Item holds the passed values, without building a new Item to compare to.
+	 */
+	boolean matches(int id, int type, int temp, boolean healthy) {
+		return this.id == id && this.type == type && this.temp == temp && this.healthy == healthy;
+	}
+	
 	@Override
 	public String toString() {
-		return "Item(" + id + "," + type + "," + temp + "," + (healthy ? "Healthy" : "Unhealthy") + ")";
+		return "Item(" + id + "," + getType() + "," + getTemp() + "," + (healthy ? "Healthy" : "Unhealthy") + ")";
 	}
 	
 	@Override
@@ -59,8 +92,8 @@ public class Item {
 		int result = 1;
 		result = prime * result + (healthy ? 1231 : 1237);
 		result = prime * result + id;
-		result = prime * result + ((temp == null) ? 0 : temp.hashCode());
-		result = prime * result + ((type == null) ? 0 : type.hashCode());
+		result = prime * result + temp;
+		result = prime * result + type;
 		return result;
 	}
 
@@ -69,6 +102,9 @@ public class Item {
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null) {
 			return false;
 		}
@@ -77,6 +113,6 @@ public class Item {
 		}
 		final Item i = (Item)obj;
 		
-		return this.id == i.id && this.type.equals(i.type) && this.temp.equals(i.temp) && this.healthy == i.healthy;
+		return this.id == i.id && this.type == i.type && this.temp == i.temp && this.healthy == i.healthy;
 	}
 }
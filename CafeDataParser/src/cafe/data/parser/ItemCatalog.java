@@ -0,0 +1,56 @@
+package cafe.data.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cafe.data.parser.wrapper.Dictionary;
+
+/**
+ * Catalog of the {@link Item} objects seen while building customers, keyed by item id.
+ * Every POS row names a purchased item and an advertised item from a small menu, so the same shared object is returned
+ * for each occurrence of an item instead of building two new Items per row.
+ * @author Ryan Zembrodt
+ */
+public class ItemCatalog {
+	private final Map<Integer, Item> items = new HashMap<Integer, Item>();
+	
+	/**
+	 * Returns the catalog's Item with the passed values, adding it to the catalog the first time its id is seen.
+	 * If an id is seen again with different values, a new Item is returned for those values and the catalog keeps the first one.
+	 * @param id
+	 * @param type code in {@link Dictionary#ITEM_TYPE}
+	 * @param temp code in {@link Dictionary#ITEM_TEMP}
+	 * @param health code in {@link Dictionary#ITEM_HEALTH}
+	 * @return the Item holding the passed values
+	 */
+	public Item get(int id, int type, int temp, int health) {
+		Item item = items.get(id);
+		boolean healthy = Item.isHealthy(health);
+		if (item == null) {
+			item = new Item(id, type, temp, healthy);
+			items.put(id, item);
+		} else if (!item.matches(id, type, temp, healthy)) {
+			item = new Item(id, type, temp, healthy);
+		}
+		return item;
+	}
+	
+	/**
+	 * Returns the catalog's Item with the passed string values, see {@link #get(int, int, int, int)}.
+	 * @param id
+	 * @param type
+	 * @param temp
+	 * @param healthy string representing healthy or unhealthy
+	 * @return the Item holding the passed values
+	 */
+	public Item get(int id, String type, String temp, String healthy) {
+		return get(id, Dictionary.ITEM_TYPE.encode(type), Dictionary.ITEM_TEMP.encode(temp), Dictionary.ITEM_HEALTH.encode(healthy));
+	}
+	
+	/**
+	 * @return the number of items in the catalog
+	 */
+	public int size() {
+		return items.size();
+	}
+}
@@ -0,0 +1,82 @@
+package cafe.data.parser;
+
+import cafe.data.parser.io.ParseErrors;
+
+/**
+ * Options of a load of a data file, passed to the {@link DataLoader}, {@link ParallelPosLoader}, {@link SnapshotCache}, and {@link RowSource} methods:
+ * the point of sale data columns decoded, the filter the rows must pass, the sink invalid rows and values are counted in,
+ * and the number of threads parsing the point of sale data file. Each option is changed with its with method, starting from {@link #DEFAULT}.
+ * Immutable.
+ * @author Ryan Zembrodt
+ */
+public final class LoadOptions {
+	// Every column and row, errors summarized once the file is loaded, and one thread per available processor.
+	public static final LoadOptions DEFAULT = new LoadOptions(PosProjection.ALL, DateFilter.ALL, null, Runtime.getRuntime().availableProcessors());
+	
+	private final PosProjection projection;
+	private final DateFilter filter;
+	private final ParseErrors errors;
+	private final int parallelism;
+	
+	private LoadOptions(PosProjection projection, DateFilter filter, ParseErrors errors, int parallelism) {
+		this.projection = projection;
+		this.filter = filter;
+		this.errors = errors;
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * @param projection the point of sale data columns decoded, the other columns are left empty
+	 * @return these options with the projection
+	 */
+	public LoadOptions withProjection(PosProjection projection) {
+		return new LoadOptions(projection, filter, errors, parallelism);
+	}
+	
+	/**
+	 * @param filter the filter the rows must pass
+	 * @return these options with the filter
+	 */
+	public LoadOptions withFilter(DateFilter filter) {
+		return new LoadOptions(projection, filter, errors, parallelism);
+	}
+	
+	/**
+	 * @param errors the sink invalid rows and values are counted in, or null to print a summary of them once the file is loaded
+	 * @return these options with the sink
+	 */
+	public LoadOptions withErrors(ParseErrors errors) {
+		return new LoadOptions(projection, filter, errors, parallelism);
+	}
+	
+	/**
+	 * @param parallelism the number of threads parsing the point of sale data file with the {@link ParallelPosLoader}
+	 * @return these options with the parallelism
+	 * @throws IllegalArgumentException if the parallelism is not positive
+	 */
+	public LoadOptions withParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Invalid parallelism of " + parallelism + ", at least one thread is needed.");
+		}
+		return new LoadOptions(projection, filter, errors, parallelism);
+	}
+	
+	public PosProjection getProjection() {
+		return projection;
+	}
+	
+	public DateFilter getFilter() {
+		return filter;
+	}
+	
+	/**
+	 * @return the sink invalid rows and values are counted in, or null if a summary of them is printed once the file is loaded
+	 */
+	public ParseErrors getErrors() {
+		return errors;
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+}
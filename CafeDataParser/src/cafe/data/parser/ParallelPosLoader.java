@@ -0,0 +1,200 @@
+package cafe.data.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import cafe.data.parser.io.FieldCursor;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.stats.Stage;
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Parse mode for the point of sale data file that uses several cores.
+ * The file is memory-mapped and split into chunks that start and end on line boundaries, each chunk is parsed on a fork-join pool,
+ * and the rows of the chunks are concatenated in file order. The result is identical to {@link DataLoader#loadPointOfSaleData(String, LoadOptions)}.
+ * @author Ryan Zembrodt
+ */
+public class ParallelPosLoader {
+	// Chunks are never larger than this so each fits in a single mapping (limited to 2GB).
+	private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+	// Files are not split into chunks smaller than this as the parsing would not outweigh the task overhead.
+	private static final long MIN_CHUNK_SIZE = 1024L * 1024;
+	
+	/**
+	 * The rows parsed from one chunk of the file and the chunk's line information.
+	 */
+	private static class ChunkResult {
+		private final PosColumns posData = new PosColumns();
+		private final ParseErrors errors = new ParseErrors(); // Line numbers relative to the chunk
+		private int lineCount;
+	}
+	
+	/**
+	 * Parses the columns of the projection of the options of the rows of the point of sale data csv file accepted by their filter in parallel,
+	 * using the number of threads of the options. The datetime of each row is decoded first, and the other values of a rejected row are never decoded.
+	 * Invalid rows and values of the decoded columns are counted with their line number in the whole file, after all chunks are parsed.
+	 * @param fileName
+	 * @param options the projection, the filter, the sink of invalid rows and values, and the parallelism
+	 * @return the PosColumns holding every accepted row sorted by date
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static PosColumns load(String fileName, LoadOptions options) throws IOException {
+		final PosProjection projection = options.getProjection();
+		final DateFilter filter = options.getFilter();
+		int parallelism = options.getParallelism();
+		final TimestampDecoder dateDecoder = new TimestampDecoder(Globals.POS_DATE_FORMAT);
+		final Stage stage = Stage.current();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			long[] bounds = chunkBounds(channel, parallelism);
+			
+			List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<ForkJoinTask<ChunkResult>>();
+			for (int i = 0; i < bounds.length - 1; i++) {
+				final MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i+1] - bounds[i]);
+				tasks.add(pool.submit(new Callable<ChunkResult>() {
+					public ChunkResult call() throws IOException {
+						// The chunks are parsed on the pool's threads, so their allocations are added to the stage by hand.
+						long allocatedBytes = Stage.threadAllocatedBytes();
+						try {
+							return parseChunk(chunk, dateDecoder, projection, filter);
+						} finally {
+							if (stage != null && allocatedBytes >= 0) {
+								stage.addAllocatedBytes(Stage.threadAllocatedBytes() - allocatedBytes);
+							}
+						}
+					}
+				}));
+			}
+			
+			List<ChunkResult> results = new ArrayList<ChunkResult>();
+			int rowCount = 0;
+			for (ForkJoinTask<ChunkResult> task : tasks) {
+				ChunkResult result = task.join();
+				results.add(result);
+				rowCount += result.posData.size();
+			}
+			
+			// Concatenate the chunks in file order, converting the invalid line numbers to lines of the whole file.
+			PosColumns posData = new PosColumns(rowCount);
+			posData.setProjection(projection);
+			ParseErrors errors = options.getErrors() != null ? options.getErrors() : new ParseErrors();
+			int lineOffset = 0;
+			for (ChunkResult result : results) {
+				errors.addAll(result.errors, lineOffset);
+				posData.addAll(result.posData);
+				lineOffset += result.lineCount;
+			}
+			
+			DataLoader.sortByDate(fileName, posData);
+			if (options.getErrors() == null) {
+				DataLoader.report(fileName, errors);
+			}
+			return posData;
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Parses every line of a chunk.
+	 * @param chunk
+	 * @param dateDecoder
+	 * @param projection the columns decoded
+	 * @param filter the filter the rows must pass
+	 * @return the rows and line information of the chunk
+	 * @throws IOException
+	 */
+	private static ChunkResult parseChunk(ByteBuffer chunk, TimestampDecoder dateDecoder, PosProjection projection, DateFilter filter) throws IOException {
+		ChunkResult result = new ChunkResult();
+		try (FieldCursor cursor = new FieldCursor(chunk)) {
+			cursor.setErrors(result.errors);
+			while (cursor.nextLine()) {
+				if (!cursor.isEmpty()) {
+					if (cursor.getFieldCount() != Globals.P_COL_COUNT) {
+						cursor.reportInvalidLine();
+						continue;
+					}
+					long epochSecond = cursor.epochSecondAt(Globals.P_DATE, dateDecoder);
+					if (epochSecond == TimestampDecoder.INVALID) {
+						cursor.reportInvalidLine();
+						continue;
+					}
+					if (filter.accepts(epochSecond)) {
+						DataLoader.addPointOfSaleRow(cursor, epochSecond, projection, result.posData);
+					}
+				}
+			}
+			result.lineCount = cursor.getLineNumber();
+		}
+		return result;
+	}
+	
+	/**
+	 * Splits the file into chunks of about equal size whose boundaries are just after a line terminator.
+	 * @param channel
+	 * @param parallelism the preferred number of chunks
+	 * @return the start offset of each chunk followed by the size of the file
+	 * @throws IOException
+	 */
+	static long[] chunkBounds(FileChannel channel, int parallelism) throws IOException {
+		long size = channel.size();
+		long chunks = Math.max(1, Math.min(parallelism, size / MIN_CHUNK_SIZE));
+		chunks = Math.max(chunks, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+		
+		long[] bounds = new long[(int)chunks + 1];
+		bounds[bounds.length - 1] = size;
+		for (int i = 1; i < chunks; i++) {
+			bounds[i] = Math.max(bounds[i-1], nextLineStart(channel, size * i / chunks, size));
+		}
+		return bounds;
+	}
+	
+	/**
+	 * Finds the start of the first line that begins at or after the passed position.
+	 * A "\r\n" terminator is never split so no chunk begins with an extra empty line.
+	 * @param channel
+	 * @param position
+	 * @param size the size of the file, or the end of the range searched
+	 * @return the offset of the line start, or the size if there is none
+	 * @throws IOException
+	 */
+	static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+		if (position == 0) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		// Start one byte early to know whether the position already follows a terminator.
+		long offset = position - 1;
+		byte previous = 0;
+		while (offset < size) {
+			buffer.clear();
+			int read = channel.read(buffer, offset);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				byte b = buffer.get(i);
+				if (previous == '\r' && b != '\n') {
+					return offset + i;
+				}
+				if (b == '\n') {
+					return offset + i + 1;
+				}
+				previous = b;
+			}
+			offset += read;
+		}
+		return size;
+	}
+}
@@ -2,6 +2,7 @@ package cafe.data.parser;
 
 import java.time.LocalDateTime;
 
+import cafe.data.parser.io.TimestampDecoder;
 import cafe.data.parser.wrapper.Age;
 import cafe.data.parser.wrapper.Gender;
 
@@ -22,7 +23,7 @@ public class PointOfSaleData {
 	private String saleItemTemp;
 	private String saleItemHealth;
 	private int totalCustomersInStore;
-	private LocalDateTime datetime;
+	private long datetime; // seconds since the epoch
 	private String dayOfWeek;
 	private int itemId;
 	private String itemType;
@@ -34,8 +35,20 @@ public class PointOfSaleData {
 			int saleItemId, String saleItemType, String saleItemTemp, String saleItemHealth, int totalCustomersInStore,
 			LocalDateTime datetime, String dayOfWeek, int itemId, String itemType, String itemTemp, String itemHealth, boolean purchasedSaleItem) {
 		
-		this.age = new Age(age);
-		this.gender = new Gender(gender);
+		this(age, gender, dwellTime, attentionTime, temperature, humidity, percipitation,
+				saleItemId, saleItemType, saleItemTemp, saleItemHealth, totalCustomersInStore,
+				TimestampDecoder.toEpochSecond(datetime), dayOfWeek, itemId, itemType, itemTemp, itemHealth, purchasedSaleItem);
+	}
+	
+	/**
+	 * Builds a PointOfSaleData object with its datetime in seconds since the epoch (see {@link TimestampDecoder}).
+	 */
+	public PointOfSaleData(int age, int gender, double dwellTime, double attentionTime, double temperature, double humidity, String percipitation,
+			int saleItemId, String saleItemType, String saleItemTemp, String saleItemHealth, int totalCustomersInStore,
+			long datetime, String dayOfWeek, int itemId, String itemType, String itemTemp, String itemHealth, boolean purchasedSaleItem) {
+		
+		this.age = Age.of(age);
+		this.gender = Gender.of(gender);
 		this.dwellTime = dwellTime;
 		this.attentionTime = attentionTime;
 		this.temperature = temperature;
@@ -55,7 +68,17 @@ public class PointOfSaleData {
 		this.purchasedSaleItem = purchasedSaleItem;
 	}
 	
+	/**
+	 * @return the datetime as a LocalDateTime, built on each call.
+	 */
 	public LocalDateTime getDate() {
+		return TimestampDecoder.toLocalDateTime(datetime);
+	}
+	
+	/**
+	 * @return the datetime in seconds since the epoch.
+	 */
+	public long getEpochSecond() {
 		return datetime;
 	}
 	
@@ -107,6 +130,10 @@ public class PointOfSaleData {
 		return attentionTime;
 	}
 	
+	public int getTotalCustomersInStore() {
+		return totalCustomersInStore;
+	}
+	
 	public boolean getBoughtAdvertised() {
 		return purchasedSaleItem;
 	}
@@ -0,0 +1,242 @@
+package cafe.data.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import cafe.data.parser.TimeBucketer.Rounding;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+
+/**
+ * Number of customers in the cafe per date, time slot of the day, {@link Age} and {@link Gender}, counted in a single pass over the customers.
+ * The counts are kept in one dense int array indexed by day, slot, age, and gender, so a customer costs a single increment and the
+ * totals and averages of any slice are sums over contiguous runs of the array. The days span from the first to the last date counted,
+ * and the array grows as customers of earlier or later dates are added.
+ * Customers of an unsupported age or gender are counted as {@link Age#UNKNOWN} or {@link Gender#UNKNOWN}.
+ * Replaces count_customers and generate_average_plot of parser.cpp.
+ * @author Ryan Zembrodt
+ */
+public class PopulationCube {
+	// Time slots of the population files, the half hours of the day as in parser.cpp.
+	public static final TimeBucketer HALF_HOUR = TimeBucketer.ofMinutes(30, Rounding.FLOOR);
+	
+	public static final int AGE_COUNT = Age.SENIOR + 1;
+	public static final int GENDER_COUNT = Gender.FEMALE + 1;
+	// Number of age and gender groups, see group.
+	public static final int GROUP_COUNT = AGE_COUNT * GENDER_COUNT;
+	
+	private final TimeBucketer slots;
+	private final int slotCount;
+	private final int dayStride; // Counts per day
+	
+	private long firstDay; // Epoch day of day 0
+	private int dayCount;
+	private int[] counts;
+	
+	/**
+	 * Builds an empty cube.
+	 * @param slots rounds the datetime of each customer to its time slot
+	 * @throws IllegalArgumentException if the slots are a day or longer
+	 */
+	public PopulationCube(TimeBucketer slots) {
+		if (slots.getWidth() >= TimestampDecoder.SECONDS_PER_DAY) {
+			throw new IllegalArgumentException("The time slots must be shorter than a day, not " + slots.getWidth() + " seconds.");
+		}
+		this.slots = slots;
+		this.slotCount = slots.getBucketsPerDay();
+		this.dayStride = slotCount * GROUP_COUNT;
+		this.counts = new int[0];
+	}
+	
+	/**
+	 * @param age an {@link Age} value
+	 * @param gender a {@link Gender} value
+	 * @return the index of the age and gender among the {@link #GROUP_COUNT} groups, an unsupported age or gender taken as unknown
+	 */
+	public static int group(int age, int gender) {
+		if (age < 0 || age >= AGE_COUNT) {
+			age = Age.UNKNOWN;
+		}
+		if (gender < 0 || gender >= GENDER_COUNT) {
+			gender = Gender.UNKNOWN;
+		}
+		return age * GENDER_COUNT + gender;
+	}
+	
+	/**
+	 * Counts the customers in half hour slots.
+	 * @param customers
+	 * @return the cube
+	 */
+	public static PopulationCube count(List<Customer> customers) {
+		return count(customers, HALF_HOUR);
+	}
+	
+	/**
+	 * Counts the customers in the passed time slots.
+	 * @param customers
+	 * @param slots rounds the datetime of each customer to its time slot
+	 * @return the cube
+	 */
+	public static PopulationCube count(List<Customer> customers, TimeBucketer slots) {
+		PopulationCube cube = new PopulationCube(slots);
+		for (Customer customer : customers) {
+			cube.add(customer.getEpochSecond(), customer.getAge().getValue(), customer.getGender().getValue());
+		}
+		return cube;
+	}
+	
+	/**
+	 * Counts a customer.
+	 * @param epochSecond the datetime of the customer in seconds since the epoch
+	 * @param age the {@link Age} value of the customer
+	 * @param gender the {@link Gender} value of the customer
+	 */
+	public void add(long epochSecond, int age, int gender) {
+		int day = dayOf(TimeBucketer.DAY.bucket(slots.round(epochSecond)));
+		counts[index(day, slots.slotOfDay(epochSecond), group(age, gender))]++;
+	}
+	
+	/**
+	 * Makes room for an epoch day, moving the counts when the day comes before the first day.
+	 * @return the index of the day
+	 */
+	private int dayOf(long epochDay) {
+		if (dayCount == 0) {
+			firstDay = epochDay;
+		}
+		if (epochDay < firstDay) {
+			int shift = (int)(firstDay - epochDay);
+			int[] grown = new int[Math.max(counts.length, (dayCount + shift) * dayStride)];
+			System.arraycopy(counts, 0, grown, shift * dayStride, dayCount * dayStride);
+			counts = grown;
+			firstDay = epochDay;
+			dayCount += shift;
+		} else if (epochDay >= firstDay + dayCount) {
+			dayCount = (int)(epochDay - firstDay) + 1;
+			if (dayCount * dayStride > counts.length) {
+				counts = Arrays.copyOf(counts, Math.max(dayCount, counts.length / dayStride * 2) * dayStride);
+			}
+		}
+		return (int)(epochDay - firstDay);
+	}
+	
+	private int index(int day, int slot, int group) {
+		return (day * slotCount + slot) * GROUP_COUNT + group;
+	}
+	
+	/**
+	 * @return the number of days from the first to the last date counted
+	 */
+	public int getDayCount() {
+		return dayCount;
+	}
+	
+	/**
+	 * @param day
+	 * @return the first second of a day since the epoch
+	 */
+	public long getDayStart(int day) {
+		return TimeBucketer.DAY.start(firstDay + day);
+	}
+	
+	/**
+	 * @param day
+	 * @return the day of week of a day, 0 for Monday to 6 for Sunday as {@link java.time.DayOfWeek#ordinal()}
+	 */
+	public int getDayOfWeek(int day) {
+		return (int)Math.floorMod(firstDay + day + 3, 7L);
+	}
+	
+	/**
+	 * @return the number of time slots in a day
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+	
+	/**
+	 * @param slot
+	 * @return the first second of a time slot since the start of its day
+	 */
+	public int getSlotSecondOfDay(int slot) {
+		return slot * slots.getWidth();
+	}
+	
+	/**
+	 * @param day
+	 * @param slot
+	 * @return the first second of a time slot since the epoch
+	 */
+	public long getSlotStart(int day, int slot) {
+		return getDayStart(day) + getSlotSecondOfDay(slot);
+	}
+	
+	/**
+	 * @param day
+	 * @param slot
+	 * @param age an {@link Age} value
+	 * @param gender a {@link Gender} value
+	 * @return the number of customers of an age and gender in a time slot
+	 */
+	public int getCount(int day, int slot, int age, int gender) {
+		return counts[index(day, slot, group(age, gender))];
+	}
+	
+	/**
+	 * @param day
+	 * @param slot
+	 * @return the number of customers in a time slot
+	 */
+	public int getTotal(int day, int slot) {
+		int total = 0;
+		int start = index(day, slot, 0);
+		for (int i = start; i < start + GROUP_COUNT; i++) {
+			total += counts[i];
+		}
+		return total;
+	}
+	
+	/**
+	 * @param day
+	 * @param slot
+	 * @param age an {@link Age} value
+	 * @return the number of customers of an age in a time slot
+	 */
+	public int getAgeCount(int day, int slot, int age) {
+		int total = 0;
+		for (int gender = 0; gender < GENDER_COUNT; gender++) {
+			total += getCount(day, slot, age, gender);
+		}
+		return total;
+	}
+	
+	/**
+	 * @param day
+	 * @param slot
+	 * @param gender a {@link Gender} value
+	 * @return the number of customers of a gender in a time slot
+	 */
+	public int getGenderCount(int day, int slot, int gender) {
+		int total = 0;
+		for (int age = 0; age < AGE_COUNT; age++) {
+			total += getCount(day, slot, age, gender);
+		}
+		return total;
+	}
+	
+	/**
+	 * @param day
+	 * @return true if any customer was counted on a day
+	 */
+	public boolean hasCustomers(int day) {
+		int start = day * dayStride;
+		for (int i = start; i < start + dayStride; i++) {
+			if (counts[i] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
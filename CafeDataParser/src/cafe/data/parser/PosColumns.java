@@ -0,0 +1,626 @@
+package cafe.data.parser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import cafe.data.parser.io.SnapshotReader;
+import cafe.data.parser.io.SnapshotWriter;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Dictionary;
+import cafe.data.parser.wrapper.Gender;
+
+/**
+ * Column store for the point of sale data. Each value of a row is kept in a primitive array of its column instead of in a
+ * {@link PointOfSaleData} object, so a row costs about seventy bytes rather than several hundred for the object, its wrappers, and its strings.
+ * Rows are read by index through the accessors below, which mirror the getters of PointOfSaleData.
+ * The string columns hold few distinct values so each is kept as its code in a shared {@link Dictionary}.
+ * A store loaded with a {@link PosProjection} only holds the values of the projection's columns, the other columns are left empty.
+ * @author Ryan Zembrodt
+ */
+public class PosColumns {
+	private static final int DEFAULT_CAPACITY = 1024;
+	
+	private int size;
+	private PosProjection projection = PosProjection.ALL;
+	
+	private long[] epochSeconds;
+	private byte[] age;
+	private byte[] gender;
+	private double[] dwellTime;
+	private double[] attentionTime;
+	private double[] temperature; // Fahrenheit
+	private double[] humidity; // percentage
+	private short[] percipitation; // Dictionary.PRECIPITATION codes
+	private int[] saleItemId;
+	private short[] saleItemType; // Dictionary.ITEM_TYPE codes
+	private short[] saleItemTemp; // Dictionary.ITEM_TEMP codes
+	private short[] saleItemHealth; // Dictionary.ITEM_HEALTH codes
+	private int[] totalCustomersInStore;
+	private short[] dayOfWeek; // Dictionary.DAY_OF_WEEK codes
+	private int[] itemId;
+	private short[] itemType; // Dictionary.ITEM_TYPE codes
+	private short[] itemTemp; // Dictionary.ITEM_TEMP codes
+	private short[] itemHealth; // Dictionary.ITEM_HEALTH codes
+	private boolean[] purchasedSaleItem;
+	
+	public PosColumns() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Builds an empty store with room for the passed number of rows before any column has to grow.
+	 * @param capacity
+	 */
+	public PosColumns(int capacity) {
+		allocate(Math.max(1, capacity));
+	}
+	
+	/**
+	 * Adds a row, with its values in the order of the {@link PointOfSaleData} constructor.
+	 * The string values are passed as their codes in the shared dictionaries ({@link Dictionary#ITEM_TYPE}, {@link Dictionary#ITEM_TEMP},
+	 * {@link Dictionary#ITEM_HEALTH}, {@link Dictionary#DAY_OF_WEEK}, and {@link Dictionary#PRECIPITATION}).
+	 * Age and gender values outside of the byte range are stored as -1, which is still an unsupported value for {@link Age} and {@link Gender}.
+	 */
+	public void add(int age, int gender, double dwellTime, double attentionTime, double temperature, double humidity, int percipitation,
+			int saleItemId, int saleItemType, int saleItemTemp, int saleItemHealth, int totalCustomersInStore,
+			long datetime, int dayOfWeek, int itemId, int itemType, int itemTemp, int itemHealth, boolean purchasedSaleItem) {
+		
+		ensureCapacity(size + 1);
+		int row = size++;
+		this.epochSeconds[row] = datetime;
+		this.age[row] = toByte(age);
+		this.gender[row] = toByte(gender);
+		this.dwellTime[row] = dwellTime;
+		this.attentionTime[row] = attentionTime;
+		this.temperature[row] = temperature;
+		this.humidity[row] = humidity;
+		this.percipitation[row] = toCode(percipitation);
+		this.saleItemId[row] = saleItemId;
+		this.saleItemType[row] = toCode(saleItemType);
+		this.saleItemTemp[row] = toCode(saleItemTemp);
+		this.saleItemHealth[row] = toCode(saleItemHealth);
+		this.totalCustomersInStore[row] = totalCustomersInStore;
+		this.dayOfWeek[row] = toCode(dayOfWeek);
+		this.itemId[row] = itemId;
+		this.itemType[row] = toCode(itemType);
+		this.itemTemp[row] = toCode(itemTemp);
+		this.itemHealth[row] = toCode(itemHealth);
+		this.purchasedSaleItem[row] = purchasedSaleItem;
+	}
+	
+	/**
+	 * Adds the values of a PointOfSaleData object as a row.
+	 * @param pos
+	 */
+	public void add(PointOfSaleData pos) {
+		add(pos.getAge().getValue(), pos.getGender().getValue(), pos.getDwellTime(), pos.getAttentionTime(), pos.getTemperature(), pos.getHumidity(),
+				Dictionary.PRECIPITATION.encode(pos.getPrecipitation()),
+				pos.getAdvertisedItemId(), Dictionary.ITEM_TYPE.encode(pos.getAdvertisedItemType()), Dictionary.ITEM_TEMP.encode(pos.getAdvertisedItemTemp()),
+				Dictionary.ITEM_HEALTH.encode(pos.getAdvertisedItemHealth()), pos.getTotalCustomersInStore(),
+				pos.getEpochSecond(), Dictionary.DAY_OF_WEEK.encode(pos.getDayOfWeek()), pos.getItemId(), Dictionary.ITEM_TYPE.encode(pos.getItemType()),
+				Dictionary.ITEM_TEMP.encode(pos.getItemTemp()), Dictionary.ITEM_HEALTH.encode(pos.getItemHealth()), pos.getBoughtAdvertised());
+	}
+	
+	/**
+	 * Appends every row of another store after the rows of this one.
+	 * @param other
+	 */
+	public void addAll(PosColumns other) {
+		ensureCapacity(size + other.size);
+		int n = other.size;
+		System.arraycopy(other.epochSeconds, 0, epochSeconds, size, n);
+		System.arraycopy(other.age, 0, age, size, n);
+		System.arraycopy(other.gender, 0, gender, size, n);
+		System.arraycopy(other.dwellTime, 0, dwellTime, size, n);
+		System.arraycopy(other.attentionTime, 0, attentionTime, size, n);
+		System.arraycopy(other.temperature, 0, temperature, size, n);
+		System.arraycopy(other.humidity, 0, humidity, size, n);
+		System.arraycopy(other.percipitation, 0, percipitation, size, n);
+		System.arraycopy(other.saleItemId, 0, saleItemId, size, n);
+		System.arraycopy(other.saleItemType, 0, saleItemType, size, n);
+		System.arraycopy(other.saleItemTemp, 0, saleItemTemp, size, n);
+		System.arraycopy(other.saleItemHealth, 0, saleItemHealth, size, n);
+		System.arraycopy(other.totalCustomersInStore, 0, totalCustomersInStore, size, n);
+		System.arraycopy(other.dayOfWeek, 0, dayOfWeek, size, n);
+		System.arraycopy(other.itemId, 0, itemId, size, n);
+		System.arraycopy(other.itemType, 0, itemType, size, n);
+		System.arraycopy(other.itemTemp, 0, itemTemp, size, n);
+		System.arraycopy(other.itemHealth, 0, itemHealth, size, n);
+		System.arraycopy(other.purchasedSaleItem, 0, purchasedSaleItem, size, n);
+		size += n;
+	}
+	
+	/**
+	 * Sorts the rows by date. The sort is stable so rows of the same date keep the order they were added in.
+	 */
+	public void sortByDate() {
+		boolean sorted = true;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			if (i > 0 && epochSeconds[i] < epochSeconds[i-1]) {
+				sorted = false;
+			}
+			min = Math.min(min, epochSeconds[i]);
+			max = Math.max(max, epochSeconds[i]);
+		}
+		if (sorted) {
+			return;
+		}
+		
+		int[] order = new int[size];
+		if (max - min >= 0 && max - min <= Integer.MAX_VALUE) {
+			// Packs the date offset above the row index so a primitive sort is both ordered by date and stable.
+			long[] keys = new long[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = ((epochSeconds[i] - min) << 32) | i;
+			}
+			Arrays.sort(keys);
+			for (int i = 0; i < size; i++) {
+				order[i] = (int)keys[i];
+			}
+		} else {
+			// Dates spanning more than 68 years, sorted with the stable object sort.
+			Integer[] boxed = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				boxed[i] = i;
+			}
+			Arrays.sort(boxed, new Comparator<Integer>() {
+				public int compare(Integer row1, Integer row2) {
+					return Long.compare(epochSeconds[row1], epochSeconds[row2]);
+				}
+			});
+			for (int i = 0; i < size; i++) {
+				order[i] = boxed[i];
+			}
+		}
+		reorder(order);
+	}
+	
+	/**
+	 * Removes the rows rejected by a filter, keeping the others in order.
+	 * @param filter
+	 */
+	public void retain(DateFilter filter) {
+		if (filter.acceptsAll()) {
+			return;
+		}
+		int[] kept = new int[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (filter.accepts(epochSeconds[i])) {
+				kept[count++] = i;
+			}
+		}
+		if (count < size) {
+			reorder(Arrays.copyOf(kept, count));
+		}
+	}
+	
+	/**
+	 * Replaces the rows with the rows at the passed indexes, in that order.
+	 */
+	private void reorder(int[] order) {
+		epochSeconds = permute(epochSeconds, order);
+		age = permute(age, order);
+		gender = permute(gender, order);
+		dwellTime = permute(dwellTime, order);
+		attentionTime = permute(attentionTime, order);
+		temperature = permute(temperature, order);
+		humidity = permute(humidity, order);
+		percipitation = permute(percipitation, order);
+		saleItemId = permute(saleItemId, order);
+		saleItemType = permute(saleItemType, order);
+		saleItemTemp = permute(saleItemTemp, order);
+		saleItemHealth = permute(saleItemHealth, order);
+		totalCustomersInStore = permute(totalCustomersInStore, order);
+		dayOfWeek = permute(dayOfWeek, order);
+		itemId = permute(itemId, order);
+		itemType = permute(itemType, order);
+		itemTemp = permute(itemTemp, order);
+		itemHealth = permute(itemHealth, order);
+		purchasedSaleItem = permute(purchasedSaleItem, order);
+		size = order.length;
+	}
+	
+	/**
+	 * Writes the projection and every column to a snapshot. The values of the shared dictionaries are written first so the codes can be read back
+	 * by a later run whose dictionaries hold other codes.
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(SnapshotWriter out) throws IOException {
+		out.writeInt(projection.getMask());
+		out.writeStrings(Dictionary.ITEM_TYPE.toArray());
+		out.writeStrings(Dictionary.ITEM_TEMP.toArray());
+		out.writeStrings(Dictionary.ITEM_HEALTH.toArray());
+		out.writeStrings(Dictionary.DAY_OF_WEEK.toArray());
+		out.writeStrings(Dictionary.PRECIPITATION.toArray());
+		out.writeInt(size);
+		out.writeLongs(epochSeconds, size);
+		out.writeBytes(age, size);
+		out.writeBytes(gender, size);
+		out.writeDoubles(dwellTime, size);
+		out.writeDoubles(attentionTime, size);
+		out.writeDoubles(temperature, size);
+		out.writeDoubles(humidity, size);
+		out.writeShorts(percipitation, size);
+		out.writeInts(saleItemId, size);
+		out.writeShorts(saleItemType, size);
+		out.writeShorts(saleItemTemp, size);
+		out.writeShorts(saleItemHealth, size);
+		out.writeInts(totalCustomersInStore, size);
+		out.writeShorts(dayOfWeek, size);
+		out.writeInts(itemId, size);
+		out.writeShorts(itemType, size);
+		out.writeShorts(itemTemp, size);
+		out.writeShorts(itemHealth, size);
+		out.writeBooleans(purchasedSaleItem, size);
+	}
+	
+	/**
+	 * Reads the columns written by {@link #write(SnapshotWriter)}, converting the codes to the codes of this run's shared dictionaries.
+	 * @param in
+	 * @param projection the columns the snapshot must hold
+	 * @return the columns read from the snapshot, or null if the snapshot lacks one of the projection's columns
+	 */
+	static PosColumns read(SnapshotReader in, PosProjection projection) {
+		PosProjection written = PosProjection.fromMask(in.readInt());
+		if (!written.containsAll(projection)) {
+			return null;
+		}
+		
+		int[] itemTypes = readCodes(in, Dictionary.ITEM_TYPE);
+		int[] itemTemps = readCodes(in, Dictionary.ITEM_TEMP);
+		int[] itemHealths = readCodes(in, Dictionary.ITEM_HEALTH);
+		int[] daysOfWeek = readCodes(in, Dictionary.DAY_OF_WEEK);
+		int[] precipitations = readCodes(in, Dictionary.PRECIPITATION);
+		
+		PosColumns columns = new PosColumns(1);
+		columns.projection = written;
+		int size = in.readInt();
+		columns.size = size;
+		columns.epochSeconds = in.readLongs(size);
+		columns.age = in.readBytes(size);
+		columns.gender = in.readBytes(size);
+		columns.dwellTime = in.readDoubles(size);
+		columns.attentionTime = in.readDoubles(size);
+		columns.temperature = in.readDoubles(size);
+		columns.humidity = in.readDoubles(size);
+		columns.percipitation = recode(in.readShorts(size), precipitations);
+		columns.saleItemId = in.readInts(size);
+		columns.saleItemType = recode(in.readShorts(size), itemTypes);
+		columns.saleItemTemp = recode(in.readShorts(size), itemTemps);
+		columns.saleItemHealth = recode(in.readShorts(size), itemHealths);
+		columns.totalCustomersInStore = in.readInts(size);
+		columns.dayOfWeek = recode(in.readShorts(size), daysOfWeek);
+		columns.itemId = in.readInts(size);
+		columns.itemType = recode(in.readShorts(size), itemTypes);
+		columns.itemTemp = recode(in.readShorts(size), itemTemps);
+		columns.itemHealth = recode(in.readShorts(size), itemHealths);
+		columns.purchasedSaleItem = in.readBooleans(size);
+		return columns;
+	}
+	
+	/**
+	 * Reads the values of a dictionary written to a snapshot.
+	 * @return the code in the passed dictionary of each value, indexed by the value's code in the snapshot
+	 */
+	private static int[] readCodes(SnapshotReader in, Dictionary dictionary) {
+		String[] values = in.readStrings();
+		int[] codes = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			codes[i] = dictionary.encode(values[i]);
+		}
+		return codes;
+	}
+	
+	/**
+	 * Replaces each code of a column with its code in the current dictionary. The column is left as is when the codes are the same.
+	 */
+	private static short[] recode(short[] column, int[] codes) {
+		boolean same = true;
+		for (int i = 0; i < codes.length; i++) {
+			same &= codes[i] == i;
+		}
+		if (!same) {
+			for (int i = 0; i < column.length; i++) {
+				if (column[i] >= 0) {
+					column[i] = toCode(codes[column[i]]);
+				}
+			}
+		}
+		return column;
+	}
+	
+	/**
+	 * Shrinks every column to the number of rows so no space is left unused once loading is done.
+	 */
+	public void trimToSize() {
+		if (epochSeconds.length != size) {
+			resize(size);
+		}
+	}
+	
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return the columns holding values, {@link PosProjection#ALL} unless the store was loaded with a projection
+	 */
+	public PosProjection getProjection() {
+		return projection;
+	}
+	
+	void setProjection(PosProjection projection) {
+		this.projection = projection;
+	}
+	
+	/**
+	 * Builds a PointOfSaleData object holding the values of a row.
+	 * @param row
+	 * @return the row as an object
+	 */
+	public PointOfSaleData getRow(int row) {
+		return new PointOfSaleData(age[row], gender[row], dwellTime[row], attentionTime[row], temperature[row], humidity[row], getPrecipitation(row),
+				saleItemId[row], getAdvertisedItemType(row), getAdvertisedItemTemp(row), getAdvertisedItemHealth(row), totalCustomersInStore[row],
+				epochSeconds[row], getDayOfWeek(row), itemId[row], getItemType(row), getItemTemp(row), getItemHealth(row), purchasedSaleItem[row]);
+	}
+	
+	/**
+	 * @param row
+	 * @return the datetime of the row as a LocalDateTime, built on each call.
+	 */
+	public LocalDateTime getDate(int row) {
+		return TimestampDecoder.toLocalDateTime(epochSeconds[row]);
+	}
+	
+	/**
+	 * @param row
+	 * @return the datetime of the row in seconds since the epoch.
+	 */
+	public long getEpochSecond(int row) {
+		return epochSeconds[row];
+	}
+	
+	public String getDayOfWeek(int row) {
+		return Dictionary.DAY_OF_WEEK.decode(dayOfWeek[row]);
+	}
+	
+	public int getDayOfWeekCode(int row) {
+		return dayOfWeek[row];
+	}
+	
+	public int getItemId(int row) {
+		return itemId[row];
+	}
+	
+	public String getItemType(int row) {
+		return Dictionary.ITEM_TYPE.decode(itemType[row]);
+	}
+	
+	public int getItemTypeCode(int row) {
+		return itemType[row];
+	}
+	
+	public String getItemTemp(int row) {
+		return Dictionary.ITEM_TEMP.decode(itemTemp[row]);
+	}
+	
+	public int getItemTempCode(int row) {
+		return itemTemp[row];
+	}
+	
+	public String getItemHealth(int row) {
+		return Dictionary.ITEM_HEALTH.decode(itemHealth[row]);
+	}
+	
+	public int getItemHealthCode(int row) {
+		return itemHealth[row];
+	}
+	
+	public Gender getGender(int row) {
+		return Gender.of(gender[row]);
+	}
+	
+	public Age getAge(int row) {
+		return Age.of(age[row]);
+	}
+	
+	/**
+	 * @param row
+	 * @return the integer value of the row's gender, without building a Gender object
+	 */
+	public int getGenderValue(int row) {
+		return gender[row];
+	}
+	
+	/**
+	 * @param row
+	 * @return the integer value of the row's age, without building an Age object
+	 */
+	public int getAgeValue(int row) {
+		return age[row];
+	}
+	
+	public double getTemperature(int row) {
+		return temperature[row];
+	}
+	
+	public double getHumidity(int row) {
+		return humidity[row];
+	}
+	
+	public String getPrecipitation(int row) {
+		return Dictionary.PRECIPITATION.decode(percipitation[row]);
+	}
+	
+	public int getPrecipitationCode(int row) {
+		return percipitation[row];
+	}
+	
+	public double getDwellTime(int row) {
+		return dwellTime[row];
+	}
+	
+	public double getAttentionTime(int row) {
+		return attentionTime[row];
+	}
+	
+	public int getTotalCustomersInStore(int row) {
+		return totalCustomersInStore[row];
+	}
+	
+	public boolean getBoughtAdvertised(int row) {
+		return purchasedSaleItem[row];
+	}
+	
+	public int getAdvertisedItemId(int row) {
+		return saleItemId[row];
+	}
+	
+	public String getAdvertisedItemType(int row) {
+		return Dictionary.ITEM_TYPE.decode(saleItemType[row]);
+	}
+	
+	public int getAdvertisedItemTypeCode(int row) {
+		return saleItemType[row];
+	}
+	
+	public String getAdvertisedItemTemp(int row) {
+		return Dictionary.ITEM_TEMP.decode(saleItemTemp[row]);
+	}
+	
+	public int getAdvertisedItemTempCode(int row) {
+		return saleItemTemp[row];
+	}
+	
+	public String getAdvertisedItemHealth(int row) {
+		return Dictionary.ITEM_HEALTH.decode(saleItemHealth[row]);
+	}
+	
+	public int getAdvertisedItemHealthCode(int row) {
+		return saleItemHealth[row];
+	}
+	
+	private static short toCode(int code) {
+		if (code != (short)code) {
+			throw new IllegalArgumentException("Dictionary code " + code + " is out of range.");
+		}
+		return (short)code;
+	}
+	
+	private static byte toByte(int value) {
+		return value == (byte)value ? (byte)value : -1;
+	}
+	
+	/**
+	 * Grows every column, by half of its length at least, so it can hold the passed number of rows.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > epochSeconds.length) {
+			resize(Math.max(capacity, epochSeconds.length + (epochSeconds.length >> 1)));
+		}
+	}
+	
+	private void allocate(int capacity) {
+		epochSeconds = new long[capacity];
+		age = new byte[capacity];
+		gender = new byte[capacity];
+		dwellTime = new double[capacity];
+		attentionTime = new double[capacity];
+		temperature = new double[capacity];
+		humidity = new double[capacity];
+		percipitation = new short[capacity];
+		saleItemId = new int[capacity];
+		saleItemType = new short[capacity];
+		saleItemTemp = new short[capacity];
+		saleItemHealth = new short[capacity];
+		totalCustomersInStore = new int[capacity];
+		dayOfWeek = new short[capacity];
+		itemId = new int[capacity];
+		itemType = new short[capacity];
+		itemTemp = new short[capacity];
+		itemHealth = new short[capacity];
+		purchasedSaleItem = new boolean[capacity];
+	}
+	
+	private void resize(int capacity) {
+		epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+		age = Arrays.copyOf(age, capacity);
+		gender = Arrays.copyOf(gender, capacity);
+		dwellTime = Arrays.copyOf(dwellTime, capacity);
+		attentionTime = Arrays.copyOf(attentionTime, capacity);
+		temperature = Arrays.copyOf(temperature, capacity);
+		humidity = Arrays.copyOf(humidity, capacity);
+		percipitation = Arrays.copyOf(percipitation, capacity);
+		saleItemId = Arrays.copyOf(saleItemId, capacity);
+		saleItemType = Arrays.copyOf(saleItemType, capacity);
+		saleItemTemp = Arrays.copyOf(saleItemTemp, capacity);
+		saleItemHealth = Arrays.copyOf(saleItemHealth, capacity);
+		totalCustomersInStore = Arrays.copyOf(totalCustomersInStore, capacity);
+		dayOfWeek = Arrays.copyOf(dayOfWeek, capacity);
+		itemId = Arrays.copyOf(itemId, capacity);
+		itemType = Arrays.copyOf(itemType, capacity);
+		itemTemp = Arrays.copyOf(itemTemp, capacity);
+		itemHealth = Arrays.copyOf(itemHealth, capacity);
+		purchasedSaleItem = Arrays.copyOf(purchasedSaleItem, capacity);
+	}
+	
+	// Helpers building a column in the passed row order. Each is overloaded for the column types.
+	
+	private static long[] permute(long[] column, int[] order) {
+		long[] sorted = new long[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = column[order[i]];
+		}
+		return sorted;
+	}
+	
+	private static int[] permute(int[] column, int[] order) {
+		int[] sorted = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = column[order[i]];
+		}
+		return sorted;
+	}
+	
+	private static byte[] permute(byte[] column, int[] order) {
+		byte[] sorted = new byte[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = column[order[i]];
+		}
+		return sorted;
+	}
+	
+	private static double[] permute(double[] column, int[] order) {
+		double[] sorted = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = column[order[i]];
+		}
+		return sorted;
+	}
+	
+	private static boolean[] permute(boolean[] column, int[] order) {
+		boolean[] sorted = new boolean[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = column[order[i]];
+		}
+		return sorted;
+	}
+	
+	private static short[] permute(short[] column, int[] order) {
+		short[] sorted = new short[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = column[order[i]];
+		}
+		return sorted;
+	}
+}
@@ -0,0 +1,108 @@
+package cafe.data.parser;
+
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Set of the point of sale data columns ({@link Globals#P_AGE} to {@link Globals#P_PURCHASE_SALE}) a builder reads.
+ * The point of sale loaders only decode the columns of the projection they are passed: the fields of the other columns are
+ * only scanned past, and their values are left as 0, false, or {@link cafe.data.parser.wrapper.Dictionary#NULL_CODE} in the {@link PosColumns}.
+ * The date column is always part of a projection as the rows are sorted by it.
+ * Immutable.
+ * @author Ryan Zembrodt
+ */
+public final class PosProjection {
+	// Every column of the file.
+	public static final PosProjection ALL = new PosProjection((1 << Globals.P_COL_COUNT) - 1);
+	
+	private final int mask; // Bit i is set if column i is part of the projection
+	
+	private PosProjection(int mask) {
+		this.mask = mask | (1 << Globals.P_DATE);
+	}
+	
+	/**
+	 * @param columns the indexes of the columns, from {@link Globals}
+	 * @return the projection of the passed columns and the date column
+	 * @throws IllegalArgumentException if a column is not a point of sale data column
+	 */
+	public static PosProjection of(int... columns) {
+		int mask = 0;
+		for (int column : columns) {
+			if (column < 0 || column >= Globals.P_COL_COUNT) {
+				throw new IllegalArgumentException("Unknown point of sale data column " + column + ".");
+			}
+			mask |= 1 << column;
+		}
+		return new PosProjection(mask);
+	}
+	
+	/**
+	 * @param mask the bits of the columns, as returned by {@link #getMask()}
+	 * @return the projection of the columns
+	 */
+	static PosProjection fromMask(int mask) {
+		return new PosProjection(mask & ALL.mask);
+	}
+	
+	/**
+	 * @return the columns as bits, bit i being set if column i is part of the projection
+	 */
+	int getMask() {
+		return mask;
+	}
+	
+	/**
+	 * @param column the index of the column, from {@link Globals}
+	 * @return true if the column is decoded
+	 */
+	public boolean contains(int column) {
+		return (mask & (1 << column)) != 0;
+	}
+	
+	/**
+	 * @param other
+	 * @return true if every column of the other projection is part of this one
+	 */
+	public boolean containsAll(PosProjection other) {
+		return (other.mask & ~mask) == 0;
+	}
+	
+	/**
+	 * @param other
+	 * @return the projection of the columns of either projection
+	 */
+	public PosProjection union(PosProjection other) {
+		return containsAll(other) ? this : new PosProjection(mask | other.mask);
+	}
+	
+	/**
+	 * @return the number of columns decoded
+	 */
+	public int size() {
+		return Integer.bitCount(mask);
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof PosProjection && ((PosProjection)obj).mask == mask;
+	}
+	
+	@Override
+	public int hashCode() {
+		return mask;
+	}
+	
+	/**
+	 * @return the indexes of the columns, for example "[1, 3, 6, 14]"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int column = 0; column < Globals.P_COL_COUNT; column++) {
+			if (contains(column)) {
+				sb.append(sb.length() > 1 ? ", " : "").append(column);
+			}
+		}
+		return sb.append("]").toString();
+	}
+}
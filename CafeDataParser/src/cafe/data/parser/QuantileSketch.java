@@ -0,0 +1,262 @@
+package cafe.data.parser;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch of a stream of values, in the style of the KLL sketch (Karnin, Lang, and Liberty).
+ * The values are kept in levels of compactors: a value at level h stands for 2^h values of the stream. When the sketch holds more values
+ * than its capacity, the lowest full level is sorted and every other value of it is promoted to the level above, halving its size.
+ * The capacity of a level shrinks by a factor of 2/3 for each level below the top one, so a sketch never holds more than about 3k values
+ * whatever the length of the stream, and the rank of a quantile is off by about 1.7% of the count at most for the default k of 200.
+ * The first compaction happens on the (k+1)th value, so a sketch of at most k values, 200 by default, holds every value and its quantiles are exact.
+ * Two sketches can be merged into one sketch of both streams with the same guarantees.
+ * The coin deciding which half of a level is promoted is a fixed pseudo-random sequence, so the same values in the same order
+ * always give the same sketch and the same quantiles.
+ * @author Ryan Zembrodt
+ */
+public class QuantileSketch {
+	public static final int DEFAULT_K = 200;
+	private static final int MIN_K = 8;
+	private static final double DECAY = 2.0 / 3.0;
+	
+	private final int k;
+	private double[][] levels; // Values of each level, a value of level h standing for 2^h values
+	private int[] sizes; // Number of values of each level
+	private long count;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+	private long coin = 0x9E3779B97F4A7C15L; // State of the xorshift generator deciding which half a compaction promotes
+	
+	public QuantileSketch() {
+		this(DEFAULT_K);
+	}
+	
+	/**
+	 * @param k the capacity of the top level, the other levels holding fewer values. A larger k gives more accurate quantiles in more memory.
+	 * @throws IllegalArgumentException if k is less than 8
+	 */
+	public QuantileSketch(int k) {
+		if (k < MIN_K) {
+			throw new IllegalArgumentException("The capacity of a quantile sketch must be at least " + MIN_K + ", not " + k + ".");
+		}
+		this.k = k;
+		this.levels = new double[][] { new double[k] };
+		this.sizes = new int[1];
+	}
+	
+	/**
+	 * Adds a value to the stream.
+	 * @param value
+	 */
+	public void add(double value) {
+		if (count == 0) {
+			min = value;
+			max = value;
+		} else {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		count++;
+		append(0, value);
+		compress();
+	}
+	
+	/**
+	 * Adds the values of another sketch's stream to this sketch's stream. The other sketch is left as is.
+	 * @param other
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.count == 0) {
+			return;
+		}
+		if (count == 0) {
+			min = other.min;
+			max = other.max;
+		} else {
+			min = Math.min(min, other.min);
+			max = Math.max(max, other.max);
+		}
+		count += other.count;
+		for (int h = 0; h < other.levels.length; h++) {
+			for (int i = 0; i < other.sizes[h]; i++) {
+				append(h, other.levels[h][i]);
+			}
+		}
+		compress();
+	}
+	
+	private void append(int level, double value) {
+		while (level >= levels.length) {
+			addLevel();
+		}
+		if (sizes[level] == levels[level].length) {
+			levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+		}
+		levels[level][sizes[level]++] = value;
+	}
+	
+	private void addLevel() {
+		int height = levels.length;
+		levels = Arrays.copyOf(levels, height + 1);
+		sizes = Arrays.copyOf(sizes, height + 1);
+		levels[height] = new double[capacity(height)];
+	}
+	
+	/**
+	 * @return the number of values a level can hold before it is compacted
+	 */
+	private int capacity(int level) {
+		int depth = levels.length - 1 - level;
+		return Math.max(2, (int)Math.ceil(k * Math.pow(DECAY, depth)));
+	}
+	
+	/**
+	 * Compacts the lowest full level until the sketch holds no more values than its capacity.
+	 */
+	private void compress() {
+		while (true) {
+			int retained = 0;
+			int capacity = 0;
+			for (int h = 0; h < levels.length; h++) {
+				retained += sizes[h];
+				capacity += capacity(h);
+			}
+			if (retained <= capacity) {
+				return;
+			}
+			for (int h = 0; h < levels.length; h++) {
+				if (sizes[h] >= capacity(h)) {
+					compact(h);
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Sorts a level and promotes every other value of it to the level above, starting from the first or second value by the coin.
+	 * The largest value of a level of odd size stays behind.
+	 */
+	private void compact(int level) {
+		int size = sizes[level];
+		double[] values = levels[level];
+		Arrays.sort(values, 0, size);
+		int even = size & ~1;
+		int offset = nextCoin();
+		for (int i = offset; i < even; i += 2) {
+			append(level + 1, values[i]);
+		}
+		if (even < size) {
+			levels[level][0] = values[size - 1];
+			sizes[level] = 1;
+		} else {
+			sizes[level] = 0;
+		}
+	}
+	
+	private int nextCoin() {
+		coin ^= coin << 13;
+		coin ^= coin >>> 7;
+		coin ^= coin << 17;
+		return (int)(coin & 1);
+	}
+	
+	/**
+	 * @return the number of values added to the stream
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return the number of values held by the sketch
+	 */
+	public int getRetained() {
+		int retained = 0;
+		for (int size : sizes) {
+			retained += size;
+		}
+		return retained;
+	}
+	
+	public double getMin() {
+		return min;
+	}
+	
+	public double getMax() {
+		return max;
+	}
+	
+	/**
+	 * @param fraction the fraction of the stream below the quantile, from 0 to 1, such as 0.5 for the median
+	 * @return the estimated quantile, or NaN if the stream is empty
+	 * @throws IllegalArgumentException if the fraction is not between 0 and 1
+	 */
+	public double getQuantile(double fraction) {
+		return getQuantiles(fraction)[0];
+	}
+	
+	/**
+	 * Estimates several quantiles, sorting the values held once.
+	 * A quantile is the smallest value held whose weighted rank reaches the fraction of the count, the minimum and maximum being exact.
+	 * @param fractions the fractions of the stream below each quantile, from 0 to 1, in any order
+	 * @return the estimated quantiles in the order of the fractions, NaN if the stream is empty
+	 * @throws IllegalArgumentException if a fraction is not between 0 and 1
+	 */
+	public double[] getQuantiles(double... fractions) {
+		double[] quantiles = new double[fractions.length];
+		for (double fraction : fractions) {
+			if (!(fraction >= 0.0 && fraction <= 1.0)) {
+				throw new IllegalArgumentException("Invalid quantile fraction " + fraction + ", expected a value from 0 to 1.");
+			}
+		}
+		if (count == 0) {
+			Arrays.fill(quantiles, Double.NaN);
+			return quantiles;
+		}
+		
+		// The values of each level sorted, walked together in value order for each fraction.
+		double[][] sorted = new double[levels.length][];
+		for (int h = 0; h < levels.length; h++) {
+			sorted[h] = Arrays.copyOf(levels[h], sizes[h]);
+			Arrays.sort(sorted[h]);
+		}
+		for (int q = 0; q < fractions.length; q++) {
+			if (fractions[q] == 0.0) {
+				quantiles[q] = min;
+			} else if (fractions[q] == 1.0) {
+				quantiles[q] = max;
+			} else {
+				quantiles[q] = valueAtRank(sorted, fractions[q] * count);
+			}
+		}
+		return quantiles;
+	}
+	
+	/**
+	 * @param sorted the sorted values of each level
+	 * @param target the weighted rank to reach
+	 * @return the smallest value whose weighted rank reaches the target, or the largest value held as the weights only sum to the count
+	 */
+	private static double valueAtRank(double[][] sorted, double target) {
+		int[] next = new int[sorted.length];
+		long rank = 0;
+		double value = Double.NaN;
+		while (true) {
+			int level = -1;
+			for (int h = 0; h < sorted.length; h++) {
+				if (next[h] < sorted[h].length && (level < 0 || sorted[h][next[h]] < sorted[level][next[level]])) {
+					level = h;
+				}
+			}
+			if (level < 0) {
+				return value;
+			}
+			value = sorted[level][next[level]++];
+			rank += 1L << level;
+			if (rank >= target) {
+				return value;
+			}
+		}
+	}
+}
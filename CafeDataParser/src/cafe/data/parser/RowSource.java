@@ -0,0 +1,391 @@
+package cafe.data.parser;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import cafe.data.parser.io.FieldCursor;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Dictionary;
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Pull-based source of the rows of a data file. Lines are read and parsed one at a time as rows are asked for,
+ * so only the current row is held in memory however large the file is.
+ * A source can be read row by row with {@link #read()}, as a {@link Spliterator}, as an {@link Iterable}, or as a {@link Stream} with {@link #stream()}.
+ * A parallel stream splits the file into byte ranges that start on line boundaries, each read with its own cursor.
+ * <p>
+ * Rows are returned in file order (the point of sale rows are not sorted by date as {@link DataLoader#loadPointOfSaleData(String, LoadOptions)} sorts them).
+ * Rows with the wrong number of values are skipped and, with the invalid values, counted in the source's {@link ParseErrors}
+ * once the source is closed. Every column is decoded, as the projection and parallelism of the {@link LoadOptions} are not used.
+ * A source opened with a {@link DateFilter} decodes the datetime of each line first and skips the lines it rejects
+ * without decoding their other values. A source can only be read once and must be closed to release its file.
+ * @author Ryan Zembrodt
+ */
+public class RowSource<T> implements Spliterator<T>, Iterable<T>, Closeable {
+	// Ranges are not split below this size as reading them would not outweigh the task overhead.
+	private static final long MIN_SPLIT_SIZE = 1L << 16;
+	
+	/**
+	 * Builds a row from the current line of a cursor, which has the expected number of values, and its already decoded datetime.
+	 */
+	private interface RowParser<T> {
+		T parse(FieldCursor cursor, long epochSecond);
+	}
+	
+	/**
+	 * State shared by a source and every source split from it.
+	 */
+	private static class Shared<T> {
+		private final String fileName;
+		private final FileChannel channel;
+		private final int columnCount;
+		private final int dateColumn;
+		private final TimestampDecoder dateDecoder;
+		private final DateFilter filter;
+		private final RowParser<T> parser;
+		private final ParseErrors errors;
+		private final boolean reportErrors; // Print a summary of the errors on close
+		private final List<RowSource<T>> parts = new ArrayList<RowSource<T>>(); // Every source reading a range of the file
+		private boolean closed;
+		
+		private Shared(String fileName, FileChannel channel, int columnCount, int dateColumn, TimestampDecoder dateDecoder, DateFilter filter,
+				RowParser<T> parser, ParseErrors errors, boolean reportErrors) {
+			this.fileName = fileName;
+			this.channel = channel;
+			this.columnCount = columnCount;
+			this.dateColumn = dateColumn;
+			this.dateDecoder = dateDecoder;
+			this.filter = filter;
+			this.parser = parser;
+			this.errors = errors;
+			this.reportErrors = reportErrors;
+		}
+	}
+	
+	private final Shared<T> shared;
+	private long start; // Moves forward when the start of the range is split off
+	private final long end;
+	private FieldCursor cursor; // Opened on the first read
+	private final ParseErrors errors = new ParseErrors(); // Line numbers relative to the start of the range
+	
+	private RowSource(Shared<T> shared, long start, long end) {
+		this.shared = shared;
+		this.start = start;
+		this.end = end;
+		synchronized (shared.parts) {
+			shared.parts.add(this);
+		}
+	}
+	
+	/**
+	 * Opens a source over the weather data csv file, skipping the rows rejected by the filter of the options.
+	 * @param fileName
+	 * @param options the filter, and the sink invalid rows and values are added to when the source is closed, or null to print a summary instead
+	 * @return the source of WeatherData
+	 * @throws java.io.FileNotFoundException if the file does not exist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static RowSource<WeatherData> weatherData(String fileName, LoadOptions options) throws IOException {
+		final TimestampDecoder dateDecoder = new TimestampDecoder(Globals.WEATHER_DATE_FORMAT);
+		return open(fileName, Globals.W_COL_COUNT, Globals.W_DATE, dateDecoder, options, new RowParser<WeatherData>() {
+			public WeatherData parse(FieldCursor cursor, long epochSecond) {
+				return new WeatherData(
+						epochSecond,
+						CafeDataParser.toFahrenheit(cursor.doubleAt(Globals.W_TEMP)),
+						cursor.intAt(Globals.W_HUM),
+						cursor.stringAt(Globals.W_PERC),
+						cursor.booleanAt(Globals.W_SEV));
+			}
+		});
+	}
+	
+	/**
+	 * Opens a source over the gates data csv file, skipping the rows rejected by the filter of the options.
+	 * @param fileName
+	 * @param options the filter, and the sink invalid rows and values are added to when the source is closed, or null to print a summary instead
+	 * @return the source of GatesData
+	 * @throws java.io.FileNotFoundException if the file does not exist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static RowSource<GatesData> gatesData(String fileName, LoadOptions options) throws IOException {
+		final TimestampDecoder dateDecoder = new TimestampDecoder(Globals.GATES_DATE_FORMAT);
+		return open(fileName, Globals.G_COL_COUNT, Globals.G_DATE, dateDecoder, options, new RowParser<GatesData>() {
+			public GatesData parse(FieldCursor cursor, long epochSecond) {
+				return new GatesData(
+						cursor.intAt(Globals.G_LOC),
+						cursor.intAt(Globals.G_GATE),
+						epochSecond,
+						cursor.intAt(Globals.G_DUR),
+						cursor.intAt(Globals.G_IN),
+						cursor.intAt(Globals.G_OUT));
+			}
+		});
+	}
+	
+	/**
+	 * Opens a source over the views data csv file, skipping the rows rejected by the filter of the options.
+	 * @param fileName
+	 * @param options the filter, and the sink invalid rows and values are added to when the source is closed, or null to print a summary instead
+	 * @return the source of ViewsData
+	 * @throws java.io.FileNotFoundException if the file does not exist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static RowSource<ViewsData> viewsData(String fileName, LoadOptions options) throws IOException {
+		final TimestampDecoder dateDecoder = new TimestampDecoder(Globals.VIEWS_DATE_FORMAT);
+		return open(fileName, Globals.V_COL_COUNT, Globals.V_DATE, dateDecoder, options, new RowParser<ViewsData>() {
+			public ViewsData parse(FieldCursor cursor, long epochSecond) {
+				return new ViewsData(
+						cursor.intAt(Globals.V_LOC),
+						cursor.intAt(Globals.V_GENDER),
+						cursor.intAt(Globals.V_AGE),
+						epochSecond,
+						cursor.intAt(Globals.V_DWELL),
+						cursor.intAt(Globals.V_ATTENTION),
+						cursor.intAt(Globals.V_WATCHER));
+			}
+		});
+	}
+	
+	/**
+	 * Opens a source over the point of sale data csv file, skipping the rows rejected by the filter of the options.
+	 * The repeated string values are the shared values of the {@link Dictionary} columns, so no String is created for them per row.
+	 * @param fileName
+	 * @param options the filter, and the sink invalid rows and values are added to when the source is closed, or null to print a summary instead
+	 * @return the source of PointOfSaleData, in file order
+	 * @throws java.io.FileNotFoundException if the file does not exist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static RowSource<PointOfSaleData> pointOfSaleData(String fileName, LoadOptions options) throws IOException {
+		final TimestampDecoder dateDecoder = new TimestampDecoder(Globals.POS_DATE_FORMAT);
+		return open(fileName, Globals.P_COL_COUNT, Globals.P_DATE, dateDecoder, options, new RowParser<PointOfSaleData>() {
+			public PointOfSaleData parse(FieldCursor cursor, long epochSecond) {
+				return new PointOfSaleData(
+						cursor.intAt(Globals.P_AGE_ID),
+						cursor.intAt(Globals.P_GENDER_ID),
+						cursor.doubleAt(Globals.P_DWELL),
+						cursor.doubleAt(Globals.P_ATTENTION),
+						CafeDataParser.toFahrenheit(cursor.doubleAt(Globals.P_TEMP)),
+						cursor.doubleAt(Globals.P_HUMIDITY),
+						decode(cursor, Globals.P_PERCIPITATION, Dictionary.PRECIPITATION),
+						cursor.intAt(Globals.P_SALE_ITEM),
+						decode(cursor, Globals.P_SALE_TYPE, Dictionary.ITEM_TYPE),
+						decode(cursor, Globals.P_SALE_TEMP, Dictionary.ITEM_TEMP),
+						decode(cursor, Globals.P_SALE_HEALTH, Dictionary.ITEM_HEALTH),
+						cursor.intAt(Globals.P_TOTAL_CUST),
+						epochSecond,
+						decode(cursor, Globals.P_DOW, Dictionary.DAY_OF_WEEK),
+						cursor.intAt(Globals.P_ITEM_ID),
+						decode(cursor, Globals.P_ITEM_TYPE, Dictionary.ITEM_TYPE),
+						decode(cursor, Globals.P_ITEM_TEMP, Dictionary.ITEM_TEMP),
+						decode(cursor, Globals.P_ITEM_HEALTH, Dictionary.ITEM_HEALTH),
+						cursor.booleanAt(Globals.P_PURCHASE_SALE));
+			}
+		});
+	}
+	
+	/**
+	 * @return the shared String of a field's value in the dictionary
+	 */
+	private static String decode(FieldCursor cursor, int column, Dictionary dictionary) {
+		return dictionary.decode(cursor.codeAt(column, dictionary));
+	}
+	
+	private static <T> RowSource<T> open(String fileName, int columnCount, int dateColumn, TimestampDecoder dateDecoder, LoadOptions options,
+			RowParser<T> parser) throws IOException {
+		// Opened through a stream so a missing file throws FileNotFoundException as with the other loaders.
+		FileChannel channel = new FileInputStream(fileName).getChannel();
+		ParseErrors errors = options.getErrors();
+		boolean reportErrors = errors == null;
+		Shared<T> shared = new Shared<T>(fileName, channel, columnCount, dateColumn, dateDecoder, options.getFilter(), parser,
+				reportErrors ? new ParseErrors() : errors, reportErrors);
+		return new RowSource<T>(shared, 0, channel.size());
+	}
+	
+	/**
+	 * @return a sequential stream of the rows, closing the source when the stream is closed. Call {@link Stream#parallel()} to split the file.
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(this, false).onClose(new Runnable() {
+			public void run() {
+				try {
+					close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Reads the next row of the range.
+	 * @return the next row, or null once every row was read
+	 * @throws IOException if the file cannot be read
+	 */
+	public T read() throws IOException {
+		if (cursor == null) {
+			cursor = new FieldCursor(new RangeInputStream(shared.channel, start, end));
+			cursor.setErrors(errors);
+		}
+		while (cursor.nextLine()) {
+			if (cursor.isEmpty()) {
+				continue;
+			}
+			if (cursor.getFieldCount() != shared.columnCount) {
+				cursor.reportInvalidLine();
+				continue;
+			}
+			long epochSecond = cursor.epochSecondAt(shared.dateColumn, shared.dateDecoder);
+			if (epochSecond == TimestampDecoder.INVALID) {
+				cursor.reportInvalidLine();
+				continue;
+			}
+			if (!shared.filter.accepts(epochSecond)) {
+				continue;
+			}
+			return shared.parser.parse(cursor, epochSecond);
+		}
+		return null;
+	}
+	
+	/**
+	 * Reads the next row of the range with {@link #read()}.
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		T row;
+		try {
+			row = read();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (row == null) {
+			return false;
+		}
+		action.accept(row);
+		return true;
+	}
+	
+	/**
+	 * Splits off the first half of the range (ending on a line boundary) if the range has not been read yet and is large enough.
+	 */
+	@Override
+	public Spliterator<T> trySplit() {
+		if (cursor != null || end - start < 2 * MIN_SPLIT_SIZE) {
+			return null;
+		}
+		long middle;
+		try {
+			middle = ParallelPosLoader.nextLineStart(shared.channel, start + (end - start) / 2, end);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (middle <= start || middle >= end) {
+			return null;
+		}
+		RowSource<T> prefix = new RowSource<T>(shared, start, middle);
+		start = middle;
+		return prefix;
+	}
+	
+	/**
+	 * @return the number of bytes left in the range, an overestimate of the number of rows
+	 */
+	@Override
+	public long estimateSize() {
+		return end - start;
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+	
+	@Override
+	public Iterator<T> iterator() {
+		return Spliterators.iterator(this);
+	}
+	
+	@Override
+	public Spliterator<T> spliterator() {
+		return this;
+	}
+	
+	/**
+	 * Closes the file and adds the errors of every range to the source's sink, or prints them if the source has no sink.
+	 * Line numbers are counted across the ranges, so they are exact once every range has been read.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (shared.parts) {
+			if (shared.closed) {
+				return;
+			}
+			shared.closed = true;
+			List<RowSource<T>> parts = new ArrayList<RowSource<T>>(shared.parts);
+			Collections.sort(parts, new Comparator<RowSource<T>>() {
+				public int compare(RowSource<T> a, RowSource<T> b) {
+					return Long.compare(a.start, b.start);
+				}
+			});
+			int lineOffset = 0;
+			for (RowSource<T> part : parts) {
+				shared.errors.addAll(part.errors, lineOffset);
+				lineOffset += part.cursor != null ? part.cursor.getLineNumber() : 0;
+			}
+		}
+		shared.channel.close();
+		if (shared.reportErrors) {
+			DataLoader.report(shared.fileName, shared.errors);
+		}
+	}
+	
+	/**
+	 * Stream over a byte range of a file using positional reads, so the ranges of a split file are read independently.
+	 */
+	private static class RangeInputStream extends InputStream {
+		private final FileChannel channel;
+		private long position;
+		private final long end;
+		
+		private RangeInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+			int read = channel.read(ByteBuffer.wrap(b, off, (int)Math.min(len, end - position)), position);
+			if (read > 0) {
+				position += read;
+			}
+			return read;
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package cafe.data.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cafe.data.parser.io.SnapshotReader;
+import cafe.data.parser.io.SnapshotWriter;
+import cafe.data.parser.io.SourceStamp;
+import cafe.data.parser.stats.Stage;
+
+/**
+ * Cache of the parsed data files. After a file is parsed, its dataset is written as a binary snapshot of primitive columns
+ * next to the file (the file name followed by {@link #SUFFIX}). Later runs read the snapshot instead of parsing the file
+ * as long as the file's {@link SourceStamp} is unchanged, and parse the file again (replacing the snapshot) when it is not.
+ * An unreadable snapshot is ignored, and failing to write a snapshot does not fail the load.
+ * Invalid rows of a file are only reported when the file is parsed.
+ * A load with a {@link DateFilter} reads the whole snapshot and drops the rejected rows as it builds the dataset. Without a snapshot the filter is
+ * pushed down to the parser, and as the parsed dataset misses the rejected rows no snapshot is written from it.
+ * @author Ryan Zembrodt
+ */
+public class SnapshotCache {
+	public static final String SUFFIX = ".snapshot";
+	
+	/**
+	 * Parses a data file, matching the {@link DataLoader} methods.
+	 */
+	private interface Parser<T> {
+		T parse(String fileName, LoadOptions options) throws IOException;
+	}
+	
+	/**
+	 * Writes a dataset to a snapshot and reads it back. Each codec has its own kind so a snapshot is never read as another dataset.
+	 */
+	private static abstract class Codec<T> {
+		private final int kind;
+		
+		private Codec(int kind) {
+			this.kind = kind;
+		}
+		
+		abstract void write(T data, SnapshotWriter out) throws IOException;
+		
+		/**
+		 * @param filter the filter the rows of the dataset must pass
+		 * @return the dataset, or null if the snapshot does not hold the data asked for
+		 */
+		abstract T read(SnapshotReader in, DateFilter filter);
+	}
+	
+	/**
+	 * Loads the rows of the weather data file accepted by the filter of the options from its snapshot, or parses them with {@link DataLoader#loadWeatherData(String, LoadOptions)}.
+	 * @param fileName
+	 * @param options the filter, and the sink of invalid rows and values if the file is parsed
+	 * @return the list of WeatherData in file order
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static List<WeatherData> loadWeatherData(String fileName, LoadOptions options) throws IOException {
+		return load(fileName, DataLoader::loadWeatherData, WEATHER, options);
+	}
+	
+	/**
+	 * Loads the rows of the gates data file accepted by the filter of the options from its snapshot, or parses them with {@link DataLoader#loadGatesData(String, LoadOptions)}.
+	 * @param fileName
+	 * @param options the filter, and the sink of invalid rows and values if the file is parsed
+	 * @return the list of GatesData in file order
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static List<GatesData> loadGatesData(String fileName, LoadOptions options) throws IOException {
+		return load(fileName, DataLoader::loadGatesData, GATES, options);
+	}
+	
+	/**
+	 * Loads the rows of the views data file accepted by the filter of the options from its snapshot, or parses them with {@link DataLoader#loadViewsData(String, LoadOptions)}.
+	 * @param fileName
+	 * @param options the filter, and the sink of invalid rows and values if the file is parsed
+	 * @return the list of ViewsData in file order
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static List<ViewsData> loadViewsData(String fileName, LoadOptions options) throws IOException {
+		return load(fileName, DataLoader::loadViewsData, VIEWS, options);
+	}
+	
+	/**
+	 * Loads the rows of the point of sale data file accepted by the filter of the options from its snapshot, or parses the columns of the projection
+	 * of the options of them with {@link ParallelPosLoader} or {@link DataLoader} depending on {@link CafeDataParser#PARALLEL_POS}.
+	 * The snapshot holds the columns of the projection it was parsed with, so it is only read if they include every column of the projection.
+	 * @param fileName
+	 * @param options the projection and filter, and the sink of invalid rows and values and the parallelism if the file is parsed
+	 * @return the PosColumns holding every accepted row sorted by date
+	 * @throws IOException if the file does not exist or cannot be read
+	 */
+	public static PosColumns loadPointOfSaleData(String fileName, LoadOptions options) throws IOException {
+		return load(fileName, new Parser<PosColumns>() {
+			public PosColumns parse(String fileName, LoadOptions options) throws IOException {
+				return CafeDataParser.PARALLEL_POS
+						? ParallelPosLoader.load(fileName, options)
+						: DataLoader.loadPointOfSaleData(fileName, options);
+			}
+		}, posCodec(options.getProjection()), options);
+	}
+	
+	/**
+	 * @param fileName
+	 * @return the snapshot file of a data file
+	 */
+	public static File snapshotOf(String fileName) {
+		return new File(fileName + SUFFIX);
+	}
+	
+	private static <T> T load(String fileName, Parser<T> parser, Codec<T> codec, LoadOptions options) throws IOException {
+		DateFilter filter = options.getFilter();
+		// The stamp is taken before parsing so a file changed while it is parsed does not match its snapshot.
+		SourceStamp stamp = SourceStamp.of(new File(fileName));
+		File snapshot = snapshotOf(fileName);
+		
+		T data = read(snapshot, stamp, codec, filter);
+		if (data == null) {
+			data = parser.parse(fileName, options);
+			if (filter.acceptsAll()) {
+				write(snapshot, stamp, codec, data);
+			}
+		}
+		return data;
+	}
+	
+	/**
+	 * @return the dataset held by the snapshot, or null if there is no usable snapshot
+	 */
+	private static <T> T read(File snapshot, SourceStamp stamp, Codec<T> codec, DateFilter filter) {
+		try {
+			SnapshotReader in = SnapshotReader.open(snapshot, codec.kind, stamp);
+			if (in == null) {
+				return null;
+			}
+			T data = codec.read(in, filter);
+			if (data == null) {
+				return null;
+			}
+			if (!in.isComplete()) {
+				throw new IOException("unexpected data after the last column");
+			}
+			Stage.read(snapshot);
+			return data;
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Ignoring unreadable snapshot " + snapshot + ": " + e);
+			return null;
+		}
+	}
+	
+	private static <T> void write(File snapshot, SourceStamp stamp, Codec<T> codec, T data) {
+		try (SnapshotWriter out = new SnapshotWriter(snapshot, codec.kind, stamp)) {
+			codec.write(data, out);
+			out.commit();
+		} catch (IOException e) {
+			System.out.println("Could not write snapshot " + snapshot + ": " + e);
+		}
+	}
+	
+	// Codecs of each dataset. The object lists are written as one column per field.
+	
+	private static final Codec<List<WeatherData>> WEATHER = new Codec<List<WeatherData>>(1) {
+		void write(List<WeatherData> weatherData, SnapshotWriter out) throws IOException {
+			int size = weatherData.size();
+			long[] datetime = new long[size];
+			double[] temperature = new double[size];
+			int[] humidity = new int[size];
+			String[] percipitation = new String[size];
+			boolean[] isSevereWeather = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				WeatherData weather = weatherData.get(i);
+				datetime[i] = weather.getEpochSecond();
+				temperature[i] = weather.getTemperature();
+				humidity[i] = weather.getHumidity();
+				percipitation[i] = weather.getPercipitation();
+				isSevereWeather[i] = weather.isSevereWeather();
+			}
+			out.writeInt(size);
+			out.writeLongs(datetime, size);
+			out.writeDoubles(temperature, size);
+			out.writeInts(humidity, size);
+			writeCodedStrings(percipitation, out);
+			out.writeBooleans(isSevereWeather, size);
+		}
+		
+		List<WeatherData> read(SnapshotReader in, DateFilter filter) {
+			int size = in.readInt();
+			long[] datetime = in.readLongs(size);
+			double[] temperature = in.readDoubles(size);
+			int[] humidity = in.readInts(size);
+			String[] percipitation = readCodedStrings(size, in);
+			boolean[] isSevereWeather = in.readBooleans(size);
+			
+			List<WeatherData> weatherData = new ArrayList<WeatherData>(size);
+			for (int i = 0; i < size; i++) {
+				if (filter.accepts(datetime[i])) {
+					weatherData.add(new WeatherData(datetime[i], temperature[i], humidity[i], percipitation[i], isSevereWeather[i]));
+				}
+			}
+			return weatherData;
+		}
+	};
+	
+	private static final Codec<List<GatesData>> GATES = new Codec<List<GatesData>>(2) {
+		void write(List<GatesData> gatesData, SnapshotWriter out) throws IOException {
+			int size = gatesData.size();
+			int[] locationId = new int[size];
+			int[] gateId = new int[size];
+			long[] datetime = new long[size];
+			int[] gateDuration = new int[size];
+			int[] inCount = new int[size];
+			int[] outCount = new int[size];
+			for (int i = 0; i < size; i++) {
+				GatesData gates = gatesData.get(i);
+				locationId[i] = gates.getLocationId();
+				gateId[i] = gates.getGate();
+				datetime[i] = gates.getEpochSecond();
+				gateDuration[i] = gates.getGateDuration();
+				inCount[i] = gates.getInCount();
+				outCount[i] = gates.getOutCount();
+			}
+			out.writeInt(size);
+			out.writeInts(locationId, size);
+			out.writeInts(gateId, size);
+			out.writeLongs(datetime, size);
+			out.writeInts(gateDuration, size);
+			out.writeInts(inCount, size);
+			out.writeInts(outCount, size);
+		}
+		
+		List<GatesData> read(SnapshotReader in, DateFilter filter) {
+			int size = in.readInt();
+			int[] locationId = in.readInts(size);
+			int[] gateId = in.readInts(size);
+			long[] datetime = in.readLongs(size);
+			int[] gateDuration = in.readInts(size);
+			int[] inCount = in.readInts(size);
+			int[] outCount = in.readInts(size);
+			
+			List<GatesData> gatesData = new ArrayList<GatesData>(size);
+			for (int i = 0; i < size; i++) {
+				if (filter.accepts(datetime[i])) {
+					gatesData.add(new GatesData(locationId[i], gateId[i], datetime[i], gateDuration[i], inCount[i], outCount[i]));
+				}
+			}
+			return gatesData;
+		}
+	};
+	
+	private static final Codec<List<ViewsData>> VIEWS = new Codec<List<ViewsData>>(3) {
+		void write(List<ViewsData> viewsData, SnapshotWriter out) throws IOException {
+			int size = viewsData.size();
+			int[] locationId = new int[size];
+			int[] gender = new int[size];
+			int[] age = new int[size];
+			long[] datetime = new long[size];
+			int[] dwellTime = new int[size];
+			int[] attentionTime = new int[size];
+			int[] watcherCount = new int[size];
+			for (int i = 0; i < size; i++) {
+				ViewsData view = viewsData.get(i);
+				locationId[i] = view.getLocationId();
+				gender[i] = view.getGender().getValue();
+				age[i] = view.getAge().getValue();
+				datetime[i] = view.getEpochSecond();
+				dwellTime[i] = view.getDwellTime();
+				attentionTime[i] = view.getAttentionTime();
+				watcherCount[i] = view.getWatcherCount();
+			}
+			out.writeInt(size);
+			out.writeInts(locationId, size);
+			out.writeInts(gender, size);
+			out.writeInts(age, size);
+			out.writeLongs(datetime, size);
+			out.writeInts(dwellTime, size);
+			out.writeInts(attentionTime, size);
+			out.writeInts(watcherCount, size);
+		}
+		
+		List<ViewsData> read(SnapshotReader in, DateFilter filter) {
+			int size = in.readInt();
+			int[] locationId = in.readInts(size);
+			int[] gender = in.readInts(size);
+			int[] age = in.readInts(size);
+			long[] datetime = in.readLongs(size);
+			int[] dwellTime = in.readInts(size);
+			int[] attentionTime = in.readInts(size);
+			int[] watcherCount = in.readInts(size);
+			
+			List<ViewsData> viewsData = new ArrayList<ViewsData>(size);
+			for (int i = 0; i < size; i++) {
+				if (filter.accepts(datetime[i])) {
+					viewsData.add(new ViewsData(locationId[i], gender[i], age[i], datetime[i], dwellTime[i], attentionTime[i], watcherCount[i]));
+				}
+			}
+			return viewsData;
+		}
+	};
+	
+	/**
+	 * @param projection the columns the snapshot must hold to be read
+	 * @return the codec of the point of sale data.
+	 */
+	private static Codec<PosColumns> posCodec(final PosProjection projection) {
+		return new Codec<PosColumns>(5) {
+			void write(PosColumns posData, SnapshotWriter out) throws IOException {
+				posData.write(out);
+			}
+			
+			PosColumns read(SnapshotReader in, DateFilter filter) {
+				PosColumns posData = PosColumns.read(in, projection);
+				if (posData != null) {
+					posData.retain(filter);
+				}
+				return posData;
+			}
+		};
+	}
+	
+	/**
+	 * Writes a string column as its distinct values followed by the index of each row's value.
+	 */
+	private static void writeCodedStrings(String[] column, SnapshotWriter out) throws IOException {
+		Map<String, Integer> codes = new HashMap<String, Integer>();
+		List<String> values = new ArrayList<String>();
+		int[] rows = new int[column.length];
+		for (int i = 0; i < column.length; i++) {
+			Integer code = codes.get(column[i]);
+			if (code == null) {
+				code = values.size();
+				codes.put(column[i], code);
+				values.add(column[i]);
+			}
+			rows[i] = code;
+		}
+		out.writeStrings(values.toArray(new String[values.size()]));
+		out.writeInts(rows, rows.length);
+	}
+	
+	/**
+	 * Reads a string column written by {@link #writeCodedStrings(String[], SnapshotWriter)}. Rows with the same value share one String.
+	 */
+	private static String[] readCodedStrings(int size, SnapshotReader in) {
+		String[] values = in.readStrings();
+		int[] rows = in.readInts(size);
+		String[] column = new String[size];
+		for (int i = 0; i < size; i++) {
+			column[i] = values[rows[i]];
+		}
+		return column;
+	}
+}
@@ -0,0 +1,170 @@
+package cafe.data.parser;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import cafe.data.parser.io.TimestampDecoder;
+
+/**
+ * Rounds datetimes, as seconds since the epoch, to buckets of a fixed width such as a quarter hour or a day.
+ * A bucket is identified by its index since the epoch, a single long that can be compared, sorted, and used as a join key,
+ * and that {@link #start(long)} turns back into the first second of the bucket. Only integer arithmetic is used, so rounding
+ * costs a division and no {@link LocalDateTime} is built. Buckets are aligned to midnight, so the width must divide a day or be a number of days.
+ * Immutable.
+ * @author Ryan Zembrodt
+ */
+public final class TimeBucketer {
+	/**
+	 * How a datetime between two bucket starts is rounded.
+	 */
+	public enum Rounding {
+		// To the start of the bucket holding the datetime.
+		FLOOR,
+		// To the closest bucket start, the later one when the datetime is halfway.
+		NEAREST,
+		// To the start of the next bucket, unless the datetime is a bucket start.
+		CEIL
+	}
+	
+	// Common buckets. The weather and gates data are joined on the quarter hour.
+	public static final TimeBucketer QUARTER_HOUR = ofMinutes(15, Rounding.NEAREST);
+	public static final TimeBucketer EIGHTH_HOUR = ofMinutes(7.5, Rounding.NEAREST);
+	public static final TimeBucketer MINUTE = ofMinutes(1, Rounding.FLOOR);
+	public static final TimeBucketer DAY = new TimeBucketer(TimestampDecoder.SECONDS_PER_DAY, Rounding.FLOOR);
+	
+	private final int width; // Seconds
+	private final Rounding rounding;
+	private final long offset; // Added to a datetime before it is floored to its bucket
+	
+	/**
+	 * @param width the width of the buckets in seconds
+	 * @param rounding
+	 * @throws IllegalArgumentException if the width is not positive, or neither divides a day nor is a number of days
+	 */
+	public TimeBucketer(int width, Rounding rounding) {
+		if (width <= 0 || (TimestampDecoder.SECONDS_PER_DAY % width != 0 && width % TimestampDecoder.SECONDS_PER_DAY != 0)) {
+			throw new IllegalArgumentException("Invalid bucket width of " + width + " seconds, it must divide a day or be a number of days.");
+		}
+		this.width = width;
+		this.rounding = rounding;
+		switch (rounding) {
+		case NEAREST:
+			this.offset = width / 2;
+			break;
+		case CEIL:
+			this.offset = width - 1;
+			break;
+		default:
+			this.offset = 0;
+		}
+	}
+	
+	/**
+	 * @param minutes the width of the buckets in minutes, a whole number of seconds such as 7.5
+	 * @param rounding
+	 * @return the bucketer
+	 * @throws IllegalArgumentException if the width is not a whole number of seconds, or is not a valid width
+	 */
+	public static TimeBucketer ofMinutes(double minutes, Rounding rounding) {
+		double seconds = minutes * 60.0;
+		if (seconds != Math.rint(seconds) || seconds > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid bucket width of " + minutes + " minutes, it must be a whole number of seconds.");
+		}
+		return new TimeBucketer((int)seconds, rounding);
+	}
+	
+	/**
+	 * @param epochSecond a datetime in seconds since the epoch
+	 * @return the index since the epoch of the bucket the datetime is rounded to
+	 */
+	public long bucket(long epochSecond) {
+		return Math.floorDiv(epochSecond + offset, width);
+	}
+	
+	/**
+	 * @param bucket the index of a bucket, as returned by {@link #bucket(long)}
+	 * @return the first second of the bucket since the epoch
+	 */
+	public long start(long bucket) {
+		return bucket * width;
+	}
+	
+	/**
+	 * @param epochSecond a datetime in seconds since the epoch
+	 * @return the datetime rounded to the start of its bucket, in seconds since the epoch
+	 */
+	public long round(long epochSecond) {
+		return start(bucket(epochSecond));
+	}
+	
+	/**
+	 * @param epochSecond a datetime in seconds since the epoch
+	 * @return the index of the bucket the datetime is rounded to among the buckets of its day, from 0 to {@link #getBucketsPerDay()} excluded
+	 */
+	public int slotOfDay(long epochSecond) {
+		return (int)(Math.floorMod(round(epochSecond), (long)TimestampDecoder.SECONDS_PER_DAY) / width);
+	}
+	
+	/**
+	 * @param datetime
+	 * @return the datetime rounded to the start of its bucket. Fractions of a second are ignored.
+	 */
+	public LocalDateTime round(LocalDateTime datetime) {
+		return TimestampDecoder.toLocalDateTime(round(TimestampDecoder.toEpochSecond(datetime)));
+	}
+	
+	/**
+	 * @param times datetimes in seconds since the epoch, or bucket indexes
+	 * @return the indexes of the datetimes in date order, equal datetimes keeping their order. Only sorted when the datetimes are not already in date order.
+	 */
+	public static int[] dateOrder(long[] times) {
+		int n = times.length;
+		int[] order = new int[n];
+		boolean sorted = true;
+		for (int i = 1; i < n && sorted; i++) {
+			sorted = times[i] >= times[i-1];
+		}
+		if (sorted) {
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			return order;
+		}
+		// Pack the datetime and index into one long so a primitive sort can be used.
+		long[] packed = new long[n];
+		for (int i = 0; i < n; i++) {
+			packed[i] = times[i] * n + i;
+		}
+		Arrays.sort(packed);
+		for (int i = 0; i < n; i++) {
+			order[i] = (int)Math.floorMod(packed[i], (long)n);
+		}
+		return order;
+	}
+	
+	/**
+	 * @return the width of the buckets in seconds
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * @return the number of buckets in a day, 1 if the buckets are a day or longer
+	 */
+	public int getBucketsPerDay() {
+		return Math.max(1, TimestampDecoder.SECONDS_PER_DAY / width);
+	}
+	
+	public Rounding getRounding() {
+		return rounding;
+	}
+	
+	/**
+	 * @return the width and rounding, for example "900s NEAREST"
+	 */
+	@Override
+	public String toString() {
+		return width + "s " + rounding;
+	}
+}
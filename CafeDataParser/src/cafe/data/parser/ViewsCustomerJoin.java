@@ -0,0 +1,171 @@
+package cafe.data.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+
+/**
+ * Joins the customers with the views impressions of the ad screen that could have led to their purchase.
+ * Each customer is matched with every impression of the same {@link Age} and {@link Gender} within a lookback window before their datetime,
+ * the window including both its ends, and gets the number of impressions and the sums of their dwell and attention times.
+ * Impressions of an unsupported age or gender are matched as {@link Age#UNKNOWN} or {@link Gender#UNKNOWN}, like the {@link PopulationCube}.
+ * <p>
+ * Both inputs are put in date order once, the impressions grouped by age and gender, and the customers swept through in date order
+ * with a window of impressions per group sliding forward, so the join is linear in the size of both inputs after sorting.
+ * The sums of a window come from running sums of the impressions of each group. An input already in date order is not sorted.
+ * @author Ryan Zembrodt
+ */
+public class ViewsCustomerJoin {
+	// Default number of seconds before a customer's datetime an impression is matched within.
+	public static final int DEFAULT_LOOKBACK = 15 * 60;
+	
+	private final List<Customer> customers;
+	private final int lookback;
+	private final int[] impressions; // Indexed as the customers
+	private final long[] dwellTimes;
+	private final long[] attentionTimes;
+	private final long[] lastImpressions; // Datetime of the latest matched impression, in seconds since the epoch
+	
+	private ViewsCustomerJoin(List<Customer> customers, int lookback) {
+		this.customers = customers;
+		this.lookback = lookback;
+		this.impressions = new int[customers.size()];
+		this.dwellTimes = new long[customers.size()];
+		this.attentionTimes = new long[customers.size()];
+		this.lastImpressions = new long[customers.size()];
+	}
+	
+	/**
+	 * Joins the views data with the customers within the {@link #DEFAULT_LOOKBACK}.
+	 * @param viewsData
+	 * @param customers
+	 * @return a row per customer, in the order of the customers
+	 */
+	public static ViewsCustomerJoin join(List<ViewsData> viewsData, List<Customer> customers) {
+		return join(viewsData, customers, DEFAULT_LOOKBACK);
+	}
+	
+	/**
+	 * Joins the views data with the customers, as {@link #join(List, List)}.
+	 * @param viewsData
+	 * @param customers
+	 * @param lookback the number of seconds before a customer's datetime an impression is matched within
+	 * @return a row per customer, in the order of the customers
+	 * @throws IllegalArgumentException if the lookback is negative
+	 */
+	public static ViewsCustomerJoin join(List<ViewsData> viewsData, List<Customer> customers, int lookback) {
+		if (lookback < 0) {
+			throw new IllegalArgumentException("The lookback window cannot be negative, not " + lookback + " seconds.");
+		}
+		ViewsCustomerJoin join = new ViewsCustomerJoin(customers, lookback);
+		
+		// Group the impressions by age and gender, each group in date order.
+		int n = viewsData.size();
+		long[] viewTimes = new long[n];
+		int[] viewGroups = new int[n];
+		for (int i = 0; i < n; i++) {
+			ViewsData view = viewsData.get(i);
+			viewTimes[i] = view.getEpochSecond();
+			viewGroups[i] = PopulationCube.group(view.getAge().getValue(), view.getGender().getValue());
+		}
+		int[] groupStarts = new int[PopulationCube.GROUP_COUNT + 1];
+		for (int i = 0; i < n; i++) {
+			groupStarts[viewGroups[i] + 1]++;
+		}
+		for (int g = 0; g < PopulationCube.GROUP_COUNT; g++) {
+			groupStarts[g + 1] += groupStarts[g];
+		}
+		// Grouped impressions: their datetimes, and the running sums of their dwell and attention times, the sums of the first i at index i.
+		long[] times = new long[n];
+		long[] dwellSums = new long[n + 1];
+		long[] attentionSums = new long[n + 1];
+		int[] next = Arrays.copyOf(groupStarts, PopulationCube.GROUP_COUNT);
+		for (int i : TimeBucketer.dateOrder(viewTimes)) {
+			int at = next[viewGroups[i]]++;
+			times[at] = viewTimes[i];
+			dwellSums[at + 1] = viewsData.get(i).getDwellTime();
+			attentionSums[at + 1] = viewsData.get(i).getAttentionTime();
+		}
+		for (int i = 0; i < n; i++) {
+			dwellSums[i + 1] += dwellSums[i];
+			attentionSums[i + 1] += attentionSums[i];
+		}
+		
+		// Sweep the customers in date order, the window of each group being the impressions from index low to high, excluded.
+		long[] customerTimes = new long[customers.size()];
+		for (int c = 0; c < customerTimes.length; c++) {
+			customerTimes[c] = customers.get(c).getEpochSecond();
+		}
+		int[] low = Arrays.copyOf(groupStarts, PopulationCube.GROUP_COUNT);
+		int[] high = Arrays.copyOf(groupStarts, PopulationCube.GROUP_COUNT);
+		for (int c : TimeBucketer.dateOrder(customerTimes)) {
+			Customer customer = customers.get(c);
+			int g = PopulationCube.group(customer.getAge().getValue(), customer.getGender().getValue());
+			long time = customerTimes[c];
+			int end = groupStarts[g + 1];
+			while (high[g] < end && times[high[g]] <= time) {
+				high[g]++;
+			}
+			while (low[g] < high[g] && times[low[g]] < time - lookback) {
+				low[g]++;
+			}
+			join.impressions[c] = high[g] - low[g];
+			join.dwellTimes[c] = dwellSums[high[g]] - dwellSums[low[g]];
+			join.attentionTimes[c] = attentionSums[high[g]] - attentionSums[low[g]];
+			join.lastImpressions[c] = high[g] > low[g] ? times[high[g] - 1] : Long.MIN_VALUE;
+		}
+		return join;
+	}
+	
+	/**
+	 * @return the number of joined rows, one per customer
+	 */
+	public int size() {
+		return customers.size();
+	}
+	
+	/**
+	 * @return the number of seconds before a customer's datetime an impression was matched within
+	 */
+	public int getLookback() {
+		return lookback;
+	}
+	
+	public Customer getCustomer(int i) {
+		return customers.get(i);
+	}
+	
+	/**
+	 * @param i
+	 * @return the number of impressions matched with the customer
+	 */
+	public int getImpressions(int i) {
+		return impressions[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return the sum of the dwell times of the impressions matched with the customer
+	 */
+	public long getDwellTime(int i) {
+		return dwellTimes[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return the sum of the attention times of the impressions matched with the customer
+	 */
+	public long getAttentionTime(int i) {
+		return attentionTimes[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return the number of seconds from the latest impression matched with the customer to the customer's datetime, or -1 if none was matched
+	 */
+	public long getSecondsSinceImpression(int i) {
+		return impressions[i] > 0 ? customers.get(i).getEpochSecond() - lastImpressions[i] : -1;
+	}
+}
@@ -2,6 +2,7 @@ package cafe.data.parser;
 
 import java.time.LocalDateTime;
 
+import cafe.data.parser.io.TimestampDecoder;
 import cafe.data.parser.wrapper.Age;
 import cafe.data.parser.wrapper.Gender;
 
@@ -13,7 +14,7 @@ public class ViewsData {
 	private int locationId;
 	private Gender gender;
 	private Age age;
-	private LocalDateTime datetime;
+	private long datetime; // seconds since the epoch
 	private int dwellTime;
 	private int attentionTime;
 	private int watcherCount;
@@ -29,15 +30,33 @@ public class ViewsData {
 	 * @param watcherCount
 	 */
 	public ViewsData(int locationId, int gender, int age, LocalDateTime datetime, int dwellTime, int attentionTime, int watcherCount) {
+		this(locationId, gender, age, TimestampDecoder.toEpochSecond(datetime), dwellTime, attentionTime, watcherCount);
+	}
+	
+	/**
+	 * Builds a ViewsData object from the raw views data values.
+	 * @param locationId
+	 * @param gender integer that is then represented by a {@link Gender} object
+	 * @param age integer that is then represented by a {@link Age} object
+	 * @param datetime seconds since the epoch, see {@link TimestampDecoder}
+	 * @param dwellTime
+	 * @param attentionTime
+	 * @param watcherCount
+	 */
+	public ViewsData(int locationId, int gender, int age, long datetime, int dwellTime, int attentionTime, int watcherCount) {
 		this.locationId = locationId;
-		this.gender = new Gender(gender);
-		this.age = new Age(age);
+		this.gender = Gender.of(gender);
+		this.age = Age.of(age);
 		this.datetime = datetime;
 		this.dwellTime = dwellTime;
 		this.attentionTime = attentionTime;
 		this.watcherCount = watcherCount;
 	}
 	
+	public int getLocationId() {
+		return locationId;
+	}
+	
 	public Gender getGender() {
 		return gender;
 	}
@@ -46,7 +65,17 @@ public class ViewsData {
 		return age;
 	}
 	
+	/**
+	 * @return the datetime as a LocalDateTime, built on each call.
+	 */
 	public LocalDateTime getDate() {
+		return TimestampDecoder.toLocalDateTime(datetime);
+	}
+	
+	/**
+	 * @return the datetime in seconds since the epoch.
+	 */
+	public long getEpochSecond() {
 		return datetime;
 	}
 	
@@ -57,4 +86,8 @@ public class ViewsData {
 	public int getAttentionTime() {
 		return attentionTime;
 	}
+	
+	public int getWatcherCount() {
+		return watcherCount;
+	}
 }
@@ -0,0 +1,139 @@
+package cafe.data.parser;
+
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+
+/**
+ * Dwell and attention times of the views data, kept as a {@link QuantileSketch} of each per {@link Age}, {@link Gender}, and time slot of the day.
+ * The views are added one at a time as they are read, so the percentiles of any volume of views are computed in bounded memory:
+ * a sketch is only built for the groups that have views, and holds a bounded number of values whatever the number of views of its group.
+ * Views of an unsupported age or gender are kept as {@link Age#UNKNOWN} or {@link Gender#UNKNOWN}.
+ * @author Ryan Zembrodt
+ */
+public class ViewsQuantiles {
+	// Percentiles written to the views percentiles file.
+	public static final double[] PERCENTILES = { 0.5, 0.9, 0.99 };
+	
+	private final TimeBucketer slots;
+	private final int slotCount;
+	private final QuantileSketch[] dwellTimes; // Indexed by age, gender, and slot, null for a group without views
+	private final QuantileSketch[] attentionTimes;
+	
+	/**
+	 * Builds empty sketches for the half hours of the day, as the {@link PopulationCube}.
+	 */
+	public ViewsQuantiles() {
+		this(PopulationCube.HALF_HOUR);
+	}
+	
+	/**
+	 * Builds empty sketches.
+	 * @param slots rounds the datetime of each view to its time slot
+	 * @throws IllegalArgumentException if the slots are a day or longer
+	 */
+	public ViewsQuantiles(TimeBucketer slots) {
+		if (slots.getWidth() >= TimestampDecoder.SECONDS_PER_DAY) {
+			throw new IllegalArgumentException("The time slots must be shorter than a day, not " + slots.getWidth() + " seconds.");
+		}
+		this.slots = slots;
+		this.slotCount = slots.getBucketsPerDay();
+		this.dwellTimes = new QuantileSketch[PopulationCube.GROUP_COUNT * slotCount];
+		this.attentionTimes = new QuantileSketch[dwellTimes.length];
+	}
+	
+	/**
+	 * Adds the dwell and attention times of every view.
+	 * @param viewsData the views, read once so a {@link RowSource} can be passed
+	 * @return the sketches of the views
+	 */
+	public static ViewsQuantiles of(Iterable<ViewsData> viewsData) {
+		ViewsQuantiles quantiles = new ViewsQuantiles();
+		for (ViewsData view : viewsData) {
+			quantiles.add(view);
+		}
+		return quantiles;
+	}
+	
+	/**
+	 * Adds the dwell and attention times of a view to the sketches of its age, gender, and time slot.
+	 * @param view
+	 */
+	public void add(ViewsData view) {
+		int index = index(view.getAge().getValue(), view.getGender().getValue(), slots.slotOfDay(view.getEpochSecond()));
+		if (dwellTimes[index] == null) {
+			dwellTimes[index] = new QuantileSketch();
+			attentionTimes[index] = new QuantileSketch();
+		}
+		dwellTimes[index].add(view.getDwellTime());
+		attentionTimes[index].add(view.getAttentionTime());
+	}
+	
+	private int index(int age, int gender, int slot) {
+		return PopulationCube.group(age, gender) * slotCount + slot;
+	}
+	
+	/**
+	 * @return the number of time slots in a day
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+	
+	/**
+	 * @param slot
+	 * @return the first second of a time slot since the start of its day
+	 */
+	public int getSlotSecondOfDay(int slot) {
+		return slot * slots.getWidth();
+	}
+	
+	/**
+	 * @param age an {@link Age} value
+	 * @param gender a {@link Gender} value
+	 * @param slot
+	 * @return the sketch of the dwell times of a group, or null if the group has no views
+	 */
+	public QuantileSketch getDwellTimes(int age, int gender, int slot) {
+		return dwellTimes[index(age, gender, slot)];
+	}
+	
+	/**
+	 * @param age an {@link Age} value
+	 * @param gender a {@link Gender} value
+	 * @param slot
+	 * @return the sketch of the attention times of a group, or null if the group has no views
+	 */
+	public QuantileSketch getAttentionTimes(int age, int gender, int slot) {
+		return attentionTimes[index(age, gender, slot)];
+	}
+	
+	/**
+	 * @param age an {@link Age} value
+	 * @param gender a {@link Gender} value
+	 * @return the sketches of the dwell times of every time slot of an age and gender merged, empty if they have no views
+	 */
+	public QuantileSketch getDwellTimes(int age, int gender) {
+		return mergeSlots(dwellTimes, age, gender);
+	}
+	
+	/**
+	 * @param age an {@link Age} value
+	 * @param gender a {@link Gender} value
+	 * @return the sketches of the attention times of every time slot of an age and gender merged, empty if they have no views
+	 */
+	public QuantileSketch getAttentionTimes(int age, int gender) {
+		return mergeSlots(attentionTimes, age, gender);
+	}
+	
+	private QuantileSketch mergeSlots(QuantileSketch[] sketches, int age, int gender) {
+		QuantileSketch merged = new QuantileSketch();
+		for (int slot = 0; slot < slotCount; slot++) {
+			QuantileSketch sketch = sketches[index(age, gender, slot)];
+			if (sketch != null) {
+				merged.merge(sketch);
+			}
+		}
+		return merged;
+	}
+}
@@ -2,12 +2,14 @@ package cafe.data.parser;
 
 import java.time.LocalDateTime;
 
+import cafe.data.parser.io.TimestampDecoder;
+
 /**
  * Object representing entries in the weather data file.
  * @author Ryan Zembrodt
  */
 public class WeatherData {
-	private LocalDateTime datetime;
+	private long datetime; // seconds since the epoch
 	private double temperature; // Fahrenheit
 	private int humidity; // percentage
 	private String percipitation;
@@ -22,6 +24,18 @@ public class WeatherData {
 	 * @param isSevereWeather
 	 */
 	public WeatherData(LocalDateTime datetime, double temperature, int humidity, String percipitation, boolean isSevereWeather) {
+		this(TimestampDecoder.toEpochSecond(datetime), temperature, humidity, percipitation, isSevereWeather);
+	}
+	
+	/**
+	 * WeatherData object built from the raw data in the weather data file.
+	 * @param datetime seconds since the epoch, see {@link TimestampDecoder}
+	 * @param temperature represented in Fahrenheit.
+	 * @param humidity
+	 * @param percipitation
+	 * @param isSevereWeather
+	 */
+	public WeatherData(long datetime, double temperature, int humidity, String percipitation, boolean isSevereWeather) {
 		this.datetime = datetime;
 		this.temperature = temperature;
 		this.humidity = humidity;
@@ -29,7 +43,17 @@ public class WeatherData {
 		this.isSevereWeather = isSevereWeather;
 	}
 	
+	/**
+	 * @return the datetime as a LocalDateTime, built on each call.
+	 */
 	public LocalDateTime getDate() {
+		return TimestampDecoder.toLocalDateTime(datetime);
+	}
+	
+	/**
+	 * @return the datetime in seconds since the epoch.
+	 */
+	public long getEpochSecond() {
 		return datetime;
 	}
 	
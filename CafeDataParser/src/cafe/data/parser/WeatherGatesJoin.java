@@ -0,0 +1,158 @@
+package cafe.data.parser;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import cafe.data.parser.io.TimestampDecoder;
+
+/**
+ * Joins the weather data with the gates data on the quarter hour of their datetimes, or on the buckets of another {@link TimeBucketer}.
+ * Each weather entry is matched with the sum of the in and out counts of every gates entry rounded to the same bucket.
+ * Both inputs are converted to bucket keys once, the gates data is grouped by key, and the two are merged in a single pass.
+ * @author Ryan Zembrodt
+ */
+public class WeatherGatesJoin {
+	private final List<WeatherData> weather;
+	private final long[] bucketStarts;
+	private final int[] inCounts;
+	private final int[] outCounts;
+	private int size;
+
+	private WeatherGatesJoin(int capacity) {
+		this.weather = new ArrayList<WeatherData>(capacity);
+		this.bucketStarts = new long[capacity];
+		this.inCounts = new int[capacity];
+		this.outCounts = new int[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Joins the weather data with the gates data. Weather entries without any gates data in their quarter hour are left out.
+	 * The weather entries keep their original order. Both lists are expected to be sorted by date for the join to be linear,
+	 * but unsorted input is still joined correctly.
+	 * @param weatherData
+	 * @param gatesData
+	 * @return the joined rows
+	 */
+	public static WeatherGatesJoin join(List<WeatherData> weatherData, List<GatesData> gatesData) {
+		return join(weatherData, gatesData, TimeBucketer.QUARTER_HOUR);
+	}
+	
+	/**
+	 * Joins the weather data with the gates data on the buckets of a bucketer, as {@link #join(List, List)}.
+	 * @param weatherData
+	 * @param gatesData
+	 * @param bucketer rounds the datetimes of both inputs to the buckets they are joined on
+	 * @return the joined rows
+	 */
+	public static WeatherGatesJoin join(List<WeatherData> weatherData, List<GatesData> gatesData, TimeBucketer bucketer) {
+		// Bucket the gates data: one key per distinct bucket with the in and out counts summed.
+		long[] gateKeys = new long[gatesData.size()];
+		int[] gateIn = new int[gatesData.size()];
+		int[] gateOut = new int[gatesData.size()];
+		int bucketCount = bucketGates(gatesData, bucketer, gateKeys, gateIn, gateOut);
+
+		WeatherGatesJoin join = new WeatherGatesJoin(weatherData.size());
+
+		int g = 0;
+		long prevKey = Long.MIN_VALUE;
+		for (WeatherData w : weatherData) {
+			long key = bucketer.bucket(w.getEpochSecond());
+
+			if (key < prevKey) {
+				// The weather data went back in time, restart the merge from the matching bucket.
+				g = Arrays.binarySearch(gateKeys, 0, bucketCount, key);
+				if (g < 0) {
+					g = -g - 1;
+				}
+			} else {
+				while (g < bucketCount && gateKeys[g] < key) {
+					g++;
+				}
+			}
+			prevKey = key;
+
+			if (g < bucketCount && gateKeys[g] == key) {
+				join.weather.add(w);
+				join.bucketStarts[join.size] = bucketer.start(key);
+				join.inCounts[join.size] = gateIn[g];
+				join.outCounts[join.size] = gateOut[g];
+				join.size++;
+			}
+		}
+
+		return join;
+	}
+
+	/**
+	 * Converts the gates data to sorted, distinct bucket keys with the in and out counts of each key summed.
+	 * @param gatesData
+	 * @param bucketer
+	 * @param keys filled with the sorted keys
+	 * @param inCounts filled with the in count sum of each key
+	 * @param outCounts filled with the out count sum of each key
+	 * @return the number of distinct keys
+	 */
+	private static int bucketGates(List<GatesData> gatesData, TimeBucketer bucketer, long[] keys, int[] inCounts, int[] outCounts) {
+		int n = gatesData.size();
+		long[] gateKeys = new long[n];
+		for (int i = 0; i < n; i++) {
+			gateKeys[i] = bucketer.bucket(gatesData.get(i).getEpochSecond());
+		}
+
+		// Order of the gates entries by key. Only sorted when the gates data is not already in date order.
+		int[] order = TimeBucketer.dateOrder(gateKeys);
+
+		int bucketCount = 0;
+		for (int i = 0; i < n; i++) {
+			GatesData gate = gatesData.get(order[i]);
+			long key = gateKeys[order[i]];
+			if (bucketCount == 0 || keys[bucketCount-1] != key) {
+				keys[bucketCount] = key;
+				inCounts[bucketCount] = 0;
+				outCounts[bucketCount] = 0;
+				bucketCount++;
+			}
+			inCounts[bucketCount-1] += gate.getInCount();
+			outCounts[bucketCount-1] += gate.getOutCount();
+		}
+		return bucketCount;
+	}
+
+	/**
+	 * @return the number of joined rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	public WeatherData getWeather(int i) {
+		return weather.get(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the weather entry's datetime rounded to its bucket, the nearest quarter hour unless the join used another bucketer
+	 */
+	public LocalDateTime getQuarterHour(int i) {
+		return TimestampDecoder.toLocalDateTime(bucketStarts[i]);
+	}
+	
+	/**
+	 * @param i
+	 * @return the weather entry's datetime rounded to its bucket, in seconds since the epoch
+	 */
+	public long getBucketStart(int i) {
+		return bucketStarts[i];
+	}
+
+	public int getInCount(int i) {
+		return inCounts[i];
+	}
+
+	public int getOutCount(int i) {
+		return outCounts[i];
+	}
+}
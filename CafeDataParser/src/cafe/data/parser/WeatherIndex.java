@@ -0,0 +1,212 @@
+package cafe.data.parser;
+
+import java.util.List;
+
+import cafe.data.parser.wrapper.Dictionary;
+
+/**
+ * Index of the weather data in date order, answering the weather at any datetime so rows of any data file can be enriched with it.
+ * The readings are held as columns: their datetimes in seconds since the epoch, temperatures, humidities, precipitations
+ * as their {@link Dictionary#PRECIPITATION} codes, and severe weather flags.
+ * <p>
+ * The weather at a datetime is the latest reading at or before it, found by a binary search, or by a {@link Cursor} moving forward
+ * through the readings when the datetimes asked for are in date order, as the rows of a data file are, so enriching a file takes a single pass.
+ * The temperature and humidity can also be interpolated linearly between the readings around a datetime.
+ * Of several readings at the same datetime, the last one in the weather data is the latest.
+ * @author Ryan Zembrodt
+ */
+public class WeatherIndex {
+	private final long[] times;
+	private final double[] temperatures; // Fahrenheit
+	private final int[] humidities; // percentage
+	private final int[] precipitations;
+	private final boolean[] severeWeather;
+	
+	private WeatherIndex(int size) {
+		this.times = new long[size];
+		this.temperatures = new double[size];
+		this.humidities = new int[size];
+		this.precipitations = new int[size];
+		this.severeWeather = new boolean[size];
+	}
+	
+	/**
+	 * Builds the index of the weather data. Weather data already in date order is not sorted.
+	 * @param weatherData
+	 * @return the index of the readings
+	 */
+	public static WeatherIndex of(List<WeatherData> weatherData) {
+		int n = weatherData.size();
+		WeatherIndex index = new WeatherIndex(n);
+		long[] times = new long[n];
+		for (int i = 0; i < n; i++) {
+			times[i] = weatherData.get(i).getEpochSecond();
+		}
+		
+		int[] order = TimeBucketer.dateOrder(times);
+		for (int i = 0; i < n; i++) {
+			WeatherData weather = weatherData.get(order[i]);
+			index.times[i] = weather.getEpochSecond();
+			index.temperatures[i] = weather.getTemperature();
+			index.humidities[i] = weather.getHumidity();
+			index.precipitations[i] = Dictionary.PRECIPITATION.encode(weather.getPercipitation());
+			index.severeWeather[i] = weather.isSevereWeather();
+		}
+		return index;
+	}
+	
+	/**
+	 * @return the number of readings
+	 */
+	public int size() {
+		return times.length;
+	}
+	
+	/**
+	 * Finds the latest reading at or before a datetime by a binary search.
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @return the index of the reading, or -1 if every reading is after the datetime
+	 */
+	public int indexAt(long epochSecond) {
+		// Number of readings at or before the datetime.
+		int low = 0;
+		int high = times.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] <= epochSecond) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low - 1;
+	}
+	
+	/**
+	 * @return a cursor finding the readings of datetimes in date order in amortized constant time
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+	
+	/**
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @return the temperature interpolated between the readings around the datetime, the temperature of the last reading after it, or NaN before the first reading
+	 */
+	public double getTemperatureAt(long epochSecond) {
+		return interpolate(epochSecond, indexAt(epochSecond), true);
+	}
+	
+	/**
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @return the humidity interpolated between the readings around the datetime, the humidity of the last reading after it, or NaN before the first reading
+	 */
+	public double getHumidityAt(long epochSecond) {
+		return interpolate(epochSecond, indexAt(epochSecond), false);
+	}
+	
+	/**
+	 * Interpolates the temperature or humidity linearly between the reading at or before a datetime and the reading after it.
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @param i the index of the latest reading at or before the datetime
+	 * @param temperature true for the temperature, false for the humidity
+	 * @return the interpolated value, the value of the last reading after it, or NaN before the first reading
+	 */
+	private double interpolate(long epochSecond, int i, boolean temperature) {
+		if (i < 0) {
+			return Double.NaN;
+		}
+		double before = temperature ? temperatures[i] : humidities[i];
+		if (i + 1 == times.length || times[i] == epochSecond) {
+			return before;
+		}
+		double after = temperature ? temperatures[i + 1] : humidities[i + 1];
+		return before + (after - before) * (epochSecond - times[i]) / (times[i + 1] - times[i]);
+	}
+	
+	/**
+	 * @param i
+	 * @return the datetime of a reading in seconds since the epoch
+	 */
+	public long getEpochSecond(int i) {
+		return times[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return the temperature of a reading in Fahrenheit
+	 */
+	public double getTemperature(int i) {
+		return temperatures[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return the humidity of a reading as a percentage
+	 */
+	public int getHumidity(int i) {
+		return humidities[i];
+	}
+	
+	/**
+	 * @param i
+	 * @return the precipitation of a reading as its {@link Dictionary#PRECIPITATION} code
+	 */
+	public int getPrecipitationCode(int i) {
+		return precipitations[i];
+	}
+	
+	public String getPrecipitation(int i) {
+		return Dictionary.PRECIPITATION.decode(precipitations[i]);
+	}
+	
+	public boolean isSevereWeather(int i) {
+		return severeWeather[i];
+	}
+	
+	/**
+	 * Finds the latest reading at or before each datetime asked for, moving forward from the reading of the previous datetime.
+	 * Datetimes in date order are found in amortized constant time; a datetime before the previous one is found by a binary search.
+	 * Not safe to use from several threads, each thread should use its own cursor.
+	 */
+	public class Cursor {
+		private int position = -1; // Index of the latest reading at or before the previous datetime
+		private long previous = Long.MIN_VALUE;
+		
+		private Cursor() {
+		}
+		
+		/**
+		 * @param epochSecond the datetime in seconds since the epoch
+		 * @return the index of the latest reading at or before the datetime, or -1 if every reading is after the datetime
+		 */
+		public int seek(long epochSecond) {
+			if (epochSecond < previous) {
+				// Went back in time, restart from the matching reading.
+				position = indexAt(epochSecond);
+			} else {
+				while (position + 1 < times.length && times[position + 1] <= epochSecond) {
+					position++;
+				}
+			}
+			previous = epochSecond;
+			return position;
+		}
+		
+		/**
+		 * @param epochSecond the datetime in seconds since the epoch
+		 * @return the temperature interpolated at the datetime, as {@link WeatherIndex#getTemperatureAt(long)}
+		 */
+		public double getTemperatureAt(long epochSecond) {
+			return interpolate(epochSecond, seek(epochSecond), true);
+		}
+		
+		/**
+		 * @param epochSecond the datetime in seconds since the epoch
+		 * @return the humidity interpolated at the datetime, as {@link WeatherIndex#getHumidityAt(long)}
+		 */
+		public double getHumidityAt(long epochSecond) {
+			return interpolate(epochSecond, seek(epochSecond), false);
+		}
+	}
+}
@@ -0,0 +1,426 @@
+package cafe.data.parser.io;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import cafe.data.parser.wrapper.Dictionary;
+
+/**
+ * Writes a csv file through a large byte buffer that is only flushed to the file in big blocks.
+ * Values are appended as the fields of the current row, separated by commas, without building a String per row:
+ * numbers are written digit by digit and datetimes straight from their seconds since the epoch (see {@link TimestampDecoder}).
+ * Each value is written exactly as string concatenation would write it, so {@link #append(double)} matches {@link Double#toString(double)}
+ * and {@link #appendDateTime(long)} matches {@link LocalDateTime#toString()}, and the files are identical to the ones built with a PrintWriter.
+ * Raw text, such as the header or the lines of an R script, is written with {@link #write(String)} and {@link #writeLine(String)}.
+ * <p>
+ * Files are written in UTF-8 with the system line separator. I/O errors are thrown to the caller.
+ * @author Ryan Zembrodt
+ */
+public class CsvSink implements Closeable {
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+	// Names of the days of the week, starting from Monday.
+	private static final byte[][] DAY_NAMES = new byte[7][];
+	static {
+		for (DayOfWeek day : DayOfWeek.values()) {
+			DAY_NAMES[day.ordinal()] = day.name().getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+	
+	// Doubles between these magnitudes with at most MAX_FRACTION_DIGITS decimals are written without Double.toString.
+	// Double.toString uses scientific notation outside of them.
+	private static final double MIN_PLAIN_DOUBLE = 1e-3;
+	private static final double MAX_PLAIN_DOUBLE = 1e7;
+	private static final int MAX_FRACTION_DIGITS = 3;
+	private static final double[] POWERS_OF_TEN = { 1.0, 10.0, 100.0, 1000.0 };
+	
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int count; // Number of bytes in the buffer
+	private boolean inRow; // If a field was appended to the current row
+	private long flushedBytes; // Number of bytes written to the stream
+	private long rowCount;
+	
+	// The date of the last day written, as rows are usually written in date order.
+	private long cachedDay = Long.MIN_VALUE;
+	private final byte[] cachedDate = new byte[10];
+	private boolean cachedDateValid; // False if the year does not have 4 digits
+	
+	/**
+	 * Creates (or replaces) the file.
+	 * @param fileName
+	 * @throws java.io.FileNotFoundException if the file cannot be created
+	 */
+	public CsvSink(String fileName) throws IOException {
+		this(new FileOutputStream(fileName), DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Builds a sink writing to the passed stream. The stream is closed when the sink is closed.
+	 * @param out
+	 * @param bufferSize the number of bytes buffered before they are written to the stream
+	 */
+	public CsvSink(OutputStream out, int bufferSize) {
+		this.out = out;
+		this.buffer = new byte[Math.max(64, bufferSize)];
+	}
+	
+	/**
+	 * Writes raw text, without a separator.
+	 * @param text
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink write(String text) throws IOException {
+		writeChars(text);
+		return this;
+	}
+	
+	/**
+	 * Writes raw text followed by a line separator, such as the header of the file. The line is not counted as a row.
+	 * @param line
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink writeLine(String line) throws IOException {
+		writeChars(line);
+		writeBytes(LINE_SEPARATOR);
+		inRow = false;
+		return this;
+	}
+	
+	/**
+	 * Ends the current row with a line separator.
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink endRow() throws IOException {
+		writeBytes(LINE_SEPARATOR);
+		inRow = false;
+		rowCount++;
+		return this;
+	}
+	
+	/**
+	 * @return the number of rows ended with {@link #endRow()}, not counting the raw lines such as the header
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * @return the number of bytes written, including the bytes still buffered
+	 */
+	public long getByteCount() {
+		return flushedBytes + count;
+	}
+	
+	public CsvSink append(int value) throws IOException {
+		return append((long)value);
+	}
+	
+	public CsvSink append(long value) throws IOException {
+		separate();
+		writeLong(value);
+		return this;
+	}
+	
+	public CsvSink append(boolean value) throws IOException {
+		separate();
+		writeChars(value ? "true" : "false");
+		return this;
+	}
+	
+	/**
+	 * Appends a String field, written as "null" for null.
+	 * @param value
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink append(String value) throws IOException {
+		separate();
+		writeChars(String.valueOf(value));
+		return this;
+	}
+	
+	/**
+	 * Appends an object's {@link Object#toString()} as a field, such as an {@link cafe.data.parser.wrapper.Age}.
+	 * @param value
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink append(Object value) throws IOException {
+		return append(String.valueOf(value));
+	}
+	
+	/**
+	 * Appends a double as {@link Double#toString(double)} writes it. Values with a few decimals, such as the temperatures,
+	 * are written digit by digit: a value with at most {@link #MAX_FRACTION_DIGITS} decimals is the shortest decimal that reads back
+	 * as the same double, which is the one Double.toString writes. Any other value is passed on to Double.toString.
+	 * @param value
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink append(double value) throws IOException {
+		separate();
+		if (!writePlainDouble(value)) {
+			writeChars(Double.toString(value));
+		}
+		return this;
+	}
+	
+	/**
+	 * Appends the value of a dictionary code, written as "null" for {@link Dictionary#NULL_CODE}.
+	 * @param dictionary
+	 * @param code
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink appendCode(Dictionary dictionary, int code) throws IOException {
+		return append(dictionary.decode(code));
+	}
+	
+	/**
+	 * Appends a datetime as {@link LocalDateTime#toString()} writes it: 'yyyy-MM-ddTHH:mm', followed by ':ss' if the seconds are not 0.
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink appendDateTime(long epochSecond) throws IOException {
+		separate();
+		long day = Math.floorDiv(epochSecond, TimestampDecoder.SECONDS_PER_DAY);
+		int secondOfDay = (int)Math.floorMod(epochSecond, (long)TimestampDecoder.SECONDS_PER_DAY);
+		writeDate(day);
+		ensureCapacity(9);
+		buffer[count++] = 'T';
+		writeTwoDigits(secondOfDay / 3600);
+		buffer[count++] = ':';
+		writeTwoDigits(secondOfDay / 60 % 60);
+		if (secondOfDay % 60 != 0) {
+			buffer[count++] = ':';
+			writeTwoDigits(secondOfDay % 60);
+		}
+		return this;
+	}
+	
+	/**
+	 * Appends the date of a datetime as {@link LocalDate#toString()} writes it: 'yyyy-MM-dd'.
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink appendDate(long epochSecond) throws IOException {
+		separate();
+		writeDate(Math.floorDiv(epochSecond, TimestampDecoder.SECONDS_PER_DAY));
+		return this;
+	}
+	
+	/**
+	 * Appends the day of week of a datetime as {@link DayOfWeek#toString()} writes it, such as 'MONDAY'.
+	 * @param epochSecond the datetime in seconds since the epoch
+	 * @return this sink
+	 * @throws IOException
+	 */
+	public CsvSink appendDayOfWeek(long epochSecond) throws IOException {
+		separate();
+		// 1970-01-01 was a Thursday.
+		long day = Math.floorDiv(epochSecond, TimestampDecoder.SECONDS_PER_DAY);
+		writeBytes(DAY_NAMES[(int)Math.floorMod(day + 3, 7L)]);
+		return this;
+	}
+	
+	/**
+	 * Writes the buffered bytes to the file.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		if (count > 0) {
+			flushBuffer();
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Flushes the buffer and closes the file. The file is closed even if the flush fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Writes the comma before every field of a row but the first.
+	 */
+	private void separate() throws IOException {
+		if (inRow) {
+			ensureCapacity(1);
+			buffer[count++] = ',';
+		}
+		inRow = true;
+	}
+	
+	/**
+	 * @return false if the value has to be written by Double.toString
+	 */
+	private boolean writePlainDouble(double value) throws IOException {
+		if (value == 0.0) {
+			// Also writes the sign of -0.0.
+			writeChars(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+			return true;
+		}
+		double magnitude = Math.abs(value);
+		if (!(magnitude >= MIN_PLAIN_DOUBLE && magnitude < MAX_PLAIN_DOUBLE)) {
+			return false;
+		}
+		for (int digits = 0; digits <= MAX_FRACTION_DIGITS; digits++) {
+			double units = Math.rint(magnitude * POWERS_OF_TEN[digits]);
+			// The decimal reads back as the same double, and no decimal with fewer digits did.
+			if (units / POWERS_OF_TEN[digits] == magnitude) {
+				long scale = (long)POWERS_OF_TEN[digits];
+				long unitsValue = (long)units;
+				if (value < 0) {
+					ensureCapacity(1);
+					buffer[count++] = '-';
+				}
+				writeLong(unitsValue / scale);
+				ensureCapacity(1 + MAX_FRACTION_DIGITS);
+				buffer[count++] = '.';
+				if (digits == 0) {
+					buffer[count++] = '0';
+				} else {
+					long fraction = unitsValue % scale;
+					for (long place = scale / 10; place > 0; place /= 10) {
+						buffer[count++] = (byte)('0' + fraction / place % 10);
+					}
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeChars(Long.toString(value));
+			return;
+		}
+		ensureCapacity(20);
+		if (value < 0) {
+			buffer[count++] = '-';
+			value = -value;
+		}
+		// Write the digits backwards from the end of the number.
+		int length = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			length++;
+		}
+		for (int i = count + length - 1; i >= count; i--) {
+			buffer[i] = (byte)('0' + value % 10);
+			value /= 10;
+		}
+		count += length;
+	}
+	
+	private void writeTwoDigits(int value) {
+		buffer[count++] = (byte)('0' + value / 10);
+		buffer[count++] = (byte)('0' + value % 10);
+	}
+	
+	/**
+	 * Writes a date in days since the epoch, reusing the last date written when it is the same day.
+	 */
+	private void writeDate(long day) throws IOException {
+		if (day != cachedDay) {
+			cachedDay = day;
+			cachedDateValid = cacheDate(day);
+		}
+		if (cachedDateValid) {
+			writeBytes(cachedDate);
+		} else {
+			writeChars(LocalDate.ofEpochDay(day).toString());
+		}
+	}
+	
+	/**
+	 * Writes the 'yyyy-MM-dd' bytes of a day into the cached date, the inverse of the computation of {@link TimestampDecoder}.
+	 * @return false if the year does not have exactly 4 digits and has to be written by LocalDate
+	 */
+	private boolean cacheDate(long day) {
+		long shifted = day + TimestampDecoder.DAYS_0000_TO_1970;
+		long era = Math.floorDiv(shifted, 146097);
+		long dayOfEra = shifted - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153; // Counted from March
+		int dayOfMonth = (int)(dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+		int month = (int)(shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < 0 || year > 9999) {
+			return false;
+		}
+		int y = (int)year;
+		cachedDate[0] = (byte)('0' + y / 1000);
+		cachedDate[1] = (byte)('0' + y / 100 % 10);
+		cachedDate[2] = (byte)('0' + y / 10 % 10);
+		cachedDate[3] = (byte)('0' + y % 10);
+		cachedDate[4] = '-';
+		cachedDate[5] = (byte)('0' + month / 10);
+		cachedDate[6] = (byte)('0' + month % 10);
+		cachedDate[7] = '-';
+		cachedDate[8] = (byte)('0' + dayOfMonth / 10);
+		cachedDate[9] = (byte)('0' + dayOfMonth % 10);
+		return true;
+	}
+	
+	/**
+	 * Writes the characters of a String, copying ASCII characters straight into the buffer.
+	 */
+	private void writeChars(String text) throws IOException {
+		int length = text.length();
+		ensureCapacity(Math.min(length, buffer.length));
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c >= 0x80 || count == buffer.length) {
+				writeBytes(text.substring(i).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			buffer[count++] = (byte)c;
+		}
+	}
+	
+	private void writeBytes(byte[] bytes) throws IOException {
+		if (bytes.length > buffer.length) {
+			flushBuffer();
+			out.write(bytes);
+			return;
+		}
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, count, bytes.length);
+		count += bytes.length;
+	}
+	
+	/**
+	 * Flushes the buffer to the file if it does not have room for the passed number of bytes.
+	 */
+	private void ensureCapacity(int bytes) throws IOException {
+		if (count + bytes > buffer.length) {
+			flushBuffer();
+		}
+	}
+	
+	private void flushBuffer() throws IOException {
+		out.write(buffer, 0, count);
+		flushedBytes += count;
+		count = 0;
+	}
+}
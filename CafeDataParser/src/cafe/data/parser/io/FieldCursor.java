@@ -0,0 +1,537 @@
+package cafe.data.parser.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import cafe.data.parser.wrapper.Dictionary;
+
+/**
+ * Reusable cursor over the lines and comma separated fields of a csv file.
+ * The file is read in large blocks into a single byte buffer and fields are decoded straight from that buffer,
+ * so no String or array is created per line or per field unless a String value is asked for.
+ * A ByteBuffer backed by an array is decoded in place. The blocks of any other ByteBuffer, such as a memory-mapped region,
+ * are bulk copied straight from it into the byte buffer, which is faster to decode from than reading the mapped bytes one at a time.
+ * Files are expected to be UTF-8 (or plain ASCII).
+ * <p>
+ * Fields of the current line can be read in order with the next methods ({@link #nextInt()}, {@link #nextDouble()}, ...)
+ * or by column index with the at methods ({@link #intAt(int)}, {@link #doubleAt(int)}, ...).
+ * The number of fields on a line matches {@link String#split(String)} with a comma, meaning trailing empty fields are not counted.
+ * <p>
+ * Numeric and boolean fields never throw: a field that cannot be parsed is read as 0 (or false) and reported to the cursor's {@link ParseErrors}.
+ * @author Ryan Zembrodt
+ */
+public class FieldCursor implements Closeable {
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final int DEFAULT_FIELD_COUNT = 32;
+	
+	private final InputStream in; // Null when reading a ByteBuffer
+	private final ByteBuffer source; // Null when reading a stream or an array backed ByteBuffer
+	private byte[] buffer;
+	private int limit; // Number of valid bytes in the buffer
+	private int position; // Start of the next line in the buffer
+	private boolean endOfInput;
+	
+	private int lineStart;
+	private int lineEnd;
+	private int lineNumber;
+	
+	private int[] fieldStarts;
+	private int[] fieldEnds;
+	private int fieldCount;
+	private int field; // Index of the field read by the next methods
+	
+	private final FieldSequence sequence = new FieldSequence();
+	private final NumberParser numbers = new NumberParser();
+	private ParseErrors errors = new ParseErrors();
+	
+	/**
+	 * Builds a cursor reading from the passed stream. The stream is closed when the cursor is closed.
+	 * @param in
+	 */
+	public FieldCursor(InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Builds a cursor reading from the passed stream using an initial buffer of the passed size.
+	 * The buffer grows if a line does not fit in it.
+	 * @param in
+	 * @param bufferSize
+	 */
+	public FieldCursor(InputStream in, int bufferSize) {
+		this.in = in;
+		this.source = null;
+		this.buffer = new byte[Math.max(16, bufferSize)];
+		this.fieldStarts = new int[DEFAULT_FIELD_COUNT];
+		this.fieldEnds = new int[DEFAULT_FIELD_COUNT];
+	}
+	
+	/**
+	 * Builds a cursor reading the remaining bytes of the passed buffer, such as a region of a memory-mapped file.
+	 * A buffer backed by an array is read in place, any other buffer is read in blocks as a stream is.
+	 * @param source
+	 */
+	public FieldCursor(ByteBuffer source) {
+		this.in = null;
+		if (source.hasArray()) {
+			// Lines are read straight from the backing array, starting at the buffer's position.
+			this.source = null;
+			this.buffer = source.array();
+			this.position = source.arrayOffset() + source.position();
+			this.limit = source.arrayOffset() + source.limit();
+			this.endOfInput = true;
+			source.position(source.limit());
+		} else {
+			this.source = source;
+			this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+		}
+		this.fieldStarts = new int[DEFAULT_FIELD_COUNT];
+		this.fieldEnds = new int[DEFAULT_FIELD_COUNT];
+	}
+	
+	/**
+	 * Moves the cursor to the next line of the file. Lines end with '\n', '\r', or "\r\n" as in {@link java.io.BufferedReader#readLine()}.
+	 * @return true if a line was read, false at the end of the file
+	 * @throws IOException
+	 */
+	public boolean nextLine() throws IOException {
+		int scan = position;
+		while (true) {
+			// Look for the end of the line in the bytes already read.
+			int end = -1;
+			for (int i = scan; i < limit; i++) {
+				byte b = buffer[i];
+				if (b == '\n' || b == '\r') {
+					end = i;
+					break;
+				}
+			}
+			
+			// A '\r' at the end of the buffer may be followed by a '\n' that has not been read yet.
+			if (end >= 0 && (buffer[end] == '\n' || end + 1 < limit || endOfInput)) {
+				lineStart = position;
+				lineEnd = end;
+				position = end + 1;
+				if (buffer[end] == '\r' && position < limit && buffer[position] == '\n') {
+					position++;
+				}
+				break;
+			}
+			
+			if (endOfInput) {
+				if (position == limit) {
+					return false;
+				}
+				// The last line of the file has no line terminator.
+				lineStart = position;
+				lineEnd = limit;
+				position = limit;
+				break;
+			}
+			
+			// Keep the partial line and read more of the file after it.
+			scan = end >= 0 ? end : limit;
+			int shift = position;
+			fill();
+			scan -= shift;
+		}
+		
+		lineNumber++;
+		splitFields();
+		return true;
+	}
+	
+	/**
+	 * Moves the unread bytes to the start of the buffer, growing it if it is full, and reads more of the file.
+	 * @throws IOException
+	 */
+	private void fill() throws IOException {
+		int remaining = limit - position;
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		} else if (remaining == buffer.length) {
+			byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, remaining);
+			buffer = grown;
+		}
+		position = 0;
+		limit = remaining;
+		
+		int read = source != null ? read(source, buffer, limit, buffer.length - limit) : in.read(buffer, limit, buffer.length - limit);
+		if (read < 0) {
+			endOfInput = true;
+		} else {
+			limit += read;
+		}
+	}
+	
+	/**
+	 * Bulk copies the next bytes of a ByteBuffer into the byte buffer, as {@link InputStream#read(byte[], int, int)}.
+	 * @return the number of bytes copied, or -1 if the ByteBuffer has no remaining bytes
+	 */
+	private static int read(ByteBuffer source, byte[] b, int off, int len) {
+		if (!source.hasRemaining()) {
+			return -1;
+		}
+		int count = Math.min(len, source.remaining());
+		source.get(b, off, count);
+		return count;
+	}
+	
+	/**
+	 * Records where each field of the current line starts and ends.
+	 */
+	private void splitFields() {
+		fieldCount = 0;
+		field = 0;
+		int start = lineStart;
+		for (int i = lineStart; i <= lineEnd; i++) {
+			if (i == lineEnd || buffer[i] == ',') {
+				if (fieldCount == fieldStarts.length) {
+					int[] starts = new int[fieldCount * 2];
+					int[] ends = new int[fieldCount * 2];
+					System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+					System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+					fieldStarts = starts;
+					fieldEnds = ends;
+				}
+				fieldStarts[fieldCount] = start;
+				fieldEnds[fieldCount] = i;
+				fieldCount++;
+				start = i + 1;
+			}
+		}
+		// Trailing empty fields are not counted, matching String.split.
+		while (fieldCount > 0 && fieldStarts[fieldCount-1] == fieldEnds[fieldCount-1]) {
+			fieldCount--;
+		}
+	}
+	
+	/**
+	 * @return the line number of the current line, starting at 1.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+	
+	/**
+	 * @return true if the current line has no characters.
+	 */
+	public boolean isEmpty() {
+		return lineStart == lineEnd;
+	}
+	
+	/**
+	 * @return the number of fields on the current line, not counting trailing empty fields.
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+	
+	/**
+	 * @return the sink the invalid values read by this cursor are reported to
+	 */
+	public ParseErrors getErrors() {
+		return errors;
+	}
+	
+	/**
+	 * Sets the sink the invalid values read by this cursor are reported to, such as a sink shared by several files.
+	 * @param errors
+	 */
+	public void setErrors(ParseErrors errors) {
+		this.errors = errors;
+	}
+	
+	/**
+	 * Reports the current line as invalid, such as when it has the wrong number of fields.
+	 */
+	public void reportInvalidLine() {
+		errors.reportLine(lineNumber);
+	}
+	
+	/**
+	 * Sets the field read by the next call to a next method.
+	 * @param column
+	 */
+	public void seek(int column) {
+		field = column;
+	}
+	
+	/**
+	 * Skips the next field.
+	 */
+	public void skip() {
+		field++;
+	}
+	
+	public int nextInt() {
+		return intAt(field++);
+	}
+	
+	public double nextDouble() {
+		return doubleAt(field++);
+	}
+	
+	public boolean nextBoolean() {
+		return booleanAt(field++);
+	}
+	
+	public LocalDateTime nextTimestamp(DateTimeFormatter formatter) {
+		return timestampAt(field++, formatter);
+	}
+	
+	public long nextEpochSecond(TimestampDecoder decoder) {
+		return epochSecondAt(field++, decoder);
+	}
+	
+	public String nextString() {
+		return stringAt(field++);
+	}
+	
+	public int nextCode(Dictionary dictionary) {
+		return codeAt(field++, dictionary);
+	}
+	
+	/**
+	 * Parses a field as an integer with {@link NumberParser#parseInt(CharSequence, int, int)}: a blank field is 0.
+	 * Short plain integers are parsed straight from the buffer without going through the parser.
+	 * @param column
+	 * @return the integer value of the field, or 0 if it is not a valid integer
+	 */
+	public int intAt(int column) {
+		int start = fieldStarts[column];
+		int end = fieldEnds[column];
+		if (isBlank(start, end)) {
+			return 0;
+		}
+		
+		int i = start;
+		boolean negative = buffer[i] == '-';
+		if (negative || buffer[i] == '+') {
+			i++;
+		}
+		if (i < end && end - i <= 9) {
+			// At most 9 digits cannot overflow an int.
+			int value = 0;
+			for (; i < end; i++) {
+				int digit = buffer[i] - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				value = value * 10 + digit;
+			}
+			if (i == end) {
+				return negative ? -value : value;
+			}
+		}
+		int value = numbers.parseInt(sequence.of(start, end), 0, end - start);
+		if (!numbers.isValid()) {
+			errors.reportValue(column, lineNumber, sequence);
+		}
+		return value;
+	}
+	
+	/**
+	 * Parses a field as a double with {@link NumberParser#parseDouble(CharSequence, int, int)}: a blank field is 0.
+	 * Plain decimal numbers whose digits fit in a double exactly are parsed straight from the buffer (the result is the
+	 * correctly rounded quotient of two exact doubles) without going through the parser.
+	 * @param column
+	 * @return the double value of the field, or 0 if it is not a valid number
+	 */
+	public double doubleAt(int column) {
+		int start = fieldStarts[column];
+		int end = fieldEnds[column];
+		if (isBlank(start, end)) {
+			return 0.0;
+		}
+		
+		int i = start;
+		boolean negative = buffer[i] == '-';
+		if (negative || buffer[i] == '+') {
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = -1; // -1 until the decimal point is found
+		for (; i < end; i++) {
+			byte b = buffer[i];
+			if (b == '.' && fractionDigits < 0) {
+				fractionDigits = 0;
+				continue;
+			}
+			int digit = b - '0';
+			if (digit < 0 || digit > 9) {
+				break;
+			}
+			mantissa = mantissa * 10 + digit;
+			digits++;
+			if (fractionDigits >= 0) {
+				fractionDigits++;
+			}
+			if (mantissa > NumberParser.MAX_EXACT_MANTISSA) {
+				break;
+			}
+		}
+		if (i == end && digits > 0 && mantissa <= NumberParser.MAX_EXACT_MANTISSA && fractionDigits < NumberParser.POWERS_OF_TEN.length) {
+			double value = fractionDigits > 0 ? (double)mantissa / NumberParser.POWERS_OF_TEN[fractionDigits] : (double)mantissa;
+			return negative ? -value : value;
+		}
+		double value = numbers.parseDouble(sequence.of(start, end), 0, end - start);
+		if (!numbers.isValid()) {
+			errors.reportValue(column, lineNumber, sequence);
+		}
+		return value;
+	}
+	
+	/**
+	 * Parses a field as a boolean with {@link NumberParser#parseBoolean(CharSequence, int, int)}:
+	 * true when the field equals 'true' ignoring case, false for 'false' or a blank field.
+	 * @param column
+	 * @return the boolean value of the field, or false if it is not a valid boolean
+	 */
+	public boolean booleanAt(int column) {
+		int start = fieldStarts[column];
+		int end = fieldEnds[column];
+		if (end - start == 4 && (buffer[start] | 0x20) == 't' && (buffer[start+1] | 0x20) == 'r'
+				&& (buffer[start+2] | 0x20) == 'u' && (buffer[start+3] | 0x20) == 'e') {
+			return true;
+		}
+		boolean value = numbers.parseBoolean(sequence.of(start, end), 0, end - start);
+		if (!numbers.isValid()) {
+			errors.reportValue(column, lineNumber, sequence);
+		}
+		return value;
+	}
+	
+	/**
+	 * Parses a field as a datetime using the passed formatter. The formatter reads the field from the buffer without a String being created.
+	 * @param column
+	 * @param formatter
+	 * @return the datetime value of the field
+	 * @throws java.time.format.DateTimeParseException if the field does not match the formatter
+	 */
+	public LocalDateTime timestampAt(int column, DateTimeFormatter formatter) {
+		return LocalDateTime.parse(sequence.of(fieldStarts[column], fieldEnds[column]), formatter);
+	}
+	
+	/**
+	 * Decodes a field as a datetime in seconds since the epoch without creating any objects for the fixed layouts of the data files.
+	 * A field that is not a valid datetime is not reported, as the datetime is the key of its row: the caller reports the line instead.
+	 * @param column
+	 * @param decoder
+	 * @return the datetime value of the field in seconds since the epoch, or {@link TimestampDecoder#INVALID} if the field does not match the decoder's pattern
+	 */
+	public long epochSecondAt(int column, TimestampDecoder decoder) {
+		return decoder.tryDecode(buffer, fieldStarts[column], fieldEnds[column]);
+	}
+	
+	/**
+	 * @param column
+	 * @return a new String holding the field's value
+	 */
+	public String stringAt(int column) {
+		int start = fieldStarts[column];
+		return new String(buffer, start, fieldEnds[column] - start, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Encodes a field with a dictionary. The field's bytes are looked up in place with {@link Dictionary#find(byte[], int, int)}
+	 * so a String is only created for a value the dictionary does not hold yet.
+	 * A new value that a full dictionary cannot hold is reported to the cursor's {@link ParseErrors} and read as {@link Dictionary#NULL_CODE}.
+	 * @param column
+	 * @param dictionary
+	 * @return the dictionary code of the field's value, or {@link Dictionary#NULL_CODE} if the dictionary is full
+	 */
+	public int codeAt(int column, Dictionary dictionary) {
+		int start = fieldStarts[column];
+		int end = fieldEnds[column];
+		int code = dictionary.find(buffer, start, end);
+		if (code < 0) {
+			code = dictionary.encode(stringAt(column));
+			if (code == Dictionary.NULL_CODE) {
+				errors.reportValue(column, lineNumber, sequence.of(start, end));
+			}
+		}
+		return code;
+	}
+	
+	/**
+	 * Compares a field with a value without creating a String. Only exact matches of ASCII values are supported.
+	 * @param column
+	 * @param value
+	 * @return true if the field holds exactly the passed value
+	 */
+	public boolean fieldEquals(int column, CharSequence value) {
+		int start = fieldStarts[column];
+		int length = fieldEnds[column] - start;
+		if (length != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer[start + i] != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return true if the bytes between start and end are all whitespace, matching {@link String#trim()}.
+	 */
+	private boolean isBlank(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((buffer[i] & 0xFF) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (in != null) {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Reusable view of a field as a CharSequence. Only valid for ASCII fields, which all datetime and numeric fields are
+	 * (any other byte is never a digit, so a non ASCII field is simply invalid). {@link #toString()} decodes the whole field.
+	 */
+	private class FieldSequence implements CharSequence {
+		private int start;
+		private int end;
+		
+		private FieldSequence of(int start, int end) {
+			this.start = start;
+			this.end = end;
+			return this;
+		}
+		
+		@Override
+		public int length() {
+			return end - start;
+		}
+		
+		@Override
+		public char charAt(int index) {
+			return (char)(buffer[start + index] & 0xFF);
+		}
+		
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			return new String(buffer, start + from, to - from, StandardCharsets.ISO_8859_1);
+		}
+		
+		@Override
+		public String toString() {
+			return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+		}
+	}
+}
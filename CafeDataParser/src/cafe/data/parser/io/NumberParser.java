@@ -0,0 +1,218 @@
+package cafe.data.parser.io;
+
+/**
+ * Parses integers, doubles, and booleans from a range of characters without creating objects or throwing exceptions.
+ * Whitespace around the value is ignored and a blank range is read as 0 (or false).
+ * A range that does not hold a valid value is also read as 0 (or false), and {@link #isValid()} returns false until the next value is parsed,
+ * letting the caller report it (see {@link ParseErrors}). A parser is used by one thread at a time.
+ * @author Ryan Zembrodt
+ */
+public class NumberParser {
+	// Powers of ten that are exactly representable as doubles.
+	static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	// Largest mantissa for which a double can be computed exactly from its digits.
+	static final long MAX_EXACT_MANTISSA = 1L << 53;
+	
+	private boolean valid = true;
+	
+	/**
+	 * @return false if the last value parsed was not valid
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+	
+	/**
+	 * Parses a decimal integer with an optional sign, with the same results as {@link Integer#parseInt(String)} for valid values.
+	 * @param s
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the value, or 0 if the range is blank or not a valid integer
+	 */
+	public int parseInt(CharSequence s, int start, int end) {
+		valid = true;
+		while (start < end && s.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && s.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return 0;
+		}
+		
+		int i = start;
+		char c = s.charAt(i);
+		boolean negative = c == '-';
+		if (negative || c == '+') {
+			i++;
+		}
+		if (i == end) {
+			return invalid();
+		}
+		// Accumulated as a negative number so Integer.MIN_VALUE can be parsed.
+		int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int value = 0;
+		for (; i < end; i++) {
+			int digit = s.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || value < limit / 10) {
+				return invalid();
+			}
+			value *= 10;
+			if (value < limit + digit) {
+				return invalid();
+			}
+			value -= digit;
+		}
+		return negative ? value : -value;
+	}
+	
+	/**
+	 * Parses a decimal number, with the same results as {@link Double#parseDouble(String)} for valid values.
+	 * An exponent, a trailing type suffix ('f' or 'd'), "NaN", and "Infinity" are accepted, hexadecimal values are not.
+	 * Plain numbers whose digits fit in a double exactly are computed directly (the correctly rounded quotient of two exact doubles),
+	 * other valid values are passed on to {@link Double#parseDouble(String)} once they are known to be valid.
+	 * @param s
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the value, or 0 if the range is blank or not a valid number
+	 */
+	public double parseDouble(CharSequence s, int start, int end) {
+		valid = true;
+		while (start < end && s.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && s.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return 0.0;
+		}
+		
+		int i = start;
+		char c = s.charAt(i);
+		boolean negative = c == '-';
+		if (negative || c == '+') {
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = -1; // -1 until the decimal point is found
+		for (; i < end; i++) {
+			c = s.charAt(i);
+			if (c == '.' && fractionDigits < 0) {
+				fractionDigits = 0;
+				continue;
+			}
+			if (c < '0' || c > '9') {
+				break;
+			}
+			digits++;
+			if (fractionDigits >= 0) {
+				fractionDigits++;
+			}
+			// Digits past the exact range are still validated, the value is then left to Double.parseDouble.
+			if (mantissa <= MAX_EXACT_MANTISSA) {
+				mantissa = mantissa * 10 + (c - '0');
+			}
+		}
+		
+		if (digits == 0) {
+			if (fractionDigits < 0 && matches(s, i, end, "NaN")) {
+				return Double.NaN;
+			}
+			if (fractionDigits < 0 && matches(s, i, end, "Infinity")) {
+				return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+			}
+			return invalid();
+		}
+		if (i == end && mantissa <= MAX_EXACT_MANTISSA && fractionDigits < POWERS_OF_TEN.length) {
+			double value = fractionDigits > 0 ? (double)mantissa / POWERS_OF_TEN[fractionDigits] : (double)mantissa;
+			return negative ? -value : value;
+		}
+		
+		if (i < end && (c == 'e' || c == 'E')) {
+			i++;
+			if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				i++;
+			}
+			int exponentDigits = 0;
+			for (; i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+				exponentDigits++;
+			}
+			if (exponentDigits == 0) {
+				return invalid();
+			}
+		}
+		if (i < end && "fFdD".indexOf(s.charAt(i)) >= 0) {
+			i++;
+		}
+		if (i != end) {
+			return invalid();
+		}
+		return Double.parseDouble(s.subSequence(start, end).toString());
+	}
+	
+	/**
+	 * Parses 'true' or 'false', ignoring case.
+	 * @param s
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the value, or false if the range is blank or not a valid boolean
+	 */
+	public boolean parseBoolean(CharSequence s, int start, int end) {
+		valid = true;
+		while (start < end && s.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && s.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (start == end || matchesIgnoreCase(s, start, end, "false")) {
+			return false;
+		}
+		if (matchesIgnoreCase(s, start, end, "true")) {
+			return true;
+		}
+		valid = false;
+		return false;
+	}
+	
+	private int invalid() {
+		valid = false;
+		return 0;
+	}
+	
+	/**
+	 * @return true if the range holds exactly the passed value
+	 */
+	private static boolean matches(CharSequence s, int start, int end, String value) {
+		if (end - start != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (s.charAt(start + i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return true if the range holds the passed lower case ASCII value, ignoring case
+	 */
+	private static boolean matchesIgnoreCase(CharSequence s, int start, int end, String value) {
+		if (end - start != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if ((s.charAt(start + i) | 0x20) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
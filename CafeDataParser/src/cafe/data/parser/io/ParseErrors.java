@@ -0,0 +1,193 @@
+package cafe.data.parser.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the invalid lines and values found while parsing a data file so they can be summarized once the file is parsed,
+ * instead of being printed one by one. Invalid values are tallied per column, and only the first {@link #MAX_SAMPLES}
+ * invalid lines and values are kept, so a dirty file with thousands of bad cells costs little more than a clean one.
+ * Not safe to use from several threads: each thread uses its own and they are combined with {@link #addAll(ParseErrors, int)}.
+ * @author Ryan Zembrodt
+ */
+public class ParseErrors {
+	// Number of invalid lines, and of invalid values, kept as samples.
+	public static final int MAX_SAMPLES = 10;
+	
+	/**
+	 * A value that could not be parsed, with where it was found.
+	 */
+	public static class InvalidValue {
+		private final int line;
+		private final int column;
+		private final String value;
+		
+		private InvalidValue(int line, int column, String value) {
+			this.line = line;
+			this.column = column;
+			this.value = value;
+		}
+		
+		public int getLine() {
+			return line;
+		}
+		
+		public int getColumn() {
+			return column;
+		}
+		
+		public String getValue() {
+			return value;
+		}
+		
+		@Override
+		public String toString() {
+			return "line " + line + " column " + column + " '" + value + "'";
+		}
+	}
+	
+	private int lineCount;
+	private final List<Integer> lineSamples = new ArrayList<Integer>();
+	private int valueCount;
+	private int[] columnCounts = new int[0];
+	private final List<InvalidValue> valueSamples = new ArrayList<InvalidValue>();
+	
+	/**
+	 * Reports a line that could not be parsed, such as a line with the wrong number of fields.
+	 * @param line the line number
+	 */
+	public void reportLine(int line) {
+		lineCount++;
+		if (lineSamples.size() < MAX_SAMPLES) {
+			lineSamples.add(line);
+		}
+	}
+	
+	/**
+	 * Reports a value that could not be parsed. The value is only copied if it is kept as a sample.
+	 * @param column the column of the value, starting at 0
+	 * @param line the line number
+	 * @param value
+	 */
+	public void reportValue(int column, int line, CharSequence value) {
+		valueCount++;
+		countColumn(column, 1);
+		if (valueSamples.size() < MAX_SAMPLES) {
+			valueSamples.add(new InvalidValue(line, column, value.toString()));
+		}
+	}
+	
+	private void countColumn(int column, int count) {
+		if (column >= columnCounts.length) {
+			columnCounts = Arrays.copyOf(columnCounts, column + 1);
+		}
+		columnCounts[column] += count;
+	}
+	
+	/**
+	 * Adds the errors of another sink, such as the sink of one chunk of a file parsed in parallel.
+	 * @param other
+	 * @param lineOffset added to the line numbers of the other sink's samples
+	 */
+	public void addAll(ParseErrors other, int lineOffset) {
+		lineCount += other.lineCount;
+		for (int line : other.lineSamples) {
+			if (lineSamples.size() < MAX_SAMPLES) {
+				lineSamples.add(lineOffset + line);
+			}
+		}
+		valueCount += other.valueCount;
+		for (int column = 0; column < other.columnCounts.length; column++) {
+			if (other.columnCounts[column] > 0) {
+				countColumn(column, other.columnCounts[column]);
+			}
+		}
+		for (InvalidValue sample : other.valueSamples) {
+			if (valueSamples.size() < MAX_SAMPLES) {
+				valueSamples.add(new InvalidValue(lineOffset + sample.line, sample.column, sample.value));
+			}
+		}
+	}
+	
+	/**
+	 * @return true if no invalid line or value was reported
+	 */
+	public boolean isEmpty() {
+		return lineCount == 0 && valueCount == 0;
+	}
+	
+	/**
+	 * @return the number of invalid lines reported
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+	
+	/**
+	 * @return the number of invalid values reported
+	 */
+	public int getValueCount() {
+		return valueCount;
+	}
+	
+	/**
+	 * @param column
+	 * @return the number of invalid values reported in the column
+	 */
+	public int getValueCount(int column) {
+		return column < columnCounts.length ? columnCounts[column] : 0;
+	}
+	
+	/**
+	 * @return the line numbers of the first invalid lines reported
+	 */
+	public List<Integer> getLineSamples() {
+		return Collections.unmodifiableList(lineSamples);
+	}
+	
+	/**
+	 * @return the first invalid values reported
+	 */
+	public List<InvalidValue> getValueSamples() {
+		return Collections.unmodifiableList(valueSamples);
+	}
+	
+	/**
+	 * Summarizes the errors on a single line, for example
+	 * "2 invalid lines (3, 9), 1204 invalid values (column 4: 1200, column 13: 4) such as line 7 column 4 'abc'".
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(lineCount).append(lineCount == 1 ? " invalid line" : " invalid lines");
+		if (lineCount > 0) {
+			sb.append(" (");
+			appendSamples(sb, lineSamples, lineCount);
+			sb.append(")");
+		}
+		sb.append(", ").append(valueCount).append(valueCount == 1 ? " invalid value" : " invalid values");
+		if (valueCount > 0) {
+			String separator = " (";
+			for (int column = 0; column < columnCounts.length; column++) {
+				if (columnCounts[column] > 0) {
+					sb.append(separator).append("column ").append(column).append(": ").append(columnCounts[column]);
+					separator = ", ";
+				}
+			}
+			sb.append(") such as ");
+			appendSamples(sb, valueSamples, valueCount);
+		}
+		return sb.toString();
+	}
+	
+	private static void appendSamples(StringBuilder sb, List<?> samples, int count) {
+		for (int i = 0; i < samples.size(); i++) {
+			sb.append(i > 0 ? ", " : "").append(samples.get(i));
+		}
+		if (count > samples.size()) {
+			sb.append(", ...");
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package cafe.data.parser.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter}. The file is memory-mapped and each column is copied out in bulk.
+ * @author Ryan Zembrodt
+ */
+public class SnapshotReader {
+	// Size of the header: magic, version, kind, and the three values of the source stamp.
+	private static final int HEADER_SIZE = 3 * 4 + 3 * 8;
+	
+	private final ByteBuffer buffer;
+	
+	private SnapshotReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Opens a snapshot if it exists and was written from the source file with the passed stamp.
+	 * @param snapshot the snapshot file
+	 * @param kind the kind of data the snapshot must hold
+	 * @param source stamp of the source file as it is now
+	 * @return a reader positioned after the header, or null if there is no matching snapshot
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	public static SnapshotReader open(File snapshot, int kind, SourceStamp source) throws IOException {
+		if (!snapshot.isFile()) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+				return null;
+			}
+			// Check the header before mapping the file so a stale snapshot is never mapped.
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					return null;
+				}
+			}
+			header.flip();
+			if (header.getInt() != SnapshotWriter.MAGIC || header.getInt() != SnapshotWriter.VERSION || header.getInt() != kind
+					|| !source.equals(new SourceStamp(header.getLong(), header.getLong(), header.getLong()))) {
+				return null;
+			}
+			
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt((int)size - 4) != SnapshotWriter.MAGIC) {
+				return null; // Truncated
+			}
+			buffer.position(HEADER_SIZE);
+			return new SnapshotReader(buffer);
+		}
+	}
+	
+	/**
+	 * @throws BufferUnderflowException if the snapshot ends early
+	 */
+	public int readInt() {
+		return buffer.getInt();
+	}
+	
+	public long[] readLongs(int count) {
+		long[] values = new long[count];
+		buffer.asLongBuffer().get(values);
+		skip(count * 8L);
+		return values;
+	}
+	
+	public int[] readInts(int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		skip(count * 4L);
+		return values;
+	}
+	
+	public short[] readShorts(int count) {
+		short[] values = new short[count];
+		buffer.asShortBuffer().get(values);
+		skip(count * 2L);
+		return values;
+	}
+	
+	public byte[] readBytes(int count) {
+		byte[] values = new byte[count];
+		buffer.get(values);
+		return values;
+	}
+	
+	public double[] readDoubles(int count) {
+		double[] values = new double[count];
+		buffer.asDoubleBuffer().get(values);
+		skip(count * 8L);
+		return values;
+	}
+	
+	public boolean[] readBooleans(int count) {
+		boolean[] values = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = buffer.get() != 0;
+		}
+		return values;
+	}
+	
+	public String[] readStrings() {
+		String[] values = new String[buffer.getInt()];
+		for (int i = 0; i < values.length; i++) {
+			int length = buffer.getInt();
+			if (length >= 0) {
+				byte[] bytes = new byte[length];
+				buffer.get(bytes);
+				values[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * Checks that every value of the snapshot was read.
+	 * @return true if only the end marker is left
+	 */
+	public boolean isComplete() {
+		return buffer.remaining() == 4 && buffer.getInt(buffer.position()) == SnapshotWriter.MAGIC;
+	}
+	
+	private void skip(long bytes) {
+		if (bytes > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		buffer.position(buffer.position() + (int)bytes);
+	}
+}
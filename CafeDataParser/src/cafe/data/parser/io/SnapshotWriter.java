@@ -0,0 +1,138 @@
+package cafe.data.parser.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes a snapshot file: a header identifying the snapshot's kind and the stamp of its source file, followed by columns of primitive values.
+ * The snapshot is written to a temporary file which only replaces the snapshot once {@link #commit()} is called,
+ * so a failed or interrupted write never leaves a partial snapshot behind. Each writer has its own temporary file in the snapshot's directory,
+ * so runs writing the same snapshot at once never write into each other's file, the last one to commit replacing the snapshot.
+ * See {@link SnapshotReader} for reading it back.
+ * @author Ryan Zembrodt
+ */
+public class SnapshotWriter implements Closeable {
+	// Marks a file as a snapshot ("CAFE"), and the version of the snapshot layout.
+	static final int MAGIC = 0x43414645;
+	static final int VERSION = 1;
+	
+	private final File snapshot;
+	private final File temp;
+	private final DataOutputStream out;
+	private boolean committed;
+	
+	/**
+	 * Starts a snapshot by writing its header.
+	 * @param snapshot the snapshot file
+	 * @param kind the kind of data held by the snapshot, checked when it is read
+	 * @param source stamp of the source file the data was parsed from
+	 * @throws IOException
+	 */
+	public SnapshotWriter(File snapshot, int kind, SourceStamp source) throws IOException {
+		this.snapshot = snapshot;
+		this.temp = File.createTempFile(snapshot.getName() + ".", ".tmp", snapshot.getAbsoluteFile().getParentFile());
+		try {
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 65536));
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(kind);
+		out.writeLong(source.getSize());
+		out.writeLong(source.getLastModified());
+		out.writeLong(source.getHash());
+	}
+	
+	public void writeInt(int value) throws IOException {
+		out.writeInt(value);
+	}
+	
+	public void writeLongs(long[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeLong(values[i]);
+		}
+	}
+	
+	public void writeInts(int[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeInt(values[i]);
+		}
+	}
+	
+	public void writeShorts(short[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeShort(values[i]);
+		}
+	}
+	
+	public void writeBytes(byte[] values, int count) throws IOException {
+		out.write(values, 0, count);
+	}
+	
+	public void writeDoubles(double[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeDouble(values[i]);
+		}
+	}
+	
+	public void writeBooleans(boolean[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeByte(values[i] ? 1 : 0);
+		}
+	}
+	
+	/**
+	 * Writes a list of strings, such as the values of a dictionary. A null string is written as length -1.
+	 * @param values
+	 * @throws IOException
+	 */
+	public void writeStrings(String[] values) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			if (value == null) {
+				out.writeInt(-1);
+			} else {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+	
+	/**
+	 * Finishes the snapshot and moves it in place of any previous snapshot, atomically where the file system supports it,
+	 * so a reader sees either the previous snapshot or the whole new one.
+	 * @throws IOException
+	 */
+	public void commit() throws IOException {
+		out.writeInt(MAGIC); // Marks the end so a truncated snapshot is detected.
+		out.close();
+		try {
+			Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		committed = true;
+	}
+	
+	/**
+	 * Closes the writer, deleting the temporary file if the snapshot was not committed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!committed) {
+			out.close();
+			temp.delete();
+		}
+	}
+}
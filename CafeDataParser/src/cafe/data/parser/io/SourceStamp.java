@@ -0,0 +1,123 @@
+package cafe.data.parser.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Identifies the contents of a data file by its size, last modified time, and a CRC32 hash of sampled blocks of the file.
+ * A snapshot holds the stamp of the file it was parsed from and is only used while the file still has the same stamp.
+ * Hashing samples instead of the whole file keeps checking a stamp much faster than parsing the file;
+ * a change that keeps the size would also have to keep the modified time and miss every sample to go unnoticed.
+ * @author Ryan Zembrodt
+ */
+public class SourceStamp {
+	// Files up to SAMPLE_COUNT * SAMPLE_SIZE bytes are hashed whole.
+	private static final int SAMPLE_COUNT = 16;
+	private static final int SAMPLE_SIZE = 4096;
+	
+	private final long size;
+	private final long lastModified;
+	private final long hash;
+	
+	public SourceStamp(long size, long lastModified, long hash) {
+		this.size = size;
+		this.lastModified = lastModified;
+		this.hash = hash;
+	}
+	
+	/**
+	 * Builds the stamp of a file's current contents.
+	 * @param file
+	 * @return the file's stamp
+	 * @throws FileNotFoundException if the file does not exist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SourceStamp of(File file) throws IOException {
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath() + " (No such file)");
+		}
+		long lastModified = file.lastModified();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			CRC32 crc = new CRC32();
+			ByteBuffer block = ByteBuffer.allocate(SAMPLE_SIZE);
+			if (size <= (long)SAMPLE_COUNT * SAMPLE_SIZE) {
+				for (long offset = 0; offset < size; offset += SAMPLE_SIZE) {
+					update(crc, channel, block, offset);
+				}
+			} else {
+				// Evenly spaced blocks, including the first and last block of the file.
+				for (int i = 0; i < SAMPLE_COUNT; i++) {
+					update(crc, channel, block, (size - SAMPLE_SIZE) * i / (SAMPLE_COUNT - 1));
+				}
+			}
+			return new SourceStamp(size, lastModified, crc.getValue());
+		}
+	}
+	
+	/**
+	 * Adds the block of the file starting at offset to the hash.
+	 */
+	private static void update(CRC32 crc, FileChannel channel, ByteBuffer block, long offset) throws IOException {
+		block.clear();
+		while (block.hasRemaining()) {
+			int read = channel.read(block, offset + block.position());
+			if (read < 0) {
+				break;
+			}
+		}
+		block.flip();
+		crc.update(block.array(), 0, block.limit());
+	}
+	
+	public long getSize() {
+		return size;
+	}
+	
+	public long getLastModified() {
+		return lastModified;
+	}
+	
+	public long getHash() {
+		return hash;
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int)(size ^ (size >>> 32));
+		result = prime * result + (int)(lastModified ^ (lastModified >>> 32));
+		result = prime * result + (int)(hash ^ (hash >>> 32));
+		return result;
+	}
+	
+	/**
+	 * Checks if two stamps have the same size, last modified time, and hash.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (!SourceStamp.class.isAssignableFrom(obj.getClass())) {
+			return false;
+		}
+		final SourceStamp s = (SourceStamp)obj;
+		
+		return this.size == s.size && this.lastModified == s.lastModified && this.hash == s.hash;
+	}
+	
+	@Override
+	public String toString() {
+		return "SourceStamp(" + size + "," + lastModified + "," + Long.toHexString(hash) + ")";
+	}
+}
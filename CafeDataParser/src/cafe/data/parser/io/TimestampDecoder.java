@@ -0,0 +1,229 @@
+package cafe.data.parser.io;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import cafe.data.parser.wrapper.Globals;
+
+/**
+ * Decodes the datetime fields of the data files into the number of seconds since 1970-01-01T00:00 (the datetime is treated as UTC).
+ * The fixed layouts used by the data files ('yyyy-MM-dd HH:mm:ss' and 'MM/dd/yyyy hh:mm:ss a', see {@link Globals}) are read digit by digit
+ * without creating any objects. Values that do not match the layout, and any other pattern, are parsed with a {@link DateTimeFormatter}.
+ * {@link #tryDecode(byte[], int, int)} returns {@link #INVALID} for a value that cannot be parsed, so a loader can skip the row
+ * of a malformed datetime instead of failing the whole file. Safe to use from several threads.
+ * @author Ryan Zembrodt
+ */
+public class TimestampDecoder {
+	// Seconds in a day, shared by every class that works on datetimes as seconds since the epoch.
+	public static final int SECONDS_PER_DAY = 86400;
+	// Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar.
+	static final long DAYS_0000_TO_1970 = 719468L;
+	
+	// Returned by tryDecode for a value that is not a valid datetime.
+	public static final long INVALID = Long.MIN_VALUE;
+	
+	// Supported fixed layouts.
+	private static final int LAYOUT_NONE = 0;
+	private static final int LAYOUT_ISO = 1; // yyyy-MM-dd HH:mm:ss
+	private static final int LAYOUT_US = 2; // MM/dd/yyyy hh:mm:ss a
+	
+	private final DateTimeFormatter formatter;
+	private final int layout;
+	
+	/**
+	 * Builds a decoder for the passed pattern. The fast path is used if the pattern is one of the fixed layouts of the data files.
+	 * @param pattern a {@link DateTimeFormatter} pattern
+	 */
+	public TimestampDecoder(String pattern) {
+		this.formatter = DateTimeFormatter.ofPattern(pattern);
+		if (pattern.equals("yyyy-MM-dd HH:mm:ss")) {
+			this.layout = LAYOUT_ISO;
+		} else if (pattern.equals("MM/dd/yyyy hh:mm:ss a")) {
+			this.layout = LAYOUT_US;
+		} else {
+			this.layout = LAYOUT_NONE;
+		}
+	}
+	
+	/**
+	 * Decodes the datetime held in the bytes between start and end.
+	 * @param buffer
+	 * @param start
+	 * @param end
+	 * @return the datetime in seconds since the epoch
+	 * @throws java.time.format.DateTimeParseException if the value does not match the pattern
+	 */
+	public long decode(byte[] buffer, int start, int end) {
+		long epochSecond = decodeLayout(buffer, start, end);
+		if (epochSecond == Long.MIN_VALUE) {
+			String value = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+			epochSecond = toEpochSecond(LocalDateTime.parse(value, formatter));
+		}
+		return epochSecond;
+	}
+	
+	/**
+	 * Decodes the datetime held in the bytes between start and end, as {@link #decode(byte[], int, int)}, without throwing for an invalid value.
+	 * @param buffer
+	 * @param start
+	 * @param end
+	 * @return the datetime in seconds since the epoch, or {@link #INVALID} if the value does not match the pattern
+	 */
+	public long tryDecode(byte[] buffer, int start, int end) {
+		long epochSecond = decodeLayout(buffer, start, end);
+		if (epochSecond == Long.MIN_VALUE) {
+			try {
+				String value = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+				epochSecond = toEpochSecond(LocalDateTime.parse(value, formatter));
+			} catch (DateTimeParseException e) {
+				return INVALID;
+			}
+		}
+		return epochSecond;
+	}
+	
+	/**
+	 * Reads the value with the fixed layout of the pattern.
+	 * @return the seconds since the epoch, or Long.MIN_VALUE if the pattern has no fixed layout or the value does not match it
+	 */
+	private long decodeLayout(byte[] buffer, int start, int end) {
+		switch (layout) {
+		case LAYOUT_ISO:
+			return decodeIso(buffer, start, end);
+		case LAYOUT_US:
+			return decodeUs(buffer, start, end);
+		default:
+			return Long.MIN_VALUE;
+		}
+	}
+	
+	/**
+	 * Decodes the datetime held in a string.
+	 * @param value
+	 * @return the datetime in seconds since the epoch
+	 */
+	public long decode(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return decode(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Reads 'yyyy-MM-dd HH:mm:ss'.
+	 * @return the seconds since the epoch, or Long.MIN_VALUE if the value does not match the layout
+	 */
+	private static long decodeIso(byte[] b, int s, int end) {
+		if (end - s != 19 || b[s+4] != '-' || b[s+7] != '-' || b[s+10] != ' ' || b[s+13] != ':' || b[s+16] != ':') {
+			return Long.MIN_VALUE;
+		}
+		int year = digits(b, s, 4);
+		int month = digits(b, s + 5, 2);
+		int day = digits(b, s + 8, 2);
+		int hour = digits(b, s + 11, 2);
+		int minute = digits(b, s + 14, 2);
+		int second = digits(b, s + 17, 2);
+		if (hour > 23) {
+			return Long.MIN_VALUE;
+		}
+		return toEpochSecond(year, month, day, hour, minute, second);
+	}
+	
+	/**
+	 * Reads 'MM/dd/yyyy hh:mm:ss a' where the am/pm marker is 'AM' or 'PM'.
+	 * @return the seconds since the epoch, or Long.MIN_VALUE if the value does not match the layout
+	 */
+	private static long decodeUs(byte[] b, int s, int end) {
+		if (end - s != 22 || b[s+2] != '/' || b[s+5] != '/' || b[s+10] != ' ' || b[s+13] != ':' || b[s+16] != ':'
+				|| b[s+19] != ' ' || b[s+21] != 'M' || (b[s+20] != 'A' && b[s+20] != 'P')) {
+			return Long.MIN_VALUE;
+		}
+		int month = digits(b, s, 2);
+		int day = digits(b, s + 3, 2);
+		int year = digits(b, s + 6, 4);
+		int hour = digits(b, s + 11, 2);
+		int minute = digits(b, s + 14, 2);
+		int second = digits(b, s + 17, 2);
+		if (hour < 1 || hour > 12) {
+			return Long.MIN_VALUE;
+		}
+		// 12 AM is midnight and 12 PM is noon.
+		hour %= 12;
+		if (b[s+20] == 'P') {
+			hour += 12;
+		}
+		return toEpochSecond(year, month, day, hour, minute, second);
+	}
+	
+	/**
+	 * @return the value of count digits starting at offset, or a large negative number if any byte is not a digit
+	 */
+	private static int digits(byte[] b, int offset, int count) {
+		int value = 0;
+		for (int i = offset; i < offset + count; i++) {
+			int digit = b[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return Integer.MIN_VALUE / 2;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
+	/**
+	 * Converts the datetime fields to seconds since the epoch. Only dates that exist are accepted so the formatter
+	 * handles any value it would adjust or reject.
+	 * @return the seconds since the epoch, or Long.MIN_VALUE if a field is out of range
+	 */
+	private static long toEpochSecond(int year, int month, int day, int hour, int minute, int second) {
+		if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+				|| hour < 0 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return Long.MIN_VALUE;
+		}
+		return toEpochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+	}
+	
+	private static int lengthOfMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+			return leap ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+	
+	/**
+	 * Days since 1970-01-01 of a date in the proleptic Gregorian calendar, counting years from March so leap days fall at the end.
+	 */
+	private static long toEpochDay(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+	}
+	
+	/**
+	 * @param epochSecond seconds since the epoch
+	 * @return the LocalDateTime of the passed seconds
+	 */
+	public static LocalDateTime toLocalDateTime(long epochSecond) {
+		return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+	}
+	
+	/**
+	 * @param datetime
+	 * @return the seconds since the epoch of the passed LocalDateTime, ignoring any fraction of a second
+	 */
+	public static long toEpochSecond(LocalDateTime datetime) {
+		return datetime.toEpochSecond(ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,116 @@
+package cafe.data.parser.io.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.wrapper.Dictionary;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link CsvSink}
+ * @author Ryan Zembrodt
+ */
+public class CsvSinkTest extends TestCase {
+	
+	private static final String NEWLINE = System.lineSeparator();
+	
+	private ByteArrayOutputStream bytes;
+	private CsvSink sink;
+	
+	@Override
+	protected void setUp() {
+		bytes = new ByteArrayOutputStream();
+		sink = new CsvSink(bytes, 64);
+	}
+	
+	private String written() throws IOException {
+		sink.close();
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Checks that fields are separated by commas and rows by the line separator, and that the rows and bytes are counted.
+	 */
+	@Test
+	public void testRows() throws IOException {
+		sink.writeLine("A,B,C");
+		sink.append(1).append(-25L).append(true).endRow();
+		sink.append("x").append((String)null).append(Integer.MIN_VALUE).endRow();
+		sink.write("raw");
+		String expected = "A,B,C" + NEWLINE + "1,-25,true" + NEWLINE + "x,null," + Integer.MIN_VALUE + NEWLINE + "raw";
+		assertEquals(2, sink.getRowCount());
+		assertEquals(expected.length(), sink.getByteCount());
+		assertEquals(expected, written());
+	}
+	
+	/**
+	 * Checks that doubles are written as Double.toString writes them.
+	 */
+	@Test
+	public void testDoubles() throws IOException {
+		StringBuilder expected = new StringBuilder();
+		double[] values = { 0.0, -0.0, 1.0, -1.5, 0.1, 0.001, 0.0009, 9999999.0, 10000000.0, 72.3, 33.333333333333336,
+				Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, 1e-5 };
+		for (double value : values) {
+			sink.append(value).endRow();
+			expected.append(Double.toString(value)).append(NEWLINE);
+		}
+		Random random = new Random(13);
+		for (int i = 0; i < 20000; i++) {
+			// Values with a few decimals, like the data files hold, and arbitrary values.
+			double value = i % 2 == 0 ? (random.nextInt(2000000) - 1000000) / Math.pow(10, random.nextInt(4)) : random.nextGaussian() * 1000;
+			sink.append(value).endRow();
+			expected.append(Double.toString(value)).append(NEWLINE);
+		}
+		assertEquals(expected.toString(), written());
+	}
+	
+	/**
+	 * Checks that datetimes, dates and days of week are written as LocalDateTime writes them.
+	 */
+	@Test
+	public void testDates() throws IOException {
+		StringBuilder expected = new StringBuilder();
+		long[] seconds = { 0L, -1L, 1457029800L, 1457029845L, 951782400L, 253402300799L, -62167219200L };
+		Random random = new Random(13);
+		for (int i = 0; i < 7 + 5000; i++) {
+			long epochSecond = i < 7 ? seconds[i] : random.nextInt() * 2L;
+			if (i % 3 == 0) {
+				epochSecond -= epochSecond % 60;
+			}
+			LocalDateTime datetime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+			sink.appendDateTime(epochSecond).appendDate(epochSecond).appendDayOfWeek(epochSecond).endRow();
+			expected.append(datetime).append(',').append(datetime.toLocalDate()).append(',').append(datetime.getDayOfWeek()).append(NEWLINE);
+		}
+		// Years without 4 digits.
+		long[] outside = { -62167219201L, 253402300800L };
+		for (long epochSecond : outside) {
+			LocalDateTime datetime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+			sink.appendDateTime(epochSecond).endRow();
+			expected.append(datetime).append(NEWLINE);
+		}
+		assertEquals(expected.toString(), written());
+	}
+	
+	/**
+	 * Checks that dictionary codes are written as their values and that text longer than the buffer is written whole.
+	 */
+	@Test
+	public void testCodesAndLongText() throws IOException {
+		Dictionary dictionary = new Dictionary("Test");
+		int code = dictionary.encode("Hot");
+		StringBuilder longText = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			longText.append(i % 2 == 0 ? "\u00e9" : "a");
+		}
+		sink.appendCode(dictionary, code).appendCode(dictionary, Dictionary.NULL_CODE).append(longText.toString()).endRow();
+		assertEquals("Hot,null," + longText + NEWLINE, written());
+	}
+}
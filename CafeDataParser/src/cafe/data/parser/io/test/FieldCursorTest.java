@@ -0,0 +1,219 @@
+package cafe.data.parser.io.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cafe.data.parser.io.FieldCursor;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Dictionary;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link FieldCursor}
+ * @author Ryan Zembrodt
+ */
+public class FieldCursorTest extends TestCase {
+	
+	private static FieldCursor cursor(String data, int bufferSize) {
+		return new FieldCursor(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), bufferSize);
+	}
+	
+	/**
+	 * Checks that lines are split on every line terminator handled by BufferedReader.readLine, including when the buffer has to be refilled or grown mid line.
+	 */
+	@Test
+	public void testNextLine() throws IOException {
+		// A buffer smaller than the lines forces refills, growth, and a "\r\n" split across reads.
+		FieldCursor cursor = cursor("first,line\r\nsecond\rthird\n\nlast line without terminator", 16);
+		
+		assertTrue(cursor.nextLine());
+		assertEquals("first", cursor.stringAt(0));
+		assertEquals("line", cursor.stringAt(1));
+		assertTrue(cursor.nextLine());
+		assertEquals("second", cursor.stringAt(0));
+		assertTrue(cursor.nextLine());
+		assertEquals("third", cursor.stringAt(0));
+		assertTrue(cursor.nextLine());
+		assertTrue(cursor.isEmpty());
+		assertTrue(cursor.nextLine());
+		assertEquals(5, cursor.getLineNumber());
+		assertEquals("last line without terminator", cursor.stringAt(0));
+		assertFalse(cursor.nextLine());
+		cursor.close();
+	}
+	
+	/**
+	 * Checks that the field count matches String.split, which does not count trailing empty fields.
+	 */
+	@Test
+	public void testFieldCount() throws IOException {
+		String[] lines = { "a,b,c", "a,,c", "a,b,,", ",a", ",,," };
+		StringBuilder data = new StringBuilder();
+		for (String line : lines) {
+			data.append(line).append('\n');
+		}
+		FieldCursor cursor = cursor(data.toString(), 64);
+		for (String line : lines) {
+			assertTrue(cursor.nextLine());
+			assertEquals(line.split(",").length, cursor.getFieldCount());
+		}
+		cursor.close();
+	}
+	
+	/**
+	 * Checks the values of the typed field methods, both in order and by column.
+	 */
+	@Test
+	public void testTypedFields() throws IOException {
+		FieldCursor cursor = cursor("-42,  ,3.25,-0.5,TRUE,false,2016-08-28 09:15:21,Food", 64);
+		assertTrue(cursor.nextLine());
+		
+		assertEquals(-42, cursor.nextInt());
+		assertEquals(0, cursor.nextInt());
+		assertEquals(3.25, cursor.nextDouble());
+		assertEquals(-0.5, cursor.nextDouble());
+		assertTrue(cursor.nextBoolean());
+		assertFalse(cursor.nextBoolean());
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 15, 21), cursor.nextTimestamp(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+		assertEquals("Food", cursor.nextString());
+		
+		cursor.seek(1);
+		assertEquals(0.0, cursor.nextDouble());
+		assertEquals(-42.0, cursor.doubleAt(0));
+		assertTrue(cursor.fieldEquals(7, "Food"));
+		assertFalse(cursor.fieldEquals(7, "Drink"));
+		cursor.close();
+	}
+	
+	/**
+	 * Checks that doubles parsed from the buffer are identical to Double.parseDouble for values with a varying number of digits.
+	 */
+	@Test
+	public void testDoubleMatchesParseDouble() throws IOException {
+		Random random = new Random(42);
+		StringBuilder data = new StringBuilder();
+		String[] values = new String[2000];
+		for (int i = 0; i < values.length; i++) {
+			double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+			values[i] = String.format("%." + random.nextInt(10) + "f", value);
+			data.append(values[i]).append('\n');
+		}
+		values[0] = "123456789012345678.5"; // Too many digits for the fast path
+		data.replace(0, data.indexOf("\n"), values[0]);
+		
+		FieldCursor cursor = cursor(data.toString(), 1024);
+		for (String value : values) {
+			assertTrue(cursor.nextLine());
+			assertEquals(Double.parseDouble(value), cursor.doubleAt(0));
+		}
+		cursor.close();
+	}
+	
+	/**
+	 * Checks that fields are encoded with the same codes as their string values, and that a full dictionary does not fail the parse.
+	 */
+	@Test
+	public void testCodeAt() throws IOException {
+		Dictionary dictionary = new Dictionary("Test");
+		int drink = dictionary.encode("Drink");
+		FieldCursor cursor = cursor("Food,Drink,Food,Snack", 64);
+		assertTrue(cursor.nextLine());
+		
+		int food = cursor.codeAt(0, dictionary);
+		assertEquals(drink, cursor.codeAt(1, dictionary));
+		assertEquals(food, cursor.codeAt(2, dictionary));
+		assertEquals("Food", dictionary.decode(food));
+		assertEquals(dictionary.encode("Snack"), cursor.codeAt(3, dictionary));
+		assertEquals(3, dictionary.size());
+		cursor.close();
+		
+		// A new value of a full dictionary is reported and read as the null code.
+		for (int i = dictionary.size(); i < Dictionary.MAX_SIZE; i++) {
+			dictionary.encode("value" + i);
+		}
+		cursor = cursor("Food,Soup", 64);
+		assertTrue(cursor.nextLine());
+		assertEquals(food, cursor.codeAt(0, dictionary));
+		assertEquals(Dictionary.NULL_CODE, cursor.codeAt(1, dictionary));
+		assertEquals(1, cursor.getErrors().getValueCount());
+		assertEquals("Soup", cursor.getErrors().getValueSamples().get(0).getValue());
+		cursor.close();
+	}
+	
+	/**
+	 * Checks that values that cannot be parsed are read as 0 or false and counted with their line and column, without throwing.
+	 */
+	@Test
+	public void testInvalidValues() throws IOException {
+		FieldCursor cursor = cursor("1,2.5,TRUE\n12345678901,abc,maybe\n 7 ,1e2,false\n", 64);
+		ParseErrors errors = new ParseErrors();
+		cursor.setErrors(errors);
+		
+		assertTrue(cursor.nextLine());
+		assertEquals(1, cursor.intAt(0));
+		assertEquals(2.5, cursor.doubleAt(1));
+		assertTrue(cursor.booleanAt(2));
+		assertTrue(errors.isEmpty());
+		
+		assertTrue(cursor.nextLine());
+		assertEquals(0, cursor.intAt(0));
+		assertEquals(0.0, cursor.doubleAt(1));
+		assertFalse(cursor.booleanAt(2));
+		cursor.reportInvalidLine();
+		
+		assertTrue(cursor.nextLine());
+		assertEquals(7, cursor.intAt(0));
+		assertEquals(100.0, cursor.doubleAt(1));
+		assertFalse(cursor.booleanAt(2));
+		
+		assertEquals(1, errors.getLineCount());
+		assertEquals(3, errors.getValueCount());
+		assertEquals(1, errors.getValueCount(1));
+		assertEquals(2, errors.getValueSamples().get(0).getLine());
+		assertEquals("12345678901", errors.getValueSamples().get(0).getValue());
+		assertEquals("abc", errors.getValueSamples().get(1).getValue());
+		assertEquals("maybe", errors.getValueSamples().get(2).getValue());
+		cursor.close();
+	}
+	
+	/**
+	 * Checks that a cursor reads the remaining bytes of a buffer, a direct buffer as a memory-mapped region and an array backed buffer in place.
+	 */
+	@Test
+	public void testByteBuffer() throws IOException {
+		byte[] data = "skipped\n7,2.5,true,Caf\u00e9\r\nx,2016-08-28 09:15:21,Food\nlast".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+		direct.put(data).position(8);
+		ByteBuffer array = ByteBuffer.wrap(new byte[data.length + 4], 2, data.length).slice();
+		array.put(data).position(8);
+		TimestampDecoder decoder = new TimestampDecoder("yyyy-MM-dd HH:mm:ss");
+		
+		for (ByteBuffer source : new ByteBuffer[] { direct, array }) {
+			FieldCursor cursor = new FieldCursor(source);
+			assertTrue(cursor.nextLine());
+			assertEquals(7, cursor.nextInt());
+			assertEquals(2.5, cursor.nextDouble());
+			assertTrue(cursor.nextBoolean());
+			assertEquals("Caf\u00e9", cursor.nextString());
+			assertTrue(cursor.nextLine());
+			assertEquals(0, cursor.intAt(0));
+			assertEquals(1, cursor.getErrors().getValueCount());
+			assertEquals(decoder.decode("2016-08-28 09:15:21"), cursor.epochSecondAt(1, decoder));
+			assertTrue(cursor.fieldEquals(2, "Food"));
+			assertTrue(cursor.nextLine());
+			assertEquals("last", cursor.stringAt(0));
+			assertFalse(cursor.nextLine());
+			assertEquals(3, cursor.getLineNumber());
+			assertFalse(source.hasRemaining());
+			cursor.close();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package cafe.data.parser.io.test;
+
+import org.junit.Test;
+
+import cafe.data.parser.io.NumberParser;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link NumberParser}
+ * @author Ryan Zembrodt
+ */
+public class NumberParserTest extends TestCase {
+	
+	private final NumberParser parser = new NumberParser();
+	
+	private int parseInt(String s) {
+		return parser.parseInt(s, 0, s.length());
+	}
+	
+	private double parseDouble(String s) {
+		return parser.parseDouble(s, 0, s.length());
+	}
+	
+	private boolean parseBoolean(String s) {
+		return parser.parseBoolean(s, 0, s.length());
+	}
+	
+	/**
+	 * Checks that valid integers match Integer.parseInt, including the limits, and that invalid or overflowing values are flagged.
+	 */
+	@Test
+	public void testParseInt() {
+		String[] valid = { "0", "9", "-9", "+42", "007", "2147483647", "-2147483648", "1234567890" };
+		for (String s : valid) {
+			assertEquals(s, Integer.parseInt(s), parseInt(s));
+			assertTrue(s, parser.isValid());
+		}
+		assertEquals(12, parseInt(" 12\t"));
+		assertTrue(parser.isValid());
+		assertEquals(0, parseInt("  "));
+		assertTrue(parser.isValid());
+		
+		String[] invalid = { "2147483648", "-2147483649", "99999999999", "-", "+", "1.5", "12a", "a12", "1 2", "--1" };
+		for (String s : invalid) {
+			assertEquals(s, 0, parseInt(s));
+			assertFalse(s, parser.isValid());
+		}
+		
+		// A range inside a longer sequence
+		assertEquals(34, parser.parseInt("12,34,56", 3, 5));
+	}
+	
+	/**
+	 * Checks that valid doubles match Double.parseDouble and that invalid values are flagged.
+	 */
+	@Test
+	public void testParseDouble() {
+		String[] valid = { "0", "-0", "9.9", "-49.64", "+.5", "5.", "1e3", "1.5E-7", "-2.5e+10", "3.0f", "7D", "NaN", "-Infinity",
+				"0.1234567890123456789", "12345678901234567890", "1.7976931348623157E308", "4.9e-324" };
+		for (String s : valid) {
+			assertEquals(s, Double.parseDouble(s), parseDouble(s));
+			assertTrue(s, parser.isValid());
+		}
+		assertEquals(2.5, parseDouble(" 2.5 "));
+		assertTrue(parser.isValid());
+		assertEquals(0.0, parseDouble(""));
+		assertTrue(parser.isValid());
+		
+		String[] invalid = { ".", "-", "1.2.3", "1e", "1e+", "e5", "abc", "1,5", "0x1p3", "nan", "Inf", "1.5ff", "- 1" };
+		for (String s : invalid) {
+			assertEquals(s, 0.0, parseDouble(s));
+			assertFalse(s, parser.isValid());
+		}
+	}
+	
+	/**
+	 * Checks that only 'true' and 'false' ignoring case are valid booleans.
+	 */
+	@Test
+	public void testParseBoolean() {
+		assertTrue(parseBoolean("TRUE"));
+		assertTrue(parseBoolean(" true "));
+		assertTrue(parser.isValid());
+		assertFalse(parseBoolean("False"));
+		assertTrue(parser.isValid());
+		assertFalse(parseBoolean(""));
+		assertTrue(parser.isValid());
+		assertFalse(parseBoolean("yes"));
+		assertFalse(parser.isValid());
+		assertFalse(parseBoolean("truth"));
+		assertFalse(parser.isValid());
+	}
+}
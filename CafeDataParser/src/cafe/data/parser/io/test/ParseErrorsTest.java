@@ -0,0 +1,58 @@
+package cafe.data.parser.io.test;
+
+import org.junit.Test;
+
+import cafe.data.parser.io.ParseErrors;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link ParseErrors}
+ * @author Ryan Zembrodt
+ */
+public class ParseErrorsTest extends TestCase {
+	
+	/**
+	 * Checks that every error is counted per column while only the first ones are kept as samples.
+	 */
+	@Test
+	public void testReport() {
+		ParseErrors errors = new ParseErrors();
+		assertTrue(errors.isEmpty());
+		
+		errors.reportLine(3);
+		for (int i = 0; i < 1000; i++) {
+			errors.reportValue(i % 2 == 0 ? 4 : 13, 10 + i, "bad" + i);
+		}
+		assertFalse(errors.isEmpty());
+		assertEquals(1, errors.getLineCount());
+		assertEquals(1000, errors.getValueCount());
+		assertEquals(500, errors.getValueCount(4));
+		assertEquals(500, errors.getValueCount(13));
+		assertEquals(0, errors.getValueCount(99));
+		assertEquals(ParseErrors.MAX_SAMPLES, errors.getValueSamples().size());
+		assertEquals(11, errors.getValueSamples().get(1).getLine());
+		assertEquals(13, errors.getValueSamples().get(1).getColumn());
+		assertEquals("bad1", errors.getValueSamples().get(1).getValue());
+		assertTrue(errors.toString().startsWith("1 invalid line (3), 1000 invalid values (column 4: 500, column 13: 500) such as line 10 column 4 'bad0'"));
+		assertTrue(errors.toString().endsWith(", ..."));
+	}
+	
+	/**
+	 * Checks that adding the errors of another sink offsets its line numbers.
+	 */
+	@Test
+	public void testAddAll() {
+		ParseErrors first = new ParseErrors();
+		first.reportLine(2);
+		ParseErrors second = new ParseErrors();
+		second.reportLine(5);
+		second.reportValue(1, 7, "x");
+		
+		first.addAll(second, 100);
+		assertEquals(2, first.getLineCount());
+		assertEquals(Integer.valueOf(105), first.getLineSamples().get(1));
+		assertEquals(1, first.getValueCount(1));
+		assertEquals(107, first.getValueSamples().get(0).getLine());
+		assertEquals("2 invalid lines (2, 105), 1 invalid value (column 1: 1) such as line 107 column 1 'x'", first.toString());
+	}
+}
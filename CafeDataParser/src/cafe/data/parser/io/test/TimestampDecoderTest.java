@@ -0,0 +1,72 @@
+package cafe.data.parser.io.test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Globals;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link TimestampDecoder}
+ * @author Ryan Zembrodt
+ */
+public class TimestampDecoderTest extends TestCase {
+	
+	/**
+	 * Checks that both fixed layouts decode random datetimes to the same value as LocalDateTime.parse.
+	 */
+	@Test
+	public void testMatchesFormatter() {
+		Random random = new Random(42);
+		String[] patterns = { Globals.POS_DATE_FORMAT, Globals.WEATHER_DATE_FORMAT };
+		for (String pattern : patterns) {
+			DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+			TimestampDecoder decoder = new TimestampDecoder(pattern);
+			for (int i = 0; i < 5000; i++) {
+				LocalDateTime expected = LocalDateTime.of(1900 + random.nextInt(200), 1, 1, 0, 0)
+						.plusSeconds((long)(random.nextDouble() * 366 * 86400));
+				String value = expected.format(formatter);
+				assertEquals(value, expected, TimestampDecoder.toLocalDateTime(decoder.decode(value)));
+			}
+		}
+	}
+	
+	/**
+	 * Checks midnight and noon of the 12 hour layout and a leap day.
+	 */
+	@Test
+	public void testHalfDayAndLeapDay() {
+		TimestampDecoder decoder = new TimestampDecoder("MM/dd/yyyy hh:mm:ss a");
+		assertEquals(LocalDateTime.of(2016, 8, 22, 0, 5, 0), TimestampDecoder.toLocalDateTime(decoder.decode("08/22/2016 12:05:00 AM")));
+		assertEquals(LocalDateTime.of(2016, 8, 22, 12, 5, 0), TimestampDecoder.toLocalDateTime(decoder.decode("08/22/2016 12:05:00 PM")));
+		assertEquals(LocalDateTime.of(2016, 2, 29, 23, 59, 59), TimestampDecoder.toLocalDateTime(decoder.decode("02/29/2016 11:59:59 PM")));
+	}
+	
+	/**
+	 * Checks that values outside the fixed layout are left to the formatter, which accepts or rejects them.
+	 */
+	@Test
+	public void testFallback() {
+		TimestampDecoder decoder = new TimestampDecoder("yyyy-MM-dd HH:mm:ss");
+		// The formatter's resolver moves a day past the end of the month back to the last day.
+		assertEquals(LocalDateTime.parse("2016-02-30 10:00:00", DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+				TimestampDecoder.toLocalDateTime(decoder.decode("2016-02-30 10:00:00")));
+		try {
+			decoder.decode("2016-08-22 10:00");
+			fail("Expected a DateTimeParseException");
+		} catch (DateTimeParseException e) {
+		}
+		byte[] invalid = "2016-08-22 xx:31:50".getBytes();
+		assertEquals(TimestampDecoder.INVALID, decoder.tryDecode(invalid, 0, invalid.length));
+		byte[] valid = "2016-08-22 10:31:50".getBytes();
+		assertEquals(decoder.decode("2016-08-22 10:31:50"), decoder.tryDecode(valid, 0, valid.length));
+		
+		TimestampDecoder other = new TimestampDecoder("yyyy/MM/dd HH:mm");
+		assertEquals(LocalDateTime.of(2016, 8, 22, 10, 30), TimestampDecoder.toLocalDateTime(other.decode("2016/08/22 10:30")));
+	}
+}
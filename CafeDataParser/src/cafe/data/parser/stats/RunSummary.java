@@ -0,0 +1,103 @@
+package cafe.data.parser.stats;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the stages of a run so they can be printed as a single table once the run is over,
+ * showing where a slow run spent its time without attaching a profiler. Stages are kept in the order they started,
+ * and only the stages that have ended are listed.
+ * Safe to use from several threads.
+ * @author Ryan Zembrodt
+ */
+public class RunSummary {
+	private static final double MEGABYTE = 1024.0 * 1024.0;
+	private static final List<Stage> STAGES = new ArrayList<Stage>();
+	
+	static void add(Stage stage) {
+		synchronized (STAGES) {
+			STAGES.add(stage);
+		}
+	}
+	
+	/**
+	 * @return a copy of the stages ended so far, in the order they started
+	 */
+	public static List<Stage> getStages() {
+		List<Stage> ended = new ArrayList<Stage>();
+		synchronized (STAGES) {
+			for (Stage stage : STAGES) {
+				if (stage.isEnded()) {
+					ended.add(stage);
+				}
+			}
+		}
+		return ended;
+	}
+	
+	/**
+	 * Forgets the stages started so far.
+	 */
+	public static void clear() {
+		synchronized (STAGES) {
+			STAGES.clear();
+		}
+	}
+	
+	/**
+	 * Prints a line per stage ended so far, in the order they started. Nested stages are indented right under the stage they ran in,
+	 * even when stages of other threads started in between.
+	 * @param out
+	 */
+	public static void print(PrintStream out) {
+		List<Stage> stages = getStages();
+		if (stages.isEmpty()) {
+			return;
+		}
+		out.println(String.format("%-34s %8s %10s %10s %9s %9s %8s %9s %4s %6s",
+				"Stage", "Millis", "Rows", "Rows/s", "Read MB", "Write MB", "Invalid", "Alloc MB", "GCs", "GC ms"));
+		for (Stage stage : stages) {
+			if (stage.getParent() == null || !stages.contains(stage.getParent())) {
+				print(out, stage, stages);
+			}
+		}
+	}
+	
+	/**
+	 * Prints the line of a stage followed by the lines of the stages nested in it.
+	 */
+	private static void print(PrintStream out, Stage stage, List<Stage> stages) {
+		out.println(String.format("%-34s %8d %10d %10.0f %9.1f %9.1f %8d %9.1f %4d %6d",
+				label(stage),
+				stage.getElapsedNanos() / 1000000L,
+				stage.getRows(),
+				stage.getRowsPerSecond(),
+				stage.getBytesRead() / MEGABYTE,
+				stage.getBytesWritten() / MEGABYTE,
+				stage.getInvalidLines() + stage.getInvalidValues(),
+				stage.getAllocatedBytes() / MEGABYTE,
+				stage.getGcCount(),
+				stage.getGcMillis()));
+		for (Stage child : stages) {
+			if (child.getParent() == stage) {
+				print(out, child, stages);
+			}
+		}
+	}
+	
+	/**
+	 * @return the name and file of a stage, indented by its depth
+	 */
+	private static String label(Stage stage) {
+		StringBuilder sb = new StringBuilder();
+		for (Stage parent = stage.getParent(); parent != null; parent = parent.getParent()) {
+			sb.append("  ");
+		}
+		sb.append(stage.getName());
+		if (stage.getFile() != null) {
+			sb.append(' ').append(stage.getFile());
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,283 @@
+package cafe.data.parser.stats;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.io.ParseErrors;
+
+/**
+ * Measures a stage of a run, such as parsing a data file, sorting, assembling the customers, or building an output file.
+ * A stage is started with {@link #start(String, String)} and ended with {@link #end()} on the same thread, in a finally block.
+ * While it runs it is the current stage of its thread, so the code it calls can add to it without being passed the stage:
+ * the parsers add the bytes they read and their invalid lines and values, and the output files add the rows and bytes they write.
+ * <p>
+ * A stage records its time, the bytes allocated by its thread (and by the worker threads adding theirs with {@link #addAllocatedBytes(long)}),
+ * and the garbage collections that happened while it ran. The collections are counted for the whole JVM, so stages running at the same time
+ * all count the same pauses. A stage started while another is current on its thread is nested in it, and the outer stage's figures include it.
+ * <p>
+ * A stage is added to the {@link RunSummary} when it starts, and commits a {@link StageEvent} to the flight recorder when it ends.
+ * Only its own thread may change a stage, apart from {@link #addAllocatedBytes(long)} which is safe to call from any thread.
+ * @author Ryan Zembrodt
+ */
+public class Stage {
+	private static final ThreadLocal<Stage> CURRENT = new ThreadLocal<Stage>();
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	
+	private final String name;
+	private final String file;
+	private final Stage parent;
+	private final StageEvent event;
+	
+	private final long startNanos;
+	private final long startAllocatedBytes;
+	private final long startGcCount;
+	private final long startGcMillis;
+	
+	private long elapsedNanos;
+	private long rows;
+	private long bytesRead;
+	private long bytesWritten;
+	private long invalidLines;
+	private long invalidValues;
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	private long gcCount;
+	private long gcMillis;
+	private volatile boolean ended; // Read by the RunSummary from other threads
+	
+	private Stage(String name, String file, Stage parent) {
+		this.name = name;
+		this.file = file;
+		this.parent = parent;
+		this.startGcCount = gcCount();
+		this.startGcMillis = gcMillis();
+		this.startAllocatedBytes = threadAllocatedBytes();
+		this.startNanos = System.nanoTime();
+		this.event = StageEvent.start();
+	}
+	
+	/**
+	 * Starts a stage on the current thread, making it the current stage of the thread.
+	 * @param name the name of the stage, such as "parse"
+	 * @param file the file the stage reads or writes, or null
+	 * @return the started stage, to be ended in a finally block
+	 */
+	public static Stage start(String name, String file) {
+		Stage stage = new Stage(name, file, CURRENT.get());
+		CURRENT.set(stage);
+		RunSummary.add(stage);
+		return stage;
+	}
+	
+	/**
+	 * @return the stage running on the current thread, or null if there is none
+	 */
+	public static Stage current() {
+		return CURRENT.get();
+	}
+	
+	/**
+	 * Ends the stage, committing its event. Its parent becomes the current stage of the thread again.
+	 * Ending a stage twice has no effect.
+	 */
+	public void end() {
+		if (ended) {
+			return;
+		}
+		ended = true;
+		elapsedNanos = System.nanoTime() - startNanos;
+		long threadBytes = threadAllocatedBytes();
+		if (threadBytes >= 0 && startAllocatedBytes >= 0) {
+			allocatedBytes.addAndGet(threadBytes - startAllocatedBytes);
+		}
+		gcCount = gcCount() - startGcCount;
+		gcMillis = gcMillis() - startGcMillis;
+		if (CURRENT.get() == this) {
+			if (parent != null) {
+				CURRENT.set(parent);
+			} else {
+				CURRENT.remove();
+			}
+		}
+		
+		StageEvent.end(event, this);
+	}
+	
+	public void addRows(long rows) {
+		this.rows += rows;
+	}
+	
+	public void addBytesRead(long bytes) {
+		this.bytesRead += bytes;
+	}
+	
+	public void addBytesWritten(long bytes) {
+		this.bytesWritten += bytes;
+	}
+	
+	/**
+	 * Adds the invalid lines and values counted while parsing a file.
+	 * @param errors
+	 */
+	public void addInvalid(ParseErrors errors) {
+		invalidLines += errors.getLineCount();
+		invalidValues += errors.getValueCount();
+	}
+	
+	/**
+	 * Adds the bytes allocated by a worker thread of the stage, measured with {@link #threadAllocatedBytes()}. Safe to call from any thread.
+	 * @param bytes
+	 */
+	public void addAllocatedBytes(long bytes) {
+		if (bytes > 0) {
+			allocatedBytes.addAndGet(bytes);
+		}
+	}
+	
+	// Hooks adding to the current stage of the thread, if there is one.
+	
+	/**
+	 * Adds a parsed data file to the current stage: its size as bytes read, and its invalid lines and values.
+	 * @param fileName
+	 * @param errors
+	 */
+	public static void parsed(String fileName, ParseErrors errors) {
+		Stage stage = CURRENT.get();
+		if (stage != null) {
+			stage.addBytesRead(new File(fileName).length());
+			stage.addInvalid(errors);
+		}
+	}
+	
+	/**
+	 * Adds a file read as a whole to the current stage, such as a snapshot.
+	 * @param file
+	 */
+	public static void read(File file) {
+		Stage stage = CURRENT.get();
+		if (stage != null) {
+			stage.addBytesRead(file.length());
+		}
+	}
+	
+	/**
+	 * Adds the rows and bytes written by a closed output file to the current stage.
+	 * @param sink
+	 */
+	public static void written(CsvSink sink) {
+		Stage stage = CURRENT.get();
+		if (stage != null) {
+			stage.addRows(sink.getRowCount());
+			stage.addBytesWritten(sink.getByteCount());
+		}
+	}
+	
+	/**
+	 * @return the bytes allocated by the current thread since it started, or -1 if the JVM does not measure them
+	 */
+	public static long threadAllocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)THREADS;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+	
+	private static long gcCount() {
+		long count = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean collector : collectors) {
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+	
+	private static long gcMillis() {
+		long millis = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean collector : collectors) {
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+		return millis;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return the file the stage reads or writes, or null
+	 */
+	public String getFile() {
+		return file;
+	}
+	
+	/**
+	 * @return the stage this stage is nested in, or null
+	 */
+	public Stage getParent() {
+		return parent;
+	}
+	
+	/**
+	 * @return true once the stage has ended
+	 */
+	public boolean isEnded() {
+		return ended;
+	}
+	
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	public long getRows() {
+		return rows;
+	}
+	
+	/**
+	 * @return the rows processed per second, or 0 if the stage took no measurable time
+	 */
+	public double getRowsPerSecond() {
+		return elapsedNanos > 0 ? rows * 1e9 / elapsedNanos : 0.0;
+	}
+	
+	public long getBytesRead() {
+		return bytesRead;
+	}
+	
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	public long getInvalidLines() {
+		return invalidLines;
+	}
+	
+	public long getInvalidValues() {
+		return invalidValues;
+	}
+	
+	public long getAllocatedBytes() {
+		return allocatedBytes.get();
+	}
+	
+	/**
+	 * @return the garbage collections of the whole JVM while the stage ran
+	 */
+	public long getGcCount() {
+		return gcCount;
+	}
+	
+	/**
+	 * @return the time spent in garbage collections of the whole JVM while the stage ran
+	 */
+	public long getGcMillis() {
+		return gcMillis;
+	}
+}
@@ -0,0 +1,95 @@
+package cafe.data.parser.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event committed by every {@link Stage} when it ends. The event is only recorded when a flight recording is running,
+ * for example when the parser is started with -XX:StartFlightRecording=filename=parser.jfr, and costs next to nothing otherwise.
+ * Its duration and thread are the ones of the stage.
+ * The jdk.jfr API is only in JDK 11 and later, so this event is what sets the parser's minimum JDK to 11. Every call to the API is made here,
+ * {@link Stage} only calling {@link #start()} and {@link #end(StageEvent, Stage)}, so the rest of the parser keeps to Java 8.
+ * @author Ryan Zembrodt
+ */
+@Name("cafe.data.parser.Stage")
+@Label("Parser Stage")
+@Category("Cafe Data Parser")
+@Description("A stage of the parser, such as parsing a data file or building an output file")
+@StackTrace(false)
+class StageEvent extends Event {
+	@Label("Stage")
+	String stage;
+	
+	@Label("File")
+	@Description("The data file read or the output file written by the stage")
+	String file;
+	
+	@Label("Rows")
+	long rows;
+	
+	@Label("Bytes Read")
+	@DataAmount
+	long bytesRead;
+	
+	@Label("Bytes Written")
+	@DataAmount
+	long bytesWritten;
+	
+	@Label("Invalid Lines")
+	long invalidLines;
+	
+	@Label("Invalid Values")
+	long invalidValues;
+	
+	@Label("Allocated")
+	@Description("Bytes allocated by the threads of the stage")
+	@DataAmount
+	long allocatedBytes;
+	
+	@Label("GC Count")
+	@Description("Garbage collections of the whole JVM during the stage")
+	long gcCount;
+	
+	@Label("GC Time")
+	@Description("Time spent in garbage collections of the whole JVM during the stage")
+	@Timespan(Timespan.MILLISECONDS)
+	long gcTime;
+	
+	/**
+	 * Starts the event of a stage, timing it from now.
+	 * @return the started event
+	 */
+	static StageEvent start() {
+		StageEvent event = new StageEvent();
+		event.begin();
+		return event;
+	}
+	
+	/**
+	 * Ends the event of a stage and commits it with the stage's figures, if a recording is running.
+	 * @param event the event started with the stage
+	 * @param stage the ended stage
+	 */
+	static void end(StageEvent event, Stage stage) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.stage = stage.getName();
+			event.file = stage.getFile();
+			event.rows = stage.getRows();
+			event.bytesRead = stage.getBytesRead();
+			event.bytesWritten = stage.getBytesWritten();
+			event.invalidLines = stage.getInvalidLines();
+			event.invalidValues = stage.getInvalidValues();
+			event.allocatedBytes = stage.getAllocatedBytes();
+			event.gcCount = stage.getGcCount();
+			event.gcTime = stage.getGcMillis();
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package cafe.data.parser.stats.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.stats.RunSummary;
+import cafe.data.parser.stats.Stage;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link Stage} and {@link RunSummary}
+ * @author Ryan Zembrodt
+ */
+public class StageTest extends TestCase {
+	
+	@Override
+	protected void setUp() {
+		RunSummary.clear();
+	}
+	
+	@Override
+	protected void tearDown() {
+		RunSummary.clear();
+	}
+	
+	/**
+	 * Checks that a stage is current on its thread until it ends, and that nested stages are recorded under their parent.
+	 */
+	@Test
+	public void testNesting() {
+		assertNull(Stage.current());
+		Stage outer = Stage.start("load", "a.csv");
+		assertSame(outer, Stage.current());
+		Stage inner = Stage.start("sort", "a.csv");
+		assertSame(inner, Stage.current());
+		assertSame(outer, inner.getParent());
+		inner.end();
+		assertSame(outer, Stage.current());
+		outer.end();
+		outer.end();
+		assertNull(Stage.current());
+		
+		List<Stage> stages = RunSummary.getStages();
+		assertEquals(2, stages.size());
+		assertSame(outer, stages.get(0));
+		assertSame(inner, stages.get(1));
+	}
+	
+	/**
+	 * Checks that the hooks add to the current stage only.
+	 */
+	@Test
+	public void testHooks() throws IOException {
+		ParseErrors errors = new ParseErrors();
+		errors.reportLine(3);
+		errors.reportValue(1, 4, "x");
+		errors.reportValue(2, 5, "y");
+		Stage.parsed("missing.csv", errors);
+		
+		Stage stage = Stage.start("build", "out.csv");
+		Stage.parsed("missing.csv", errors);
+		CsvSink sink = new CsvSink(new ByteArrayOutputStream(), 64);
+		sink.append(1).append(2).endRow().writeLine("end");
+		sink.close();
+		Stage.written(sink);
+		stage.end();
+		
+		assertEquals(1, stage.getInvalidLines());
+		assertEquals(2, stage.getInvalidValues());
+		assertEquals(1, stage.getRows());
+		assertEquals(sink.getByteCount(), stage.getBytesWritten());
+		assertEquals(0, stage.getBytesRead());
+		assertTrue(stage.getElapsedNanos() >= 0);
+	}
+	
+	/**
+	 * Checks that the allocations of the stage's thread are counted.
+	 */
+	@Test
+	public void testAllocatedBytes() {
+		if (Stage.threadAllocatedBytes() < 0) {
+			return;
+		}
+		Stage stage = Stage.start("allocate", null);
+		byte[][] blocks = new byte[16][];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = new byte[1 << 16];
+		}
+		stage.end();
+		assertEquals(1 << 16, blocks[15].length);
+		assertTrue(stage.getAllocatedBytes() + " bytes", stage.getAllocatedBytes() >= 16 << 16);
+	}
+	
+	/**
+	 * Checks that the summary prints a line per stage in the order they started, nested stages indented right under their parent
+	 * even when a stage of another thread started in between, and that a stage still running is not printed.
+	 */
+	@Test
+	public void testSummary() throws InterruptedException {
+		Stage outer = Stage.start("load", "a.csv");
+		final Stage[] others = new Stage[2];
+		Thread other = new Thread(new Runnable() {
+			public void run() {
+				others[0] = Stage.start("load", "b.csv");
+				others[0].end();
+				others[1] = Stage.start("load", "running.csv");
+			}
+		});
+		other.start();
+		other.join();
+		Stage.start("sort", "a.csv").end();
+		outer.addRows(10);
+		outer.end();
+		
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		RunSummary.print(new PrintStream(captured, true));
+		String[] lines = captured.toString().split(System.lineSeparator());
+		assertEquals(4, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("Stage"));
+		assertTrue(lines[1], lines[1].startsWith("load a.csv"));
+		assertTrue(lines[2], lines[2].startsWith("  sort a.csv"));
+		assertTrue(lines[3], lines[3].startsWith("load b.csv"));
+		assertFalse(others[1].isEnded());
+	}
+}
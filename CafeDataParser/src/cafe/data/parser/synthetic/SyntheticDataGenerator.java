@@ -0,0 +1,440 @@
+package cafe.data.parser.synthetic;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.io.TimestampDecoder;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+import cafe.data.parser.wrapper.Globals;
+import cafe.data.parser.wrapper.Precipitation;
+
+/**
+ * Writes synthetic gates, views, weather, and point of sale data files in the layouts described by {@link Globals},
+ * so performance problems can be reproduced without the original files.
+ * At scale 1 each file holds about its {@link Globals} row count (for example {@link Globals#P_ROW_COUNT}) over {@link #BASE_DAYS} days,
+ * and a larger scale spans proportionally more days at the same daily volume, so 1000x writes a thousand times the rows.
+ * <p>
+ * Visits follow the day of a cafeteria: weekends are quiet, traffic builds from the morning, and peaks at lunch time.
+ * Each point of sale customer buys one or more items, one row per item, so customers span several rows.
+ * The temperature follows a daily cycle around a mean that drifts from day to day, and the point of sale rows
+ * carry the weather of their day.
+ * <p>
+ * Everything is drawn from the seed: the same scale and seed always write the same bytes, and each file only depends
+ * on the scale and seed, not on which other files were written.
+ * @author Ryan Zembrodt
+ */
+public class SyntheticDataGenerator {
+	public static final long DEFAULT_SEED = 20160822L;
+	// Days spanned by the data files at scale 1.
+	public static final int BASE_DAYS = 14;
+	// First day of the data files, a Monday.
+	public static final LocalDate FIRST_DAY = LocalDate.of(2016, 8, 22);
+	
+	// Business hours, in seconds of the day.
+	private static final int OPEN = 6 * 3600;
+	private static final int CLOSE = 20 * 3600;
+	// Share of the weekday traffic on weekends.
+	private static final double WEEKEND_WEIGHT = 0.3;
+	
+	// Visit times: a share spread over the business hours, a lunch peak, and a smaller breakfast peak (mean and deviation in seconds).
+	private static final double LUNCH_SHARE = 0.4;
+	private static final double BREAKFAST_SHARE = 0.1;
+	private static final int LUNCH_MEAN = 12 * 3600 + 15 * 60;
+	private static final int LUNCH_DEVIATION = 35 * 60;
+	private static final int BREAKFAST_MEAN = 8 * 3600;
+	private static final int BREAKFAST_DEVIATION = 25 * 60;
+	
+	// Chance a customer buys one more item, so customers buy 1 / (1 - MORE_ITEMS) items on average.
+	private static final double MORE_ITEMS = 0.55;
+	private static final int MAX_ITEMS = 8;
+	
+	// The menu, indexed by item id - 1.
+	private static final String[] ITEM_TYPES = { "Food", "Food", "Food", "Food", "Food", "Food", "Drink", "Drink", "Drink", "Drink" };
+	private static final String[] ITEM_TEMPS = { "Hot", "Hot", "Hot", "Cold", "Cold", "Cold", "Hot", "Hot", "Cold", "Cold" };
+	private static final String[] ITEM_HEALTH = { "Healthy", "Unhealthy", "Unhealthy", "Healthy", "Healthy", "Unhealthy", "Healthy", "Unhealthy", "Healthy", "Unhealthy" };
+	
+	private static final String[] PRECIPITATIONS = {
+			Precipitation.CLEAR_STR, Precipitation.CLOUDS_STR, Precipitation.DRIZZLE_STR, Precipitation.FOG_STR,
+			Precipitation.MIST_STR, Precipitation.RAIN_STR, Precipitation.SNOW_STR
+	};
+	
+	private final long seed;
+	private final int days;
+	private final int weatherRows;
+	private final int gatesRows;
+	private final int viewsRows;
+	private final int posRows;
+	
+	// Weather of each day, drawn once so every file sees the same days.
+	private final double[] meanTemperature;
+	private final int[] precipitation; // Index in PRECIPITATIONS
+	
+	/**
+	 * Builds a generator writing each file at its {@link Globals} row count times the scale.
+	 * @param scale the scale factor, 1 for files the size of the original ones
+	 * @param seed
+	 * @throws IllegalArgumentException if the scale is not positive
+	 */
+	public SyntheticDataGenerator(double scale, long seed) {
+		this(scale, rows(Globals.W_ROW_COUNT, scale), rows(Globals.G_ROW_COUNT, scale), rows(Globals.V_ROW_COUNT, scale),
+				rows(Globals.P_ROW_COUNT, scale), seed);
+	}
+	
+	private SyntheticDataGenerator(double scale, int weatherRows, int gatesRows, int viewsRows, int posRows, long seed) {
+		if (!(scale > 0)) {
+			throw new IllegalArgumentException("Scale must be positive: " + scale);
+		}
+		this.seed = seed;
+		this.days = (int)Math.max(1, Math.round(BASE_DAYS * scale));
+		this.weatherRows = weatherRows;
+		this.gatesRows = gatesRows;
+		this.viewsRows = viewsRows;
+		this.posRows = posRows;
+		
+		Random random = new Random(seed);
+		meanTemperature = new double[days];
+		precipitation = new int[days];
+		double temperature = 22.0;
+		int current = 0;
+		for (int day = 0; day < days; day++) {
+			// The daily mean drifts but is pulled back towards 18 degrees.
+			temperature += random.nextGaussian() * 2.0 + (18.0 - temperature) * 0.1;
+			meanTemperature[day] = temperature;
+			// Weather usually holds for a few days.
+			if (random.nextDouble() < 0.35) {
+				current = random.nextDouble() < 0.5 ? random.nextInt(2) : random.nextInt(PRECIPITATIONS.length);
+			}
+			precipitation[day] = current;
+		}
+	}
+	
+	/**
+	 * Builds a generator writing the same number of rows to every file, over as many days as the point of sale file would span at that size.
+	 * @param rows the number of rows of each file
+	 * @param seed
+	 * @return the generator
+	 */
+	public static SyntheticDataGenerator withRows(int rows, long seed) {
+		return new SyntheticDataGenerator((double)rows / Globals.P_ROW_COUNT, rows, rows, rows, rows, seed);
+	}
+	
+	private static int rows(int baseRows, double scale) {
+		return (int)Math.min(Integer.MAX_VALUE, Math.round(baseRows * scale));
+	}
+	
+	public int getDays() {
+		return days;
+	}
+	
+	public int getWeatherRows() {
+		return weatherRows;
+	}
+	
+	public int getGatesRows() {
+		return gatesRows;
+	}
+	
+	public int getViewsRows() {
+		return viewsRows;
+	}
+	
+	public int getPosRows() {
+		return posRows;
+	}
+	
+	/**
+	 * Writes the four data files into a directory, named as in {@link Globals}.
+	 * @param directory
+	 * @throws IOException
+	 */
+	public void writeAll(File directory) throws IOException {
+		writeWeatherData(new File(directory, Globals.WEATHER_FILE));
+		writeGatesData(new File(directory, Globals.GATES_FILE));
+		writeViewsData(new File(directory, Globals.VIEWS_FILE));
+		writePointOfSaleData(new File(directory, Globals.POS_FILE));
+	}
+	
+	/**
+	 * Writes the weather data file, readings evenly spread over the whole day with a few seconds of jitter:
+	 * Datetime, Temperature, Humidity, Precipitation, and Is severe weather.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeWeatherData(File file) throws IOException {
+		Random random = new Random(seed ^ 0x5745415448L);
+		try (CsvSink out = new CsvSink(file.getPath())) {
+			int[] rowsPerDay = spread(weatherRows, false);
+			for (int day = 0; day < days; day++) {
+				for (int i = 0; i < rowsPerDay[day]; i++) {
+					int second = (int)((i + 0.5) * TimestampDecoder.SECONDS_PER_DAY / rowsPerDay[day]) + random.nextInt(61) - 30;
+					second = Math.max(0, Math.min(TimestampDecoder.SECONDS_PER_DAY - 1, second));
+					double temperature = temperature(day, second) + random.nextGaussian() * 0.5;
+					int humidity = (int)Math.max(5, Math.min(100, 95 - 1.8 * temperature + random.nextGaussian() * 8));
+					int reading = random.nextDouble() < 0.8 ? precipitation[day] : random.nextInt(2);
+					boolean severe = reading >= 5 && random.nextDouble() < 0.15; // Rain or snow
+					out.append(usDatetime(day, second))
+							.append(Math.round(temperature * 10) / 10.0)
+							.append(humidity)
+							.append(PRECIPITATIONS[reading])
+							.append(severe ? "TRUE" : "FALSE")
+							.endRow();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the gates data file, in datetime order: Location, Gate, Datetime, Duration, In count, and Out count.
+	 * The counts are larger around the busy hours.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeGatesData(File file) throws IOException {
+		Random random = new Random(seed ^ 0x4741544553L);
+		try (CsvSink out = new CsvSink(file.getPath())) {
+			int[] rowsPerDay = spread(gatesRows, true);
+			for (int day = 0; day < days; day++) {
+				int[] seconds = visitTimes(random, rowsPerDay[day]);
+				String date = isoDate(day);
+				for (int second : seconds) {
+					double busy = busyness(second);
+					out.append(1)
+							.append(1 + random.nextInt(2))
+							.append(isoDatetime(date, second))
+							.append(60)
+							.append(random.nextInt(2 + (int)(busy * 12)))
+							.append(random.nextInt(2 + (int)(busyness(second - 1800) * 12)))
+							.endRow();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the views data file, in datetime order: Location, Gender, Age, Datetime, Dwell time, Attention time, and Watcher count.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeViewsData(File file) throws IOException {
+		Random random = new Random(seed ^ 0x5649455753L);
+		try (CsvSink out = new CsvSink(file.getPath())) {
+			int[] rowsPerDay = spread(viewsRows, true);
+			for (int day = 0; day < days; day++) {
+				int[] seconds = visitTimes(random, rowsPerDay[day]);
+				String date = isoDate(day);
+				for (int second : seconds) {
+					int dwell = 1 + (int)(-Math.log(1 - random.nextDouble()) * 12);
+					out.append(1)
+							.append(gender(random))
+							.append(age(random))
+							.append(isoDatetime(date, second))
+							.append(dwell)
+							.append(random.nextInt(dwell + 1))
+							.append(1 + (int)(busyness(second) * random.nextInt(6)))
+							.endRow();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the point of sale data file with its {@link Globals#P_COL_COUNT} columns, one row per purchased item.
+	 * Customers arrive at the visit times of the day and buy one or more items, each row repeating the customer's
+	 * datetime, gender, age, and weather. Customers of a day are written in a random order, like the original file.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writePointOfSaleData(File file) throws IOException {
+		Random random = new Random(seed ^ 0x504F53L);
+		try (CsvSink out = new CsvSink(file.getPath())) {
+			int[] rowsPerDay = spread(posRows, true);
+			for (int day = 0; day < days; day++) {
+				String date = isoDate(day);
+				String dayOfWeek = FIRST_DAY.plusDays(day).getDayOfWeek().toString();
+				int rows = 0;
+				while (rows < rowsPerDay[day]) {
+					int second = visitTime(random);
+					int age = age(random);
+					int gender = gender(random);
+					double dwell = random.nextInt(9000) / 100.0;
+					double attention = Math.round(dwell * random.nextDouble() * 100) / 100.0;
+					double temperature = Math.round(temperature(day, second) * 10) / 10.0;
+					double humidity = Math.round((95 - 1.8 * temperature) * 10) / 10.0;
+					int advertised = 1 + random.nextInt(ITEM_TYPES.length);
+					int totalCustomers = 1 + (int)(busyness(second) * 60 * random.nextDouble());
+					
+					int items = 1;
+					while (items < MAX_ITEMS && random.nextDouble() < MORE_ITEMS) {
+						items++;
+					}
+					for (int item = 0; item < items && rows < rowsPerDay[day]; item++, rows++) {
+						// The advertised item is bought more often than any other item.
+						int itemId = random.nextDouble() < 0.2 ? advertised : 1 + random.nextInt(ITEM_TYPES.length);
+						out.append(Age.of(age).toString())
+								.append(age)
+								.append(Gender.of(gender).toString())
+								.append(gender)
+								.append(dwell)
+								.append(attention)
+								.append(temperature)
+								.append(humidity)
+								.append(PRECIPITATIONS[precipitation[day]])
+								.append(advertised)
+								.append(ITEM_TYPES[advertised - 1])
+								.append(ITEM_TEMPS[advertised - 1])
+								.append(ITEM_HEALTH[advertised - 1])
+								.append(totalCustomers)
+								.append(isoDatetime(date, second))
+								.append(dayOfWeek)
+								.append(itemId)
+								.append(ITEM_TYPES[itemId - 1])
+								.append(ITEM_TEMPS[itemId - 1])
+								.append(ITEM_HEALTH[itemId - 1])
+								.append(itemId == advertised ? "TRUE" : "FALSE")
+								.endRow();
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Splits the rows of a file over the days, weekends getting {@link #WEEKEND_WEIGHT} of a weekday.
+	 * @param rows
+	 * @param weighted false to split the rows evenly
+	 * @return the number of rows of each day, summing to the rows
+	 */
+	private int[] spread(int rows, boolean weighted) {
+		double[] cumulative = new double[days + 1];
+		for (int day = 0; day < days; day++) {
+			DayOfWeek dayOfWeek = FIRST_DAY.plusDays(day).getDayOfWeek();
+			boolean weekend = dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+			cumulative[day + 1] = cumulative[day] + (weighted && weekend ? WEEKEND_WEIGHT : 1.0);
+		}
+		int[] rowsPerDay = new int[days];
+		long previous = 0;
+		for (int day = 0; day < days; day++) {
+			long next = Math.round(rows * cumulative[day + 1] / cumulative[days]);
+			rowsPerDay[day] = (int)(next - previous);
+			previous = next;
+		}
+		return rowsPerDay;
+	}
+	
+	/**
+	 * @return the sorted visit times of a day, in seconds of the day
+	 */
+	private static int[] visitTimes(Random random, int count) {
+		int[] seconds = new int[count];
+		for (int i = 0; i < count; i++) {
+			seconds[i] = visitTime(random);
+		}
+		Arrays.sort(seconds);
+		return seconds;
+	}
+	
+	/**
+	 * Draws the time of a visit, in seconds of the day, from the business hours and their breakfast and lunch peaks.
+	 */
+	private static int visitTime(Random random) {
+		double share = random.nextDouble();
+		int second;
+		if (share < LUNCH_SHARE) {
+			second = (int)(LUNCH_MEAN + random.nextGaussian() * LUNCH_DEVIATION);
+		} else if (share < LUNCH_SHARE + BREAKFAST_SHARE) {
+			second = (int)(BREAKFAST_MEAN + random.nextGaussian() * BREAKFAST_DEVIATION);
+		} else {
+			second = OPEN + random.nextInt(CLOSE - OPEN);
+		}
+		return Math.max(OPEN, Math.min(CLOSE - 1, second));
+	}
+	
+	/**
+	 * @return how busy the cafeteria is at a time of the day, from 0 to 1 at the height of lunch
+	 */
+	private static double busyness(int second) {
+		double lunch = (second - LUNCH_MEAN) / (double)LUNCH_DEVIATION;
+		double breakfast = (second - BREAKFAST_MEAN) / (double)BREAKFAST_DEVIATION;
+		double open = second >= OPEN && second < CLOSE ? 0.2 : 0.0;
+		return Math.min(1.0, open + 0.8 * Math.exp(-lunch * lunch / 2) + 0.3 * Math.exp(-breakfast * breakfast / 2));
+	}
+	
+	/**
+	 * @return the temperature at a time of a day, in Celsius, warmest mid-afternoon
+	 */
+	private double temperature(int day, int second) {
+		return meanTemperature[day] + 6.0 * Math.sin(2 * Math.PI * (second - 9 * 3600) / TimestampDecoder.SECONDS_PER_DAY);
+	}
+	
+	private static int age(Random random) {
+		// Mostly adults, few children and seniors.
+		double draw = random.nextDouble();
+		return draw < 0.05 ? Age.UNKNOWN : draw < 0.12 ? Age.CHILD : draw < 0.40 ? Age.YOUNG_ADULT : draw < 0.90 ? Age.ADULT : Age.SENIOR;
+	}
+	
+	private static int gender(Random random) {
+		double draw = random.nextDouble();
+		return draw < 0.05 ? Gender.UNKNOWN : draw < 0.52 ? Gender.MALE : Gender.FEMALE;
+	}
+	
+	/**
+	 * @return the date of a day as 'yyyy-MM-dd '
+	 */
+	private static String isoDate(int day) {
+		return FIRST_DAY.plusDays(day).toString() + " ";
+	}
+	
+	/**
+	 * @return a datetime in the {@link Globals#POS_DATE_FORMAT} layout, from the date of {@link #isoDate(int)}
+	 */
+	private static String isoDatetime(String date, int second) {
+		return date + twoDigits(second / 3600) + ":" + twoDigits(second / 60 % 60) + ":" + twoDigits(second % 60);
+	}
+	
+	/**
+	 * @return a datetime in the {@link Globals#WEATHER_DATE_FORMAT} layout
+	 */
+	private static String usDatetime(int day, int second) {
+		LocalDate date = FIRST_DAY.plusDays(day);
+		int hour = second / 3600;
+		int clockHour = hour % 12 == 0 ? 12 : hour % 12;
+		return twoDigits(date.getMonthValue()) + "/" + twoDigits(date.getDayOfMonth()) + "/" + date.getYear() + " "
+				+ twoDigits(clockHour) + ":" + twoDigits(second / 60 % 60) + ":" + twoDigits(second % 60) + (hour < 12 ? " AM" : " PM");
+	}
+	
+	private static String twoDigits(int value) {
+		return value < 10 ? "0" + value : Integer.toString(value);
+	}
+	
+	/**
+	 * Writes the data files at a scale into a directory.
+	 * Arguments: scale [seed] [directory], the directory defaulting to the working directory.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 3) {
+			System.out.println("Usage: SyntheticDataGenerator scale [seed] [directory]");
+			return;
+		}
+		try {
+			double scale = Double.parseDouble(args[0]);
+			long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+			File directory = new File(args.length > 2 ? args[2] : ".");
+			SyntheticDataGenerator generator = new SyntheticDataGenerator(scale, seed);
+			long start = System.nanoTime();
+			generator.writeAll(directory);
+			System.out.println("Wrote " + generator.getDays() + " days of data at scale " + scale + " to " + directory + " in "
+					+ (System.nanoTime() - start) / 1000000L + " ms.");
+		} catch (NumberFormatException e) {
+			System.out.println("Invalid number: " + e.getMessage());
+		} catch (IllegalArgumentException | IOException e) {
+			System.out.println("Failed to write the data files: " + e);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package cafe.data.parser.synthetic.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import cafe.data.parser.Customer;
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.synthetic.SyntheticDataGenerator;
+import cafe.data.parser.wrapper.Globals;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link SyntheticDataGenerator}
+ * @author Ryan Zembrodt
+ */
+public class SyntheticDataGeneratorTest extends TestCase {
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws IOException {
+		directory = Files.createTempDirectory("synthetic").toFile();
+	}
+
+	@Override
+	protected void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private File file(String name) {
+		return new File(directory, name);
+	}
+
+	/**
+	 * Checks that the row counts follow the scale and that every file parses without invalid rows or values.
+	 */
+	@Test
+	public void testFilesParse() throws IOException {
+		SyntheticDataGenerator generator = new SyntheticDataGenerator(0.1, SyntheticDataGenerator.DEFAULT_SEED);
+		assertEquals(Math.round(Globals.P_ROW_COUNT * 0.1), generator.getPosRows());
+		assertEquals(Math.round(Globals.G_ROW_COUNT * 0.1), generator.getGatesRows());
+		generator.writeAll(directory);
+
+		ParseErrors errors = new ParseErrors();
+		assertEquals(generator.getWeatherRows(), DataLoader.loadWeatherData(file(Globals.WEATHER_FILE).getPath(), LoadOptions.DEFAULT.withErrors(errors)).size());
+		assertEquals(generator.getGatesRows(), DataLoader.loadGatesData(file(Globals.GATES_FILE).getPath(), LoadOptions.DEFAULT.withErrors(errors)).size());
+		assertEquals(generator.getViewsRows(), DataLoader.loadViewsData(file(Globals.VIEWS_FILE).getPath(), LoadOptions.DEFAULT.withErrors(errors)).size());
+		assertEquals(generator.getPosRows(), DataLoader.loadPointOfSaleData(file(Globals.POS_FILE).getPath(), LoadOptions.DEFAULT.withErrors(errors)).size());
+		assertTrue(errors.toString(), errors.isEmpty());
+	}
+
+	/**
+	 * Checks that the same seed writes the same bytes and another seed does not.
+	 */
+	@Test
+	public void testSeed() throws IOException {
+		new SyntheticDataGenerator(0.02, 7).writePointOfSaleData(file("a.csv"));
+		new SyntheticDataGenerator(0.02, 7).writePointOfSaleData(file("b.csv"));
+		new SyntheticDataGenerator(0.02, 8).writePointOfSaleData(file("c.csv"));
+		byte[] a = Files.readAllBytes(file("a.csv").toPath());
+		assertTrue(Arrays.equals(a, Files.readAllBytes(file("b.csv").toPath())));
+		assertFalse(Arrays.equals(a, Files.readAllBytes(file("c.csv").toPath())));
+	}
+
+	/**
+	 * Checks that sales peak at lunch time and that customers buy several items.
+	 */
+	@Test
+	public void testLunchPeakAndCustomers() throws IOException {
+		SyntheticDataGenerator generator = SyntheticDataGenerator.withRows(20000, SyntheticDataGenerator.DEFAULT_SEED);
+		generator.writePointOfSaleData(file(Globals.POS_FILE));
+		PosColumns posData = DataLoader.loadPointOfSaleData(file(Globals.POS_FILE).getPath(), LoadOptions.DEFAULT.withErrors(new ParseErrors()));
+
+		// Rows from 11:30 to 13:00 against rows from 15:00 to 16:30.
+		int lunch = 0;
+		int afternoon = 0;
+		for (int row = 0; row < posData.size(); row++) {
+			long minute = posData.getEpochSecond(row) % 86400 / 60;
+			if (minute >= 11 * 60 + 30 && minute < 13 * 60) {
+				lunch++;
+			} else if (minute >= 15 * 60 && minute < 16 * 60 + 30) {
+				afternoon++;
+			}
+		}
+		assertTrue(lunch + " lunch rows, " + afternoon + " afternoon rows", lunch > 3 * afternoon);
+
+		List<Customer> customers = CustomerAssembler.assemble(posData);
+		double itemsPerCustomer = (double)posData.size() / customers.size();
+		assertTrue(itemsPerCustomer + " items per customer", itemsPerCustomer > 1.8);
+	}
+}
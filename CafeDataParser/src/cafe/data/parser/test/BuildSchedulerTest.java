@@ -0,0 +1,185 @@
+package cafe.data.parser.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import cafe.data.parser.BuildScheduler;
+import cafe.data.parser.BuildScheduler.Dataset;
+import cafe.data.parser.Datasets;
+import cafe.data.parser.GatesData;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.PosProjection;
+import cafe.data.parser.WeatherData;
+import cafe.data.parser.wrapper.Globals;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link BuildScheduler}
+ * @author Ryan Zembrodt
+ */
+public class BuildSchedulerTest extends TestCase {
+
+	private static String runCapturingOutput(BuildScheduler scheduler, Datasets datasets, boolean expectedResult) {
+		PrintStream original = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured, true));
+		try {
+			assertEquals(expectedResult, scheduler.run(datasets));
+		} finally {
+			System.setOut(original);
+		}
+		return captured.toString();
+	}
+
+	/**
+	 * Checks that a file scheduled twice is only built once and that the summary lists the jobs in the order they were added.
+	 */
+	@Test
+	public void testDuplicateJobs() {
+		final AtomicInteger builds = new AtomicInteger();
+		BuildScheduler.Builder builder = new BuildScheduler.Builder() {
+			public void build(Datasets datasets) {
+				builds.incrementAndGet();
+			}
+		};
+		BuildScheduler scheduler = new BuildScheduler();
+		assertTrue(scheduler.add("b.csv", builder));
+		assertTrue(scheduler.add("a.csv", builder, Dataset.WEATHER));
+		assertFalse(scheduler.add("b.csv", builder));
+		assertEquals(2, scheduler.size());
+		assertEquals(EnumSet.of(Dataset.WEATHER), scheduler.getNeeds());
+
+		Datasets datasets = new Datasets(new ArrayList<WeatherData>(), null, null, null);
+		String output = runCapturingOutput(scheduler, datasets, true);
+		assertEquals(2, builds.get());
+		assertTrue(output, output.startsWith("Built b.csv in "));
+		assertTrue(output, output.contains(System.lineSeparator() + "Built a.csv in "));
+	}
+
+	/**
+	 * Checks that jobs missing a dataset are skipped and that failures are reported without stopping the other jobs.
+	 */
+	@Test
+	public void testSkippedAndFailedJobs() {
+		final AtomicInteger builds = new AtomicInteger();
+		BuildScheduler scheduler = new BuildScheduler();
+		scheduler.add("missing.csv", new BuildScheduler.Builder() {
+			public void build(Datasets datasets) {
+				builds.incrementAndGet();
+			}
+		}, Dataset.GATES, Dataset.POS);
+		scheduler.add("failed.csv", new BuildScheduler.Builder() {
+			public void build(Datasets datasets) throws IOException {
+				throw new IOException("disk full");
+			}
+		});
+		scheduler.add("built.csv", new BuildScheduler.Builder() {
+			public void build(Datasets datasets) {
+				builds.incrementAndGet();
+			}
+		}, Dataset.GATES);
+
+		Datasets datasets = new Datasets(null, new ArrayList<GatesData>(), null, null);
+		String output = runCapturingOutput(scheduler, datasets, false);
+		assertEquals(1, builds.get());
+		assertTrue(output, output.startsWith("Skipped missing.csv, missing data [POS]." + System.lineSeparator()));
+		assertTrue(output, output.contains("Failed to build failed.csv after "));
+		assertTrue(output, output.contains("java.io.IOException: disk full"));
+		assertTrue(output, output.contains("Built built.csv in "));
+	}
+	
+	/**
+	 * Checks that datasets loaded on demand are only loaded if a job needs them, and only once.
+	 */
+	@Test
+	public void testDatasetsLoadedOnDemand() {
+		final AtomicInteger weatherLoads = new AtomicInteger();
+		final AtomicInteger posLoads = new AtomicInteger();
+		Datasets datasets = Datasets.onFirstUse(new Callable<List<WeatherData>>() {
+			public List<WeatherData> call() {
+				weatherLoads.incrementAndGet();
+				return new ArrayList<WeatherData>();
+			}
+		}, null, null, new Callable<PosColumns>() {
+			public PosColumns call() {
+				posLoads.incrementAndGet();
+				return null;
+			}
+		});
+		
+		BuildScheduler.Builder builder = new BuildScheduler.Builder() {
+			public void build(Datasets datasets) {
+				assertNotNull(datasets.getWeatherData());
+			}
+		};
+		BuildScheduler scheduler = new BuildScheduler();
+		scheduler.add("a.csv", builder, Dataset.WEATHER);
+		scheduler.add("b.csv", builder, Dataset.WEATHER);
+		scheduler.add("c.csv", builder);
+		runCapturingOutput(scheduler, datasets, true);
+		assertEquals(1, weatherLoads.get());
+		assertEquals(0, posLoads.get());
+		
+		// A dataset that failed to load is only tried once.
+		assertNull(datasets.getCustomers());
+		assertNull(datasets.getPosData());
+		assertEquals(1, posLoads.get());
+	}
+	
+	/**
+	 * Checks that the datasets a job needs are loaded concurrently, the weather data only loading once the gates data started loading.
+	 */
+	@Test
+	public void testDatasetsLoadedConcurrently() {
+		final CountDownLatch gatesStarted = new CountDownLatch(1);
+		Datasets datasets = Datasets.onFirstUse(new Callable<List<WeatherData>>() {
+			public List<WeatherData> call() throws InterruptedException {
+				return gatesStarted.await(10, TimeUnit.SECONDS) ? new ArrayList<WeatherData>() : null;
+			}
+		}, new Callable<List<GatesData>>() {
+			public List<GatesData> call() {
+				gatesStarted.countDown();
+				return new ArrayList<GatesData>();
+			}
+		}, null, null);
+		
+		BuildScheduler scheduler = new BuildScheduler();
+		scheduler.add("a.csv", new BuildScheduler.Builder() {
+			public void build(Datasets datasets) {
+			}
+		}, Dataset.WEATHER, Dataset.GATES);
+		String output = runCapturingOutput(scheduler, datasets, true);
+		assertTrue(output, output.startsWith("Built a.csv in "));
+	}
+	
+	/**
+	 * Checks that the point of sale columns are the union of the columns of the jobs using the point of sale data.
+	 */
+	@Test
+	public void testPosColumns() {
+		BuildScheduler.Builder builder = new BuildScheduler.Builder() {
+			public void build(Datasets datasets) {
+			}
+		};
+		BuildScheduler scheduler = new BuildScheduler();
+		scheduler.add("weather.csv", builder, PosProjection.of(Globals.P_DWELL), Dataset.WEATHER);
+		assertNull(scheduler.getPosColumns());
+		
+		scheduler.add("a.csv", builder, PosProjection.of(Globals.P_ITEM_ID), Dataset.POS);
+		scheduler.add("b.csv", builder, PosProjection.of(Globals.P_TEMP), Dataset.POS);
+		assertEquals(PosProjection.of(Globals.P_ITEM_ID, Globals.P_TEMP), scheduler.getPosColumns());
+		
+		scheduler.add("c.csv", builder, Dataset.POS);
+		assertEquals(PosProjection.ALL, scheduler.getPosColumns());
+	}
+}
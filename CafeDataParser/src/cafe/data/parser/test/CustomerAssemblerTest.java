@@ -0,0 +1,76 @@
+package cafe.data.parser.test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Test;
+
+import cafe.data.parser.Customer;
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.Item;
+import cafe.data.parser.PointOfSaleData;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link CustomerAssembler}
+ * @author Ryan Zembrodt
+ */
+public class CustomerAssemblerTest extends TestCase {
+	private static final LocalDateTime DATE1 = LocalDateTime.of(2016, 8, 28, 11, 30, 0);
+	private static final LocalDateTime DATE2 = LocalDateTime.of(2016, 8, 28, 11, 31, 0);
+
+	/**
+	 * Builds a POS data row with only the values used to build customers set.
+	 */
+	private static PointOfSaleData row(LocalDateTime date, int gender, int age, int itemId, int saleItemId, boolean purchasedSaleItem) {
+		return new PointOfSaleData(age, gender, 0.0, 0.0, 50.0, 0.0, "Clear",
+				saleItemId, "Food", "Hot", "Healthy", 0,
+				date, "SUNDAY", itemId, "Drink", "Cold", "Unhealthy", purchasedSaleItem);
+	}
+
+	/**
+	 * Checks that rows of the same datetime, gender, and age are grouped into one customer, even when not adjacent,
+	 * and that customers are returned in date order then first appearance order.
+	 */
+	@Test
+	public void testAssemble() {
+		PosColumns posData = new PosColumns();
+		posData.add(row(DATE1, Gender.MALE, Age.ADULT, 1, 10, false));
+		posData.add(row(DATE1, Gender.FEMALE, Age.ADULT, 2, 10, false));
+		posData.add(row(DATE1, Gender.MALE, Age.ADULT, 3, 11, true));
+		posData.add(row(DATE2, Gender.MALE, Age.ADULT, 4, 10, false));
+
+		List<Customer> customers = CustomerAssembler.assemble(posData);
+
+		assertEquals(3, customers.size());
+
+		Customer first = customers.get(0);
+		assertTrue(first.getGender().equals(Gender.MALE));
+		assertEquals(DATE1, first.getDate());
+		assertEquals(2, first.getPurchasedItems().size());
+		assertEquals(new Item(1, "Drink", "Cold", "Unhealthy"), first.getPurchasedItems().get(0));
+		assertEquals(new Item(3, "Drink", "Cold", "Unhealthy"), first.getPurchasedItems().get(1));
+		assertEquals(2, first.getAdvertisedItems().size());
+		assertTrue(first.getBoughtAdvertised());
+
+		Customer second = customers.get(1);
+		assertTrue(second.getGender().equals(Gender.FEMALE));
+		assertEquals(1, second.getPurchasedItems().size());
+		assertFalse(second.getBoughtAdvertised());
+
+		Customer third = customers.get(2);
+		assertEquals(DATE2, third.getDate());
+		assertEquals(1, third.getPurchasedItems().size());
+	}
+
+	/**
+	 * Checks that empty POS data builds no customers.
+	 */
+	@Test
+	public void testAssembleEmpty() {
+		assertTrue(CustomerAssembler.assemble(new PosColumns()).isEmpty());
+	}
+}
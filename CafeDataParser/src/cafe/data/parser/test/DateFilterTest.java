@@ -0,0 +1,113 @@
+package cafe.data.parser.test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import cafe.data.parser.DateFilter;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link DateFilter}
+ * @author Ryan Zembrodt
+ */
+public class DateFilterTest extends TestCase {
+	
+	private static long epochSecond(String datetime) {
+		return LocalDateTime.parse(datetime).toEpochSecond(ZoneOffset.UTC);
+	}
+	
+	/**
+	 * Checks that the date range includes both of its dates, whole.
+	 */
+	@Test
+	public void testDateRange() {
+		DateFilter filter = DateFilter.parse("2016-08-22", "2016-08-23", null, null);
+		assertFalse(filter.acceptsAll());
+		assertFalse(filter.accepts(epochSecond("2016-08-21T23:59:59")));
+		assertTrue(filter.accepts(epochSecond("2016-08-22T00:00:00")));
+		assertTrue(filter.accepts(epochSecond("2016-08-23T23:59:59")));
+		assertFalse(filter.accepts(epochSecond("2016-08-24T00:00:00")));
+		
+		DateFilter from = new DateFilter(LocalDate.of(2016, 8, 22), null, null, null, null);
+		assertFalse(from.accepts(epochSecond("2016-08-21T12:00:00")));
+		assertTrue(from.accepts(epochSecond("2030-01-01T12:00:00")));
+	}
+	
+	/**
+	 * Checks that only the rows of the days of the week given are accepted, including before the epoch.
+	 */
+	@Test
+	public void testDays() {
+		DateFilter filter = DateFilter.parse(null, null, "mon, friday", null);
+		assertEquals(filter.toString(), new DateFilter(null, null, EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), null, null).toString());
+		LocalDateTime monday = LocalDateTime.parse("2016-08-22T10:00:00");
+		for (int day = 0; day < 7; day++) {
+			DayOfWeek dayOfWeek = monday.plusDays(day).getDayOfWeek();
+			boolean accepted = dayOfWeek == DayOfWeek.MONDAY || dayOfWeek == DayOfWeek.FRIDAY;
+			assertEquals(dayOfWeek.toString(), accepted, filter.accepts(monday.plusDays(day).toEpochSecond(ZoneOffset.UTC)));
+		}
+		// 1969-12-29 was a Monday.
+		assertTrue(filter.accepts(epochSecond("1969-12-29T10:00:00")));
+		assertFalse(filter.accepts(epochSecond("1969-12-31T10:00:00")));
+	}
+	
+	/**
+	 * Checks that the time range includes its start and excludes its end, on every date.
+	 */
+	@Test
+	public void testTimes() {
+		DateFilter filter = DateFilter.parse(null, null, null, "11:00-14:00");
+		assertFalse(filter.accepts(epochSecond("2016-08-22T10:59:59")));
+		assertTrue(filter.accepts(epochSecond("2016-08-22T11:00:00")));
+		assertTrue(filter.accepts(epochSecond("2016-09-04T13:59:59")));
+		assertFalse(filter.accepts(epochSecond("2016-09-04T14:00:00")));
+		
+		DateFilter evening = DateFilter.parse(null, null, null, "18:00-24:00");
+		assertEquals(new DateFilter(null, null, null, LocalTime.of(18, 0), null).toString(), evening.toString());
+		assertTrue(evening.accepts(epochSecond("2016-08-22T23:59:59")));
+		assertFalse(evening.accepts(epochSecond("2016-08-23T00:00:00")));
+	}
+	
+	/**
+	 * Checks that a filter without bounds accepts every row.
+	 */
+	@Test
+	public void testAll() {
+		assertTrue(DateFilter.ALL.acceptsAll());
+		assertTrue(DateFilter.parse(null, null, null, null).acceptsAll());
+		assertTrue(DateFilter.ALL.accepts(epochSecond("1900-01-01T00:00:00")));
+		assertTrue(DateFilter.ALL.accepts(epochSecond("2100-12-31T23:59:59")));
+		assertEquals("all rows", DateFilter.ALL.toString());
+	}
+	
+	/**
+	 * Checks that invalid option values are rejected.
+	 */
+	@Test
+	public void testInvalid() {
+		String[][] invalid = {
+				{ "2016-08-32", null, null, null },
+				{ "2016-08-23", "2016-08-22", null, null },
+				{ null, null, "mo", null },
+				{ null, null, "someday", null },
+				{ null, null, null, "11:00" },
+				{ null, null, null, "14:00-11:00" },
+				{ null, null, null, "11h-14h" }
+		};
+		for (String[] values : invalid) {
+			try {
+				DateFilter.parse(values[0], values[1], values[2], values[3]);
+				fail("Accepted " + Arrays.toString(values));
+			} catch (IllegalArgumentException e) {
+				assertNotNull(e.getMessage());
+			}
+		}
+	}
+}
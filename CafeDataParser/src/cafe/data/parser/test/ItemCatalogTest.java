@@ -0,0 +1,41 @@
+package cafe.data.parser.test;
+
+import org.junit.Test;
+
+import cafe.data.parser.Item;
+import cafe.data.parser.ItemCatalog;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link ItemCatalog}
+ * @author Ryan Zembrodt
+ */
+public class ItemCatalogTest extends TestCase {
+	/**
+	 * Checks that the same Item object is returned for every occurrence of an item.
+	 */
+	@Test
+	public void testGet() {
+		ItemCatalog catalog = new ItemCatalog();
+		Item item = catalog.get(1, "Food", "Hot", "Healthy");
+		
+		assertEquals(new Item(1, "Food", "Hot", "Healthy"), item);
+		assertSame(item, catalog.get(1, "Food", "Hot", "Healthy"));
+		assertNotSame(item, catalog.get(2, "Food", "Hot", "Healthy"));
+		assertEquals(2, catalog.size());
+	}
+	
+	/**
+	 * Checks that an id seen again with different values returns an Item holding those values.
+	 */
+	@Test
+	public void testGetDifferentValues() {
+		ItemCatalog catalog = new ItemCatalog();
+		Item item = catalog.get(1, "Food", "Hot", "Healthy");
+		Item other = catalog.get(1, "Drink", "Hot", "Unhealthy");
+		
+		assertEquals(new Item(1, "Drink", "Hot", "Unhealthy"), other);
+		assertFalse(item.equals(other));
+		assertSame(item, catalog.get(1, "Food", "Hot", "Healthy"));
+	}
+}
@@ -0,0 +1,159 @@
+package cafe.data.parser.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.DateFilter;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.ParallelPosLoader;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.PosProjection;
+import cafe.data.parser.io.ParseErrors;
+import cafe.data.parser.wrapper.Globals;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link ParallelPosLoader}
+ * @author Ryan Zembrodt
+ */
+public class ParallelPosLoaderTest extends TestCase {
+	
+	/**
+	 * Writes a POS file large enough to be split into several chunks, with mixed line terminators, blank lines, and invalid rows,
+	 * some of them only invalid by their datetime.
+	 */
+	private static File writePosFile() throws IOException {
+		File file = File.createTempFile("pos", ".csv");
+		file.deleteOnExit();
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < 40000; i++) {
+			int minute = (i * 7919) % 600;
+			data.append("Adult,3,Male,1,1.5,2.5,20.0,50.0,Clear,").append(i % 5).append(",Food,Hot,Healthy,10,")
+					.append(String.format("2016-08-%02d %02d:%02d:00", 22 + i % 5, 8 + minute / 60, minute % 60))
+					.append(",MONDAY,").append(i).append(",Drink,Cold,Unhealthy,FALSE");
+			data.append(i % 3 == 0 ? "\r\n" : "\n");
+			if (i % 5000 == 0) {
+				data.append("\n");
+			}
+			if (i % 7777 == 0) {
+				data.append("invalid,row\n");
+			}
+			if (i % 9999 == 0) {
+				data.append("Adult,3,Male,1,1.5,2.5,20.0,50.0,Clear,1,Food,Hot,Healthy,10,2016-08-22 xx:31:50,MONDAY,1,Drink,Cold,Unhealthy,FALSE\n");
+			}
+		}
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(data.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+	
+	/**
+	 * Runs a load while capturing what it prints.
+	 */
+	private interface Load {
+		PosColumns run() throws IOException;
+	}
+	
+	private static PosColumns captureOutput(Load load, StringBuilder output) throws IOException {
+		PrintStream original = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured, true));
+		try {
+			return load.run();
+		} finally {
+			System.setOut(original);
+			output.append(captured.toString());
+		}
+	}
+	
+	/**
+	 * Checks that the parallel load returns the same rows in the same order as the sequential load,
+	 * and reports the invalid rows with the same line numbers.
+	 */
+	@Test
+	public void testMatchesSequentialLoad() throws IOException {
+		final File file = writePosFile();
+		assertTrue(file.length() > 4 * 1024 * 1024);
+		
+		StringBuilder sequentialOutput = new StringBuilder();
+		StringBuilder parallelOutput = new StringBuilder();
+		PosColumns sequential = captureOutput(() -> DataLoader.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT), sequentialOutput);
+		PosColumns parallel = captureOutput(() -> ParallelPosLoader.load(file.getPath(), LoadOptions.DEFAULT.withParallelism(4)), parallelOutput);
+		
+		assertEquals(40000, sequential.size());
+		assertEquals(sequential.size(), parallel.size());
+		for (int i = 0; i < sequential.size(); i++) {
+			assertEquals(sequential.getEpochSecond(i), parallel.getEpochSecond(i));
+			assertEquals(sequential.getItemId(i), parallel.getItemId(i));
+		}
+		assertTrue(sequentialOutput.toString().contains("Invalid data in " + file.getPath() + ": 11 invalid lines (3, 4, "));
+		assertEquals(sequentialOutput.toString(), parallelOutput.toString());
+	}
+	
+	/**
+	 * Checks that a projected load decodes the projection's columns as a full load does and leaves the other columns empty.
+	 */
+	@Test
+	public void testProjection() throws IOException {
+		final File file = writePosFile();
+		final PosProjection projection = PosProjection.of(Globals.P_ITEM_ID, Globals.P_ITEM_TYPE);
+		assertEquals(3, projection.size());
+		
+		StringBuilder output = new StringBuilder();
+		PosColumns full = captureOutput(() -> DataLoader.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT), output);
+		PosColumns sequential = captureOutput(() -> DataLoader.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withProjection(projection)), output);
+		PosColumns parallel = captureOutput(() -> ParallelPosLoader.load(file.getPath(), LoadOptions.DEFAULT.withParallelism(4).withProjection(projection)), output);
+		
+		assertEquals(PosProjection.ALL, full.getProjection());
+		for (PosColumns projected : new PosColumns[] { sequential, parallel }) {
+			assertEquals(projection, projected.getProjection());
+			assertEquals(full.size(), projected.size());
+			for (int i = 0; i < full.size(); i++) {
+				assertEquals(full.getEpochSecond(i), projected.getEpochSecond(i));
+				assertEquals(full.getItemId(i), projected.getItemId(i));
+				assertEquals(full.getItemType(i), projected.getItemType(i));
+				assertEquals(0.0, projected.getDwellTime(i));
+				assertEquals(0.0, projected.getTemperature(i));
+				assertEquals(0, projected.getAdvertisedItemId(i));
+				assertNull(projected.getDayOfWeek(i));
+				assertFalse(projected.getBoughtAdvertised(i));
+			}
+		}
+	}
+	
+	/**
+	 * Checks that a filtered load keeps the rows of a full load accepted by the filter, and only those.
+	 */
+	@Test
+	public void testFilter() throws IOException {
+		final File file = writePosFile();
+		final DateFilter filter = DateFilter.parse("2016-08-23", "2016-08-25", "tue,thu", "10:00-12:30");
+		
+		StringBuilder output = new StringBuilder();
+		PosColumns full = captureOutput(() -> DataLoader.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT), output);
+		PosColumns sequential = captureOutput(() -> DataLoader.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withFilter(filter)), output);
+		PosColumns parallel = captureOutput(() -> ParallelPosLoader.load(file.getPath(), LoadOptions.DEFAULT.withParallelism(4).withFilter(filter).withErrors(new ParseErrors())), output);
+		
+		int accepted = 0;
+		for (int i = 0; i < full.size(); i++) {
+			if (filter.accepts(full.getEpochSecond(i))) {
+				for (PosColumns filtered : new PosColumns[] { sequential, parallel }) {
+					assertEquals(full.getEpochSecond(i), filtered.getEpochSecond(accepted));
+					assertEquals(full.getItemId(i), filtered.getItemId(accepted));
+				}
+				accepted++;
+			}
+		}
+		assertTrue(accepted > 0 && accepted < full.size());
+		assertEquals(accepted, sequential.size());
+		assertEquals(accepted, parallel.size());
+	}
+}
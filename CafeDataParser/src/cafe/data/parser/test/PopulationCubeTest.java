@@ -0,0 +1,90 @@
+package cafe.data.parser.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+import cafe.data.parser.CafeDataParser;
+import cafe.data.parser.PopulationCube;
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link PopulationCube}
+ * @author Ryan Zembrodt
+ */
+public class PopulationCubeTest extends TestCase {
+	
+	private static long epochSecond(String datetime) {
+		return LocalDateTime.parse(datetime).toEpochSecond(ZoneOffset.UTC);
+	}
+	
+	/**
+	 * Builds a cube of a Monday and the Monday after, added out of date order so the days are moved as they are added.
+	 */
+	private static PopulationCube twoMondays() {
+		PopulationCube cube = new PopulationCube(PopulationCube.HALF_HOUR);
+		cube.add(epochSecond("2016-08-29T11:45:00"), Age.ADULT, Gender.MALE);
+		cube.add(epochSecond("2016-08-22T11:00:00"), Age.CHILD, Gender.FEMALE);
+		cube.add(epochSecond("2016-08-22T11:29:59"), Age.SENIOR, Gender.MALE);
+		cube.add(epochSecond("2016-08-22T11:30:00"), 9, -1);
+		return cube;
+	}
+	
+	/**
+	 * Checks that each customer is counted in its day, half hour, age, and gender.
+	 */
+	@Test
+	public void testCounts() {
+		PopulationCube cube = twoMondays();
+		assertEquals(8, cube.getDayCount());
+		assertEquals(48, cube.getSlotCount());
+		assertEquals(epochSecond("2016-08-22T00:00:00"), cube.getDayStart(0));
+		assertEquals(0, cube.getDayOfWeek(0));
+		assertEquals(0, cube.getDayOfWeek(7));
+		assertTrue(cube.hasCustomers(0));
+		assertFalse(cube.hasCustomers(3));
+		
+		assertEquals(2, cube.getTotal(0, 22));
+		assertEquals(1, cube.getCount(0, 22, Age.CHILD, Gender.FEMALE));
+		assertEquals(1, cube.getGenderCount(0, 22, Gender.MALE));
+		assertEquals(1, cube.getAgeCount(0, 22, Age.SENIOR));
+		assertEquals(1, cube.getCount(0, 23, Age.UNKNOWN, Gender.UNKNOWN));
+		assertEquals(1, cube.getCount(7, 23, Age.ADULT, Gender.MALE));
+		assertEquals(epochSecond("2016-08-29T11:30:00"), cube.getSlotStart(7, 23));
+	}
+	
+	/**
+	 * Checks the rows of the population file and of the averages file.
+	 */
+	@Test
+	public void testFiles() throws IOException {
+		PopulationCube cube = twoMondays();
+		
+		ByteArrayOutputStream counts = new ByteArrayOutputStream();
+		try (CsvSink sink = new CsvSink(counts, 64)) {
+			CafeDataParser.buildPopulationFile(cube, sink);
+		}
+		String[] countLines = counts.toString().split("\n");
+		assertEquals(4, countLines.length);
+		assertEquals("2016-08-22T11:00,2016-08-22,MONDAY,22,2,1,1,1,0,0,1", countLines[1]);
+		assertEquals("2016-08-22T11:30,2016-08-22,MONDAY,23,1,0,0,0,0,0,0", countLines[2]);
+		assertEquals("2016-08-29T11:30,2016-08-29,MONDAY,23,1,1,0,0,0,1,0", countLines[3]);
+		
+		ByteArrayOutputStream averages = new ByteArrayOutputStream();
+		try (CsvSink sink = new CsvSink(averages, 64)) {
+			CafeDataParser.buildPopulationAvgFile(cube, sink);
+		}
+		String text = averages.toString();
+		// A row per half hour and one for the whole day, for Mondays and for every day.
+		assertEquals(1 + 2 * 49, text.split("\n").length);
+		assertTrue(text, text.contains("\nMONDAY,11:00,2,1.0,0.5,0.5,0.5,0.0,0.0,0.5\n"));
+		assertTrue(text, text.contains("\nMONDAY,11:30,2,1.0,0.5,0.0,0.0,0.0,0.5,0.0\n"));
+		assertTrue(text, text.contains("\nAll,All,2,2.0,1.0,0.5,0.5,0.0,0.5,0.5\n"));
+	}
+}
@@ -0,0 +1,105 @@
+package cafe.data.parser.test;
+
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+import cafe.data.parser.PointOfSaleData;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link PosColumns}
+ * @author Ryan Zembrodt
+ */
+public class PosColumnsTest extends TestCase {
+	private static final LocalDateTime DATE = LocalDateTime.of(2016, 8, 28, 11, 30, 0);
+	
+	private static PointOfSaleData row(LocalDateTime date, int itemId) {
+		return new PointOfSaleData(Age.SENIOR, Gender.FEMALE, 1.5, 2.5, 70.0, 40.0, "Rain",
+				10, "Food", "Hot", "Healthy", 7,
+				date, "SUNDAY", itemId, "Drink", "Cold", "Unhealthy", true);
+	}
+	
+	/**
+	 * Checks that every value of a row is kept, across the growth of the columns.
+	 */
+	@Test
+	public void testAddAndGet() {
+		PosColumns columns = new PosColumns(2);
+		for (int i = 0; i < 100; i++) {
+			columns.add(row(DATE.plusMinutes(i), i));
+		}
+		assertEquals(100, columns.size());
+		
+		PointOfSaleData pos = columns.getRow(42);
+		assertEquals(DATE.plusMinutes(42), pos.getDate());
+		assertEquals(DATE.plusMinutes(42), columns.getDate(42));
+		assertEquals(42, pos.getItemId());
+		assertTrue(pos.getAge().equals(Age.SENIOR));
+		assertTrue(columns.getGender(42).equals(Gender.FEMALE));
+		assertEquals(1.5, pos.getDwellTime());
+		assertEquals(2.5, pos.getAttentionTime());
+		assertEquals(70.0, pos.getTemperature());
+		assertEquals(40.0, pos.getHumidity());
+		assertEquals("Rain", pos.getPrecipitation());
+		assertEquals(10, pos.getAdvertisedItemId());
+		assertEquals("Food", pos.getAdvertisedItemType());
+		assertEquals("Hot", pos.getAdvertisedItemTemp());
+		assertEquals("Healthy", pos.getAdvertisedItemHealth());
+		assertEquals(7, pos.getTotalCustomersInStore());
+		assertEquals("SUNDAY", pos.getDayOfWeek());
+		assertEquals("Drink", pos.getItemType());
+		assertEquals("Cold", pos.getItemTemp());
+		assertEquals("Unhealthy", pos.getItemHealth());
+		assertTrue(pos.getBoughtAdvertised());
+		
+		// Repeated string values share one instance.
+		assertSame(columns.getItemType(0), columns.getItemType(99));
+		
+		columns.trimToSize();
+		assertEquals(100, columns.size());
+		assertEquals(99, columns.getItemId(99));
+	}
+	
+	/**
+	 * Checks that sorting orders the rows by date while keeping the added order of rows with the same date.
+	 */
+	@Test
+	public void testSortByDateIsStable() {
+		PosColumns columns = new PosColumns();
+		columns.add(row(DATE.plusMinutes(2), 1));
+		columns.add(row(DATE, 2));
+		columns.add(row(DATE.plusMinutes(2), 3));
+		columns.add(row(DATE, 4));
+		columns.add(row(DATE.plusMinutes(1), 5));
+		
+		columns.sortByDate();
+		
+		int[] expected = { 2, 4, 5, 1, 3 };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], columns.getItemId(i));
+		}
+	}
+	
+	/**
+	 * Checks that appending a store keeps the rows of both stores in order.
+	 */
+	@Test
+	public void testAddAll() {
+		PosColumns first = new PosColumns(1);
+		first.add(row(DATE, 1));
+		PosColumns second = new PosColumns(1);
+		second.add(row(DATE, 2));
+		second.add(row(DATE, 3));
+		
+		first.addAll(second);
+		
+		assertEquals(3, first.size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i + 1, first.getItemId(i));
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package cafe.data.parser.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cafe.data.parser.QuantileSketch;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link QuantileSketch}
+ * @author Ryan Zembrodt
+ */
+public class QuantileSketchTest extends TestCase {
+	
+	/**
+	 * @return the rank of a value in sorted values, as the number of values not above it
+	 */
+	private static int rank(double[] sorted, double value) {
+		int rank = Arrays.binarySearch(sorted, value + 0.5);
+		return rank < 0 ? -rank - 1 : rank;
+	}
+	
+	/**
+	 * Checks that a sketch holding every value gives the exact quantiles, and that it holds every value up to k values.
+	 */
+	@Test
+	public void testExact() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (int i = 100; i >= 1; i--) {
+			sketch.add(i);
+		}
+		assertEquals(100, sketch.getCount());
+		assertEquals(100, sketch.getRetained());
+		assertEquals(1.0, sketch.getQuantile(0.0));
+		assertEquals(1.0, sketch.getQuantile(0.01));
+		assertEquals(50.0, sketch.getQuantile(0.5));
+		assertEquals(90.0, sketch.getQuantile(0.9));
+		assertEquals(99.0, sketch.getQuantile(0.99));
+		assertEquals(100.0, sketch.getQuantile(1.0));
+		assertTrue(Double.isNaN(new QuantileSketch().getQuantile(0.5)));
+		
+		// The sketch only compacts once it holds more than k values.
+		for (int i = 101; i <= QuantileSketch.DEFAULT_K; i++) {
+			sketch.add(i);
+		}
+		assertEquals(QuantileSketch.DEFAULT_K, sketch.getRetained());
+		sketch.add(0);
+		assertTrue(sketch.getRetained() <= QuantileSketch.DEFAULT_K);
+	}
+	
+	/**
+	 * Checks that a long stream is held in bounded memory, with the rank of each quantile close to the fraction asked for.
+	 */
+	@Test
+	public void testAccuracy() {
+		int n = 1000000;
+		double[] values = new double[n];
+		Random random = new Random(7);
+		QuantileSketch sketch = new QuantileSketch();
+		for (int i = 0; i < n; i++) {
+			// Integer times as in the views data, skewed towards short times.
+			values[i] = (int)(60 * random.nextDouble() * random.nextDouble());
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(n, sketch.getCount());
+		// Each level's capacity is rounded up, so the bound of 3k is off by a value or two per level.
+		assertTrue(sketch.getRetained() + " values held", sketch.getRetained() <= 3 * QuantileSketch.DEFAULT_K + 64);
+		assertEquals(values[0], sketch.getMin());
+		assertEquals(values[n - 1], sketch.getMax());
+		
+		double[] fractions = { 0.1, 0.5, 0.9, 0.99 };
+		double[] quantiles = sketch.getQuantiles(fractions);
+		for (int q = 0; q < fractions.length; q++) {
+			// The value's ranks span the ranks of every copy of it, so the fraction must be within them, give or take the error.
+			int above = rank(values, quantiles[q]);
+			int below = rank(values, quantiles[q] - 1);
+			assertTrue(fractions[q] + ": " + quantiles[q], below <= (fractions[q] + 0.02) * n && above >= (fractions[q] - 0.02) * n);
+		}
+	}
+	
+	/**
+	 * Checks that merged sketches give the quantiles of the whole stream, and that the same stream always gives the same sketch.
+	 */
+	@Test
+	public void testMerge() {
+		QuantileSketch low = new QuantileSketch();
+		QuantileSketch high = new QuantileSketch();
+		QuantileSketch whole = new QuantileSketch();
+		for (int i = 0; i < 100000; i++) {
+			low.add(i);
+			high.add(100000 + i);
+			whole.add(i);
+			whole.add(100000 + i);
+		}
+		QuantileSketch merged = new QuantileSketch();
+		merged.merge(low);
+		merged.merge(high);
+		merged.merge(new QuantileSketch());
+		
+		assertEquals(200000, merged.getCount());
+		assertEquals(100000, low.getCount());
+		assertEquals(0.0, merged.getMin());
+		assertEquals(199999.0, merged.getMax());
+		assertTrue(merged.getRetained() <= 3 * QuantileSketch.DEFAULT_K + 64);
+		for (double fraction : new double[] { 0.25, 0.5, 0.9 }) {
+			assertEquals(fraction * 200000, merged.getQuantile(fraction), 0.02 * 200000);
+		}
+		
+		QuantileSketch again = new QuantileSketch();
+		for (int i = 0; i < 100000; i++) {
+			again.add(i);
+			again.add(100000 + i);
+		}
+		assertTrue(Arrays.equals(whole.getQuantiles(0.1, 0.5, 0.9), again.getQuantiles(0.1, 0.5, 0.9)));
+	}
+	
+	/**
+	 * Checks that invalid capacities and fractions are rejected.
+	 */
+	@Test
+	public void testInvalid() {
+		try {
+			new QuantileSketch(4);
+			fail("Accepted a capacity of 4");
+		} catch (IllegalArgumentException e) {
+			assertNotNull(e.getMessage());
+		}
+		QuantileSketch sketch = new QuantileSketch();
+		sketch.add(1);
+		for (double fraction : new double[] { -0.1, 1.5, Double.NaN }) {
+			try {
+				sketch.getQuantile(fraction);
+				fail("Accepted a fraction of " + fraction);
+			} catch (IllegalArgumentException e) {
+				assertNotNull(e.getMessage());
+			}
+		}
+	}
+}
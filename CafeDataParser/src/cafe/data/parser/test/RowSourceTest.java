@@ -0,0 +1,135 @@
+package cafe.data.parser.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.PointOfSaleData;
+import cafe.data.parser.RowSource;
+import cafe.data.parser.ViewsData;
+import cafe.data.parser.io.ParseErrors;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link RowSource}
+ * @author Ryan Zembrodt
+ */
+public class RowSourceTest extends TestCase {
+	
+	private static File writeFile(String data) throws IOException {
+		File file = File.createTempFile("rows", ".csv");
+		file.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(data.getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+	
+	/**
+	 * Writes a views file large enough to be split several times, with blank lines and invalid rows.
+	 */
+	private static File writeViewsFile(int rows) throws IOException {
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < rows; i++) {
+			data.append("1,").append(i % 2 + 1).append(",").append(i % 5 + 1).append(",2016-08-22 06:00:07,").append(i).append(",25,4\n");
+			if (i % 1000 == 0) {
+				data.append("\ninvalid,row\n");
+			}
+		}
+		return writeFile(data.toString());
+	}
+	
+	/**
+	 * Checks that rows are read one at a time in file order, skipping blank lines and counting invalid rows.
+	 */
+	@Test
+	public void testRead() throws IOException {
+		File file = writeFile("1,1,3,2016-08-22 06:00:07,5,25,4\n\n1,2,x\n2,2,4,2016-08-22 06:00:18,14,abc,3\n");
+		ParseErrors errors = new ParseErrors();
+		try (RowSource<ViewsData> source = RowSource.viewsData(file.getPath(), LoadOptions.DEFAULT.withErrors(errors))) {
+			ViewsData first = source.read();
+			assertEquals(5, first.getDwellTime());
+			assertEquals(3, first.getAge().getValue());
+			ViewsData second = source.read();
+			assertEquals(2, second.getLocationId());
+			assertEquals(0, second.getAttentionTime());
+			assertNull(source.read());
+		}
+		assertEquals(1, errors.getLineCount());
+		assertEquals(Integer.valueOf(3), errors.getLineSamples().get(0));
+		assertEquals(1, errors.getValueCount());
+		assertEquals(4, errors.getValueSamples().get(0).getLine());
+	}
+	
+	/**
+	 * Checks that a row with a malformed datetime is counted as an invalid line and skipped, the rows after it still being read.
+	 */
+	@Test
+	public void testInvalidDate() throws IOException {
+		File file = writeFile("1,1,3,2016-08-22 06:00:07,5,25,4\n1,1,3,not-a-date,6,25,4\n1,1,3,2016-08-22 xx:31:50,7,25,4\n1,1,3,2016-08-22 06:00:18,8,25,4\n");
+		ParseErrors errors = new ParseErrors();
+		try (RowSource<ViewsData> source = RowSource.viewsData(file.getPath(), LoadOptions.DEFAULT.withErrors(errors))) {
+			assertEquals(5, source.read().getDwellTime());
+			assertEquals(8, source.read().getDwellTime());
+			assertNull(source.read());
+		}
+		assertEquals(2, errors.getLineCount());
+		assertEquals(Integer.valueOf(2), errors.getLineSamples().get(0));
+		assertEquals(Integer.valueOf(3), errors.getLineSamples().get(1));
+		assertEquals(0, errors.getValueCount());
+	}
+	
+	/**
+	 * Checks that a parallel stream returns the same rows in the same order as a sequential one,
+	 * and reports the invalid rows with their line numbers in the whole file.
+	 */
+	@Test
+	public void testParallelStream() throws IOException {
+		File file = writeViewsFile(20000);
+		assertTrue(file.length() > 512 * 1024);
+		
+		ParseErrors sequentialErrors = new ParseErrors();
+		ParseErrors parallelErrors = new ParseErrors();
+		List<Integer> sequential;
+		List<Integer> parallel;
+		try (Stream<ViewsData> rows = RowSource.viewsData(file.getPath(), LoadOptions.DEFAULT.withErrors(sequentialErrors)).stream()) {
+			sequential = rows.map(ViewsData::getDwellTime).collect(Collectors.toList());
+		}
+		try (Stream<ViewsData> rows = RowSource.viewsData(file.getPath(), LoadOptions.DEFAULT.withErrors(parallelErrors)).stream().parallel()) {
+			parallel = rows.map(ViewsData::getDwellTime).collect(Collectors.toList());
+		}
+		
+		assertEquals(20000, sequential.size());
+		assertEquals(sequential, parallel);
+		assertEquals(20, sequentialErrors.getLineCount());
+		assertEquals(sequentialErrors.toString(), parallelErrors.toString());
+		assertEquals(Integer.valueOf(3), parallelErrors.getLineSamples().get(0));
+	}
+	
+	/**
+	 * Checks that the point of sale rows are returned in file order with the shared dictionary values.
+	 */
+	@Test
+	public void testPointOfSaleData() throws IOException {
+		File file = writeFile("Adult,3,Male,1,1.5,2.5,20.0,50.0,Clear,7,Food,Hot,Healthy,10,2016-08-22 10:05:00,MONDAY,2,Drink,Cold,Unhealthy,TRUE\n"
+				+ "Child,1,Female,2,1.5,2.5,10.0,50.0,Rain,7,Food,Hot,Healthy,10,2016-08-22 10:00:00,MONDAY,1,Food,Hot,Healthy,FALSE\n");
+		try (RowSource<PointOfSaleData> source = RowSource.pointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withErrors(new ParseErrors()))) {
+			PointOfSaleData first = source.read();
+			assertEquals(2, first.getItemId());
+			assertEquals("Drink", first.getItemType());
+			assertEquals(68.0, first.getTemperature());
+			assertTrue(first.getBoughtAdvertised());
+			PointOfSaleData second = source.read();
+			assertSame(first.getAdvertisedItemType(), second.getItemType());
+			assertEquals("Rain", second.getPrecipitation());
+			assertNull(source.read());
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package cafe.data.parser.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import cafe.data.parser.DataLoader;
+import cafe.data.parser.DateFilter;
+import cafe.data.parser.CustomerAssembler;
+import cafe.data.parser.LoadOptions;
+import cafe.data.parser.PosColumns;
+import cafe.data.parser.PosProjection;
+import cafe.data.parser.SnapshotCache;
+import cafe.data.parser.WeatherData;
+import cafe.data.parser.io.SnapshotReader;
+import cafe.data.parser.io.SnapshotWriter;
+import cafe.data.parser.io.SourceStamp;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link SnapshotCache}
+ * @author Ryan Zembrodt
+ */
+public class SnapshotCacheTest extends TestCase {
+	
+	private static File writeFile(String suffix, String data) throws IOException {
+		File file = File.createTempFile("snapshot", suffix);
+		file.deleteOnExit();
+		SnapshotCache.snapshotOf(file.getPath()).deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(data.getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+	
+	private static String posRow(String date, int itemId, String itemType) {
+		return "Adult,3,Male,1,1.5,2.5,20.0,50.0,Clear,7,Food,Hot,Healthy,10," + date + ",MONDAY," + itemId + "," + itemType + ",Cold,Unhealthy,TRUE\n";
+	}
+	
+	/**
+	 * Checks that the snapshot written on the first load gives the same POS data as parsing the file.
+	 */
+	@Test
+	public void testPointOfSaleSnapshot() throws IOException {
+		File file = writeFile(".csv", posRow("2016-08-22 10:05:00", 2, "Drink") + posRow("2016-08-22 10:00:00", 1, "Food"));
+		
+		PosColumns parsed = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT);
+		assertTrue(SnapshotCache.snapshotOf(file.getPath()).isFile());
+		PosColumns cached = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT);
+		
+		assertEquals(2, cached.size());
+		for (int i = 0; i < parsed.size(); i++) {
+			assertEquals(parsed.getEpochSecond(i), cached.getEpochSecond(i));
+			assertEquals(parsed.getItemId(i), cached.getItemId(i));
+			assertEquals(parsed.getItemType(i), cached.getItemType(i));
+			assertEquals(parsed.getItemTypeCode(i), cached.getItemTypeCode(i));
+			assertEquals(parsed.getAdvertisedItemHealth(i), cached.getAdvertisedItemHealth(i));
+			assertEquals(parsed.getTemperature(i), cached.getTemperature(i));
+			assertEquals(parsed.getBoughtAdvertised(i), cached.getBoughtAdvertised(i));
+			assertTrue(parsed.getAge(i).equals(cached.getAge(i)));
+		}
+	}
+	
+	/**
+	 * Checks that a snapshot is only read if it holds every column asked for.
+	 */
+	@Test
+	public void testProjectedPointOfSaleData() throws IOException {
+		File file = writeFile(".csv", posRow("2016-08-22 10:05:00", 2, "Drink") + posRow("2016-08-22 10:00:00", 1, "Food"));
+		
+		PosColumns projected = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withProjection(CustomerAssembler.COLUMNS));
+		assertEquals(CustomerAssembler.COLUMNS, projected.getProjection());
+		assertTrue(SnapshotCache.snapshotOf(file.getPath()).isFile());
+		assertEquals(CustomerAssembler.COLUMNS, SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withProjection(CustomerAssembler.COLUMNS)).getProjection());
+		
+		// The snapshot lacks the dwell time so the file is parsed again, and its snapshot replaced.
+		PosColumns full = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT);
+		assertEquals(PosProjection.ALL, full.getProjection());
+		assertEquals(1.5, full.getDwellTime(0));
+		
+		PosColumns cached = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withProjection(CustomerAssembler.COLUMNS));
+		assertEquals(PosProjection.ALL, cached.getProjection());
+		assertEquals(1.5, cached.getDwellTime(0));
+		assertEquals(projected.getItemId(0), cached.getItemId(0));
+	}
+	
+	/**
+	 * Checks that a filtered load only writes a snapshot when it parsed every row, and filters the rows read from a snapshot.
+	 */
+	@Test
+	public void testFilteredLoad() throws IOException {
+		File file = writeFile(".csv", posRow("2016-08-23 10:00:00", 2, "Drink") + posRow("2016-08-22 10:00:00", 1, "Food")
+				+ posRow("2016-08-22 15:00:00", 3, "Food"));
+		DateFilter filter = DateFilter.parse(null, null, "mon", "09:00-12:00");
+		
+		PosColumns parsed = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withFilter(filter));
+		assertEquals(1, parsed.size());
+		assertEquals(1, parsed.getItemId(0));
+		assertFalse(SnapshotCache.snapshotOf(file.getPath()).exists());
+		
+		assertEquals(3, SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT).size());
+		assertTrue(SnapshotCache.snapshotOf(file.getPath()).isFile());
+		PosColumns cached = SnapshotCache.loadPointOfSaleData(file.getPath(), LoadOptions.DEFAULT.withFilter(filter));
+		assertEquals(1, cached.size());
+		assertEquals(1, cached.getItemId(0));
+		assertEquals(parsed.getEpochSecond(0), cached.getEpochSecond(0));
+		
+		File weather = writeFile(".csv", "08/22/2016 10:00:00 AM,20.0,50,Clear,FALSE\n08/23/2016 10:15:00 AM,21.0,55,Rain,TRUE\n");
+		List<WeatherData> all = SnapshotCache.loadWeatherData(weather.getPath(), LoadOptions.DEFAULT);
+		assertEquals(2, all.size());
+		List<WeatherData> filtered = SnapshotCache.loadWeatherData(weather.getPath(), LoadOptions.DEFAULT.withFilter(filter));
+		assertEquals(1, filtered.size());
+		assertEquals(all.get(0).getTemperature(), filtered.get(0).getTemperature());
+	}
+	
+	/**
+	 * Checks that the weather data is read back from its snapshot, and parsed again once the file changes.
+	 */
+	@Test
+	public void testWeatherSnapshotInvalidation() throws IOException {
+		File file = writeFile(".csv", "08/22/2016 10:00:00 AM,20.0,50,Clear,FALSE\n08/22/2016 10:15:00 AM,21.0,55,Rain,TRUE\n");
+		
+		List<WeatherData> parsed = SnapshotCache.loadWeatherData(file.getPath(), LoadOptions.DEFAULT);
+		List<WeatherData> cached = SnapshotCache.loadWeatherData(file.getPath(), LoadOptions.DEFAULT);
+		assertEquals(2, cached.size());
+		for (int i = 0; i < parsed.size(); i++) {
+			assertEquals(parsed.get(i).getDate(), cached.get(i).getDate());
+			assertEquals(parsed.get(i).getTemperature(), cached.get(i).getTemperature());
+			assertEquals(parsed.get(i).getHumidity(), cached.get(i).getHumidity());
+			assertEquals(parsed.get(i).getPercipitation(), cached.get(i).getPercipitation());
+			assertEquals(parsed.get(i).isSevereWeather(), cached.get(i).isSevereWeather());
+		}
+		
+		// Changing the file must not return the stale snapshot, even if the modified time is kept.
+		long lastModified = file.lastModified();
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write("08/22/2016 10:30:00 AM,22.0,60,Snow,FALSE\n".getBytes(StandardCharsets.UTF_8));
+		}
+		file.setLastModified(lastModified);
+		List<WeatherData> changed = SnapshotCache.loadWeatherData(file.getPath(), LoadOptions.DEFAULT);
+		assertEquals(3, changed.size());
+		assertEquals(DataLoader.loadWeatherData(file.getPath(), LoadOptions.DEFAULT).get(2).getPercipitation(), changed.get(2).getPercipitation());
+	}
+	
+	/**
+	 * Checks that two writers of the same snapshot each write their own temporary file, the last one to commit giving the snapshot.
+	 */
+	@Test
+	public void testConcurrentSnapshotWriters() throws IOException {
+		File file = writeFile(".csv", "data\n");
+		File snapshot = SnapshotCache.snapshotOf(file.getPath());
+		SourceStamp stamp = SourceStamp.of(file);
+		try (SnapshotWriter first = new SnapshotWriter(snapshot, 1, stamp);
+				SnapshotWriter second = new SnapshotWriter(snapshot, 1, stamp)) {
+			first.writeInt(1);
+			second.writeInt(2);
+			second.commit();
+			first.commit();
+		}
+		SnapshotReader reader = SnapshotReader.open(snapshot, 1, stamp);
+		assertNotNull(reader);
+		assertEquals(1, reader.readInt());
+		assertTrue(reader.isComplete());
+		
+		File[] temps = snapshot.getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.startsWith(snapshot.getName() + ".") && name.endsWith(".tmp"));
+		assertEquals(0, temps.length);
+	}
+}
@@ -0,0 +1,124 @@
+package cafe.data.parser.test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import cafe.data.parser.TimeBucketer;
+import cafe.data.parser.TimeBucketer.Rounding;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link TimeBucketer}
+ * @author Ryan Zembrodt
+ */
+public class TimeBucketerTest extends TestCase {
+	
+	private static long epochSecond(String datetime) {
+		return LocalDateTime.parse(datetime).toEpochSecond(ZoneOffset.UTC);
+	}
+	
+	/**
+	 * Checks each rounding on and around the bounds of a bucket.
+	 */
+	@Test
+	public void testRounding() {
+		TimeBucketer floor = TimeBucketer.ofMinutes(15, Rounding.FLOOR);
+		TimeBucketer nearest = TimeBucketer.ofMinutes(15, Rounding.NEAREST);
+		TimeBucketer ceil = TimeBucketer.ofMinutes(15, Rounding.CEIL);
+		long quarter = epochSecond("2016-08-28T09:15:00");
+		long next = epochSecond("2016-08-28T09:30:00");
+		
+		for (TimeBucketer bucketer : new TimeBucketer[] { floor, nearest, ceil }) {
+			assertEquals(bucketer.toString(), quarter, bucketer.round(quarter));
+		}
+		assertEquals(quarter, floor.round(next - 1));
+		assertEquals(next, ceil.round(quarter + 1));
+		assertEquals(quarter, nearest.round(quarter + 449));
+		assertEquals(next, nearest.round(quarter + 450));
+		assertEquals(floor.bucket(quarter) + 1, floor.bucket(next));
+		assertEquals(quarter, floor.start(floor.bucket(quarter + 10)));
+	}
+	
+	/**
+	 * Checks that the eighth hour buckets fall on the half minutes, rounding the datetimes the original toEighthHour got wrong.
+	 */
+	@Test
+	public void testEighthHour() {
+		TimeBucketer bucketer = TimeBucketer.EIGHTH_HOUR;
+		assertEquals(450, bucketer.getWidth());
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 7, 30), bucketer.round(LocalDateTime.of(2016, 8, 28, 9, 7, 45)));
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 22, 30), bucketer.round(LocalDateTime.of(2016, 8, 28, 9, 22, 50)));
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 30), bucketer.round(LocalDateTime.of(2016, 8, 28, 9, 29, 50)));
+		assertEquals(LocalDateTime.of(2016, 8, 28, 10, 0), bucketer.round(LocalDateTime.of(2016, 8, 28, 9, 56, 15)));
+	}
+	
+	/**
+	 * Checks that the buckets of every width line up with LocalDateTime arithmetic, across days and before the epoch.
+	 */
+	@Test
+	public void testWidths() {
+		double[] widths = { 1, 5, 7.5, 15, 30, 60, 1440 };
+		LocalDateTime[] datetimes = {
+				LocalDateTime.of(2016, 8, 28, 23, 59, 59),
+				LocalDateTime.of(2016, 12, 31, 23, 52, 31),
+				LocalDateTime.of(1969, 12, 31, 23, 44, 10)
+		};
+		for (double width : widths) {
+			TimeBucketer bucketer = TimeBucketer.ofMinutes(width, Rounding.FLOOR);
+			for (LocalDateTime datetime : datetimes) {
+				LocalDateTime midnight = datetime.toLocalDate().atStartOfDay();
+				long seconds = (long)(width * 60);
+				long secondOfDay = datetime.toLocalTime().toSecondOfDay();
+				LocalDateTime expected = midnight.plusSeconds(secondOfDay / seconds * seconds);
+				assertEquals(width + " " + datetime, expected, bucketer.round(datetime));
+			}
+		}
+		assertEquals(LocalDateTime.of(2016, 8, 29, 0, 0), TimeBucketer.ofMinutes(1440, Rounding.CEIL).round(LocalDateTime.of(2016, 8, 28, 0, 0, 1)));
+		assertEquals(TimeBucketer.DAY.bucket(epochSecond("2016-08-28T00:00:00")), TimeBucketer.DAY.bucket(epochSecond("2016-08-28T23:59:59")));
+	}
+	
+	/**
+	 * Checks that widths that are not whole seconds, or that do not line up with days, are rejected.
+	 */
+	@Test
+	public void testInvalidWidths() {
+		double[] widths = { 0, -15, 0.001, 7, 1000 };
+		for (double width : widths) {
+			try {
+				TimeBucketer.ofMinutes(width, Rounding.FLOOR);
+				fail("Accepted a width of " + width + " minutes");
+			} catch (IllegalArgumentException e) {
+				assertNotNull(e.getMessage());
+			}
+		}
+		assertEquals(7 * 86400, new TimeBucketer(7 * 86400, Rounding.FLOOR).getWidth());
+	}
+	
+	/**
+	 * Checks the slot of day of datetimes, including one rounded up into the next day and one before the epoch.
+	 */
+	@Test
+	public void testSlotOfDay() {
+		TimeBucketer halfHour = TimeBucketer.ofMinutes(30, Rounding.FLOOR);
+		assertEquals(48, halfHour.getBucketsPerDay());
+		assertEquals(19, halfHour.slotOfDay(epochSecond("2016-08-28T09:45:10")));
+		assertEquals(47, halfHour.slotOfDay(epochSecond("1969-12-31T23:59:59")));
+		assertEquals(0, TimeBucketer.QUARTER_HOUR.slotOfDay(epochSecond("2016-08-28T23:55:00")));
+		assertEquals(595, TimeBucketer.MINUTE.slotOfDay(epochSecond("2016-08-28T09:55:59")));
+		assertEquals(1, TimeBucketer.DAY.getBucketsPerDay());
+		assertEquals(0, TimeBucketer.DAY.slotOfDay(epochSecond("2016-08-28T09:55:59")));
+	}
+	
+	/**
+	 * Checks the date order of datetimes already in order, out of order, and with equal datetimes.
+	 */
+	@Test
+	public void testDateOrder() {
+		assertTrue(Arrays.equals(new int[] { 0, 1, 2 }, TimeBucketer.dateOrder(new long[] { 5, 5, 9 })));
+		assertTrue(Arrays.equals(new int[] { 1, 3, 0, 2 }, TimeBucketer.dateOrder(new long[] { 9, -4, 9, 2 })));
+		assertEquals(0, TimeBucketer.dateOrder(new long[0]).length);
+	}
+}
@@ -0,0 +1,130 @@
+package cafe.data.parser.test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cafe.data.parser.Customer;
+import cafe.data.parser.ViewsCustomerJoin;
+import cafe.data.parser.ViewsData;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link ViewsCustomerJoin}
+ * @author Ryan Zembrodt
+ */
+public class ViewsCustomerJoinTest extends TestCase {
+	
+	private static LocalDateTime time(int hour, int minute, int second) {
+		return LocalDateTime.of(2016, 8, 22, hour, minute, second);
+	}
+	
+	private static ViewsData view(int gender, int age, LocalDateTime datetime, int dwellTime, int attentionTime) {
+		return new ViewsData(1, gender, age, datetime, dwellTime, attentionTime, 1);
+	}
+	
+	private static Customer customer(int gender, int age, LocalDateTime datetime) {
+		return new Customer(datetime, "MONDAY", gender, age, false, 70.0, "Clear");
+	}
+	
+	/**
+	 * Checks that a customer is matched with the impressions of their age and gender within the lookback window, both ends included.
+	 */
+	@Test
+	public void testJoin() {
+		List<ViewsData> viewsData = new ArrayList<ViewsData>();
+		viewsData.add(view(Gender.FEMALE, Age.ADULT, time(11, 44, 59), 1, 1)); // Before the window
+		viewsData.add(view(Gender.FEMALE, Age.ADULT, time(11, 45, 0), 10, 2));
+		viewsData.add(view(Gender.MALE, Age.ADULT, time(11, 50, 0), 100, 100)); // Other gender
+		viewsData.add(view(Gender.FEMALE, Age.ADULT, time(11, 55, 0), 20, 4));
+		viewsData.add(view(Gender.FEMALE, Age.ADULT, time(12, 0, 0), 30, 8));
+		viewsData.add(view(Gender.FEMALE, Age.ADULT, time(12, 0, 1), 1, 1)); // After the purchase
+		viewsData.add(view(Gender.MALE, 9, time(11, 58, 0), 5, 5)); // Unsupported age
+		
+		List<Customer> customers = new ArrayList<Customer>();
+		customers.add(customer(Gender.FEMALE, Age.ADULT, time(12, 0, 0)));
+		customers.add(customer(Gender.MALE, Age.UNKNOWN, time(12, 0, 0)));
+		customers.add(customer(Gender.MALE, Age.CHILD, time(12, 0, 0)));
+		
+		ViewsCustomerJoin join = ViewsCustomerJoin.join(viewsData, customers);
+		assertEquals(3, join.size());
+		assertEquals(ViewsCustomerJoin.DEFAULT_LOOKBACK, join.getLookback());
+		assertSame(customers.get(0), join.getCustomer(0));
+		assertEquals(3, join.getImpressions(0));
+		assertEquals(60, join.getDwellTime(0));
+		assertEquals(14, join.getAttentionTime(0));
+		assertEquals(0, join.getSecondsSinceImpression(0));
+		assertEquals(1, join.getImpressions(1));
+		assertEquals(5, join.getDwellTime(1));
+		assertEquals(120, join.getSecondsSinceImpression(1));
+		assertEquals(0, join.getImpressions(2));
+		assertEquals(0, join.getAttentionTime(2));
+		assertEquals(-1, join.getSecondsSinceImpression(2));
+		
+		join = ViewsCustomerJoin.join(viewsData, customers, 0);
+		assertEquals(1, join.getImpressions(0));
+		assertEquals(30, join.getDwellTime(0));
+	}
+	
+	/**
+	 * Checks the sweep against matching every customer with every impression, on unsorted data with many customers per window.
+	 */
+	@Test
+	public void testJoinUnsorted() {
+		Random random = new Random(11);
+		LocalDateTime start = time(6, 0, 0);
+		List<ViewsData> viewsData = new ArrayList<ViewsData>();
+		for (int i = 0; i < 2000; i++) {
+			viewsData.add(view(random.nextInt(3), random.nextInt(5), start.plusSeconds(random.nextInt(36000)), random.nextInt(60), random.nextInt(30)));
+		}
+		List<Customer> customers = new ArrayList<Customer>();
+		for (int i = 0; i < 500; i++) {
+			customers.add(customer(random.nextInt(3), random.nextInt(5), start.plusSeconds(random.nextInt(36000))));
+		}
+		
+		int lookback = 600;
+		ViewsCustomerJoin join = ViewsCustomerJoin.join(viewsData, customers, lookback);
+		int matched = 0;
+		for (int c = 0; c < customers.size(); c++) {
+			Customer customer = customers.get(c);
+			int impressions = 0;
+			long dwellTime = 0, attentionTime = 0, latest = Long.MIN_VALUE;
+			for (ViewsData view : viewsData) {
+				long before = customer.getEpochSecond() - view.getEpochSecond();
+				if (view.getAge().equals(customer.getAge().getValue()) && view.getGender().equals(customer.getGender().getValue())
+						&& before >= 0 && before <= lookback) {
+					impressions++;
+					dwellTime += view.getDwellTime();
+					attentionTime += view.getAttentionTime();
+					latest = Math.max(latest, view.getEpochSecond());
+				}
+			}
+			assertEquals(impressions, join.getImpressions(c));
+			assertEquals(dwellTime, join.getDwellTime(c));
+			assertEquals(attentionTime, join.getAttentionTime(c));
+			assertEquals(impressions > 0 ? customer.getEpochSecond() - latest : -1, join.getSecondsSinceImpression(c));
+			if (impressions > 0) {
+				matched++;
+			}
+		}
+		assertTrue(matched > 100);
+	}
+	
+	/**
+	 * Checks that a negative lookback is rejected.
+	 */
+	@Test
+	public void testInvalidLookback() {
+		try {
+			ViewsCustomerJoin.join(new ArrayList<ViewsData>(), new ArrayList<Customer>(), -1);
+			fail("Accepted a negative lookback");
+		} catch (IllegalArgumentException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+}
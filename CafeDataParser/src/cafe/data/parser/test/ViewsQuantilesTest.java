@@ -0,0 +1,56 @@
+package cafe.data.parser.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import cafe.data.parser.CafeDataParser;
+import cafe.data.parser.ViewsData;
+import cafe.data.parser.ViewsQuantiles;
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.wrapper.Age;
+import cafe.data.parser.wrapper.Gender;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link ViewsQuantiles}
+ * @author Ryan Zembrodt
+ */
+public class ViewsQuantilesTest extends TestCase {
+	
+	/**
+	 * Checks that each view is added to the sketches of its age, gender, and half hour, and that the percentiles file has a row per group.
+	 */
+	@Test
+	public void testPercentiles() throws IOException {
+		List<ViewsData> views = new ArrayList<ViewsData>();
+		for (int i = 1; i <= 100; i++) {
+			views.add(new ViewsData(1, Gender.FEMALE, Age.ADULT, LocalDateTime.of(2016, 8, 22, 11, i % 30), i, 2 * i, 1));
+		}
+		views.add(new ViewsData(1, Gender.MALE, Age.CHILD, LocalDateTime.of(2016, 8, 22, 12, 45), 7, 3, 1));
+		views.add(new ViewsData(1, 5, 9, LocalDateTime.of(2016, 8, 23, 12, 50), 8, 4, 1));
+		ViewsQuantiles quantiles = ViewsQuantiles.of(views);
+		
+		assertEquals(48, quantiles.getSlotCount());
+		assertEquals(100, quantiles.getDwellTimes(Age.ADULT, Gender.FEMALE, 22).getCount());
+		assertEquals(50.0, quantiles.getDwellTimes(Age.ADULT, Gender.FEMALE, 22).getQuantile(0.5));
+		assertEquals(180.0, quantiles.getAttentionTimes(Age.ADULT, Gender.FEMALE, 22).getQuantile(0.9));
+		assertNull(quantiles.getDwellTimes(Age.ADULT, Gender.FEMALE, 23));
+		assertEquals(2, quantiles.getDwellTimes(Age.CHILD, Gender.MALE).getCount() + quantiles.getDwellTimes(Age.UNKNOWN, Gender.UNKNOWN).getCount());
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (CsvSink sink = new CsvSink(out, 64)) {
+			CafeDataParser.buildViewsPercentilesFile(quantiles, sink);
+		}
+		String[] lines = out.toString().split("\n");
+		assertEquals(7, lines.length);
+		assertEquals("Unknown,Unknown,12:30,1,8.0,8.0,8.0,4.0,4.0,4.0", lines[1]);
+		assertEquals("Child,Male,All,1,7.0,7.0,7.0,3.0,3.0,3.0", lines[4]);
+		assertEquals("Adult,Female,11:00,100,50.0,90.0,99.0,100.0,180.0,198.0", lines[5]);
+		assertEquals("Adult,Female,All,100,50.0,90.0,99.0,100.0,180.0,198.0", lines[6]);
+	}
+}
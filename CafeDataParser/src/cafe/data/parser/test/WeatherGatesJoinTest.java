@@ -0,0 +1,78 @@
+package cafe.data.parser.test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import cafe.data.parser.GatesData;
+import cafe.data.parser.WeatherData;
+import cafe.data.parser.WeatherGatesJoin;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link WeatherGatesJoin}
+ * @author Ryan Zembrodt
+ */
+public class WeatherGatesJoinTest extends TestCase {
+
+	private static WeatherData weather(int hour, int minute, int second) {
+		return new WeatherData(LocalDateTime.of(2016, 8, 28, hour, minute, second), 50.0, 40, "Clear", false);
+	}
+
+	private static GatesData gate(int hour, int minute, int in, int out) {
+		return new GatesData(1, 1, LocalDateTime.of(2016, 8, 28, hour, minute, 0), 60, in, out);
+	}
+
+	/**
+	 * Checks that every gates entry in a weather entry's quarter hour is summed and that weather entries without gates data are left out.
+	 */
+	@Test
+	public void testJoin() {
+		List<WeatherData> weatherData = new ArrayList<WeatherData>();
+		weatherData.add(weather(8, 0, 0)); // No gates data
+		weatherData.add(weather(9, 7, 31)); // Rounds to 9:15
+		weatherData.add(weather(9, 29, 0)); // Rounds to 9:30
+
+		List<GatesData> gatesData = new ArrayList<GatesData>();
+		gatesData.add(gate(9, 10, 1, 2));
+		gatesData.add(gate(9, 15, 3, 4));
+		gatesData.add(gate(9, 22, 5, 6));
+		gatesData.add(gate(9, 23, 7, 8)); // Rounds to 9:30
+
+		WeatherGatesJoin join = WeatherGatesJoin.join(weatherData, gatesData);
+
+		assertEquals(2, join.size());
+		assertSame(weatherData.get(1), join.getWeather(0));
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 15), join.getQuarterHour(0));
+		assertEquals(9, join.getInCount(0));
+		assertEquals(12, join.getOutCount(0));
+		assertSame(weatherData.get(2), join.getWeather(1));
+		assertEquals(7, join.getInCount(1));
+		assertEquals(8, join.getOutCount(1));
+	}
+
+	/**
+	 * Checks that unsorted weather and gates data give the same sums as sorted data while keeping the weather order.
+	 */
+	@Test
+	public void testJoinUnsorted() {
+		List<WeatherData> weatherData = new ArrayList<WeatherData>();
+		weatherData.add(weather(9, 30, 0));
+		weatherData.add(weather(9, 15, 0));
+
+		List<GatesData> gatesData = new ArrayList<GatesData>();
+		gatesData.add(gate(9, 30, 1, 1));
+		gatesData.add(gate(9, 15, 2, 2));
+		gatesData.add(gate(9, 31, 4, 4));
+
+		WeatherGatesJoin join = WeatherGatesJoin.join(weatherData, gatesData);
+
+		assertEquals(2, join.size());
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 30), join.getQuarterHour(0));
+		assertEquals(5, join.getInCount(0));
+		assertEquals(LocalDateTime.of(2016, 8, 28, 9, 15), join.getQuarterHour(1));
+		assertEquals(2, join.getInCount(1));
+	}
+}
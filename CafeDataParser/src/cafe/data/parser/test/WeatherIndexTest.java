@@ -0,0 +1,124 @@
+package cafe.data.parser.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cafe.data.parser.CafeDataParser;
+import cafe.data.parser.ViewsData;
+import cafe.data.parser.WeatherData;
+import cafe.data.parser.WeatherIndex;
+import cafe.data.parser.io.CsvSink;
+import cafe.data.parser.io.TimestampDecoder;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link WeatherIndex}
+ * @author Ryan Zembrodt
+ */
+public class WeatherIndexTest extends TestCase {
+	
+	private static long time(int hour, int minute) {
+		return TimestampDecoder.toEpochSecond(LocalDateTime.of(2016, 8, 22, hour, minute));
+	}
+	
+	private static WeatherData weather(int hour, int minute, double temperature, int humidity, String precipitation) {
+		return new WeatherData(time(hour, minute), temperature, humidity, precipitation, false);
+	}
+	
+	/**
+	 * Builds an index of readings given out of date order, two of them at 10:00.
+	 */
+	private static WeatherIndex readings() {
+		List<WeatherData> weatherData = new ArrayList<WeatherData>();
+		weatherData.add(weather(10, 30, 70.0, 40, "Rain"));
+		weatherData.add(weather(10, 0, 50.0, 80, "Clear"));
+		weatherData.add(weather(10, 0, 60.0, 60, "Clouds"));
+		return WeatherIndex.of(weatherData);
+	}
+	
+	/**
+	 * Checks that the latest reading at or before a datetime is found, the last one of several at the same datetime.
+	 */
+	@Test
+	public void testIndexAt() {
+		WeatherIndex index = readings();
+		assertEquals(3, index.size());
+		assertEquals(time(10, 30), index.getEpochSecond(2));
+		assertEquals(-1, index.indexAt(time(9, 59)));
+		assertEquals(1, index.indexAt(time(10, 0)));
+		assertEquals("Clouds", index.getPrecipitation(1));
+		assertEquals(1, index.indexAt(time(10, 29)));
+		assertEquals(2, index.indexAt(time(10, 30)));
+		assertEquals(2, index.indexAt(time(23, 0)));
+		assertEquals(-1, WeatherIndex.of(new ArrayList<WeatherData>()).indexAt(time(10, 0)));
+	}
+	
+	/**
+	 * Checks the interpolation between the readings, and its value before the first and after the last reading.
+	 */
+	@Test
+	public void testInterpolation() {
+		WeatherIndex index = readings();
+		assertTrue(Double.isNaN(index.getTemperatureAt(time(9, 0))));
+		assertEquals(60.0, index.getTemperatureAt(time(10, 0)), 1e-9);
+		assertEquals(65.0, index.getTemperatureAt(time(10, 15)), 1e-9);
+		assertEquals(44.0, index.getHumidityAt(time(10, 24)), 1e-9);
+		assertEquals(70.0, index.getTemperatureAt(time(12, 0)), 1e-9);
+		
+		WeatherIndex.Cursor cursor = index.cursor();
+		assertEquals(65.0, cursor.getTemperatureAt(time(10, 15)), 1e-9);
+		assertEquals(40.0, cursor.getHumidityAt(time(11, 0)), 1e-9);
+	}
+	
+	/**
+	 * Checks that a cursor finds the same readings as the binary search, for datetimes in date order and going back in time.
+	 */
+	@Test
+	public void testCursor() {
+		Random random = new Random(5);
+		List<WeatherData> weatherData = new ArrayList<WeatherData>();
+		for (int i = 0; i < 500; i++) {
+			weatherData.add(new WeatherData(time(6, 0) + random.nextInt(36000), 60.0, 50, "Clear", false));
+		}
+		WeatherIndex index = WeatherIndex.of(weatherData);
+		for (int i = 1; i < index.size(); i++) {
+			assertTrue(index.getEpochSecond(i) >= index.getEpochSecond(i - 1));
+		}
+		
+		long[] probes = new long[2000];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = time(5, 0) + random.nextInt(46800);
+		}
+		Arrays.sort(probes, 0, 1500);
+		WeatherIndex.Cursor cursor = index.cursor();
+		for (long probe : probes) {
+			assertEquals(index.indexAt(probe), cursor.seek(probe));
+		}
+	}
+	
+	/**
+	 * Checks the rows of the views weather file, with 'NA' for a view before the first reading.
+	 */
+	@Test
+	public void testViewsWeatherFile() throws IOException {
+		List<ViewsData> viewsData = new ArrayList<ViewsData>();
+		viewsData.add(new ViewsData(1, 1, 3, time(9, 0), 5, 2, 1));
+		viewsData.add(new ViewsData(1, 2, 1, time(10, 15), 7, 3, 1));
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (CsvSink sink = new CsvSink(out, 64)) {
+			CafeDataParser.buildViewsWeatherFile(viewsData, readings(), sink);
+		}
+		String[] lines = out.toString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("2016-08-22T09:00,Male,Adult,5,2,NA,NA,NA,NA,NA", lines[1]);
+		assertEquals("2016-08-22T10:15,Female,Child,7,3,65.0,50.0,Clouds,false,900", lines[2]);
+	}
+}
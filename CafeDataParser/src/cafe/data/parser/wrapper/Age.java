@@ -12,6 +12,9 @@ public class Age {
 	public static final int ADULT = 3;
 	public static final int SENIOR = 4;
 	
+	// Shared objects for each supported value, indexed by the value.
+	private static final Age[] VALUES = { new Age(UNKNOWN), new Age(CHILD), new Age(YOUNG_ADULT), new Age(ADULT), new Age(SENIOR) };
+	
 	final private int value;
 	
 	/**
@@ -22,6 +25,26 @@ public class Age {
 		this.value = value;
 	}
 	
+	/**
+	 * Returns the shared Age object for a supported value so rows do not each build their own.
+	 * A new object is built for an unsupported value.
+	 * @param value
+	 * @return the Age object of the value
+	 */
+	public static Age of(int value) {
+		if (value >= UNKNOWN && value <= SENIOR) {
+			return VALUES[value];
+		}
+		return new Age(value);
+	}
+	
+	/**
+	 * @return the integer value of this Age
+	 */
+	public int getValue() {
+		return value;
+	}
+	
 	/**
 	 * Returns the corresponding string value for the object's value.
 	 * Returns 'Error' if the value is unsupported.
@@ -67,6 +90,9 @@ public class Age {
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null) {
 			return false;
 		}
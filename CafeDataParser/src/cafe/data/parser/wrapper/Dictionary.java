@@ -0,0 +1,203 @@
+package cafe.data.parser.wrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Helper object mapping the string values of a data file column to small integer codes, in the order the values are first seen.
+ * Columns such as the item type or the day of week only hold a handful of distinct values, so rows keep the code
+ * and the string is only looked up again when it is written out. Codes can be compared in place of the strings.
+ * The shared dictionaries below are used by every row so a code means the same value everywhere.
+ * Safe to use from several threads.
+ * @author Ryan Zembrodt
+ */
+public class Dictionary {
+	// Shared dictionaries for the repeated string columns of the point of sale data file.
+	public static final Dictionary ITEM_TYPE = new Dictionary("ItemType"); // Purchased and advertised item type
+	public static final Dictionary ITEM_TEMP = new Dictionary("ItemTemp"); // Purchased and advertised item temperature
+	public static final Dictionary ITEM_HEALTH = new Dictionary("ItemHealth"); // Purchased and advertised item health
+	public static final Dictionary DAY_OF_WEEK = new Dictionary("DayOfWeek");
+	public static final Dictionary PRECIPITATION = new Dictionary("Precipitation");
+	
+	// Code used for a null value, and for a new value once the dictionary is full.
+	public static final int NULL_CODE = -1;
+	// Codes are stored as shorts.
+	public static final int MAX_SIZE = Short.MAX_VALUE + 1;
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private final String name;
+	private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<String, Integer>();
+	// Values and their UTF-8 bytes indexed by their code. Only written under the lock; the arrays are grown by replacing them,
+	// and a value is published by the write to size that follows it, so readers need no lock.
+	private volatile String[] values = new String[INITIAL_CAPACITY];
+	private volatile byte[][] valueBytes = new byte[INITIAL_CAPACITY][];
+	private volatile int size;
+	// Open addressing table of the codes by the hash of their bytes, holding code + 1 with 0 for an empty slot.
+	private volatile int[] slots = new int[INITIAL_CAPACITY * 2];
+	
+	/**
+	 * Builds an empty dictionary.
+	 * @param name name of the column, used in error messages
+	 */
+	public Dictionary(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * Returns the code of a value, adding the value to the dictionary if it has not been seen before.
+	 * Once the dictionary holds {@link #MAX_SIZE} values, a value it does not hold is not added and gets {@link #NULL_CODE}.
+	 * @param value
+	 * @return the code of the value, or {@link #NULL_CODE} for null or for a new value of a full dictionary
+	 */
+	public int encode(String value) {
+		if (value == null) {
+			return NULL_CODE;
+		}
+		Integer code = codes.get(value);
+		if (code == null) {
+			code = add(value);
+		}
+		return code;
+	}
+	
+	/**
+	 * @param value
+	 * @return the code of the value, or -1 if the value is null or not in the dictionary
+	 */
+	public int find(String value) {
+		if (value == null) {
+			return -1;
+		}
+		Integer code = codes.get(value);
+		return code != null ? code : -1;
+	}
+	
+	/**
+	 * Finds the value held in UTF-8 in the bytes between start and end, without creating a String.
+	 * @param buffer
+	 * @param start
+	 * @param end
+	 * @return the code of the value, or -1 if the value is not in the dictionary
+	 */
+	public int find(byte[] buffer, int start, int end) {
+		int[] table = slots;
+		int mask = table.length - 1;
+		for (int i = hash(buffer, start, end) & mask; table[i] != 0; i = (i + 1) & mask) {
+			int code = table[i] - 1;
+			// A code is only used once the size publishing its value is seen, otherwise the caller encodes the value as a String.
+			if (code < size && equals(valueBytes[code], buffer, start, end)) {
+				return code;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * @param code
+	 * @return the value of the code, or null for {@link #NULL_CODE}
+	 * @throws ArrayIndexOutOfBoundsException if the code is not in the dictionary
+	 */
+	public String decode(int code) {
+		if (code == NULL_CODE) {
+			return null;
+		}
+		String value = values[code];
+		if (value == null) {
+			throw new ArrayIndexOutOfBoundsException(code);
+		}
+		return value;
+	}
+	
+	/**
+	 * @return the number of values in the dictionary
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return a copy of the values, indexed by their code
+	 */
+	public String[] toArray() {
+		int count = size;
+		return Arrays.copyOf(values, count);
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Adds a value under the lock, unless another thread added it first or the dictionary is full.
+	 * The arrays grow by doubling, so filling the dictionary only copies each value a constant number of times on average.
+	 */
+	private synchronized int add(String value) {
+		Integer code = codes.get(value);
+		if (code != null) {
+			return code;
+		}
+		int count = size;
+		if (count == MAX_SIZE) {
+			return NULL_CODE;
+		}
+		if (count == values.length) {
+			values = Arrays.copyOf(values, count * 2);
+			valueBytes = Arrays.copyOf(valueBytes, count * 2);
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		values[count] = value;
+		valueBytes[count] = bytes;
+		size = count + 1;
+		
+		if ((count + 1) * 2 > slots.length) {
+			int[] table = new int[slots.length * 2];
+			for (int c = 0; c < count; c++) {
+				insert(table, valueBytes[c], c);
+			}
+			insert(table, bytes, count);
+			slots = table;
+		} else {
+			insert(slots, bytes, count);
+		}
+		codes.put(value, count);
+		return count;
+	}
+	
+	/**
+	 * Puts a code in the first empty slot from the hash of its value's bytes.
+	 */
+	private static void insert(int[] table, byte[] bytes, int code) {
+		int mask = table.length - 1;
+		int i = hash(bytes, 0, bytes.length) & mask;
+		while (table[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		table[i] = code + 1;
+	}
+	
+	private static int hash(byte[] bytes, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + bytes[i];
+		}
+		return h ^ (h >>> 16);
+	}
+	
+	private static boolean equals(byte[] value, byte[] buffer, int start, int end) {
+		if (value.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < value.length; i++) {
+			if (value[i] != buffer[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public String toString() {
+		return name + Arrays.toString(toArray());
+	}
+}
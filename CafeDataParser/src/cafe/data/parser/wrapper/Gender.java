@@ -10,6 +10,9 @@ public class Gender {
 	public static final int MALE = 1;
 	public static final int FEMALE = 2;
 	
+	// Shared objects for each supported value, indexed by the value.
+	private static final Gender[] VALUES = { new Gender(UNKNOWN), new Gender(MALE), new Gender(FEMALE) };
+	
 	final private int value;
 	
 	/**
@@ -20,6 +23,26 @@ public class Gender {
 		this.value = value;
 	}
 	
+	/**
+	 * Returns the shared Gender object for a supported value so rows do not each build their own.
+	 * A new object is built for an unsupported value.
+	 * @param value
+	 * @return the Gender object of the value
+	 */
+	public static Gender of(int value) {
+		if (value >= UNKNOWN && value <= FEMALE) {
+			return VALUES[value];
+		}
+		return new Gender(value);
+	}
+	
+	/**
+	 * @return the integer value of this Gender
+	 */
+	public int getValue() {
+		return value;
+	}
+	
 	/**
 	 * Returns the corresponding string value for the object's value.
 	 * Returns 'Error' if the value is unsupported.
@@ -61,6 +84,9 @@ public class Gender {
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null) {
 			return false;
 		}
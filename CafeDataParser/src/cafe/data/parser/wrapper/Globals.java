@@ -13,6 +13,19 @@ public class Globals {
 	public static final String VIEWS_FILE   = "viewsData.csv";
 	public static final String WEATHER_FILE = "weatherData.csv";
 	
+	// Output filenames
+	public static final String WEATHER_GATES_OUTPUT      = "weatherGatesData.csv";
+	public static final String WEATHER_GATES_PREC_OUTPUT = "weatherGatesPrecData.csv";
+	public static final String VIEWS_OUTPUT              = "viewsFile.csv";
+	public static final String HEALTHY_OUTPUT            = "healthyData.csv";
+	public static final String HEALTHY_SCRIPT_OUTPUT     = "healthyScript.R";
+	public static final String WEATHER_SCRIPT_OUTPUT     = "weatherScript.R";
+	public static final String POPULATION_OUTPUT         = "populationData.csv";
+	public static final String POPULATION_AVG_OUTPUT     = "populationAvgData.csv";
+	public static final String VIEWS_PERCENTILES_OUTPUT  = "viewsPercentiles.csv";
+	public static final String EXPOSURE_OUTPUT           = "exposureData.csv";
+	public static final String VIEWS_WEATHER_OUTPUT      = "viewsWeatherData.csv";
+	
 	// Gates data
 	public static final int G_COL_COUNT = 6;
 	public static final int G_ROW_COUNT = 16041;
@@ -1,5 +1,8 @@
 package cafe.data.parser.wrapper;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Helper object used to represent the string values of precipitation from the point of sale and weather data files.
  * @author Ryan Zembrodt
@@ -25,6 +28,15 @@ public class Precipitation {
 	public static final String RAIN_STR     = "Rain";
 	public static final String SNOW_STR     = "Snow";
 	
+	// Shared objects for each supported string value, and for every unsupported value.
+	private static final Map<String, Precipitation> VALUES = new HashMap<String, Precipitation>();
+	private static final Precipitation UNKNOWN_PRECIPITATION = new Precipitation(UNKNOWN_STR);
+	static {
+		for (String value : new String[] { CLEAR_STR, CLOUDS_STR, DRIZZLE_STR, FOG_STR, MIST_STR, RAIN_STR, SNOW_STR }) {
+			VALUES.put(value, new Precipitation(value));
+		}
+	}
+	
 	final private String value;
 	final private int num;
 	
@@ -66,6 +78,17 @@ public class Precipitation {
 		}
 	}
 	
+	/**
+	 * Returns the shared Precipitation object of a string value so output lines do not each build their own.
+	 * All unsupported values share the 'Unknown precipitation' object.
+	 * @param value
+	 * @return the Precipitation object of the value
+	 */
+	public static Precipitation of(String value) {
+		Precipitation precipitation = VALUES.get(value);
+		return precipitation != null ? precipitation : UNKNOWN_PRECIPITATION;
+	}
+	
 	/**
 	 * @return the integer value of this Precipitation
 	 */
@@ -106,6 +129,9 @@ public class Precipitation {
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null) {
 			return false;
 		}
@@ -52,4 +52,15 @@ public class AgeTest extends TestCase {
 		assertFalse(age1.equals(nullAge));
 		assertFalse(age1.equals(new Object()));
 	}
+	
+	/**
+	 * Checks that of(int) returns the same object for each supported value and a correct object for an unsupported value.
+	 */
+	@Test
+	public void testOf() {
+		assertSame(Age.of(Age.ADULT), Age.of(Age.ADULT));
+		assertTrue(Age.of(Age.ADULT).equals(new Age(Age.ADULT)));
+		assertTrue(Age.of(Age.SENIOR).toString().equals("Senior"));
+		assertTrue(Age.of(7).toString().equals("ERROR"));
+	}
 }
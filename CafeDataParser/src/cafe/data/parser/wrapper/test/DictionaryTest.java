@@ -0,0 +1,111 @@
+package cafe.data.parser.wrapper.test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import cafe.data.parser.wrapper.Dictionary;
+import junit.framework.TestCase;
+
+/**
+ * JUnit4 test cases for {@link Dictionary}
+ * @author Ryan Zembrodt
+ */
+public class DictionaryTest extends TestCase {
+	/**
+	 * Checks that values are coded in the order they are first seen and decode back to the same value.
+	 */
+	@Test
+	public void testEncodeDecode() {
+		Dictionary dictionary = new Dictionary("Test");
+		
+		assertEquals(0, dictionary.encode("Food"));
+		assertEquals(1, dictionary.encode("Drink"));
+		assertEquals(0, dictionary.encode("Food"));
+		assertEquals(2, dictionary.size());
+		assertEquals("Drink", dictionary.decode(1));
+		assertEquals(1, dictionary.find("Drink"));
+		assertEquals(-1, dictionary.find("Both"));
+		assertEquals(2, dictionary.size());
+		
+		assertEquals(Dictionary.NULL_CODE, dictionary.encode(null));
+		assertNull(dictionary.decode(Dictionary.NULL_CODE));
+	}
+	
+	/**
+	 * Checks that threads encoding the same values at once all get the same code for each value.
+	 */
+	@Test
+	public void testConcurrentEncode() throws Exception {
+		final Dictionary dictionary = new Dictionary("Test");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+		for (int t = 0; t < 4; t++) {
+			results.add(executor.submit(new Callable<int[]>() {
+				public int[] call() {
+					int[] codes = new int[100];
+					for (int i = 0; i < codes.length; i++) {
+						codes[i] = dictionary.encode("value" + i);
+					}
+					return codes;
+				}
+			}));
+		}
+		executor.shutdown();
+		
+		int[] expected = results.get(0).get();
+		for (Future<int[]> result : results) {
+			int[] codes = result.get();
+			for (int i = 0; i < codes.length; i++) {
+				assertEquals(expected[i], codes[i]);
+				assertEquals("value" + i, dictionary.decode(codes[i]));
+			}
+		}
+		assertEquals(100, dictionary.size());
+	}
+	
+	/**
+	 * Checks that values are found from their UTF-8 bytes, including values added after the table of codes grew.
+	 */
+	@Test
+	public void testFindBytes() {
+		Dictionary dictionary = new Dictionary("Test");
+		for (int i = 0; i < 1000; i++) {
+			dictionary.encode("value" + i);
+		}
+		dictionary.encode("Caf\u00e9");
+		byte[] line = "x,value999,Caf\u00e9,value1000".getBytes(StandardCharsets.UTF_8);
+		assertEquals(999, dictionary.find(line, 2, 10));
+		assertEquals(1000, dictionary.find(line, 11, 16));
+		assertEquals(-1, dictionary.find(line, 17, line.length));
+		assertEquals(-1, dictionary.find(line, 0, 0));
+		assertEquals(1001, dictionary.toArray().length);
+	}
+	
+	/**
+	 * Checks that a full dictionary gives new values the null code instead of failing, and still encodes the values it holds.
+	 */
+	@Test
+	public void testFull() {
+		Dictionary dictionary = new Dictionary("Test");
+		for (int i = 0; i < Dictionary.MAX_SIZE; i++) {
+			assertEquals(i, dictionary.encode("value" + i));
+		}
+		assertEquals(Dictionary.NULL_CODE, dictionary.encode("one more"));
+		assertEquals(Dictionary.MAX_SIZE, dictionary.size());
+		assertEquals(-1, dictionary.find("one more"));
+		assertEquals(5, dictionary.encode("value5"));
+		try {
+			dictionary.decode(Dictionary.MAX_SIZE);
+			fail("Decoded a code that is not in the dictionary");
+		} catch (ArrayIndexOutOfBoundsException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+}
@@ -50,4 +50,15 @@ public class GenderTest extends TestCase {
 		assertFalse(gender1.equals(nullGender));
 		assertFalse(gender1.equals(new Object()));
 	}
+	
+	/**
+	 * Checks that of(int) returns the same object for each supported value and a correct object for an unsupported value.
+	 */
+	@Test
+	public void testOf() {
+		assertSame(Gender.of(Gender.FEMALE), Gender.of(Gender.FEMALE));
+		assertTrue(Gender.of(Gender.FEMALE).equals(new Gender(Gender.FEMALE)));
+		assertTrue(Gender.of(Gender.MALE).toString().equals("Male"));
+		assertTrue(Gender.of(-1).toString().equals("ERROR"));
+	}
 }
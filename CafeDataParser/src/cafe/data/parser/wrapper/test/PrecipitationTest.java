@@ -78,4 +78,15 @@ public class PrecipitationTest extends TestCase {
 		assertFalse(precipitation1.equals(nullPrecipitation));
 		assertFalse(precipitation1.equals(new Object()));
 	}
+	
+	/**
+	 * Checks that of(String) returns the same object for each supported value, and the shared unknown object for any other value.
+	 */
+	@Test
+	public void testOf() {
+		assertSame(Precipitation.of(Precipitation.RAIN_STR), Precipitation.of(Precipitation.RAIN_STR));
+		assertTrue(Precipitation.of(Precipitation.RAIN_STR).equals(Precipitation.RAIN));
+		assertSame(Precipitation.of("Hail"), Precipitation.of("Sleet"));
+		assertTrue(Precipitation.of("Hail").equals(new Precipitation("Hail")));
+	}
 }